@@ -0,0 +1,150 @@
+package org.commongeoregistry.adapter.android;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import junit.framework.Assert;
+
+import org.commongeoregistry.adapter.id.EmptyIdCacheException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+@RunWith(AndroidJUnit4.class)
+public class AndroidSQLiteIdServiceTest {
+    private AndroidRegistryClient client;
+
+    private LocalObjectCache cache;
+
+    private AndroidSQLiteIdService idService;
+
+    @Before
+    public void setup() {
+        Context context = InstrumentationRegistry.getTargetContext();
+
+        this.client = new AndroidRegistryClient(new MockHttpConnector(), context);
+        this.cache = this.client.getLocalCache();
+        this.cache.clear();
+
+        this.idService = (AndroidSQLiteIdService) this.client.getIdSerivce();
+        this.idService.setClaimSize(10);
+    }
+
+    @After
+    public void tearDown() {
+        this.cache.clear();
+        this.cache.close();
+    }
+
+    @Test
+    public void testNext() {
+        this.cache.addRegistryIds(newIds(100));
+
+        Set<String> ids = new HashSet<String>();
+        ids.add(this.idService.next());
+
+        // The first id claims a whole block from the database
+        Assert.assertEquals(90, this.cache.countNumberRegistryIds());
+
+        for (int i = 1; i < 10; i++) {
+            ids.add(this.idService.next());
+        }
+
+        Assert.assertEquals(10, ids.size());
+        Assert.assertEquals(90, this.cache.countNumberRegistryIds());
+
+        ids.add(this.idService.next());
+
+        Assert.assertEquals(11, ids.size());
+        Assert.assertEquals(80, this.cache.countNumberRegistryIds());
+    }
+
+    @Test
+    public void testNextBlock() {
+        this.cache.addRegistryIds(newIds(100));
+
+        List<String> first = this.idService.next(25);
+        Assert.assertEquals(25, first.size());
+        Assert.assertEquals(75, this.cache.countNumberRegistryIds());
+
+        // Smaller than a claim, a block of claim size is taken
+        List<String> second = this.idService.next(5);
+        Assert.assertEquals(5, second.size());
+        Assert.assertEquals(65, this.cache.countNumberRegistryIds());
+
+        Set<String> ids = new HashSet<String>(first);
+        ids.addAll(second);
+        ids.add(this.idService.next());
+
+        Assert.assertEquals(31, ids.size());
+        Assert.assertEquals(65, this.cache.countNumberRegistryIds());
+    }
+
+    @Test
+    public void testRelease() {
+        this.cache.addRegistryIds(newIds(100));
+
+        String id = this.idService.next();
+        Assert.assertEquals(90, this.cache.countNumberRegistryIds());
+
+        this.idService.release();
+        Assert.assertEquals(99, this.cache.countNumberRegistryIds());
+
+        // Nothing claimed, nothing to give back
+        this.idService.release();
+        Assert.assertEquals(99, this.cache.countNumberRegistryIds());
+
+        Set<String> ids = new HashSet<String>(this.idService.next(99));
+        Assert.assertEquals(99, ids.size());
+        Assert.assertFalse(ids.contains(id));
+    }
+
+    @Test
+    public void testEmpty() {
+        try {
+            this.idService.next();
+
+            Assert.fail("Expected an EmptyIdCacheException");
+        } catch (EmptyIdCacheException e) {
+            // Expected
+        }
+
+        this.cache.addRegistryIds(newIds(8));
+
+        try {
+            this.idService.next(20);
+
+            Assert.fail("Expected an EmptyIdCacheException");
+        } catch (EmptyIdCacheException e) {
+            // Expected
+        }
+
+        // The ids claimed by the failed call stay with the service
+        Assert.assertEquals(0, this.cache.countNumberRegistryIds());
+        Assert.assertEquals(8, new HashSet<String>(this.idService.next(8)).size());
+
+        this.cache.addRegistryIds(newIds(3));
+        this.idService.next(2);
+        this.idService.release();
+
+        Assert.assertEquals(1, this.cache.countNumberRegistryIds());
+    }
+
+    private static List<String> newIds(int count) {
+        List<String> ids = new ArrayList<String>(count);
+
+        for (int i = 0; i < count; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+
+        return ids;
+    }
+}
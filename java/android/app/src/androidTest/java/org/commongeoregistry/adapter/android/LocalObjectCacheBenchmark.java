@@ -0,0 +1,180 @@
+package org.commongeoregistry.adapter.android;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import junit.framework.Assert;
+
+import org.commongeoregistry.adapter.HttpRegistryClient;
+import org.commongeoregistry.adapter.MockIdService;
+import org.commongeoregistry.adapter.constants.GeometryType;
+import org.commongeoregistry.adapter.dataaccess.ChildTreeNode;
+import org.commongeoregistry.adapter.dataaccess.GeoObject;
+import org.commongeoregistry.adapter.dataaccess.ParentTreeNode;
+import org.commongeoregistry.adapter.metadata.HierarchyType;
+import org.commongeoregistry.adapter.metadata.MetadataFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Compares reading a synthetic hierarchy of 20,000 households, a province with 4 districts of 5 communes of 10 villages
+ * of 100 households, from the {@link LocalObjectCache} with one recursive query against one query per node, the way
+ * recursive lookups used to be done. The timings are written to the log under the tag of the class.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LocalObjectCacheBenchmark {
+    private static final String TAG = "LocalObjectCacheBenchmark";
+
+    private static final String[] TYPES = new String[]{"PROVINCE", "DISTRICT", "COMMUNE", "VILLAGE", "HOUSEHOLD"};
+
+    private static final int[] FAN_OUT = new int[]{4, 5, 10, 100};
+
+    private static final String GEOPOLITICAL = "GEOPOLITICAL";
+
+    private HttpRegistryClient client;
+
+    private LocalObjectCache cache;
+
+    private HierarchyType geoPolitical;
+
+    @Before
+    public void setup() {
+        this.client = new HttpRegistryClient(new MockHttpConnector(), new MockIdService());
+
+        Context context = InstrumentationRegistry.getTargetContext();
+
+        this.cache = new LocalObjectCache(context, this.client);
+        this.cache.clear();
+
+        this.geoPolitical = MetadataFactory.newHierarchyType(GEOPOLITICAL, "Geopolitical", "Geopolitical Hierarchy", client);
+
+        HierarchyType.HierarchyNode parent = null;
+
+        for (String type : TYPES) {
+            HierarchyType.HierarchyNode node = new HierarchyType.HierarchyNode(MetadataFactory.newGeoObjectType(type, GeometryType.POLYGON, type, "", false, client));
+
+            if (parent == null) {
+                this.geoPolitical.addRootGeoObjects(node);
+            } else {
+                parent.addChild(node);
+            }
+
+            parent = node;
+        }
+    }
+
+    @After
+    public void tearDown() {
+        this.cache.clear();
+        this.cache.close();
+    }
+
+    @Test
+    public void benchmarkRecursiveLookups() {
+        ChildTreeNode root = this.newNode("P", 0);
+
+        Deque<ChildTreeNode> pending = new ArrayDeque<ChildTreeNode>();
+        pending.push(root);
+
+        String household = null;
+
+        while (!pending.isEmpty()) {
+            ChildTreeNode node = pending.pop();
+            int level = this.level(node);
+
+            if (level < FAN_OUT.length) {
+                for (int i = 0; i < FAN_OUT[level]; i++) {
+                    ChildTreeNode child = this.newNode(node.getGeoObject().getUid() + "." + i, level + 1);
+                    node.addChild(child);
+                    pending.push(child);
+
+                    household = child.getGeoObject().getUid();
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        this.cache.cache(root);
+        Log.i(TAG, "Cached the hierarchy in " + millis(start) + " ms");
+
+        String[] hierarchies = new String[]{GEOPOLITICAL};
+
+        // Warm up
+        this.cache.getChildGeoObjects(root.getGeoObject().getUid(), hierarchies, true);
+
+        start = System.nanoTime();
+        ChildTreeNode tree = this.cache.getChildGeoObjects(root.getGeoObject().getUid(), hierarchies, true);
+        Log.i(TAG, "Recursive query: " + count(tree) + " children in " + millis(start) + " ms");
+
+        start = System.nanoTime();
+        int queries = 0;
+        int children = 0;
+
+        pending.push(this.cache.getChildGeoObjects(root.getGeoObject().getUid(), hierarchies, false));
+
+        while (!pending.isEmpty()) {
+            ChildTreeNode node = pending.pop();
+            queries++;
+
+            for (ChildTreeNode child : node.getChildren()) {
+                children++;
+
+                if (this.level(child) < FAN_OUT.length) {
+                    pending.push(this.cache.getChildGeoObjects(child.getGeoObject().getUid(), hierarchies, false));
+                }
+            }
+        }
+
+        Log.i(TAG, "Query per node: " + children + " children with " + queries + " queries in " + millis(start) + " ms");
+
+        Assert.assertEquals(children, count(tree));
+
+        start = System.nanoTime();
+        ParentTreeNode parents = this.cache.getParentGeoObjects(household, hierarchies, true);
+        Log.i(TAG, "Recursive parents of a household in " + millis(start) + " ms");
+
+        Assert.assertEquals(root.getGeoObject().getUid(), parents.getParents().get(0).getParents().get(0).getParents().get(0).getParents().get(0).getGeoObject().getUid());
+    }
+
+    private ChildTreeNode newNode(String uid, int level) {
+        GeoObject geoObject = this.client.newGeoObjectInstance(TYPES[level], false);
+        geoObject.setUid(uid);
+        geoObject.setCode(uid);
+        geoObject.setLocalizedDisplayLabel(TYPES[level] + " " + uid);
+
+        return new ChildTreeNode(geoObject, this.geoPolitical);
+    }
+
+    private int level(ChildTreeNode node) {
+        String type = node.getGeoObject().getType().getCode();
+
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].equals(type)) {
+                return i;
+            }
+        }
+
+        throw new IllegalStateException(type);
+    }
+
+    private static int count(ChildTreeNode node) {
+        int count = 0;
+
+        for (ChildTreeNode child : node.getChildren()) {
+            count += 1 + count(child);
+        }
+
+        return count;
+    }
+
+    private static long millis(long start) {
+        return (System.nanoTime() - start) / 1000000;
+    }
+}
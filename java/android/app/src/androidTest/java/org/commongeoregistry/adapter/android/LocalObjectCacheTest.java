@@ -19,6 +19,7 @@ import org.commongeoregistry.adapter.constants.GeometryType;
 import org.commongeoregistry.adapter.dataaccess.ChildTreeNode;
 import org.commongeoregistry.adapter.dataaccess.GeoObject;
 import org.commongeoregistry.adapter.dataaccess.ParentTreeNode;
+import org.commongeoregistry.adapter.id.EmptyIdCacheException;
 import org.commongeoregistry.adapter.metadata.AttributeTermType;
 import org.commongeoregistry.adapter.metadata.AttributeType;
 import org.commongeoregistry.adapter.metadata.GeoObjectType;
@@ -31,6 +32,7 @@ import org.junit.runner.RunWith;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 
@@ -330,6 +332,43 @@ public class LocalObjectCacheTest {
         }
     }
 
+    @Test
+    public void testGetChildGeoObjectsRecursiveCycle() {
+        GeoObject pOne = client.newGeoObjectInstance(PROVINCE);
+        pOne.setCode("pOne");
+        pOne.setUid("pOne");
+        ChildTreeNode ptOne = new ChildTreeNode(pOne, geoPolitical);
+
+        GeoObject dOne = client.newGeoObjectInstance(DISTRICT);
+        dOne.setCode("dOne");
+        dOne.setUid("dOne");
+        ChildTreeNode dtOne = new ChildTreeNode(dOne, geoPolitical);
+        ptOne.addChild(dtOne);
+
+        // The district is cached as the parent of the province as well
+        ChildTreeNode dtTwo = new ChildTreeNode(dOne, geoPolitical);
+        dtTwo.addChild(new ChildTreeNode(pOne, geoPolitical));
+
+        try {
+            cache.cache(ptOne);
+            cache.cache(dtTwo);
+
+            ChildTreeNode test = cache.getChildGeoObjects(pOne.getUid(), new String[]{geoPolitical.getCode()}, false);
+
+            Assert.assertEquals(1, test.getChildren().size());
+
+            try {
+                cache.getChildGeoObjects(pOne.getUid(), new String[]{geoPolitical.getCode()}, true);
+
+                Assert.fail("Expected the cycle to be detected");
+            } catch (RuntimeException e) {
+                Assert.assertTrue(e.getMessage().contains("cycle"));
+            }
+        } finally {
+            cache.close();
+        }
+    }
+
     @Test
     public void testGetParentGeoObjects() {
 
@@ -555,4 +594,42 @@ public class LocalObjectCacheTest {
         cache.addRegistryIds(newIds);
         Assert.assertEquals(50, cache.countNumberRegistryIds());
     }
+
+    @Test
+    public void testClaimIds() {
+        Collection<String> newIds = new HashSet<>();
+
+        for (int i = 0; i < 100; ++i)
+        {
+            newIds.add(MockIdService.genId());
+        }
+
+        cache.addRegistryIds(newIds);
+
+        // A claim removes the ids from the database in one transaction
+        List<String> claimed = cache.claimRegistryIds(30);
+        Assert.assertEquals(30, new HashSet<>(claimed).size());
+        Assert.assertTrue(newIds.containsAll(claimed));
+        Assert.assertEquals(70, cache.countNumberRegistryIds());
+
+        // A claim larger than the database returns the rest
+        List<String> rest = cache.claimRegistryIds(100);
+        Assert.assertEquals(70, rest.size());
+        Assert.assertTrue(Collections.disjoint(claimed, rest));
+        Assert.assertEquals(0, cache.countNumberRegistryIds());
+
+        Assert.assertTrue(cache.claimRegistryIds(10).isEmpty());
+
+        try {
+            cache.nextRegistryId();
+
+            Assert.fail("Expected an EmptyIdCacheException");
+        } catch (EmptyIdCacheException e) {
+            // Expected
+        }
+
+        // Unused ids can be given back
+        cache.addRegistryIds(rest);
+        Assert.assertEquals(70, cache.countNumberRegistryIds());
+    }
 }
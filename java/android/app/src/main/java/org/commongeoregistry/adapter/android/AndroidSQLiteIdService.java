@@ -4,10 +4,37 @@ import org.commongeoregistry.adapter.id.AdapterIdServiceIF;
 import org.commongeoregistry.adapter.id.EmptyIdCacheException;
 import org.commongeoregistry.adapter.id.MemoryOnlyIdService;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Set;
 
+/**
+ * Keeps the registry ids in the {@link LocalObjectCache}. Ids are claimed from the database in blocks of
+ * {@link #getClaimSize()} with {@link LocalObjectCache#claimRegistryIds(int)}, one transaction per block, and handed
+ * out from memory. A claimed block is removed from the database when it is claimed, if the process dies the unused
+ * rest of the block is lost but never handed out twice. {@link #release()} gives it back.
+ */
 public class AndroidSQLiteIdService extends MemoryOnlyIdService implements AdapterIdServiceIF
 {
+    public static final int DEFAULT_CLAIM_SIZE = 50;
+
+    private final Deque<String> claimed = new ArrayDeque<String>();
+
+    private int claimSize = DEFAULT_CLAIM_SIZE;
+
+    public int getClaimSize() {
+        return this.claimSize;
+    }
+
+    /**
+     * @param claimSize number of ids claimed from the database in one transaction.
+     */
+    public void setClaimSize(int claimSize) {
+        this.claimSize = Math.max(1, claimSize);
+    }
+
     @Override
     public void populate(int size)
     {
@@ -15,7 +42,7 @@ public class AndroidSQLiteIdService extends MemoryOnlyIdService implements Adapt
         {
             AndroidRegistryClient androidClient = (AndroidRegistryClient) this.client;
 
-            int amount = size - androidClient.getLocalCache().countNumberRegistryIds();
+            int amount = size - androidClient.getLocalCache().countNumberRegistryIds() - this.claimed.size();
 
             if (amount > 0) {
                 Set<String> fetchedSet = this.client.getGeoObjectUids(amount);
@@ -28,9 +55,62 @@ public class AndroidSQLiteIdService extends MemoryOnlyIdService implements Adapt
     @Override
     public String next() throws EmptyIdCacheException {
         synchronized(lock) {
-            AndroidRegistryClient androidClient = (AndroidRegistryClient) this.client;
+            if (this.claimed.isEmpty()) {
+                this.claim(this.claimSize);
+            }
 
-            return androidClient.getLocalCache().nextRegistryId();
+            if (this.claimed.isEmpty()) {
+                throw new EmptyIdCacheException();
+            }
+
+            return this.claimed.poll();
         }
     }
+
+    /**
+     * Claims the missing ids in one transaction. If the database holds fewer than n ids the claimed ones stay with the
+     * service for the following calls.
+     */
+    @Override
+    public List<String> next(int n) throws EmptyIdCacheException {
+        synchronized(lock) {
+            if (this.claimed.size() < n) {
+                this.claim(Math.max(this.claimSize, n - this.claimed.size()));
+            }
+
+            if (this.claimed.size() < n) {
+                throw new EmptyIdCacheException();
+            }
+
+            List<String> ids = new ArrayList<String>(n);
+
+            for (int i = 0; i < n; i++) {
+                ids.add(this.claimed.poll());
+            }
+
+            return ids;
+        }
+    }
+
+    /**
+     * Gives the claimed ids which have not been handed out back to the database, for example before the application
+     * is stopped.
+     */
+    public void release() {
+        synchronized(lock) {
+            if (!this.claimed.isEmpty()) {
+                AndroidRegistryClient androidClient = (AndroidRegistryClient) this.client;
+
+                androidClient.getLocalCache().addRegistryIds(this.claimed);
+
+                this.claimed.clear();
+            }
+        }
+    }
+
+    private void claim(int count) {
+        AndroidRegistryClient androidClient = (AndroidRegistryClient) this.client;
+
+        this.claimed.addAll(androidClient.getLocalCache().claimRegistryIds(count));
+    }
 }
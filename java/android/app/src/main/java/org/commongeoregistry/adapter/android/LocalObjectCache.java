@@ -3,10 +3,11 @@ package org.commongeoregistry.adapter.android;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.provider.BaseColumns;
-import android.support.annotation.NonNull;
 import android.text.TextUtils;
 
 import org.commongeoregistry.adapter.RegistryAdapter;
@@ -29,15 +30,20 @@ import org.commongeoregistry.adapter.dataaccess.GeoObject;
 import org.commongeoregistry.adapter.dataaccess.ParentTreeNode;
 import org.commongeoregistry.adapter.dataaccess.TreeNode;
 import org.commongeoregistry.adapter.id.EmptyIdCacheException;
+import org.commongeoregistry.adapter.json.JsonStreams;
 import org.commongeoregistry.adapter.metadata.HierarchyType;
 
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 
@@ -57,19 +63,38 @@ public class LocalObjectCache implements Serializable {
     private static final long serialVersionUID = 4759560897184243298L;
 
     /**
-     * Index of parent object in the database cursor
+     * Index of the uid of the object a relationship starts from in the relationship cursor
      */
-    private static final int PARENT_INDEX = 0;
+    private static final int SOURCE_INDEX = 0;
 
     /**
-     * Index of child object in the database cursor
+     * Index of the uid of the related object in the relationship cursor
      */
-    private static final int CHILD_INDEX = 1;
+    private static final int TARGET_INDEX = 1;
 
     /**
-     * Index of hierarchy column in the database cursor
+     * Index of the related object in the relationship cursor
      */
-    private static final int HIERARCHY_INDEX = 2;
+    private static final int OBJECT_INDEX = 2;
+
+    /**
+     * Index of hierarchy column in the relationship cursor
+     */
+    private static final int HIERARCHY_INDEX = 3;
+
+    /**
+     * Object and hierarchy of a relationship read from the relationship cursor.
+     */
+    private static class Relationship {
+        private final GeoObject geoObject;
+
+        private final HierarchyType hierarchyType;
+
+        private Relationship(GeoObject geoObject, HierarchyType hierarchyType) {
+            this.geoObject = geoObject;
+            this.hierarchyType = hierarchyType;
+        }
+    }
 
     /*
      * Database helper for managing the local cache sqlite database
@@ -137,53 +162,73 @@ public class LocalObjectCache implements Serializable {
     {
         SQLiteDatabase db = mDbHelper.getReadableDatabase();
 
-        Cursor cursor = null;
+        return (int) DatabaseUtils.queryNumEntries(db, LocalCacheContract.RegistryIdEntry.TABLE_NAME);
+    }
+
+    /**
+     * Inserts the given ids in one transaction through a single compiled statement.
+     *
+     * @param newIds
+     */
+    public void addRegistryIds(Collection<String> newIds)
+    {
+        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+
+        SQLiteStatement statement = db.compileStatement("INSERT INTO " + LocalCacheContract.RegistryIdEntry.TABLE_NAME + " (" + LocalCacheContract.RegistryIdEntry.COLUMN_NAME_REGISTRY_ID + ") VALUES (?)");
+
         try {
-            cursor = db.query(
-                LocalCacheContract.RegistryIdEntry.TABLE_NAME,
-                new String[]{LocalCacheContract.RegistryIdEntry.COLUMN_NAME_ID},
-                null,
-                null,
-                null,
-                null,
-                null
-            );
+            db.beginTransaction();
 
-            return cursor.getCount();
-        } finally {
-            if (cursor != null) {
-                cursor.close();
+            for (String id : newIds) {
+                statement.bindString(1, id);
+                statement.executeInsert();
+                statement.clearBindings();
             }
+
+            db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            throw new RuntimeException("Unable to add registry ids. A database error has occurred.", e);
+        } finally {
+            db.endTransaction();
+            statement.close();
         }
     }
 
-    public void addRegistryIds(Collection<String> newIds)
+    public String nextRegistryId()
     {
-        SQLiteDatabase db = mDbHelper.getReadableDatabase();
-
-        for (String id : newIds) {
-            ContentValues values = new ContentValues();
-            values.put(LocalCacheContract.RegistryIdEntry.COLUMN_NAME_REGISTRY_ID, id);
+        List<String> ids = this.claimRegistryIds(1);
 
-            db.insertWithOnConflict(LocalCacheContract.RegistryIdEntry.TABLE_NAME, null, values, SQLiteDatabase.CONFLICT_FAIL);
+        if (ids.isEmpty())
+        {
+            throw new EmptyIdCacheException();
         }
+
+        return ids.get(0);
     }
 
-    public String nextRegistryId()
+    /**
+     * Claims up to the given number of ids, oldest first. The ids are read and removed from the database in one
+     * transaction, so a claimed id is never handed out again, even if the process dies before the caller used it.
+     * Unused ids can be given back with {@link #addRegistryIds(Collection)}.
+     *
+     * @param count maximum number of ids to claim.
+     * @return the claimed ids, fewer than count if the database does not hold enough.
+     */
+    public List<String> claimRegistryIds(int count)
     {
-        SQLiteDatabase db = mDbHelper.getReadableDatabase();
+        SQLiteDatabase db = mDbHelper.getWritableDatabase();
 
         String[] projection = {
                 LocalCacheContract.RegistryIdEntry.COLUMN_NAME_REGISTRY_ID,
                 LocalCacheContract.RegistryIdEntry.COLUMN_NAME_ID
         };
 
-        String registryId;
-        String id;
+        List<String> registryIds = new ArrayList<String>(count);
 
-        // Fetch an id from the database
         Cursor cursor = null;
         try {
+            db.beginTransaction();
+
             cursor = db.query(
                     LocalCacheContract.RegistryIdEntry.TABLE_NAME,   // The table to query
                     projection,             // The array of columns to return (pass null to get all)
@@ -191,33 +236,40 @@ public class LocalObjectCache implements Serializable {
                     null,          // The values for the WHERE clause
                     null,                   // don't group the rows
                     null,                   // don't filter by row groups
-                    null               // The sort order
+                    LocalCacheContract.RegistryIdEntry.COLUMN_NAME_ID + " ASC",               // The sort order
+                    String.valueOf(count)   // The number of rows
             );
 
-            if (!cursor.moveToNext())
+            long lastId = -1;
+
+            while (cursor.moveToNext())
             {
-                throw new EmptyIdCacheException();
+                registryIds.add(cursor.getString(0));
+                lastId = cursor.getLong(1);
             }
 
-            registryId = cursor.getString(0);
-            id = cursor.getString(1);
+            // The claimed ids are the ones up to the last row read
+            if (lastId != -1)
+            {
+                db.delete(
+                    LocalCacheContract.RegistryIdEntry.TABLE_NAME,
+                    LocalCacheContract.RegistryIdEntry.COLUMN_NAME_ID + " <= ?",
+                    new String[]{String.valueOf(lastId)}
+                );
+            }
 
+            db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            throw new RuntimeException("Unable to claim registry ids. A database error has occurred.", e);
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
-        }
-
-
-        // Remove the id from the database
-        db.delete(
-            LocalCacheContract.RegistryIdEntry.TABLE_NAME,
-            LocalCacheContract.RegistryIdEntry.COLUMN_NAME_ID + " = ?",
-            new String[]{id}
-        );
 
+            db.endTransaction();
+        }
 
-        return registryId;
+        return registryIds;
     }
 
     /**
@@ -528,7 +580,7 @@ public class LocalObjectCache implements Serializable {
     public void insertAction(AbstractAction action, SQLiteDatabase db)
     {
         ContentValues values = new ContentValues();
-        values.put(LocalCacheContract.ActionEntry.COLUMN_NAME_JSON, action.toJSON().toString());
+        values.put(LocalCacheContract.ActionEntry.COLUMN_NAME_JSON, JsonStreams.toString(action::writeTo));
         values.put(LocalCacheContract.ActionEntry.COLUMN_NAME_TYPE, action.getClass().getName());
 
         db.insertWithOnConflict(LocalCacheContract.ActionEntry.TABLE_NAME, null, values, SQLiteDatabase.CONFLICT_FAIL);
@@ -537,7 +589,7 @@ public class LocalObjectCache implements Serializable {
     private void insertGeoObject(GeoObject geoObject, SQLiteDatabase db) {
         ContentValues values = new ContentValues();
         values.put(GeoObjectEntry.COLUMN_NAME_UID, geoObject.getUid());
-        values.put(GeoObjectEntry.COLUMN_NAME_OBJECT, geoObject.toJSON().toString());
+        values.put(GeoObjectEntry.COLUMN_NAME_OBJECT, JsonStreams.toString(geoObject::writeTo));
 
         db.insertWithOnConflict(GeoObjectEntry.TABLE_NAME, null, values, SQLiteDatabase.CONFLICT_REPLACE);
     }
@@ -625,66 +677,41 @@ public class LocalObjectCache implements Serializable {
     public void addChildren(ChildTreeNode parent, String[] childrenTypes, Boolean recursive) {
         SQLiteDatabase db = mDbHelper.getReadableDatabase();
 
-        List<ChildTreeNode> children = new LinkedList<ChildTreeNode>();
+        Map<String, List<Relationship>> relationships = this.getRelationships(parent.getGeoObject().getUid(), childrenTypes, recursive, true, db);
 
-        Cursor cursor = null;
+        // Assemble the tree from the relationships read in one query, depth first
+        int count = count(relationships);
+        Deque<ChildTreeNode> pending = new ArrayDeque<ChildTreeNode>();
+        Deque<Integer> depths = new ArrayDeque<Integer>();
+        pending.push(parent);
+        depths.push(0);
 
-        try {
-            cursor = this.getChildrenCursor(parent.getGeoObject().getUid(), childrenTypes, db);
+        while (!pending.isEmpty()) {
+            ChildTreeNode node = pending.pop();
+            int depth = depths.pop();
 
-            while (cursor.moveToNext()) {
-                children.add(this.getChildTreeNode(cursor));
-            }
-        } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
-        }
+            List<Relationship> children = relationships.get(node.getGeoObject().getUid());
 
-        for (ChildTreeNode child : children) {
-            if (recursive) {
-                this.addChildren(child, childrenTypes, recursive);
+            if (children == null || (depth > 0 && !recursive)) {
+                continue;
             }
 
-            parent.addChild(child);
-        }
-    }
+            // A path longer than the number of relationships repeats one of them
+            if (depth > count) {
+                throw new RuntimeException("The hierarchy of GeoObject with uid [" + node.getGeoObject().getUid() + "] contains a cycle");
+            }
 
-    @NonNull
-    private ChildTreeNode getChildTreeNode(Cursor cursor) {
-        GeoObject child = GeoObject.fromJSON(this.adapter, cursor.getString(CHILD_INDEX));
-        String code = cursor.getString(HIERARCHY_INDEX);
+            for (Relationship relationship : children) {
+                ChildTreeNode child = new ChildTreeNode(relationship.geoObject, relationship.hierarchyType);
 
-        Optional<HierarchyType> oHierarchyType = this.adapter.getMetadataCache().getHierachyType(code);
+                node.addChild(child);
 
-        if (!oHierarchyType.isPresent()) {
-            throw new RuntimeException("Unknown hierarchy type for code [" + code + "]");
+                pending.push(child);
+                depths.push(depth + 1);
+            }
         }
-
-        HierarchyType hierarchyType = oHierarchyType.get();
-
-        return new ChildTreeNode(child, hierarchyType);
     }
 
-    private Cursor getChildrenCursor(String parentId, String[] childrenTypes, SQLiteDatabase db) {
-        StringBuilder sql = new StringBuilder();
-        sql.append("SELECT p." + GeoObjectEntry.COLUMN_NAME_OBJECT);
-        sql.append(", c." + GeoObjectEntry.COLUMN_NAME_OBJECT);
-        sql.append(", n." + TreeNodeEntry.COLUMN_NAME_HIERARCHY);
-        sql.append(" FROM " + TreeNodeEntry.TABLE_NAME + " AS n");
-        sql.append(" INNER JOIN " + GeoObjectEntry.TABLE_NAME + " AS p ON p." + GeoObjectEntry.COLUMN_NAME_UID + " = n." + TreeNodeEntry.COLUMN_NAME_PARENT);
-        sql.append(" INNER JOIN " + GeoObjectEntry.TABLE_NAME + " AS c ON c." + GeoObjectEntry.COLUMN_NAME_UID + " = n." + TreeNodeEntry.COLUMN_NAME_CHILD);
-        sql.append(" WHERE n." + TreeNodeEntry.COLUMN_NAME_PARENT + " = ?");
-        sql.append(" AND n." + TreeNodeEntry.COLUMN_NAME_HIERARCHY + " IN (" + TextUtils.join(",", Collections.nCopies(childrenTypes.length, "?")) + ")");
-
-        List<String> params = new LinkedList<String>();
-        params.add(parentId);
-        params.addAll(Arrays.asList(childrenTypes));
-
-        return db.rawQuery(sql.toString(), params.toArray(new String[params.size()]));
-    }
-
-
     /**
      * Returns the {@link GeoObject} with the given UID and its parent of the given types.
      * <p>
@@ -709,63 +736,150 @@ public class LocalObjectCache implements Serializable {
     public void addParents(ParentTreeNode child, String[] parentTypes, Boolean recursive) {
         SQLiteDatabase db = mDbHelper.getReadableDatabase();
 
-        List<ParentTreeNode> parents = new LinkedList<ParentTreeNode>();
+        Map<String, List<Relationship>> relationships = this.getRelationships(child.getGeoObject().getUid(), parentTypes, recursive, false, db);
 
-        Cursor cursor = null;
+        // Assemble the tree from the relationships read in one query, depth first
+        int count = count(relationships);
+        Deque<ParentTreeNode> pending = new ArrayDeque<ParentTreeNode>();
+        Deque<Integer> depths = new ArrayDeque<Integer>();
+        pending.push(child);
+        depths.push(0);
 
-        try {
-            cursor = this.getParentCursor(child.getGeoObject().getUid(), parentTypes, db);
+        while (!pending.isEmpty()) {
+            ParentTreeNode node = pending.pop();
+            int depth = depths.pop();
 
-            while (cursor.moveToNext()) {
-                parents.add(this.getParentTreeNode(cursor));
-            }
-        } finally {
-            if (cursor != null) {
-                cursor.close();
+            List<Relationship> parents = relationships.get(node.getGeoObject().getUid());
+
+            if (parents == null || (depth > 0 && !recursive)) {
+                continue;
             }
-        }
 
-        for (ParentTreeNode parent : parents) {
-            if (recursive) {
-                this.addParents(parent, parentTypes, recursive);
+            // A path longer than the number of relationships repeats one of them
+            if (depth > count) {
+                throw new RuntimeException("The hierarchy of GeoObject with uid [" + node.getGeoObject().getUid() + "] contains a cycle");
             }
 
-            child.addParent(parent);
+            for (Relationship relationship : parents) {
+                ParentTreeNode parent = new ParentTreeNode(relationship.geoObject, relationship.hierarchyType);
+
+                node.addParent(parent);
+
+                pending.push(parent);
+                depths.push(depth + 1);
+            }
         }
     }
 
-    @NonNull
-    private ParentTreeNode getParentTreeNode(Cursor cursor) {
-        GeoObject parent = GeoObject.fromJSON(this.adapter, cursor.getString(PARENT_INDEX));
-        String code = cursor.getString(HIERARCHY_INDEX);
+    /**
+     * Reads the relationships of the given object in the given hierarchies with a single query, recursively with a
+     * WITH RECURSIVE common table expression. Every relationship row is read once, also when it can be reached on
+     * several paths. Each related object is decoded once.
+     *
+     * @param uid            UID of the object to start from.
+     * @param hierarchyTypes codes of the hierarchies to follow.
+     * @param recursive      true to follow the relationships of the related objects as well.
+     * @param children       true to read children, false to read parents.
+     * @param db
+     * @return the related objects by the UID of the object they are related to, in the order they were cached.
+     */
+    private Map<String, List<Relationship>> getRelationships(String uid, String[] hierarchyTypes, boolean recursive, boolean children, SQLiteDatabase db) {
+        String source = children ? TreeNodeEntry.COLUMN_NAME_PARENT : TreeNodeEntry.COLUMN_NAME_CHILD;
+        String target = children ? TreeNodeEntry.COLUMN_NAME_CHILD : TreeNodeEntry.COLUMN_NAME_PARENT;
+        String hierarchies = " IN (" + TextUtils.join(",", Collections.nCopies(hierarchyTypes.length, "?")) + ")";
+
+        StringBuilder sql = new StringBuilder();
+        sql.append("WITH RECURSIVE tree(source, target, hierarchy, node) AS (");
+        sql.append("SELECT n." + source + ", n." + target + ", n." + TreeNodeEntry.COLUMN_NAME_HIERARCHY + ", n." + TreeNodeEntry._ID);
+        sql.append(" FROM " + TreeNodeEntry.TABLE_NAME + " AS n");
+        sql.append(" WHERE n." + source + " = ?");
+        sql.append(" AND n." + TreeNodeEntry.COLUMN_NAME_HIERARCHY + hierarchies);
+
+        List<String> params = new LinkedList<String>();
+        params.add(uid);
+        params.addAll(Arrays.asList(hierarchyTypes));
 
-        Optional<HierarchyType> oHierarchyType = this.adapter.getMetadataCache().getHierachyType(code);
+        if (recursive) {
+            // UNION rather than UNION ALL reads every relationship once, even in a cycle
+            sql.append(" UNION SELECT n." + source + ", n." + target + ", n." + TreeNodeEntry.COLUMN_NAME_HIERARCHY + ", n." + TreeNodeEntry._ID);
+            sql.append(" FROM " + TreeNodeEntry.TABLE_NAME + " AS n");
+            sql.append(" INNER JOIN tree AS t ON n." + source + " = t.target");
+            sql.append(" WHERE n." + TreeNodeEntry.COLUMN_NAME_HIERARCHY + hierarchies);
 
-        if (!oHierarchyType.isPresent()) {
-            throw new RuntimeException("Unknown hierarchy type for code [" + code + "]");
+            params.addAll(Arrays.asList(hierarchyTypes));
         }
 
-        HierarchyType hierarchyType = oHierarchyType.get();
+        sql.append(")");
+        sql.append(" SELECT t.source, t.target, o." + GeoObjectEntry.COLUMN_NAME_OBJECT + ", t.hierarchy");
+        sql.append(" FROM tree AS t");
+        sql.append(" INNER JOIN " + GeoObjectEntry.TABLE_NAME + " AS o ON o." + GeoObjectEntry.COLUMN_NAME_UID + " = t.target");
+        sql.append(" ORDER BY t.node");
 
-        return new ParentTreeNode(parent, hierarchyType);
+        Map<String, List<Relationship>> relationships = new HashMap<String, List<Relationship>>();
+        Map<String, GeoObject> geoObjects = new HashMap<String, GeoObject>();
+        Map<String, HierarchyType> hierarchyTypesByCode = new HashMap<String, HierarchyType>();
+
+        Cursor cursor = null;
+
+        try {
+            cursor = db.rawQuery(sql.toString(), params.toArray(new String[params.size()]));
+
+            while (cursor.moveToNext()) {
+                String targetUid = cursor.getString(TARGET_INDEX);
+
+                GeoObject geoObject = geoObjects.get(targetUid);
+
+                if (geoObject == null) {
+                    geoObject = GeoObject.fromJSON(this.adapter, cursor.getString(OBJECT_INDEX));
+
+                    geoObjects.put(targetUid, geoObject);
+                }
+
+                String code = cursor.getString(HIERARCHY_INDEX);
+
+                HierarchyType hierarchyType = hierarchyTypesByCode.get(code);
+
+                if (hierarchyType == null) {
+                    Optional<HierarchyType> oHierarchyType = this.adapter.getMetadataCache().getHierachyType(code);
+
+                    if (!oHierarchyType.isPresent()) {
+                        throw new RuntimeException("Unknown hierarchy type for code [" + code + "]");
+                    }
+
+                    hierarchyType = oHierarchyType.get();
+
+                    hierarchyTypesByCode.put(code, hierarchyType);
+                }
+
+                String sourceUid = cursor.getString(SOURCE_INDEX);
+
+                List<Relationship> list = relationships.get(sourceUid);
+
+                if (list == null) {
+                    list = new ArrayList<Relationship>();
+
+                    relationships.put(sourceUid, list);
+                }
+
+                list.add(new Relationship(geoObject, hierarchyType));
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return relationships;
     }
 
-    private Cursor getParentCursor(String childId, String[] parentTypes, SQLiteDatabase db) {
-        StringBuilder sql = new StringBuilder();
-        sql.append("SELECT p." + GeoObjectEntry.COLUMN_NAME_OBJECT);
-        sql.append(", c." + GeoObjectEntry.COLUMN_NAME_OBJECT);
-        sql.append(", n." + TreeNodeEntry.COLUMN_NAME_HIERARCHY);
-        sql.append(" FROM " + TreeNodeEntry.TABLE_NAME + " AS n");
-        sql.append(" INNER JOIN " + GeoObjectEntry.TABLE_NAME + " AS p ON p." + GeoObjectEntry.COLUMN_NAME_UID + " = n." + TreeNodeEntry.COLUMN_NAME_PARENT);
-        sql.append(" INNER JOIN " + GeoObjectEntry.TABLE_NAME + " AS c ON c." + GeoObjectEntry.COLUMN_NAME_UID + " = n." + TreeNodeEntry.COLUMN_NAME_CHILD);
-        sql.append(" WHERE n." + TreeNodeEntry.COLUMN_NAME_CHILD + " = ?");
-        sql.append(" AND n." + TreeNodeEntry.COLUMN_NAME_HIERARCHY + " IN (" + TextUtils.join(",", Collections.nCopies(parentTypes.length, "?")) + ")");
+    private static int count(Map<String, List<Relationship>> relationships) {
+        int count = 0;
 
-        List<String> params = new LinkedList<String>();
-        params.add(childId);
-        params.addAll(Arrays.asList(parentTypes));
+        for (List<Relationship> list : relationships.values()) {
+            count += list.size();
+        }
 
-        return db.rawQuery(sql.toString(), params.toArray(new String[params.size()]));
+        return count;
     }
 
     public void clear() {
@@ -26,6 +26,17 @@ public class LocalCacheDbHelper extends SQLiteOpenHelper {
                     TreeNodeEntry.COLUMN_NAME_CHILD + " TEXT NOT NULL, " +
                     TreeNodeEntry.COLUMN_NAME_HIERARCHY + " TEXT NOT NULL )";
 
+    // The recursive relationship queries of the LocalObjectCache look up tree nodes by parent and by child
+    private static final String SQL_CREATE_NODE_PARENT_INDEX =
+            "CREATE INDEX IF NOT EXISTS " + TreeNodeEntry.TABLE_NAME + "_parent ON " + TreeNodeEntry.TABLE_NAME + " ( " +
+                    TreeNodeEntry.COLUMN_NAME_PARENT + ", " +
+                    TreeNodeEntry.COLUMN_NAME_HIERARCHY + " )";
+
+    private static final String SQL_CREATE_NODE_CHILD_INDEX =
+            "CREATE INDEX IF NOT EXISTS " + TreeNodeEntry.TABLE_NAME + "_child ON " + TreeNodeEntry.TABLE_NAME + " ( " +
+                    TreeNodeEntry.COLUMN_NAME_CHILD + ", " +
+                    TreeNodeEntry.COLUMN_NAME_HIERARCHY + " )";
+
     private static final String SQL_CREATE_ACTION_ENTRY =
             "CREATE TABLE " + ActionEntry.TABLE_NAME + " ( " +
                     ActionEntry.COLUMN_NAME_TYPE + " TEXT NOT NULL, " +
@@ -65,11 +76,21 @@ public class LocalCacheDbHelper extends SQLiteOpenHelper {
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(SQL_CREATE_OBJECT_ENTRY);
         db.execSQL(SQL_CREATE_NODE_ENTRY);
+        db.execSQL(SQL_CREATE_NODE_PARENT_INDEX);
+        db.execSQL(SQL_CREATE_NODE_CHILD_INDEX);
         db.execSQL(SQL_CREATE_ACTION_ENTRY);
         db.execSQL(SQL_CREATE_PUSH_HISTORY);
         db.execSQL(SQL_REGISTRY_ID);
     }
 
+    public void onOpen(SQLiteDatabase db) {
+        // Databases created before the indexes existed get them without discarding the cache
+        if (!db.isReadOnly()) {
+            db.execSQL(SQL_CREATE_NODE_PARENT_INDEX);
+            db.execSQL(SQL_CREATE_NODE_CHILD_INDEX);
+        }
+    }
+
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
         // This database is only a cache for online data, so its upgrade policy is
         // to simply to discard the data and start over
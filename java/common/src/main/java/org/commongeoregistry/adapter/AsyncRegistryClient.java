@@ -0,0 +1,226 @@
+package org.commongeoregistry.adapter;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.commongeoregistry.adapter.constants.RegistryUrls;
+import org.commongeoregistry.adapter.dataaccess.ChildTreeNode;
+import org.commongeoregistry.adapter.dataaccess.GeoObject;
+import org.commongeoregistry.adapter.dataaccess.ParentTreeNode;
+import org.commongeoregistry.adapter.http.AsyncConnector;
+import org.commongeoregistry.adapter.http.ExecutorAsyncConnector;
+import org.commongeoregistry.adapter.http.HttpResponse;
+import org.commongeoregistry.adapter.http.ResponseProcessor;
+import org.commongeoregistry.adapter.metadata.GeoObjectType;
+import org.commongeoregistry.adapter.metrics.MetricsRecorder;
+
+/**
+ * Asynchronous counterpart of the requests of {@link HttpRegistryClient}. Every method returns immediately with a
+ * future of the result, the requests are sent with an {@link AsyncConnector} and the responses are parsed on the given
+ * {@link Executor}. The parameters are validated as by {@link HttpRegistryClient}, invalid parameters complete the
+ * future exceptionally with a {@link RequiredParameterException}, an error response with a
+ * {@link org.commongeoregistry.adapter.http.ResponseException}.
+ *
+ * The responses are parsed against the metadata cache of the wrapped {@link HttpRegistryClient}, which also provides
+ * the {@link org.commongeoregistry.adapter.dataaccess.GeoObjectCache} and the {@link MetricsRecorder}. Cache hits
+ * complete immediately, changes invalidate the cached entries before they are sent.
+ */
+public class AsyncRegistryClient
+{
+  private HttpRegistryClient client;
+
+  private AsyncConnector     connector;
+
+  private Executor           executor;
+
+  /**
+   * @param client
+   *          client providing the metadata cache.
+   * @param connector
+   *          sends the requests.
+   * @param executor
+   *          parses the responses.
+   */
+  public AsyncRegistryClient(HttpRegistryClient client, AsyncConnector connector, Executor executor)
+  {
+    this.client = client;
+    this.connector = connector;
+    this.executor = executor;
+  }
+
+  /**
+   * Sends the requests with the blocking {@link org.commongeoregistry.adapter.http.Connector} of the given client on
+   * the given executor, see {@link ExecutorAsyncConnector}.
+   *
+   * @param client
+   * @param executor
+   */
+  public AsyncRegistryClient(HttpRegistryClient client, Executor executor)
+  {
+    this(client, new ExecutorAsyncConnector(client.getConnector(), executor), executor);
+  }
+
+  public HttpRegistryClient getClient()
+  {
+    return this.client;
+  }
+
+  public AsyncConnector getConnector()
+  {
+    return this.connector;
+  }
+
+  /**
+   * @see HttpRegistryClient#getGeoObject(String, String)
+   */
+  public CompletableFuture<GeoObject> getGeoObject(String id, String typeCode)
+  {
+    GeoObject cached = this.client.getCached(id, typeCode);
+
+    if (cached != null)
+    {
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    return this.send(RegistryUrls.GEO_OBJECT_GET, () -> this.connector.httpGetAsync(RegistryUrls.GEO_OBJECT_GET, this.client.getGeoObjectParams(id, typeCode)), resp -> this.client.cache(GeoObject.fromJSON(this.client, resp.getAsString())));
+  }
+
+  /**
+   * @see HttpRegistryClient#getGeoObjectByCode(String, String)
+   */
+  public CompletableFuture<GeoObject> getGeoObjectByCode(String code, String typeCode)
+  {
+    GeoObject cached = this.client.getCachedByCode(code, typeCode);
+
+    if (cached != null)
+    {
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    return this.send(RegistryUrls.GEO_OBJECT_GET_CODE, () -> this.connector.httpGetAsync(RegistryUrls.GEO_OBJECT_GET_CODE, this.client.getGeoObjectByCodeParams(code, typeCode)), resp -> this.client.cache(GeoObject.fromJSON(this.client, resp.getAsString())));
+  }
+
+  /**
+   * @see HttpRegistryClient#createGeoObject(GeoObject)
+   */
+  public CompletableFuture<GeoObject> createGeoObject(GeoObject _geoObject)
+  {
+    return this.send(RegistryUrls.GEO_OBJECT_CREATE, () -> this.connector.httpPostAsync(RegistryUrls.GEO_OBJECT_CREATE, this.client.createGeoObjectBody(_geoObject)), resp -> this.client.cache(GeoObject.fromJSON(this.client, resp.getAsString())));
+  }
+
+  /**
+   * @see HttpRegistryClient#addChild(String, String, String, String, String)
+   */
+  public CompletableFuture<ParentTreeNode> addChild(String parentId, String parentTypeCode, String childId, String childTypeCode, String hierarchyCode)
+  {
+    return this.send(RegistryUrls.GEO_OBJECT_ADD_CHILD, () ->
+    {
+      String body = this.client.addChildBody(parentId, parentTypeCode, childId, childTypeCode, hierarchyCode);
+
+      this.client.invalidate(parentId, parentTypeCode);
+      this.client.invalidate(childId, childTypeCode);
+
+      return this.connector.httpPostAsync(RegistryUrls.GEO_OBJECT_ADD_CHILD, body);
+    }, resp -> ParentTreeNode.fromJSON(resp.getAsString(), this.client));
+  }
+
+  /**
+   * @see HttpRegistryClient#updateGeoObject(GeoObject)
+   */
+  public CompletableFuture<GeoObject> updateGeoObject(GeoObject _geoObject)
+  {
+    return this.send(RegistryUrls.GEO_OBJECT_UPDATE, () ->
+    {
+      String body = this.client.updateGeoObjectBody(_geoObject);
+
+      this.client.invalidate(_geoObject.getUid(), _geoObject.getType().getCode());
+
+      return this.connector.httpPostAsync(RegistryUrls.GEO_OBJECT_UPDATE, body);
+    }, resp -> this.client.cache(GeoObject.fromJSON(this.client, resp.getAsString())));
+  }
+
+  /**
+   * @see HttpRegistryClient#getChildGeoObjects(String, String, String[], Boolean)
+   */
+  public CompletableFuture<ChildTreeNode> getChildGeoObjects(String parentId, String parentTypeCode, String[] childrenTypes, Boolean recursive)
+  {
+    return this.send(RegistryUrls.GEO_OBJECT_GET_CHILDREN, () -> this.connector.httpGetAsync(RegistryUrls.GEO_OBJECT_GET_CHILDREN, this.client.getChildGeoObjectsParams(parentId, parentTypeCode, childrenTypes, recursive)), resp -> ChildTreeNode.fromJSON(resp.getAsString(), this.client));
+  }
+
+  /**
+   * @see HttpRegistryClient#getParentGeoObjects(String, String, String[], Boolean)
+   */
+  public CompletableFuture<ParentTreeNode> getParentGeoObjects(String childId, String childTypeCode, String[] parentTypes, Boolean recursive)
+  {
+    return this.send(RegistryUrls.GEO_OBJECT_GET_PARENTS, () -> this.connector.httpGetAsync(RegistryUrls.GEO_OBJECT_GET_PARENTS, this.client.getParentGeoObjectsParams(childId, childTypeCode, parentTypes, recursive)), resp -> ParentTreeNode.fromJSON(resp.getAsString(), this.client));
+  }
+
+  /**
+   * @see HttpRegistryClient#getGeoObjectUids(Integer)
+   */
+  public CompletableFuture<Set<String>> getGeoObjectUids(Integer numberOfUids)
+  {
+    return this.send(RegistryUrls.GEO_OBJECT_GET_UIDS, () -> this.connector.httpGetAsync(RegistryUrls.GEO_OBJECT_GET_UIDS, this.client.getGeoObjectUidsParams(numberOfUids)), HttpRegistryClient::toUidSet);
+  }
+
+  /**
+   * @see HttpRegistryClient#createGeoObjectType(GeoObjectType)
+   */
+  public CompletableFuture<Void> createGeoObjectType(GeoObjectType geoObjectType)
+  {
+    return this.send(RegistryUrls.GEO_OBJECT_TYPE_CREATE, () -> this.connector.httpPostAsync(RegistryUrls.GEO_OBJECT_TYPE_CREATE, this.client.createGeoObjectTypeBody(geoObjectType)), resp -> null);
+  }
+
+  /**
+   * @see HttpRegistryClient#getGeoObjectTypes(String[])
+   */
+  public CompletableFuture<GeoObjectType[]> getGeoObjectTypes(String[] codes)
+  {
+    return this.send(RegistryUrls.GEO_OBJECT_TYPE_GET_ALL, () -> this.connector.httpGetAsync(RegistryUrls.GEO_OBJECT_TYPE_GET_ALL, this.client.getGeoObjectTypesParams(codes)), resp -> GeoObjectType.fromJSONArray(resp.getAsString(), this.client));
+  }
+
+  /**
+   * Sends a request and parses its response on the executor, recording the request and the decoding with the
+   * {@link MetricsRecorder} of the client as {@link HttpRegistryClient} does.
+   *
+   * @param url
+   *          end point of the request.
+   * @param request
+   *          validates the parameters and sends the request.
+   * @param parser
+   *          parses a successful response.
+   */
+  private <T> CompletableFuture<T> send(String url, Supplier<CompletableFuture<HttpResponse>> request, Function<HttpResponse, T> parser)
+  {
+    MetricsRecorder recorder = this.client.getMetricsRecorder();
+    CompletableFuture<HttpResponse> future;
+
+    try
+    {
+      long start = System.nanoTime();
+
+      future = request.get().whenComplete((resp, t) -> recorder.recordRequest(url, resp != null ? resp.getStatusCode() : -1, System.nanoTime() - start));
+    }
+    catch (RuntimeException e)
+    {
+      future = new CompletableFuture<HttpResponse>();
+      future.completeExceptionally(e);
+    }
+
+    return future.thenApplyAsync(resp ->
+    {
+      ResponseProcessor.validateStatusCode(resp);
+
+      long start = System.nanoTime();
+
+      T result = parser.apply(resp);
+
+      recorder.recordDecode(url, System.nanoTime() - start);
+
+      return result;
+    }, this.executor);
+  }
+}
@@ -1,22 +1,50 @@
 package org.commongeoregistry.adapter;
 
+import java.io.File;
+import java.net.HttpURLConnection;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
 
 import org.commongeoregistry.adapter.constants.RegistryUrls;
 import org.commongeoregistry.adapter.dataaccess.ChildTreeNode;
 import org.commongeoregistry.adapter.dataaccess.GeoObject;
+import org.commongeoregistry.adapter.dataaccess.GeoObjectCache;
 import org.commongeoregistry.adapter.dataaccess.ParentTreeNode;
 import org.commongeoregistry.adapter.http.Connector;
 import org.commongeoregistry.adapter.http.HttpResponse;
+import org.commongeoregistry.adapter.http.ResponseException;
 import org.commongeoregistry.adapter.http.ResponseProcessor;
 import org.commongeoregistry.adapter.id.AdapterIdServiceIF;
+import org.commongeoregistry.adapter.id.ConcurrentIdService;
+import org.commongeoregistry.adapter.id.FileIdService;
 import org.commongeoregistry.adapter.id.MemoryOnlyIdService;
+import org.commongeoregistry.adapter.json.JsonStreams;
+import org.commongeoregistry.adapter.json.JsonStreams.ReadFunction;
 import org.commongeoregistry.adapter.metadata.GeoObjectType;
 import org.commongeoregistry.adapter.metadata.HierarchyType;
+import org.commongeoregistry.adapter.metadata.MetadataCache;
+import org.commongeoregistry.adapter.metadata.MetadataFingerprint;
+import org.commongeoregistry.adapter.metadata.MetadataSnapshot;
+import org.commongeoregistry.adapter.metrics.MetricsRecorder;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 /**
@@ -35,8 +63,45 @@ public class HttpRegistryClient extends RegistryAdapter
    */
   private static final long  serialVersionUID         = -8311449977719450035L;
 
+  public static final int    DEFAULT_BULK_CHUNK_SIZE  = 100;
+
+  public static final int    DEFAULT_BULK_CONCURRENCY = 4;
+
+  public static final long   DEFAULT_BULK_RETRY_INTERVAL = 300000;
+
+  public static final long   DEFAULT_UPDATES_RETRY_INTERVAL = 300000;
+
   private Connector          connector;
 
+  private transient volatile GeoObjectCache geoObjectCache;
+
+  private volatile int       bulkChunkSize            = DEFAULT_BULK_CHUNK_SIZE;
+
+  private volatile int       bulkConcurrency          = DEFAULT_BULK_CONCURRENCY;
+
+  private volatile long      bulkRetryInterval        = DEFAULT_BULK_RETRY_INTERVAL;
+
+  /**
+   * Time, as of {@link System#nanoTime()}, the geo registry last answered a
+   * bulk request with 404 or 501, null if it answered the last one.
+   */
+  private transient volatile Long bulkUnsupportedAt;
+
+  private volatile long      updatesRetryInterval     = DEFAULT_UPDATES_RETRY_INTERVAL;
+
+  /**
+   * Time, as of {@link System#nanoTime()}, the geo registry last answered a
+   * metadata updates request with 404 or 501, null if it answered the last
+   * one.
+   */
+  private transient volatile Long updatesUnsupportedAt;
+
+  /**
+   * Sends the requests which run in parallel, created on first use unless
+   * set.
+   */
+  private transient volatile Executor executor;
+
   /**
    * 
    * 
@@ -59,6 +124,14 @@ public class HttpRegistryClient extends RegistryAdapter
     {
       ( (MemoryOnlyIdService) idService ).setClient(this);
     }
+    else if (idService instanceof ConcurrentIdService)
+    {
+      ( (ConcurrentIdService) idService ).setClient(this);
+    }
+    else if (idService instanceof FileIdService)
+    {
+      ( (FileIdService) idService ).setClient(this);
+    }
   }
   
   /**
@@ -71,28 +144,358 @@ public class HttpRegistryClient extends RegistryAdapter
   }
 
   /**
-   * Clears the metadata cache and populates it with the metadata from the
-   * common geo-registry.
+   * Sets the recorder the client, its connector, its caches and its id
+   * service report their measurements to. The client records the network
+   * and decode time of every request by {@link RegistryUrls} end point.
+   * 
+   * @param metricsRecorder
+   *          recorder for the measurements, or null to discard them.
+   */
+  @Override
+  public void setMetricsRecorder(MetricsRecorder metricsRecorder)
+  {
+    super.setMetricsRecorder(metricsRecorder);
+
+    this.connector.setMetricsRecorder(metricsRecorder);
+  }
+
+  /**
+   * Returns the executor which sends the requests the client runs in
+   * parallel. Unless one was set, a pool of daemon threads of the client is
+   * created on first use.
+   */
+  public Executor getExecutor()
+  {
+    if (this.executor == null)
+    {
+      synchronized (this)
+      {
+        if (this.executor == null)
+        {
+          this.executor = Executors.newCachedThreadPool(runnable ->
+          {
+            Thread thread = new Thread(runnable, "registry-client");
+            thread.setDaemon(true);
+
+            return thread;
+          });
+        }
+      }
+    }
+
+    return this.executor;
+  }
+
+  /**
+   * @param executor
+   *          sends the requests the client runs in parallel, the hierarchy
+   *          request of a metadata refresh and the requests of
+   *          {@link #getGeoObjects(Collection, String)}.
+   */
+  public void setExecutor(Executor executor)
+  {
+    this.executor = executor;
+  }
+
+  /**
+   * Returns the cache of the {@link GeoObject}s returned by the geo registry,
+   * or null if {@link GeoObject}s are not cached.
+   */
+  public GeoObjectCache getGeoObjectCache()
+  {
+    return this.geoObjectCache;
+  }
+
+  /**
+   * Sets the cache {@link #getGeoObject(String, String)} and
+   * {@link #getGeoObjectByCode(String, String)} answer from before sending a
+   * request. The cache is kept up to date with the {@link GeoObject}s created,
+   * updated and related through this client, changes made by other clients
+   * are seen once the cached entries expire.
+   * 
+   * @param geoObjectCache
+   *          the cache, or null to send every request.
+   */
+  public void setGeoObjectCache(GeoObjectCache geoObjectCache)
+  {
+    this.geoObjectCache = geoObjectCache;
+  }
+
+  /**
+   * Replaces the contents of the metadata cache with the metadata from the
+   * common geo-registry. The new metadata is collected off to the side and
+   * published in one step, the cache remains usable during the refresh and
+   * is left unchanged if a request fails.
    * 
+   * The requests are conditional: the fingerprints of the metadata already in
+   * the cache are sent along, and only the types and hierarchies which were
+   * added, changed or removed since are transferred and parsed. See
+   * {@link MetadataFingerprint}.
    */
   public void refreshMetadataCache()
   {
-    this.getMetadataCache().rebuild();
-    
-    GeoObjectType[] gots = this.getGeoObjectTypes(new String[]{});
+    this.refreshMetadataCache(this.getMetadataCache().getSnapshot());
+  }
 
-    for (GeoObjectType got : gots)
+  /**
+   * Populates the metadata cache from the snapshot file saved by a previous run
+   * and revalidates it against the common geo-registry on the given executor,
+   * the cache is usable as soon as this method returns. The file is saved
+   * again once the revalidated metadata is in the cache. If there is no usable
+   * snapshot file the cache is refreshed before this method returns.
+   *
+   * @param snapshotFile
+   *          file the metadata cache is saved to, see
+   *          {@link MetadataCache#save(File)}.
+   * @param executor
+   *          runs the revalidation.
+   * @return completes once the metadata cache has been revalidated.
+   */
+  public CompletableFuture<Void> refreshMetadataCache(File snapshotFile, Executor executor)
+  {
+    if (snapshotFile.exists())
+    {
+      try
+      {
+        this.getMetadataCache().load(snapshotFile);
+
+        return CompletableFuture.runAsync(() -> this.refreshMetadataCache(snapshotFile), executor);
+      }
+      catch (RuntimeException e)
+      {
+        // Unreadable or incompatible snapshot, fall back to a full refresh
+        snapshotFile.delete();
+      }
+    }
+
+    this.refreshMetadataCache(snapshotFile);
+
+    return CompletableFuture.completedFuture(null);
+  }
+
+  private void refreshMetadataCache(File snapshotFile)
+  {
+    MetadataSnapshot snapshot = this.getMetadataCache().getSnapshot();
+
+    this.refreshMetadataCache(snapshot);
+
+    if (snapshot != this.getMetadataCache().getSnapshot() || !snapshotFile.exists())
+    {
+      this.getMetadataCache().save(snapshotFile);
+    }
+  }
+
+  private void refreshMetadataCache(MetadataSnapshot snapshot)
+  {
+    Map<String, String> knownGotFingerprints = snapshot.getGeoObjectTypeFingerprints();
+    Map<String, String> knownHtFingerprints = snapshot.getHierarchyTypeFingerprints();
+    
+    // The hierarchies are downloaded while the types are downloaded and decoded
+    CompletableFuture<JsonElement> htJson = CompletableFuture.supplyAsync(() -> this.getMetadata(RegistryUrls.HIERARCHY_TYPE_GET_ALL, RegistryUrls.HIERARCHY_TYPE_GET_ALL_PARAM_TYPES, RegistryUrls.HIERARCHY_TYPE_GET_UPDATES, RegistryUrls.HIERARCHY_TYPE_GET_UPDATES_PARAM_FINGERPRINTS, knownHtFingerprints), this.getExecutor());
+    
+    try
+    {
+      JsonElement gotJson = this.getMetadata(RegistryUrls.GEO_OBJECT_TYPE_GET_ALL, RegistryUrls.GEO_OBJECT_TYPE_GET_ALL_PARAM_TYPES, RegistryUrls.GEO_OBJECT_TYPE_GET_UPDATES, RegistryUrls.GEO_OBJECT_TYPE_GET_UPDATES_PARAM_FINGERPRINTS, knownGotFingerprints);
+      
+      Map<String, GeoObjectType> gotMap = new HashMap<String, GeoObjectType>();
+      Map<String, String> gotFingerprints = new HashMap<String, String>();
+      
+      Map<String, GeoObjectType> knownGots = new HashMap<String, GeoObjectType>();
+      snapshot.getGeoObjectTypes().forEach(got -> knownGots.put(got.getCode(), got));
+      
+      boolean gotsChanged = this.decodeMetadata(RegistryUrls.GEO_OBJECT_TYPE_GET_ALL, gotJson, knownGots, knownGotFingerprints, json -> GeoObjectType.fromJSON(json.getAsJsonObject(), this), GeoObjectType::getCode, MetadataFingerprint::of, gotMap, gotFingerprints);
+      
+      Function<String, GeoObjectType> resolver = code ->
+      {
+        GeoObjectType got = gotMap.get(code);
+        
+        if (got == null)
+        {
+          throw new NoSuchElementException("Unable to find GeoObjectType with code [" + code + "].");
+        }
+        
+        return got;
+      };
+      
+      Map<String, HierarchyType> htMap = new HashMap<String, HierarchyType>();
+      Map<String, String> htFingerprints = new HashMap<String, String>();
+      
+      Map<String, HierarchyType> knownHts = new HashMap<String, HierarchyType>();
+      snapshot.getHierarchyTypes().forEach(ht -> knownHts.put(ht.getCode(), ht));
+      
+      // Linking the hierarchies waits for the types they reference
+      boolean htsChanged = this.decodeMetadata(RegistryUrls.HIERARCHY_TYPE_GET_ALL, htJson.get(), knownHts, knownHtFingerprints, json -> HierarchyType.fromJSON(json.getAsJsonObject(), resolver), HierarchyType::getCode, MetadataFingerprint::of, htMap, htFingerprints);
+      
+      if (gotsChanged)
+      {
+        // Unchanged hierarchies still reference the previous GeoObjectTypes
+        for (Map.Entry<String, HierarchyType> entry : htMap.entrySet())
+        {
+          if (entry.getValue() == knownHts.get(entry.getKey()))
+          {
+            entry.setValue(HierarchyType.fromJSON(JsonStreams.toString(entry.getValue()::writeTo), resolver));
+          }
+        }
+      }
+      
+      if (gotsChanged || htsChanged)
+      {
+        this.getMetadataCache().refresh(gotMap.values(), gotFingerprints, htMap.values(), htFingerprints);
+      }
+    }
+    catch (ExecutionException e)
+    {
+      if (e.getCause() instanceof RuntimeException)
+      {
+        throw (RuntimeException) e.getCause();
+      }
+      
+      throw new RuntimeException(e.getCause());
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      
+      throw new RuntimeException(e);
+    }
+    finally
+    {
+      // The refresh failed, the hierarchy request is not sent if it has not started yet. A running request closes its
+      // response once it has been read.
+      if (!htJson.isDone())
+      {
+        htJson.cancel(false);
+      }
+    }
+  }
+  
+  /**
+   * Requests all metadata entries of one kind, conditional on the fingerprints of the entries already known. The
+   * fingerprints are posted to the updates end point, thousands of them do not fit in the query string of a GET. A
+   * registry without the updates end point is asked for all entries, without trying the updates end point again for
+   * {@link #getUpdatesRetryInterval()}.
+   * 
+   * @param url end point returning all entries.
+   * @param typesParam name of the parameter with the codes to return, empty for all.
+   * @param updatesUrl end point returning the changes since the known fingerprints.
+   * @param fingerprintsParam name of the body property with the known fingerprints.
+   * @param knownFingerprints fingerprints of the known entries which were loaded from the registry.
+   * @return the response, or null if the known entries are current.
+   */
+  private JsonElement getMetadata(String url, String typesParam, String updatesUrl, String fingerprintsParam, Map<String, String> knownFingerprints)
+  {
+    if (knownFingerprints.size() > 0 && this.isUpdatesSupported())
     {
-      this.getMetadataCache().addGeoObjectType(got);
+      JsonObject body = new JsonObject();
+      body.add(fingerprintsParam, MetadataFingerprint.toJSON(knownFingerprints));
+      
+      try (HttpResponse resp = this.post(updatesUrl, body.toString()))
+      {
+        int status = resp.getStatusCode();
+        
+        // The geo registry predates the updates end point
+        if (status == HttpURLConnection.HTTP_NOT_FOUND || status == HttpURLConnection.HTTP_NOT_IMPLEMENTED)
+        {
+          this.updatesUnsupportedAt = System.nanoTime();
+        }
+        else
+        {
+          this.updatesUnsupportedAt = null;
+          
+          if (status == HttpURLConnection.HTTP_NOT_MODIFIED)
+          {
+            return null;
+          }
+          
+          ResponseProcessor.validateStatusCode(resp);
+          
+          return resp.getAsJsonElement();
+        }
+      }
     }
     
-    HierarchyType[] hts = this.getHierarchyTypes(new String[]{});
+    HashMap<String, String> params = new HashMap<String, String>();
+    params.put(typesParam, new JsonArray().toString());
     
-    for (HierarchyType ht : hts)
+    try (HttpResponse resp = this.get(url, params))
     {
-      this.getMetadataCache().addHierarchyType(ht);
+      ResponseProcessor.validateStatusCode(resp);
+      
+      return resp.getAsJsonElement();
     }
   }
+  
+  /**
+   * Decodes the response to a metadata request, large responses are decoded in parallel on the executor of the client.
+   * 
+   * @param url
+   * @param json response of {@link #getMetadata(String, String, String, String, Map)}, null if the known entries are
+   *          current.
+   * @param known entries currently in the cache by code.
+   * @param knownFingerprints fingerprints of the known entries which were loaded from the registry.
+   * @param parser parses the JSON of an entry, called from several threads.
+   * @param code returns the code of an entry.
+   * @param fingerprint computes the fingerprint of a parsed entry, called from several threads.
+   * @param entries receives the current entries by code.
+   * @param fingerprints receives the fingerprints of the current entries by code.
+   * @return true if the current entries differ from the known entries.
+   */
+  private <T> boolean decodeMetadata(String url, JsonElement json, Map<String, T> known, Map<String, String> knownFingerprints, Function<JsonElement, T> parser, Function<T, String> code, Function<T, String> fingerprint, Map<String, T> entries, Map<String, String> fingerprints)
+  {
+    if (json == null)
+    {
+      for (Map.Entry<String, String> entry : knownFingerprints.entrySet())
+      {
+        entries.put(entry.getKey(), known.get(entry.getKey()));
+        fingerprints.put(entry.getKey(), entry.getValue());
+      }
+      
+      // Entries defined locally are dropped by the refresh
+      return known.size() != knownFingerprints.size();
+    }
+    
+    long start = System.nanoTime();
+    JsonArray updated;
+    
+    if (json.isJsonArray())
+    {
+      // The registry does not support conditional requests and returned everything
+      updated = json.getAsJsonArray();
+    }
+    else
+    {
+      updated = json.getAsJsonObject().getAsJsonArray(MetadataFingerprint.JSON_UPDATED);
+      
+      Set<String> removed = new HashSet<String>();
+      json.getAsJsonObject().getAsJsonArray(MetadataFingerprint.JSON_REMOVED).forEach(element -> removed.add(element.getAsString()));
+      
+      for (Map.Entry<String, String> entry : knownFingerprints.entrySet())
+      {
+        if (!removed.contains(entry.getKey()))
+        {
+          entries.put(entry.getKey(), known.get(entry.getKey()));
+          fingerprints.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    
+    List<Map.Entry<T, String>> decoded = JsonStreams.decodeArray(updated, element ->
+    {
+      T entry = parser.apply(element);
+      
+      return new AbstractMap.SimpleImmutableEntry<T, String>(entry, fingerprint.apply(entry));
+    }, this.getExecutor());
+    
+    for (Map.Entry<T, String> entry : decoded)
+    {
+      entries.put(code.apply(entry.getKey()), entry.getKey());
+      fingerprints.put(code.apply(entry.getKey()), entry.getValue());
+    }
+    
+    this.getMetricsRecorder().recordDecode(url, System.nanoTime() - start);
+    
+    return true;
+  }
 
   /**
    * Returns the GeoObject with the given UID.
@@ -103,6 +506,40 @@ public class HttpRegistryClient extends RegistryAdapter
    * @return GeoObject with the given UID.
    */
   public GeoObject getGeoObject(String id, String typeCode)
+  {
+    Map<String, String> params = this.getGeoObjectParams(id, typeCode);
+    GeoObject cached = this.getCached(id, typeCode);
+
+    if (cached != null)
+    {
+      return cached;
+    }
+
+    return this.fetchGeoObject(params);
+  }
+
+  /**
+   * Requests the GeoObject with the given UID without looking in the cache,
+   * for callers which already did.
+   */
+  private GeoObject fetchGeoObject(String id, String typeCode)
+  {
+    return this.fetchGeoObject(this.getGeoObjectParams(id, typeCode));
+  }
+
+  private GeoObject fetchGeoObject(Map<String, String> params)
+  {
+    try (HttpResponse resp = this.get(RegistryUrls.GEO_OBJECT_GET, params))
+    {
+      ResponseProcessor.validateStatusCode(resp);
+
+      GeoObject geoObject = this.read(RegistryUrls.GEO_OBJECT_GET, resp, reader -> GeoObject.fromJSON(this, reader));
+
+      return this.cache(geoObject);
+    }
+  }
+  
+  Map<String, String> getGeoObjectParams(String id, String typeCode)
   {
     if (id == null || id.length() == 0)
     {
@@ -117,12 +554,7 @@ public class HttpRegistryClient extends RegistryAdapter
     params.put(RegistryUrls.GEO_OBJECT_GET_PARAM_ID, id);
     params.put(RegistryUrls.GEO_OBJECT_GET_PARAM_TYPE_CODE, typeCode);
 
-    HttpResponse resp = this.connector.httpGet(RegistryUrls.GEO_OBJECT_GET, params);
-    ResponseProcessor.validateStatusCode(resp);
-
-    GeoObject geoObject = GeoObject.fromJSON(this, resp.getAsString());
-
-    return geoObject;
+    return params;
   }
   
   /**
@@ -134,6 +566,494 @@ public class HttpRegistryClient extends RegistryAdapter
    * @return GeoObject with the given code.
    */
   public GeoObject getGeoObjectByCode(String code, String typeCode)
+  {
+    Map<String, String> params = this.getGeoObjectByCodeParams(code, typeCode);
+    GeoObject cached = this.getCachedByCode(code, typeCode);
+
+    if (cached != null)
+    {
+      return cached;
+    }
+
+    try (HttpResponse resp = this.get(RegistryUrls.GEO_OBJECT_GET_CODE, params))
+    {
+      ResponseProcessor.validateStatusCode(resp);
+
+      GeoObject geoObject = this.read(RegistryUrls.GEO_OBJECT_GET_CODE, resp, reader -> GeoObject.fromJSON(this, reader));
+
+      return this.cache(geoObject);
+    }
+  }
+
+  public int getBulkChunkSize()
+  {
+    return this.bulkChunkSize;
+  }
+
+  /**
+   * @param bulkChunkSize
+   *          maximum number of {@link GeoObject}s requested at once by
+   *          {@link #getGeoObjects(Collection, String)}.
+   */
+  public void setBulkChunkSize(int bulkChunkSize)
+  {
+    this.bulkChunkSize = bulkChunkSize;
+  }
+
+  public int getBulkConcurrency()
+  {
+    return this.bulkConcurrency;
+  }
+
+  /**
+   * @param bulkConcurrency
+   *          maximum number of requests {@link #getGeoObjects(Collection, String)}
+   *          has in flight at the same time.
+   */
+  public void setBulkConcurrency(int bulkConcurrency)
+  {
+    this.bulkConcurrency = bulkConcurrency;
+  }
+
+  public long getBulkRetryInterval()
+  {
+    return this.bulkRetryInterval;
+  }
+
+  /**
+   * @param bulkRetryInterval
+   *          time in milliseconds {@link #getGeoObjects(Collection, String)}
+   *          requests the {@link GeoObject}s one by one after the geo registry
+   *          answered a bulk request with 404 or 501, before it tries a bulk
+   *          request again.
+   */
+  public void setBulkRetryInterval(long bulkRetryInterval)
+  {
+    this.bulkRetryInterval = bulkRetryInterval;
+  }
+
+  public long getUpdatesRetryInterval()
+  {
+    return this.updatesRetryInterval;
+  }
+
+  /**
+   * @param updatesRetryInterval
+   *          time in milliseconds {@link #refreshMetadataCache()} requests all
+   *          metadata after the geo registry answered a metadata updates
+   *          request with 404 or 501, before it posts the known fingerprints
+   *          again.
+   */
+  public void setUpdatesRetryInterval(long updatesRetryInterval)
+  {
+    this.updatesRetryInterval = updatesRetryInterval;
+  }
+
+  /**
+   * Returns the {@link GeoObject}s with the given UIDs. The UIDs are requested
+   * in chunks of {@link #getBulkChunkSize()}, at most
+   * {@link #getBulkConcurrency()} requests at the same time on the
+   * {@link #getExecutor()}. If the geo registry does not support bulk requests
+   * the {@link GeoObject}s are requested one by one, with the same
+   * concurrency. {@link GeoObject}s in the {@link GeoObjectCache} are not
+   * requested again.
+   * 
+   * @param ids
+   *          UIDs of the {@link GeoObject}s.
+   * @param typeCode
+   *          code of the {@link GeoObjectType} of the {@link GeoObject}s.
+   * 
+   * @return the {@link GeoObject}s by UID in the order of the given UIDs. UIDs
+   *         the geo registry does not know are left out.
+   */
+  public Map<String, GeoObject> getGeoObjects(Collection<String> ids, String typeCode)
+  {
+    if (ids == null)
+    {
+      throw new RequiredParameterException(RegistryUrls.GEO_OBJECT_GET_BULK, RegistryUrls.GEO_OBJECT_GET_BULK_PARAM_IDS);
+    }
+    if (typeCode == null || typeCode.length() == 0)
+    {
+      throw new RequiredParameterException(RegistryUrls.GEO_OBJECT_GET_BULK, RegistryUrls.GEO_OBJECT_GET_BULK_PARAM_TYPE_CODE);
+    }
+
+    Map<String, GeoObject> geoObjects = new LinkedHashMap<String, GeoObject>();
+    List<String> missing = new ArrayList<String>();
+
+    for (String id : ids)
+    {
+      if (!geoObjects.containsKey(id))
+      {
+        GeoObject cached = this.getCached(id, typeCode);
+
+        geoObjects.put(id, cached);
+
+        if (cached == null)
+        {
+          missing.add(id);
+        }
+      }
+    }
+
+    List<List<String>> chunks = new ArrayList<List<String>>();
+    int chunkSize = Math.max(1, this.bulkChunkSize);
+
+    for (int i = 0; i < missing.size(); i += chunkSize)
+    {
+      chunks.add(missing.subList(i, Math.min(missing.size(), i + chunkSize)));
+    }
+
+    List<String> unsupported = missing;
+
+    if (this.isBulkSupported())
+    {
+      List<Map<String, GeoObject>> answered = this.parallel(chunks, chunk -> this.getGeoObjectsChunk(chunk, typeCode));
+
+      unsupported = new ArrayList<String>();
+
+      for (int i = 0; i < chunks.size(); i++)
+      {
+        if (answered.get(i) != null)
+        {
+          geoObjects.putAll(answered.get(i));
+        }
+        else
+        {
+          unsupported.addAll(chunks.get(i));
+        }
+      }
+    }
+
+    // The cache was checked above, the GeoObjects are requested directly
+    List<GeoObject> fetched = this.parallel(unsupported, id ->
+    {
+      try
+      {
+        return this.fetchGeoObject(id, typeCode);
+      }
+      catch (ResponseException e)
+      {
+        // Unknown UIDs are left out as by the bulk end point
+        if (e.getStatus() != HttpURLConnection.HTTP_NOT_FOUND)
+        {
+          throw e;
+        }
+
+        return null;
+      }
+    });
+
+    for (int i = 0; i < unsupported.size(); i++)
+    {
+      geoObjects.put(unsupported.get(i), fetched.get(i));
+    }
+
+    geoObjects.values().removeIf(geoObject -> geoObject == null);
+
+    return geoObjects;
+  }
+
+  /**
+   * Returns false while the last metadata updates request was answered with 404 or 501 less than
+   * {@link #getUpdatesRetryInterval()} ago.
+   */
+  private boolean isUpdatesSupported()
+  {
+    Long unsupportedAt = this.updatesUnsupportedAt;
+    
+    return unsupportedAt == null || System.nanoTime() - unsupportedAt >= TimeUnit.MILLISECONDS.toNanos(this.updatesRetryInterval);
+  }
+  
+  /**
+   * Returns false while the last bulk request was answered with 404 or 501
+   * less than {@link #getBulkRetryInterval()} ago.
+   */
+  private boolean isBulkSupported()
+  {
+    Long unsupportedAt = this.bulkUnsupportedAt;
+
+    return unsupportedAt == null || System.nanoTime() - unsupportedAt >= TimeUnit.MILLISECONDS.toNanos(this.bulkRetryInterval);
+  }
+
+  /**
+   * Requests the {@link GeoObject}s of one chunk of
+   * {@link #getGeoObjects(Collection, String)} with a bulk request.
+   * 
+   * @return the {@link GeoObject}s by UID, or null if the geo registry does
+   *         not support bulk requests.
+   */
+  private Map<String, GeoObject> getGeoObjectsChunk(List<String> ids, String typeCode)
+  {
+    try (HttpResponse resp = this.post(RegistryUrls.GEO_OBJECT_GET_BULK, this.getGeoObjectsBody(ids, typeCode)))
+    {
+      int status = resp.getStatusCode();
+
+      if (status == HttpURLConnection.HTTP_NOT_FOUND || status == HttpURLConnection.HTTP_NOT_IMPLEMENTED)
+      {
+        // The geo registry predates the bulk end point, or is being updated
+        this.bulkUnsupportedAt = System.nanoTime();
+
+        return null;
+      }
+
+      ResponseProcessor.validateStatusCode(resp);
+
+      this.bulkUnsupportedAt = null;
+
+      Map<String, GeoObject> geoObjects = new HashMap<String, GeoObject>();
+
+      return this.read(RegistryUrls.GEO_OBJECT_GET_BULK, resp, reader ->
+      {
+        reader.beginArray();
+
+        while (reader.hasNext())
+        {
+          GeoObject geoObject = this.cache(GeoObject.fromJSON(this, reader));
+
+          geoObjects.put(geoObject.getUid(), geoObject);
+        }
+
+        reader.endArray();
+
+        return geoObjects;
+      });
+    }
+  }
+
+  /**
+   * Applies the function to every item, at most {@link #getBulkConcurrency()}
+   * items at the same time on the {@link #getExecutor()}. Once the function
+   * fails for an item the remaining items are skipped and the failure is
+   * thrown.
+   * 
+   * @return the results in the order of the items.
+   */
+  private <T, R> List<R> parallel(List<T> items, Function<T, R> function)
+  {
+    List<R> results = new ArrayList<R>(items.size());
+
+    if (items.size() <= 1)
+    {
+      items.forEach(item -> results.add(function.apply(item)));
+
+      return results;
+    }
+
+    AtomicReferenceArray<R> slots = new AtomicReferenceArray<R>(items.size());
+    AtomicInteger next = new AtomicInteger();
+    List<CompletableFuture<Void>> workers = new ArrayList<CompletableFuture<Void>>();
+
+    for (int i = Math.max(1, Math.min(this.bulkConcurrency, items.size())); i > 0; i--)
+    {
+      workers.add(CompletableFuture.runAsync(() ->
+      {
+        for (int index = next.getAndIncrement(); index < items.size(); index = next.getAndIncrement())
+        {
+          try
+          {
+            slots.set(index, function.apply(items.get(index)));
+          }
+          catch (RuntimeException e)
+          {
+            // Stops the other workers after their current item
+            next.set(items.size());
+
+            throw e;
+          }
+        }
+      }, this.getExecutor()));
+    }
+
+    try
+    {
+      for (CompletableFuture<Void> worker : workers)
+      {
+        worker.get();
+      }
+    }
+    catch (ExecutionException e)
+    {
+      if (e.getCause() instanceof RuntimeException)
+      {
+        throw (RuntimeException) e.getCause();
+      }
+
+      throw new RuntimeException(e.getCause());
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+
+      throw new RuntimeException(e);
+    }
+
+    for (int i = 0; i < items.size(); i++)
+    {
+      results.add(slots.get(i));
+    }
+
+    return results;
+  }
+
+  String getGeoObjectsBody(List<String> ids, String typeCode)
+  {
+    return JsonStreams.toString(writer ->
+    {
+      writer.beginObject();
+      writer.name(RegistryUrls.GEO_OBJECT_GET_BULK_PARAM_TYPE_CODE).value(typeCode);
+      writer.name(RegistryUrls.GEO_OBJECT_GET_BULK_PARAM_IDS);
+      writer.beginArray();
+
+      for (String id : ids)
+      {
+        writer.value(id);
+      }
+
+      writer.endArray();
+      writer.endObject();
+    });
+  }
+
+  /**
+   * Sends a GET request for a response which may be streamed, recording the
+   * time until the response is received.
+   */
+  private HttpResponse get(String url, Map<String, String> params)
+  {
+    MetricsRecorder recorder = this.getMetricsRecorder();
+    long start = System.nanoTime();
+
+    try
+    {
+      HttpResponse resp = this.connector.httpGetStream(url, params);
+
+      recorder.recordRequest(url, resp.getStatusCode(), System.nanoTime() - start);
+
+      return resp;
+    }
+    catch (RuntimeException e)
+    {
+      recorder.recordRequest(url, -1, System.nanoTime() - start);
+
+      throw e;
+    }
+  }
+
+  /**
+   * Sends a POST request for a response which may be streamed, recording the
+   * time until the response is received.
+   */
+  private HttpResponse post(String url, String body)
+  {
+    MetricsRecorder recorder = this.getMetricsRecorder();
+    long start = System.nanoTime();
+
+    try
+    {
+      HttpResponse resp = this.connector.httpPostStream(url, body);
+
+      recorder.recordRequest(url, resp.getStatusCode(), System.nanoTime() - start);
+
+      return resp;
+    }
+    catch (RuntimeException e)
+    {
+      recorder.recordRequest(url, -1, System.nanoTime() - start);
+
+      throw e;
+    }
+  }
+
+  /**
+   * Decodes the body of the given response, recording the time taken. The
+   * body of a streamed response is received while it is decoded.
+   */
+  private <T> T read(String url, HttpResponse resp, ReadFunction<T> function)
+  {
+    long start = System.nanoTime();
+
+    T result = resp.read(function);
+
+    this.getMetricsRecorder().recordDecode(url, System.nanoTime() - start);
+
+    return result;
+  }
+
+  /**
+   * Returns a copy of the {@link GeoObject} with the given UID from the
+   * {@link GeoObjectCache}, or null if there is no cache or it does not hold
+   * the {@link GeoObject}. Shared with the {@link AsyncRegistryClient}.
+   */
+  GeoObject getCached(String id, String typeCode)
+  {
+    GeoObjectCache cache = this.geoObjectCache;
+
+    // Invalid parameters are reported by the request
+    if (cache == null || id == null || typeCode == null)
+    {
+      return null;
+    }
+
+    GeoObject cached = cache.getByUid(this, id, typeCode);
+
+    this.getMetricsRecorder().recordCacheAccess(MetricsRecorder.CACHE_GEO_OBJECT, cached != null);
+
+    return cached;
+  }
+
+  /**
+   * Returns a copy of the {@link GeoObject} with the given code from the
+   * {@link GeoObjectCache}, or null if there is no cache or it does not hold
+   * the {@link GeoObject}.
+   */
+  GeoObject getCachedByCode(String code, String typeCode)
+  {
+    GeoObjectCache cache = this.geoObjectCache;
+
+    if (cache == null || code == null || typeCode == null)
+    {
+      return null;
+    }
+
+    GeoObject cached = cache.getByCode(this, code, typeCode);
+
+    this.getMetricsRecorder().recordCacheAccess(MetricsRecorder.CACHE_GEO_OBJECT, cached != null);
+
+    return cached;
+  }
+
+  /**
+   * Adds the given {@link GeoObject} returned by the geo registry to the
+   * {@link GeoObjectCache}, if there is one.
+   */
+  GeoObject cache(GeoObject geoObject)
+  {
+    GeoObjectCache cache = this.geoObjectCache;
+
+    if (cache != null && geoObject != null)
+    {
+      cache.put(geoObject);
+    }
+
+    return geoObject;
+  }
+
+  /**
+   * Removes the {@link GeoObject} with the given UID from the
+   * {@link GeoObjectCache}, if there is one, before a request which changes
+   * it. The cached entry is stale even if the request fails halfway.
+   */
+  void invalidate(String id, String typeCode)
+  {
+    GeoObjectCache cache = this.geoObjectCache;
+
+    if (cache != null && id != null)
+    {
+      cache.invalidate(id, typeCode);
+    }
+  }
+  
+  Map<String, String> getGeoObjectByCodeParams(String code, String typeCode)
   {
     if (code == null || code.length() == 0)
     {
@@ -148,12 +1068,7 @@ public class HttpRegistryClient extends RegistryAdapter
     params.put(RegistryUrls.GEO_OBJECT_GET_CODE_PARAM_CODE, code);
     params.put(RegistryUrls.GEO_OBJECT_GET_CODE_PARAM_TYPE_CODE, typeCode);
 
-    HttpResponse resp = this.connector.httpGet(RegistryUrls.GEO_OBJECT_GET_CODE, params);
-    ResponseProcessor.validateStatusCode(resp);
-
-    GeoObject geoObject = GeoObject.fromJSON(this, resp.getAsString());
-
-    return geoObject;
+    return params;
   }
 
   /**
@@ -164,22 +1079,32 @@ public class HttpRegistryClient extends RegistryAdapter
    * @param _geoObject
    */
   public GeoObject createGeoObject(GeoObject _geoObject)
+  {
+    try (HttpResponse resp = this.post(RegistryUrls.GEO_OBJECT_CREATE, this.createGeoObjectBody(_geoObject)))
+    {
+      ResponseProcessor.validateStatusCode(resp);
+      
+      GeoObject retGeo = this.read(RegistryUrls.GEO_OBJECT_CREATE, resp, reader -> GeoObject.fromJSON(this, reader));
+      return this.cache(retGeo);
+    }
+  }
+  
+  String createGeoObjectBody(GeoObject _geoObject)
   {
     if (_geoObject == null)
     {
       throw new RequiredParameterException(RegistryUrls.GEO_OBJECT_CREATE, RegistryUrls.GEO_OBJECT_CREATE_PARAM_GEOOBJECT);
     }
 
-    JsonObject jsonObject = _geoObject.toJSON();
-
-    JsonObject params = new JsonObject();
-    params.add(RegistryUrls.GEO_OBJECT_CREATE_PARAM_GEOOBJECT, jsonObject);
+    String params = JsonStreams.toString(writer ->
+    {
+      writer.beginObject();
+      writer.name(RegistryUrls.GEO_OBJECT_CREATE_PARAM_GEOOBJECT);
+      _geoObject.writeTo(writer);
+      writer.endObject();
+    });
 
-    HttpResponse resp = this.connector.httpPost(RegistryUrls.GEO_OBJECT_CREATE, params.toString());
-    ResponseProcessor.validateStatusCode(resp);
-    
-    GeoObject retGeo = GeoObject.fromJSON(this, resp.getAsString());
-    return retGeo;
+    return params;
   }
   
   /**
@@ -191,6 +1116,22 @@ public class HttpRegistryClient extends RegistryAdapter
    * @returns ParentTreeNode The new node which was created with the provided parent.
    */
   public ParentTreeNode addChild(String parentId, String parentTypeCode, String childId, String childTypeCode, String hierarchyCode)
+  {
+    String body = this.addChildBody(parentId, parentTypeCode, childId, childTypeCode, hierarchyCode);
+
+    this.invalidate(parentId, parentTypeCode);
+    this.invalidate(childId, childTypeCode);
+
+    try (HttpResponse resp = this.post(RegistryUrls.GEO_OBJECT_ADD_CHILD, body))
+    {
+      ResponseProcessor.validateStatusCode(resp);
+      
+      ParentTreeNode ret = this.read(RegistryUrls.GEO_OBJECT_ADD_CHILD, resp, reader -> ParentTreeNode.fromJSON(reader, this));
+      return ret;
+    }
+  }
+  
+  String addChildBody(String parentId, String parentTypeCode, String childId, String childTypeCode, String hierarchyCode)
   {
     if (childId == null || childId.length() == 0)
     {
@@ -220,11 +1161,7 @@ public class HttpRegistryClient extends RegistryAdapter
     params.addProperty(RegistryUrls.GEO_OBJECT_ADD_CHILD_PARAM_PARENT_TYPE_CODE, parentTypeCode);
     params.addProperty(RegistryUrls.GEO_OBJECT_ADD_CHILD_PARAM_HIERARCHY_CODE, hierarchyCode);
     
-    HttpResponse resp = this.connector.httpPost(RegistryUrls.GEO_OBJECT_ADD_CHILD, params.toString());
-    ResponseProcessor.validateStatusCode(resp);
-    
-    ParentTreeNode ret = ParentTreeNode.fromJSON(resp.getAsString(), this);
-    return ret;
+    return params.toString();
   }
 
   /**
@@ -235,22 +1172,36 @@ public class HttpRegistryClient extends RegistryAdapter
    * @param _geoObject
    */
   public GeoObject updateGeoObject(GeoObject _geoObject)
+  {
+    String body = this.updateGeoObjectBody(_geoObject);
+
+    this.invalidate(_geoObject.getUid(), _geoObject.getType().getCode());
+
+    try (HttpResponse resp = this.post(RegistryUrls.GEO_OBJECT_UPDATE, body))
+    {
+      ResponseProcessor.validateStatusCode(resp);
+      
+      GeoObject retGeo = this.read(RegistryUrls.GEO_OBJECT_UPDATE, resp, reader -> GeoObject.fromJSON(this, reader));
+      return this.cache(retGeo);
+    }
+  }
+  
+  String updateGeoObjectBody(GeoObject _geoObject)
   {
     if (_geoObject == null)
     {
       throw new RequiredParameterException(RegistryUrls.GEO_OBJECT_UPDATE, RegistryUrls.GEO_OBJECT_UPDATE_PARAM_GEOOBJECT);
     }
 
-    JsonObject jsonObject = _geoObject.toJSON();
-
-    JsonObject params = new JsonObject();
-    params.add(RegistryUrls.GEO_OBJECT_UPDATE_PARAM_GEOOBJECT, jsonObject);
+    String params = JsonStreams.toString(writer ->
+    {
+      writer.beginObject();
+      writer.name(RegistryUrls.GEO_OBJECT_UPDATE_PARAM_GEOOBJECT);
+      _geoObject.writeTo(writer);
+      writer.endObject();
+    });
 
-    HttpResponse resp = this.connector.httpPost(RegistryUrls.GEO_OBJECT_UPDATE, params.toString());
-    ResponseProcessor.validateStatusCode(resp);
-    
-    GeoObject retGeo = GeoObject.fromJSON(this, resp.getAsString());
-    return retGeo;
+    return params;
   }
 
   /**
@@ -271,6 +1222,18 @@ public class HttpRegistryClient extends RegistryAdapter
    *         given UID and its children of the given types.
    */
   public ChildTreeNode getChildGeoObjects(String parentId, String parentTypeCode, String[] childrenTypes, Boolean recursive)
+  {
+    try (HttpResponse resp = this.get(RegistryUrls.GEO_OBJECT_GET_CHILDREN, this.getChildGeoObjectsParams(parentId, parentTypeCode, childrenTypes, recursive)))
+    {
+      ResponseProcessor.validateStatusCode(resp);
+
+      ChildTreeNode tn = this.read(RegistryUrls.GEO_OBJECT_GET_CHILDREN, resp, reader -> ChildTreeNode.fromJSON(reader, this));
+
+      return tn;
+    }
+  }
+  
+  Map<String, String> getChildGeoObjectsParams(String parentId, String parentTypeCode, String[] childrenTypes, Boolean recursive)
   {
     if (parentId == null || parentId.length() == 0)
     {
@@ -305,12 +1268,7 @@ public class HttpRegistryClient extends RegistryAdapter
     params.put(RegistryUrls.GEO_OBJECT_GET_CHILDREN_PARAM_CHILDREN_TYPES, serialized.toString());
     params.put(RegistryUrls.GEO_OBJECT_GET_CHILDREN_PARAM_RECURSIVE, recursive.toString());
 
-    HttpResponse resp = this.connector.httpGet(RegistryUrls.GEO_OBJECT_GET_CHILDREN, params);
-    ResponseProcessor.validateStatusCode(resp);
-
-    ChildTreeNode tn = ChildTreeNode.fromJSON(resp.getAsString(), this);
-
-    return tn;
+    return params;
   }
 
   /**
@@ -333,6 +1291,18 @@ public class HttpRegistryClient extends RegistryAdapter
    *         given UID and its children of the given types.
    */
   public ParentTreeNode getParentGeoObjects(String childId, String childTypeCode, String[] parentTypes, Boolean recursive)
+  {
+    try (HttpResponse resp = this.get(RegistryUrls.GEO_OBJECT_GET_PARENTS, this.getParentGeoObjectsParams(childId, childTypeCode, parentTypes, recursive)))
+    {
+      ResponseProcessor.validateStatusCode(resp);
+
+      ParentTreeNode tn = this.read(RegistryUrls.GEO_OBJECT_GET_PARENTS, resp, reader -> ParentTreeNode.fromJSON(reader, this));
+
+      return tn;
+    }
+  }
+  
+  Map<String, String> getParentGeoObjectsParams(String childId, String childTypeCode, String[] parentTypes, Boolean recursive)
   {
     if (childId == null || childId.length() == 0)
     {
@@ -367,12 +1337,7 @@ public class HttpRegistryClient extends RegistryAdapter
     params.put(RegistryUrls.GEO_OBJECT_GET_PARENTS_PARAM_PARENT_TYPES, serialized.toString());
     params.put(RegistryUrls.GEO_OBJECT_GET_PARENTS_PARAM_RECURSIVE, recursive.toString());
 
-    HttpResponse resp = this.connector.httpGet(RegistryUrls.GEO_OBJECT_GET_PARENTS, params);
-    ResponseProcessor.validateStatusCode(resp);
-
-    ParentTreeNode tn = ParentTreeNode.fromJSON(resp.getAsString(), this);
-
-    return tn;
+    return params;
   }
 
   /**
@@ -385,6 +1350,21 @@ public class HttpRegistryClient extends RegistryAdapter
    * @return An array of UIDs.
    */
   public Set<String> getGeoObjectUids(Integer numberOfUids)
+  {
+    try (HttpResponse resp = this.get(RegistryUrls.GEO_OBJECT_GET_UIDS, this.getGeoObjectUidsParams(numberOfUids)))
+    {
+      ResponseProcessor.validateStatusCode(resp);
+
+      long start = System.nanoTime();
+      Set<String> uids = toUidSet(resp);
+
+      this.getMetricsRecorder().recordDecode(RegistryUrls.GEO_OBJECT_GET_UIDS, System.nanoTime() - start);
+
+      return uids;
+    }
+  }
+  
+  Map<String, String> getGeoObjectUidsParams(Integer numberOfUids)
   {
     if (numberOfUids == null)
     {
@@ -394,19 +1374,26 @@ public class HttpRegistryClient extends RegistryAdapter
     HashMap<String, String> params = new HashMap<String, String>();
     params.put(RegistryUrls.GEO_OBJECT_GET_UIDS_PARAM_AMOUNT, numberOfUids.toString());
 
-    HttpResponse resp = this.connector.httpGet(RegistryUrls.GEO_OBJECT_GET_UIDS, params);
-    ResponseProcessor.validateStatusCode(resp);
+    return params;
+  }
+  
+  static Set<String> toUidSet(HttpResponse resp)
+  {
+    return resp.read(reader ->
+    {
+      Set<String> set = new HashSet<String>();
 
-    JsonArray values = resp.getAsJsonArray();
+      reader.beginArray();
 
-    Set<String> set = new HashSet<String>(values.size());
+      while (reader.hasNext())
+      {
+        set.add(reader.nextString());
+      }
 
-    for (int i = 0; i < values.size(); i++)
-    {
-      set.add(values.get(i).getAsString());
-    }
+      reader.endArray();
 
-    return set;
+      return set;
+    });
   }
   
   /**
@@ -415,19 +1402,29 @@ public class HttpRegistryClient extends RegistryAdapter
    * @param geoObjectType
    */
   public void createGeoObjectType(GeoObjectType geoObjectType)
+  {
+    try (HttpResponse resp = this.post(RegistryUrls.GEO_OBJECT_TYPE_CREATE, this.createGeoObjectTypeBody(geoObjectType)))
+    {
+      ResponseProcessor.validateStatusCode(resp);
+    }
+  }
+  
+  String createGeoObjectTypeBody(GeoObjectType geoObjectType)
   {
     if (geoObjectType == null)
     {
       throw new RequiredParameterException(RegistryUrls.GEO_OBJECT_TYPE_CREATE, "geoObjectType");
     }
     
-    JsonObject jsonObject = geoObjectType.toJSON();
-
-    JsonObject params = new JsonObject();
-    params.add("gtJSON", jsonObject);
+    String params = JsonStreams.toString(writer ->
+    {
+      writer.beginObject();
+      writer.name("gtJSON");
+      geoObjectType.writeTo(writer);
+      writer.endObject();
+    });
 
-    HttpResponse resp = this.connector.httpPost(RegistryUrls.GEO_OBJECT_TYPE_CREATE, params.toString());
-    ResponseProcessor.validateStatusCode(resp);
+    return params;
   }
   
   /**
@@ -442,6 +1439,21 @@ public class HttpRegistryClient extends RegistryAdapter
    * @throws
    **/
   public GeoObjectType[] getGeoObjectTypes(String[] codes)
+  {
+    try (HttpResponse resp = this.get(RegistryUrls.GEO_OBJECT_TYPE_GET_ALL, this.getGeoObjectTypesParams(codes)))
+    {
+      ResponseProcessor.validateStatusCode(resp);
+      
+      long start = System.nanoTime();
+      GeoObjectType[] gots = GeoObjectType.fromJSONArray(resp.getAsJsonArray(), this);
+      
+      this.getMetricsRecorder().recordDecode(RegistryUrls.GEO_OBJECT_TYPE_GET_ALL, System.nanoTime() - start);
+      
+      return gots;
+    }
+  }
+  
+  Map<String, String> getGeoObjectTypesParams(String[] codes)
   {
     if (codes == null)
     {
@@ -457,40 +1469,6 @@ public class HttpRegistryClient extends RegistryAdapter
     HashMap<String, String> params = new HashMap<String, String>();
     params.put(RegistryUrls.GEO_OBJECT_TYPE_GET_ALL_PARAM_TYPES, types.toString());
     
-    HttpResponse resp = this.connector.httpGet(RegistryUrls.GEO_OBJECT_TYPE_GET_ALL, params);
-    ResponseProcessor.validateStatusCode(resp);
-    
-    GeoObjectType[] gots = GeoObjectType.fromJSONArray(resp.getAsString(), this);
-    
-    return gots;
-  }
-  
-  /**
-   * Returns an array of {@link HierarchyType} that define the given list of types. If no types are provided then all will be returned.
-   * 
-   * @param types An array of HierarchyType codes that will be retrieved.
-   */
-  private HierarchyType[] getHierarchyTypes(String[] types)
-  {
-    if (types == null)
-    {
-      types = new String[]{};
-    }
-    
-    JsonArray jaTypes = new JsonArray();
-    for (String type : types)
-    {
-      jaTypes.add(type);
-    }
-    
-    HashMap<String, String> params = new HashMap<String, String>();
-    params.put("types", jaTypes.toString());
-    
-    HttpResponse resp = this.connector.httpGet(RegistryUrls.HIERARCHY_TYPE_GET_ALL, params);
-    ResponseProcessor.validateStatusCode(resp);
-    
-    HierarchyType[] hts = HierarchyType.fromJSONArray(resp.getAsString(), this);
-    
-    return hts;
+    return params;
   }
 }
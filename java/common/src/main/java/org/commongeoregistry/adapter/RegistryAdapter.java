@@ -1,16 +1,14 @@
 package org.commongeoregistry.adapter;
 
 import java.io.Serializable;
-import java.util.Map;
 
-import org.commongeoregistry.adapter.constants.DefaultAttribute;
-import org.commongeoregistry.adapter.constants.DefaultTerms.GeoObjectStatusTerm;
-import org.commongeoregistry.adapter.dataaccess.Attribute;
 import org.commongeoregistry.adapter.dataaccess.GeoObject;
+import org.commongeoregistry.adapter.dataaccess.GeoObjectCodec;
 import org.commongeoregistry.adapter.id.AdapterIdServiceIF;
 import org.commongeoregistry.adapter.id.EmptyIdCacheException;
 import org.commongeoregistry.adapter.metadata.GeoObjectType;
 import org.commongeoregistry.adapter.metadata.MetadataCache;
+import org.commongeoregistry.adapter.metrics.MetricsRecorder;
 
 public abstract class RegistryAdapter implements Serializable
 {
@@ -23,6 +21,8 @@ public abstract class RegistryAdapter implements Serializable
   
   private AdapterIdServiceIF idService;
   
+  private transient volatile MetricsRecorder metricsRecorder;
+  
   public RegistryAdapter(AdapterIdServiceIF idService)
   {
     this.metadataCache = new MetadataCache(this);
@@ -40,6 +40,26 @@ public abstract class RegistryAdapter implements Serializable
     return this.idService;
   }
   
+  /**
+   * Returns the recorder the adapter, its caches and its id service report their measurements to,
+   * {@link MetricsRecorder#NONE} if none has been set.
+   */
+  public MetricsRecorder getMetricsRecorder()
+  {
+    MetricsRecorder recorder = this.metricsRecorder;
+    
+    return recorder != null ? recorder : MetricsRecorder.NONE;
+  }
+  
+  /**
+   * @param metricsRecorder
+   *          recorder for the measurements of the adapter, or null to discard them.
+   */
+  public void setMetricsRecorder(MetricsRecorder metricsRecorder)
+  {
+    this.metricsRecorder = metricsRecorder;
+  }
+  
   // TODO - Add support for a supplier provided exception.
   /**
    * Creates a new local {@link GeoObject} instance of the given type. If the local id cache is empty, an EmptyIdCacheException is thrown.
@@ -49,22 +69,33 @@ public abstract class RegistryAdapter implements Serializable
    */
   public GeoObject newGeoObjectInstance(String geoObjectTypeCode) throws EmptyIdCacheException
   {
-    GeoObjectType geoObjectType = this.getMetadataCache().getGeoObjectType(geoObjectTypeCode).get();
-    
-    Map<String, Attribute> attributeMap = GeoObject.buildAttributeMap(geoObjectType);
-    
-    GeoObject geoObject = new GeoObject(geoObjectType, geoObjectType.getGeometryType(), attributeMap);
+    return this.newGeoObjectInstance(geoObjectTypeCode, true);
+  }
+  
+  /**
+   * Creates a new local {@link GeoObject} instance of the given type. The instance is copied from the prototype cached
+   * with the {@link GeoObjectCodec} of the type, which already holds the type code and the NEW status.
+   * 
+   * @param geoObjectTypeCode
+   * @param generateUid
+   *          true to assign a uid from the id service. Decoders pass false as the uid is read from the JSON, which
+   *          leaves the local id cache untouched.
+   * @return a new local {@link GeoObject} instance of the given type.
+   */
+  public GeoObject newGeoObjectInstance(String geoObjectTypeCode, boolean generateUid) throws EmptyIdCacheException
+  {
+    GeoObjectCodec codec = this.getMetadataCache().getGeoObjectCodec(geoObjectTypeCode);
     
-    // Set some default values
-//    geoObject.getAttribute(DefaultAttribute.TYPE.getName()).setValue(geoObjectTypeCode);
+    GeoObjectType geoObjectType = codec.getGeoObjectType();
     
-    Term newStatus = this.getMetadataCache().getTerm(GeoObjectStatusTerm.NEW.code).get();
-    geoObject.getAttribute(DefaultAttribute.STATUS.getName()).setValue(newStatus);
+    GeoObject geoObject = new GeoObject(geoObjectType, geoObjectType.getGeometryType(), codec);
     
-    String uid = this.idService.next();
-    geoObject.setUid(uid);
+    if (generateUid)
+    {
+      String uid = this.idService.next();
+      geoObject.setUid(uid);
+    }
     
     return geoObject;
-    
   }
 }
@@ -3,11 +3,17 @@ package org.commongeoregistry.adapter;
 import java.util.ArrayList;
 import java.util.Optional;
 
+import org.commongeoregistry.adapter.constants.RegistryUrls;
 import org.commongeoregistry.adapter.dataaccess.GeoObject;
 import org.commongeoregistry.adapter.id.AdapterIdServiceIF;
+import org.commongeoregistry.adapter.json.JsonStreams;
 import org.commongeoregistry.adapter.metadata.GeoObjectType;
 import org.commongeoregistry.adapter.metadata.HierarchyType;
 import org.commongeoregistry.adapter.metadata.MetadataCache;
+import org.commongeoregistry.adapter.metadata.MetadataFingerprint;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 
 /**
  * This class is used to manage the metadata and the {@link GeoObject}s that are managed by an implementation of 
@@ -46,11 +52,39 @@ public class RegistryAdapterServer extends RegistryAdapter
       
       if (geoObjectType.isPresent())
       {
-        geoObjectTypesJSON.add(geoObjectType.get().toJSON().toString());
+        geoObjectTypesJSON.add(JsonStreams.toString(geoObjectType.get()::writeTo));
       }
     }
     
     return (String[]) geoObjectTypesJSON.toArray();
     
   }
+  
+  /**
+   * Returns the response to a conditional request for all {@link GeoObjectType}s, see {@link MetadataFingerprint}.
+   * 
+   * @param body body of the request posted to {@link RegistryUrls#GEO_OBJECT_TYPE_GET_UPDATES}.
+   * @return the added and changed types and the codes of the removed types in JSON format, or null if the client is up
+   *         to date and the request should be answered with HTTP 304.
+   */
+  public String getGeoObjectTypeUpdates(String body)
+  {
+    JsonObject fingerprints = new JsonParser().parse(body).getAsJsonObject().getAsJsonObject(RegistryUrls.GEO_OBJECT_TYPE_GET_UPDATES_PARAM_FINGERPRINTS);
+    
+    return MetadataFingerprint.delta(fingerprints, this.getMetadataCache().getSnapshot().getGeoObjectTypes(), GeoObjectType::getCode, MetadataFingerprint::of, GeoObjectType::toJSON);
+  }
+  
+  /**
+   * Returns the response to a conditional request for all {@link HierarchyType}s, see {@link MetadataFingerprint}.
+   * 
+   * @param body body of the request posted to {@link RegistryUrls#HIERARCHY_TYPE_GET_UPDATES}.
+   * @return the added and changed hierarchies and the codes of the removed hierarchies in JSON format, or null if the
+   *         client is up to date and the request should be answered with HTTP 304.
+   */
+  public String getHierarchyTypeUpdates(String body)
+  {
+    JsonObject fingerprints = new JsonParser().parse(body).getAsJsonObject().getAsJsonObject(RegistryUrls.HIERARCHY_TYPE_GET_UPDATES_PARAM_FINGERPRINTS);
+    
+    return MetadataFingerprint.delta(fingerprints, this.getMetadataCache().getSnapshot().getHierarchyTypes(), HierarchyType::getCode, MetadataFingerprint::of, HierarchyType::toJSON);
+  }
 }
@@ -1,12 +1,15 @@
 package org.commongeoregistry.adapter;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
-import com.google.gson.JsonArray;
+import org.commongeoregistry.adapter.json.JsonStreams;
+
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 
 public class Term implements Serializable
 {
@@ -59,20 +62,25 @@ public class Term implements Serializable
 
   public JsonObject toJSON()
   {
-    JsonObject obj = new JsonObject();
-    obj.addProperty("code", this.getCode());
-    obj.addProperty("localizedLabel", this.getLocalizedLabel());
+    return JsonStreams.toJsonTree(this::writeTo).getAsJsonObject();
+  }
+
+  public void writeTo(JsonWriter writer) throws IOException
+  {
+    writer.beginObject();
+    writer.name("code").value(this.getCode());
+    writer.name("localizedLabel").value(this.getLocalizedLabel());
     
     // Child Terms are not stored in a hierarchy structure. They are flattened in an array. 
-    JsonArray childTerms = new JsonArray();
+    writer.name("children").beginArray();
     for(int i=0; i<this.getChildren().size(); i++)
     {
       Term child = this.getChildren().get(i);
-      childTerms.add(child.toJSON());
+      child.writeTo(writer);
     }
-    obj.add("children", childTerms);
+    writer.endArray();
 
-    return obj;
+    writer.endObject();
   }
 
   public String toString()
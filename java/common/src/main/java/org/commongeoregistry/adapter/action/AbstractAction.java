@@ -1,8 +1,13 @@
 package org.commongeoregistry.adapter.action;
 
+import java.io.IOException;
+
+import org.commongeoregistry.adapter.json.JsonStreams;
+
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
 
 abstract public class AbstractAction
 {
@@ -10,6 +15,18 @@ abstract public class AbstractAction
   
   abstract public JsonObject toJSON();
   
+  /**
+   * Writes the JSON representation of this action to the given writer. Actions which hold large payloads override
+   * this to avoid building the intermediate {@link JsonObject}.
+   * 
+   * @param writer
+   * @throws IOException
+   */
+  public void writeTo(JsonWriter writer) throws IOException
+  {
+    JsonStreams.write(this.toJSON(), writer);
+  }
+  
   public static JsonArray serializeActions(AbstractAction[] actions)
   {
     JsonArray ja = new JsonArray();
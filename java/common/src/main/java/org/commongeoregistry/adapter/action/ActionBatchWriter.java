@@ -0,0 +1,390 @@
+package org.commongeoregistry.adapter.action;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.commongeoregistry.adapter.constants.RegistryUrls;
+import org.commongeoregistry.adapter.http.Connector;
+import org.commongeoregistry.adapter.http.HttpResponse;
+import org.commongeoregistry.adapter.http.ResponseProcessor;
+import org.commongeoregistry.adapter.json.JsonStreams;
+
+/**
+ * Sends {@link CreateAction}s, {@link UpdateAction}s, {@link AddChildAction}s and {@link DeleteAction}s to the
+ * {@link RegistryUrls#EXECUTE_ACTIONS} end point of the common geo-registry in batches. A batch is sent once it holds
+ * {@link #getBatchSize()} actions or its first action has waited {@link #getMaxDelay()} milliseconds, whichever comes
+ * first. Up to {@link #getMaxOutstandingBatches()} batches are in flight at the same time, adding actions blocks while
+ * the limit is reached.
+ *
+ * The registry executes a batch as a whole, the future returned for each action completes once its batch has been
+ * executed, or exceptionally with the error of its batch. Closing the writer sends the remaining actions and waits for
+ * all batches to complete. The threads of the writer are daemon threads, actions which have not been sent when the
+ * JVM exits without {@link #close()} are lost.
+ */
+public class ActionBatchWriter implements AutoCloseable
+{
+  public static final int     DEFAULT_BATCH_SIZE              = 500;
+
+  public static final long    DEFAULT_MAX_DELAY               = 1000;
+
+  public static final int     DEFAULT_MAX_OUTSTANDING_BATCHES = 4;
+
+  /**
+   * Actions which are sent together and their futures.
+   */
+  private static class Batch
+  {
+    private final List<AbstractAction>          actions;
+
+    private final List<CompletableFuture<Void>> results;
+
+    private Batch(List<AbstractAction> actions, List<CompletableFuture<Void>> results)
+    {
+      this.actions = actions;
+      this.results = results;
+    }
+  }
+
+  private final Connector                       connector;
+
+  private final int                             batchSize;
+
+  private final long                            maxDelay;
+
+  private final int                             maxOutstandingBatches;
+
+  private final Semaphore                       outstanding;
+
+  private final ExecutorService                 sender;
+
+  private final ScheduledThreadPoolExecutor     timer;
+
+  private List<AbstractAction>                  actions;
+
+  private List<CompletableFuture<Void>>         results;
+
+  /**
+   * Incremented every time the pending actions are taken, tells a timer whether the batch it was started for has
+   * already been sent.
+   */
+  private long                                  generation;
+
+  private boolean                               closed;
+
+  private final AtomicLong                      batchCount;
+
+  private final AtomicLong                      actionCount;
+
+  private final AtomicLong                      failedActionCount;
+
+  public ActionBatchWriter(Connector connector)
+  {
+    this(connector, DEFAULT_BATCH_SIZE, DEFAULT_MAX_DELAY, DEFAULT_MAX_OUTSTANDING_BATCHES);
+  }
+
+  /**
+   * @param connector
+   *          sends the batches.
+   * @param batchSize
+   *          maximum number of actions in a batch.
+   * @param maxDelay
+   *          maximum time in milliseconds an action waits for its batch to fill up, 0 to wait until the batch is full
+   *          or {@link #flush()} is called.
+   * @param maxOutstandingBatches
+   *          maximum number of batches in flight at the same time.
+   */
+  public ActionBatchWriter(Connector connector, int batchSize, long maxDelay, int maxOutstandingBatches)
+  {
+    this.connector = connector;
+    this.batchSize = batchSize;
+    this.maxDelay = maxDelay;
+    this.maxOutstandingBatches = maxOutstandingBatches;
+    this.outstanding = new Semaphore(maxOutstandingBatches);
+    this.sender = Executors.newFixedThreadPool(maxOutstandingBatches, runnable ->
+    {
+      Thread thread = new Thread(runnable, "action-batch-sender");
+      thread.setDaemon(true);
+
+      return thread;
+    });
+    this.timer = new ScheduledThreadPoolExecutor(1, runnable ->
+    {
+      Thread thread = new Thread(runnable, "action-batch-timer");
+      thread.setDaemon(true);
+
+      return thread;
+    });
+    this.timer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    this.actions = new ArrayList<AbstractAction>();
+    this.results = new ArrayList<CompletableFuture<Void>>();
+    this.generation = 0;
+    this.closed = false;
+    this.batchCount = new AtomicLong();
+    this.actionCount = new AtomicLong();
+    this.failedActionCount = new AtomicLong();
+  }
+
+  public int getBatchSize()
+  {
+    return this.batchSize;
+  }
+
+  public long getMaxDelay()
+  {
+    return this.maxDelay;
+  }
+
+  public int getMaxOutstandingBatches()
+  {
+    return this.maxOutstandingBatches;
+  }
+
+  /**
+   * Returns the number of batches sent.
+   */
+  public long getBatchCount()
+  {
+    return this.batchCount.get();
+  }
+
+  /**
+   * Returns the number of actions sent.
+   */
+  public long getActionCount()
+  {
+    return this.actionCount.get();
+  }
+
+  /**
+   * Returns the number of actions whose batch failed.
+   */
+  public long getFailedActionCount()
+  {
+    return this.failedActionCount.get();
+  }
+
+  /**
+   * Adds the given action to the current batch, sending the batch if it is full.
+   *
+   * @param action
+   * @return future which completes once the batch of the action has been executed by the registry.
+   * @throws IllegalStateException
+   *           if the writer has been closed.
+   */
+  public CompletableFuture<Void> add(AbstractAction action)
+  {
+    CompletableFuture<Void> result = new CompletableFuture<Void>();
+    Batch batch = null;
+
+    synchronized (this)
+    {
+      if (this.closed)
+      {
+        throw new IllegalStateException("The action batch writer has been closed.");
+      }
+
+      this.actions.add(action);
+      this.results.add(result);
+
+      if (this.actions.size() >= this.batchSize)
+      {
+        batch = this.take();
+      }
+      else if (this.actions.size() == 1 && this.maxDelay > 0)
+      {
+        long generation = this.generation;
+
+        this.timer.schedule(() -> this.flush(generation), this.maxDelay, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    if (batch != null)
+    {
+      this.send(batch);
+    }
+
+    return result;
+  }
+
+  /**
+   * Sends the current batch without waiting for it to fill up. Does not wait for the batch to complete.
+   */
+  public void flush()
+  {
+    Batch batch;
+
+    synchronized (this)
+    {
+      batch = this.take();
+    }
+
+    if (batch != null)
+    {
+      this.send(batch);
+    }
+  }
+
+  /**
+   * Sends the batch the timer was started for, unless it has been sent already.
+   */
+  private void flush(long generation)
+  {
+    Batch batch = null;
+
+    synchronized (this)
+    {
+      if (this.generation == generation)
+      {
+        batch = this.take();
+      }
+    }
+
+    if (batch != null)
+    {
+      this.send(batch);
+    }
+  }
+
+  /**
+   * Takes the pending actions as a batch, or returns null if there are none.
+   */
+  private Batch take()
+  {
+    if (this.actions.isEmpty())
+    {
+      return null;
+    }
+
+    Batch batch = new Batch(this.actions, this.results);
+
+    this.actions = new ArrayList<AbstractAction>();
+    this.results = new ArrayList<CompletableFuture<Void>>();
+    this.generation++;
+
+    return batch;
+  }
+
+  private void send(Batch batch)
+  {
+    try
+    {
+      // Blocks the caller while the maximum number of batches is in flight
+      this.outstanding.acquire();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+
+      this.fail(batch, e);
+
+      return;
+    }
+
+    try
+    {
+      this.sender.execute(() ->
+      {
+        try
+        {
+          this.execute(batch);
+        }
+        finally
+        {
+          this.outstanding.release();
+        }
+      });
+    }
+    catch (RejectedExecutionException e)
+    {
+      this.outstanding.release();
+
+      this.fail(batch, e);
+    }
+  }
+
+  private void execute(Batch batch)
+  {
+    try
+    {
+      String body = JsonStreams.toString(writer ->
+      {
+        String actions = JsonStreams.toString(array ->
+        {
+          array.beginArray();
+
+          for (AbstractAction action : batch.actions)
+          {
+            action.writeTo(array);
+          }
+
+          array.endArray();
+        });
+
+        writer.beginObject();
+        writer.name(RegistryUrls.EXECUTE_ACTIONS_PARAM_ACTIONS).value(actions);
+        writer.endObject();
+      });
+
+      HttpResponse resp = this.connector.httpPost(RegistryUrls.EXECUTE_ACTIONS, body);
+      ResponseProcessor.validateStatusCode(resp);
+
+      this.batchCount.incrementAndGet();
+      this.actionCount.addAndGet(batch.actions.size());
+
+      batch.results.forEach(result -> result.complete(null));
+    }
+    catch (RuntimeException e)
+    {
+      this.fail(batch, e);
+    }
+  }
+
+  private void fail(Batch batch, Throwable t)
+  {
+    this.failedActionCount.addAndGet(batch.actions.size());
+
+    batch.results.forEach(result -> result.completeExceptionally(t));
+  }
+
+  /**
+   * Sends the remaining actions and waits until all batches have completed.
+   */
+  @Override
+  public void close()
+  {
+    synchronized (this)
+    {
+      if (this.closed)
+      {
+        return;
+      }
+
+      this.closed = true;
+    }
+
+    try
+    {
+      this.timer.shutdown();
+      this.timer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+      this.flush();
+
+      this.sender.shutdown();
+      this.sender.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+
+      throw new RuntimeException(e);
+    }
+  }
+}
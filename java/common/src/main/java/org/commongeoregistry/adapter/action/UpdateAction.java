@@ -1,10 +1,14 @@
 package org.commongeoregistry.adapter.action;
 
+import java.io.IOException;
+
 import org.commongeoregistry.adapter.dataaccess.GeoObject;
+import org.commongeoregistry.adapter.json.JsonStreams;
 import org.commongeoregistry.adapter.metadata.GeoObjectType;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
 
 public class UpdateAction extends AbstractAction
 {
@@ -12,23 +16,23 @@ public class UpdateAction extends AbstractAction
 
     private static final String JSON_KEY_OBJ_TYPE = "objtype";
 
-    private final JsonObject objJson;
+    private final String objJson;
 
     private final String objType;
 
     public UpdateAction(GeoObject go)
     {
       this.objType = go.getClass().getName();
-      this.objJson = go.toJSON();
+      this.objJson = JsonStreams.toString(go::writeTo);
     }
     
     public UpdateAction(GeoObjectType type)
     {
       this.objType = type.getClass().getName();
-      this.objJson = type.toJSON();
+      this.objJson = JsonStreams.toString(type::writeTo);
     }
     
-    private UpdateAction(String objType, JsonObject objJson)
+    private UpdateAction(String objType, String objJson)
     {
       this.objType = objType;
       this.objJson = objJson;
@@ -39,7 +43,7 @@ public class UpdateAction extends AbstractAction
     {
       JsonObject json = new JsonObject();
 
-      json.add(JSON_KEY_OBJ_JSON, this.objJson);
+      json.add(JSON_KEY_OBJ_JSON, this.getObjJson());
 
       json.addProperty(JSON_KEY_OBJ_TYPE, this.objType);
       
@@ -48,21 +52,38 @@ public class UpdateAction extends AbstractAction
       return json;
     }
 
+    @Override
+    public void writeTo(JsonWriter writer) throws IOException
+    {
+      writer.beginObject();
+
+      writer.name(JSON_KEY_OBJ_JSON).jsonValue(this.objJson);
+
+      writer.name(JSON_KEY_OBJ_TYPE).value(this.objType);
+      
+      writer.name(JSON_KEY_ACTION_TYPE).value(this.getClass().getName());
+
+      writer.endObject();
+    }
+    
     public static UpdateAction fromJSON(String json)
     {
       JsonParser parser = new JsonParser();
       JsonObject oJson = parser.parse(json).getAsJsonObject();
 
       String objType = oJson.get(JSON_KEY_OBJ_TYPE).getAsString();
-      JsonObject objJson = oJson.get(JSON_KEY_OBJ_JSON).getAsJsonObject();
+      String objJson = oJson.get(JSON_KEY_OBJ_JSON).getAsJsonObject().toString();
 
       UpdateAction ca = new UpdateAction(objType, objJson);
 
       return ca;
     }
 
+    /**
+     * Returns the JSON of the object which was captured when this action was created.
+     */
     public JsonObject getObjJson() {
-      return objJson;
+      return new JsonParser().parse(this.objJson).getAsJsonObject();
     }
 
     public String getObjType() {
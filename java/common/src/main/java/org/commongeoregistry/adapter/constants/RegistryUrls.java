@@ -12,6 +12,10 @@ public class RegistryUrls
   public static final String GEO_OBJECT_GET_PARAM_ID   = "id";
   public static final String GEO_OBJECT_GET_PARAM_TYPE_CODE = "typeCode";
   
+  public static final String GEO_OBJECT_GET_BULK      = "geoobject/get-bulk";
+  public static final String GEO_OBJECT_GET_BULK_PARAM_IDS = "ids";
+  public static final String GEO_OBJECT_GET_BULK_PARAM_TYPE_CODE = "typeCode";
+  
   public static final String GEO_OBJECT_GET_CODE      = "geoobject/get-code";
   public static final String GEO_OBJECT_GET_CODE_PARAM_CODE = "code";
   public static final String GEO_OBJECT_GET_CODE_PARAM_TYPE_CODE = "typeCode";
@@ -51,6 +55,9 @@ public class RegistryUrls
   public static final String GEO_OBJECT_TYPE_GET_ALL  = "geoobjecttype/get-all";
   public static final String GEO_OBJECT_TYPE_GET_ALL_PARAM_TYPES  = "types";
   
+  public static final String GEO_OBJECT_TYPE_GET_UPDATES  = "geoobjecttype/get-updates";
+  public static final String GEO_OBJECT_TYPE_GET_UPDATES_PARAM_FINGERPRINTS  = "fingerprints";
+  
   public static final String GEO_OBJECT_TYPE_CREATE   = "geoobjecttype/create";
   
   public static final String GEO_OBJECT_TYPE_UPDATE   = "geoobjecttype/update";
@@ -62,6 +69,10 @@ public class RegistryUrls
    */
   
   public static final String HIERARCHY_TYPE_GET_ALL   = "hierarchytype/get-all";
+  public static final String HIERARCHY_TYPE_GET_ALL_PARAM_TYPES   = "types";
+  
+  public static final String HIERARCHY_TYPE_GET_UPDATES   = "hierarchytype/get-updates";
+  public static final String HIERARCHY_TYPE_GET_UPDATES_PARAM_FINGERPRINTS   = "fingerprints";
   
   public static final String HIERARCHY_TYPE_CREATE   = "hierarchytype/create";
   
@@ -1,8 +1,11 @@
 package org.commongeoregistry.adapter.dataaccess;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.Map;
 
 import org.commongeoregistry.adapter.RegistryAdapter;
+import org.commongeoregistry.adapter.json.JsonStreams;
 import org.commongeoregistry.adapter.metadata.AttributeBooleanType;
 import org.commongeoregistry.adapter.metadata.AttributeDateType;
 import org.commongeoregistry.adapter.metadata.AttributeFloatType;
@@ -12,24 +15,71 @@ import org.commongeoregistry.adapter.metadata.AttributeType;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 
 public abstract class Attribute implements Serializable
 {  
   /**
    * 
    */
-  private static final long serialVersionUID = -6682494916732516027L;
+  private static final long serialVersionUID = -5309639931410476987L;
   
   private String name;
   
   private String type;
   
+  /**
+   * Value of a standalone attribute. Unused once the attribute is bound to a {@link GeoObject}, the value is then
+   * stored in the value array of the {@link GeoObject}.
+   */
+  private Object value;
+  
+  private GeoObject geoObject;
+  
+  private int slot;
+  
   public Attribute(String name, String type)
   {
     this.name = name;
     this.type = type;
   }
   
+  /**
+   * Binds this attribute to the given slot of the given {@link GeoObject}, the attribute then reads and writes the
+   * value stored by the {@link GeoObject}.
+   * 
+   * @param geoObject
+   * @param slot
+   */
+  void bind(GeoObject geoObject, int slot)
+  {
+    this.geoObject = geoObject;
+    this.slot = slot;
+  }
+  
+  /**
+   * Returns the stored value of this attribute.
+   */
+  Object load()
+  {
+    return this.geoObject != null ? this.geoObject.load(this.slot) : this.value;
+  }
+  
+  /**
+   * Replaces the stored value of this attribute.
+   */
+  void store(Object value)
+  {
+    if (this.geoObject != null)
+    {
+      this.geoObject.store(this.slot, value);
+    }
+    else
+    {
+      this.value = value;
+    }
+  }
+  
   
   public String getName()
   {
@@ -86,20 +136,49 @@ public abstract class Attribute implements Serializable
     return this.getName()+": "+this.getValue();
   }
 
+  /**
+   * Writes the name and value of this attribute as a property of the enclosing GeoObject properties.
+   * 
+   * @param writer
+   * @throws IOException
+   */
+  public void writeTo(JsonWriter writer) throws IOException
+  {
+    AttributeCodec.forType(this.getType()).write(writer, this.getName(), this.load());
+  }
+  
+  /**
+   * Adds the name and value of this attribute to the given GeoObject properties.
+   * 
+   * @param geoObjProps
+   * @deprecated use {@link #writeTo(JsonWriter)}, which writes the property without building a JSON tree.
+   */
+  @Deprecated
   public void toJSON(JsonObject geoObjProps)
   {
-    Object value = this.getValue();
-    if (value == null)
+    JsonObject property = JsonStreams.toJsonTree(writer ->
     {
-      value = "";
-    }
+      writer.beginObject();
+      this.writeTo(writer);
+      writer.endObject();
+    }).getAsJsonObject();
     
-    geoObjProps.addProperty(this.getName(), value.toString());
+    for (Map.Entry<String, JsonElement> entry : property.entrySet())
+    {
+      geoObjProps.add(entry.getKey(), entry.getValue());
+    }
   }
   
   public void fromJSON(JsonElement jValue, RegistryAdapter registry)
   {
-    this.setValue(jValue.getAsString());
+    AttributeCodec codec = AttributeCodec.forType(this.getType());
+    
+    JsonStreams.read(jValue, reader ->
+    {
+      this.store(codec.read(reader, this.load(), registry));
+      
+      return null;
+    });
   }
   
 }
@@ -1,9 +1,7 @@
 package org.commongeoregistry.adapter.dataaccess;
 
-import org.commongeoregistry.adapter.RegistryAdapter;
 import org.commongeoregistry.adapter.metadata.AttributeBooleanType;
 
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 public class AttributeBoolean extends Attribute
@@ -11,15 +9,11 @@ public class AttributeBoolean extends Attribute
   /**
    * 
    */
-  private static final long serialVersionUID = -3802068636170892383L;
+  private static final long serialVersionUID = 3378525142408879423L;
   
-  private Boolean            value;
-
   public AttributeBoolean(String name)
   {
     super(name, AttributeBooleanType.TYPE);
-
-    this.value = null;
   }
 
   @Override
@@ -30,13 +24,13 @@ public class AttributeBoolean extends Attribute
 
   public void setBoolean(Boolean value)
   {
-    this.value = value;
+    this.store(value);
   }
 
   @Override
   public Boolean getValue()
   {
-    return this.value;
+    return (Boolean) this.load();
   }
 
   public JsonObject toJSON()
@@ -47,10 +41,4 @@ public class AttributeBoolean extends Attribute
     return obj;
   }
 
-  @Override
-  public void fromJSON(JsonElement jValue, RegistryAdapter registry)
-  {
-    this.setValue(Boolean.valueOf(jValue.getAsString()));
-  }
-  
 }
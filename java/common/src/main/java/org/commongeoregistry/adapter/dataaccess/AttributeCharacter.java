@@ -10,15 +10,11 @@ public class AttributeCharacter extends Attribute
   /**
    * 
    */
-  private static final long serialVersionUID = -506321096607959557L;
-
-  private String            value;
+  private static final long serialVersionUID = -5221370580478157525L;
 
   public AttributeCharacter(String name)
   {
     super(name, AttributeCharacterType.TYPE);
-
-    this.value = null;
   }
 
   @Override
@@ -29,13 +25,13 @@ public class AttributeCharacter extends Attribute
 
   public void setText(String value)
   {
-    this.value = value;
+    this.store(value);
   }
 
   @Override
   public String getValue()
   {
-    return this.value;
+    return (String) this.load();
   }
 
   public JsonObject toJSON()
@@ -0,0 +1,303 @@
+package org.commongeoregistry.adapter.dataaccess;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+import org.commongeoregistry.adapter.RegistryAdapter;
+import org.commongeoregistry.adapter.Term;
+import org.commongeoregistry.adapter.metadata.AttributeBooleanType;
+import org.commongeoregistry.adapter.metadata.AttributeDateType;
+import org.commongeoregistry.adapter.metadata.AttributeFloatType;
+import org.commongeoregistry.adapter.metadata.AttributeIntegerType;
+import org.commongeoregistry.adapter.metadata.AttributeTermType;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Reads and writes the JSON value of one kind of {@link Attribute}. There is one constant for each attribute type, the
+ * {@link GeoObjectCodec} of a {@link org.commongeoregistry.adapter.metadata.GeoObjectType} resolves the constant of
+ * each of its attributes once so that no lookups are needed per {@link GeoObject}. The codecs work on the raw values
+ * stored in the value slots of a {@link GeoObject}.
+ */
+enum AttributeCodec
+{
+  CHARACTER(String.class) {
+    @Override
+    void write(JsonWriter writer, String name, Object value) throws IOException
+    {
+      writer.name(name).value(value == null ? "" : value.toString());
+    }
+
+    @Override
+    Object read(JsonReader reader, Object current, RegistryAdapter registry) throws IOException
+    {
+      return nextString(reader);
+    }
+  },
+
+  BOOLEAN(Boolean.class) {
+    @Override
+    void write(JsonWriter writer, String name, Object value) throws IOException
+    {
+      CHARACTER.write(writer, name, value);
+    }
+
+    @Override
+    Object read(JsonReader reader, Object current, RegistryAdapter registry) throws IOException
+    {
+      String value = nextString(reader);
+
+      return value == null ? null : Boolean.valueOf(value);
+    }
+  },
+
+  INTEGER(Integer.class) {
+    @Override
+    void write(JsonWriter writer, String name, Object value) throws IOException
+    {
+      writer.name(name).value((Integer) value);
+    }
+
+    @Override
+    Object read(JsonReader reader, Object current, RegistryAdapter registry) throws IOException
+    {
+      if (reader.peek() == JsonToken.NULL)
+      {
+        reader.nextNull();
+
+        return current;
+      }
+
+      return reader.nextInt();
+    }
+  },
+
+  FLOAT(Float.class) {
+    @Override
+    void write(JsonWriter writer, String name, Object value) throws IOException
+    {
+      writer.name(name).value((Float) value);
+    }
+
+    @Override
+    Object read(JsonReader reader, Object current, RegistryAdapter registry) throws IOException
+    {
+      if (reader.peek() == JsonToken.NULL)
+      {
+        reader.nextNull();
+
+        return current;
+      }
+
+      return (float) reader.nextDouble();
+    }
+  },
+
+  DATE(Date.class) {
+    @Override
+    void write(JsonWriter writer, String name, Object value) throws IOException
+    {
+      if (value != null)
+      {
+        writer.name(name).value(DATE_FORMAT.get().format((Date) value));
+      }
+    }
+
+    @Override
+    Object read(JsonReader reader, Object current, RegistryAdapter registry) throws IOException
+    {
+      String value = nextString(reader);
+
+      if (value == null)
+      {
+        return current;
+      }
+
+      try
+      {
+        return DATE_FORMAT.get().parse(value);
+      }
+      catch (ParseException e)
+      {
+        throw new RuntimeException(e);
+      }
+    }
+  },
+
+  TERM(Term.class) {
+    @Override
+    Object toValue(Object stored)
+    {
+      return AttributeTerm.terms(stored);
+    }
+
+    @Override
+    Object toStored(Object value)
+    {
+      // getValue returns a list, which is accepted back
+      if (value instanceof List)
+      {
+        return AttributeTerm.normalize((List<?>) value);
+      }
+
+      return super.toStored(value);
+    }
+
+    @Override
+    void write(JsonWriter writer, String name, Object value) throws IOException
+    {
+      Term term = AttributeTerm.firstTerm(value);
+
+      writer.name(name);
+
+      if (term != null)
+      {
+        term.writeTo(writer);
+      }
+      else
+      {
+        writer.nullValue();
+      }
+    }
+
+    @Override
+    Object read(JsonReader reader, Object current, RegistryAdapter registry) throws IOException
+    {
+      if (reader.peek() != JsonToken.BEGIN_OBJECT) // They may have passed us a JsonNull
+      {
+        reader.skipValue();
+
+        return null;
+      }
+
+      String code = null;
+
+      reader.beginObject();
+
+      while (reader.hasNext())
+      {
+        if (reader.nextName().equals("code"))
+        {
+          code = reader.nextString();
+        }
+        else
+        {
+          reader.skipValue();
+        }
+      }
+
+      reader.endObject();
+
+      Term term = registry.getMetadataCache().getSnapshot().getTerm(code);
+
+      if (term != null)
+      {
+        return term;
+      }
+
+      throw new RuntimeException("Unable to find term with code [" + code + "].");
+    }
+  };
+
+  private final Class<?> valueClass;
+
+  private AttributeCodec(Class<?> valueClass)
+  {
+    this.valueClass = valueClass;
+  }
+
+  // ThreadLocal.withInitial is not available on Android before API 26
+  private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT = new ThreadLocal<SimpleDateFormat>()
+  {
+    @Override
+    protected SimpleDateFormat initialValue()
+    {
+      return new SimpleDateFormat(AttributeDate.FORMAT);
+    }
+  };
+
+  /**
+   * Returns the value of an attribute as returned by {@link Attribute#getValue()} for the given stored value.
+   */
+  Object toValue(Object stored)
+  {
+    return stored;
+  }
+
+  /**
+   * Returns the value to store for the value given to {@link Attribute#setValue(Object)}.
+   *
+   * @throws ClassCastException
+   *           if the value is not of the type of the attribute.
+   */
+  Object toStored(Object value)
+  {
+    return this.valueClass.cast(value);
+  }
+
+  /**
+   * Writes the stored value of an attribute as a property with the given name.
+   */
+  abstract void write(JsonWriter writer, String name, Object value) throws IOException;
+
+  /**
+   * Reads the property value at the current position of the reader and returns the value to store, the current value
+   * is returned where the previous implementation left the attribute unchanged.
+   */
+  abstract Object read(JsonReader reader, Object current, RegistryAdapter registry) throws IOException;
+
+  /**
+   * Returns the codec for attributes of the given type, {@link #CHARACTER} for unknown types to match
+   * {@link Attribute#attributeFactory(org.commongeoregistry.adapter.metadata.AttributeType)}.
+   *
+   * @param type
+   */
+  static AttributeCodec forType(String type)
+  {
+    if (type.equals(AttributeDateType.TYPE))
+    {
+      return DATE;
+    }
+    else if (type.equals(AttributeIntegerType.TYPE))
+    {
+      return INTEGER;
+    }
+    else if (type.equals(AttributeFloatType.TYPE))
+    {
+      return FLOAT;
+    }
+    else if (type.equals(AttributeTermType.TYPE))
+    {
+      return TERM;
+    }
+    else if (type.equals(AttributeBooleanType.TYPE))
+    {
+      return BOOLEAN;
+    }
+
+    return CHARACTER;
+  }
+
+  private static String nextString(JsonReader reader) throws IOException
+  {
+    JsonToken token = reader.peek();
+
+    if (token == JsonToken.NULL)
+    {
+      reader.nextNull();
+
+      return null;
+    }
+    else if (token == JsonToken.BOOLEAN)
+    {
+      return Boolean.toString(reader.nextBoolean());
+    }
+
+    return reader.nextString();
+  }
+}
@@ -1,26 +1,18 @@
 package org.commongeoregistry.adapter.dataaccess;
 
-import org.commongeoregistry.adapter.RegistryAdapter;
 import org.commongeoregistry.adapter.metadata.AttributeFloatType;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-
 public class AttributeFloat extends Attribute
 {
 
   /**
    * 
    */
-  private static final long serialVersionUID = 585645995864808480L;
-  
-  private Float floatValue;
+  private static final long serialVersionUID = 6716558429294999592L;
   
   public AttributeFloat(String name)
   {
     super(name, AttributeFloatType.TYPE);
-    
-    this.floatValue = null;
   }
   
   @Override
@@ -31,24 +23,13 @@ public class AttributeFloat extends Attribute
   
   public void setFloat(Float floatValue)
   {
-    this.floatValue = floatValue;
+    this.store(floatValue);
   }
   
   @Override
   public Float getValue()
   {
-    return this.floatValue;
-  }
-  
-  public void toJSON(JsonObject geoObjProps)
-  {
-    geoObjProps.addProperty(this.getName(), this.floatValue);
+    return (Float) this.load();
   }
   
-  public void fromJSON(JsonElement jValue, RegistryAdapter registry)
-  {
-    this.setValue(jValue.getAsFloat());
-  }
-
-
 }
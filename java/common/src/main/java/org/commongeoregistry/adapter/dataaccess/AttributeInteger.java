@@ -1,27 +1,18 @@
 package org.commongeoregistry.adapter.dataaccess;
 
-import org.commongeoregistry.adapter.RegistryAdapter;
 import org.commongeoregistry.adapter.metadata.AttributeIntegerType;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonNull;
-import com.google.gson.JsonObject;
-
 public class AttributeInteger extends Attribute
 {
 
   /**
    * 
    */
-  private static final long serialVersionUID = -2116815892488790274L;
-  
-  private Integer integer;
+  private static final long serialVersionUID = 796862898472124514L;
   
   public AttributeInteger(String name)
   {
     super(name, AttributeIntegerType.TYPE);
-    
-    this.integer = null;
   }
   
   @Override
@@ -32,26 +23,13 @@ public class AttributeInteger extends Attribute
   
   public void setInteger(Integer integer)
   {
-    this.integer = integer;
+    this.store(integer);
   }
   
   @Override
   public Integer getValue()
   {
-    return this.integer;
-  }
-  
-  public void toJSON(JsonObject geoObjProps)
-  {
-    geoObjProps.addProperty(this.getName(), this.integer);
+    return (Integer) this.load();
   }
   
-  public void fromJSON(JsonElement jValue, RegistryAdapter registry)
-  {
-    if (!(jValue instanceof JsonNull))
-    {
-      this.setValue(jValue.getAsInt());
-    }
-  }
-
 }
@@ -1,101 +1,182 @@
 package org.commongeoregistry.adapter.dataaccess;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Optional;
 
-import org.commongeoregistry.adapter.RegistryAdapter;
 import org.commongeoregistry.adapter.Term;
 import org.commongeoregistry.adapter.metadata.AttributeTermType;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-
+/**
+ * Term attribute. The stored value is normalized when it is written: null without terms, a single {@link Term} in the
+ * common case and an unmodifiable {@link List} only for two or more terms. Reads never change the stored value, the
+ * list returned by {@link #getTerms()} reads the stored value and writes its changes back normalized.
+ */
 public class AttributeTerm extends Attribute
 {
 
-  private List<Term>        terms;
-
   /**
    * 
    */
-  private static final long serialVersionUID = -7912192621951141119L;
+  private static final long serialVersionUID = -6050969274245797339L;
 
   public AttributeTerm(String name)
   {
     super(name, AttributeTermType.TYPE);
-
-    this.terms = Collections.synchronizedList(new LinkedList<Term>());
   }
 
+  /**
+   * Returns the terms of this attribute. The list is backed by the attribute: it always reflects the stored value and
+   * terms added, replaced or removed through it are stored on the attribute.
+   * 
+   * @return list of the terms.
+   */
   public List<Term> getTerms()
   {
-    return this.terms;
+    return new TermList();
   }
 
+  /**
+   * Returns the first term of this attribute.
+   * 
+   * @return the first term, or null if the attribute has no terms.
+   */
+  public Term getTerm()
+  {
+    return AttributeTerm.firstTerm(this.load());
+  }
+
+  /**
+   * @param term
+   *          a {@link Term}, or a list of {@link Term}s as returned by {@link #getValue()}.
+   */
   @Override
-  public void setValue(Object integer)
+  public void setValue(Object term)
   {
-    this.terms.clear();
-    this.addTerm((Term) integer);
+    this.store(AttributeCodec.TERM.toStored(term));
   }
 
   public void addTerm(Term term)
   {
     // TODO add validation to ensure that the provided term is one of the
     // allowed terms on this type
-    this.terms.add(term);
+    List<Term> terms = new ArrayList<Term>(AttributeTerm.terms(this.load()));
+    terms.add(term);
+
+    this.store(AttributeTerm.normalize(terms));
   }
 
   public void clearTerms()
   {
-    this.terms.clear();
+    this.store(null);
   }
 
   @Override
   public List<Term> getValue()
   {
-    return this.terms;
+    return this.getTerms();
   }
 
-  @Override
-  public void toJSON(JsonObject geoObjProps)
+  /**
+   * Returns the terms of a stored term value as a read-only list.
+   */
+  @SuppressWarnings("unchecked")
+  static List<Term> terms(Object value)
   {
-    List<Term> terms = this.getTerms();
-    
-    JsonObject joTerm = null;
-    if (terms.size() > 0)
+    if (value instanceof List)
     {
-      joTerm = this.getTerms().get(0).toJSON();
+      return (List<Term>) value;
     }
-    
-    geoObjProps.add(this.getName(), joTerm);
+
+    return value != null ? Collections.singletonList((Term) value) : Collections.<Term> emptyList();
   }
-  
-  @Override
-  public void fromJSON(JsonElement jValue, RegistryAdapter registry)
+
+  /**
+   * Returns the value to store for the given terms.
+   */
+  static Object normalize(List<?> terms)
   {
-    if (!jValue.isJsonObject()) // They may have passed us a JsonNull
+    if (terms.size() <= 1)
     {
-      this.clearTerms();
-      return;
+      return terms.isEmpty() ? null : (Term) terms.get(0);
     }
-    
-    JsonObject jTerm = jValue.getAsJsonObject();
-    String code = jTerm.get("code").getAsString();
-    
-    Optional<Term> opTerm = registry.getMetadataCache().getTerm(code);
-    
-    if (opTerm.isPresent())
+
+    List<Term> copy = new ArrayList<Term>(terms.size());
+
+    for (Object term : terms)
     {
-      this.terms = Collections.synchronizedList(new LinkedList<Term>());
-      
-      this.terms.add(opTerm.get());
+      copy.add((Term) term);
     }
-    else
+
+    return Collections.unmodifiableList(copy);
+  }
+
+  /**
+   * Returns the first term of a stored term value.
+   */
+  static Term firstTerm(Object value)
+  {
+    if (value instanceof List)
     {
-      throw new RuntimeException("Unable to find term with code [" + code + "].");
+      List<?> terms = (List<?>) value;
+
+      return terms.size() > 0 ? (Term) terms.get(0) : null;
+    }
+
+    return (Term) value;
+  }
+
+  /**
+   * List view of the stored value, each change stores a normalized copy of the terms.
+   */
+  private class TermList extends AbstractList<Term>
+  {
+    @Override
+    public Term get(int index)
+    {
+      return AttributeTerm.terms(AttributeTerm.this.load()).get(index);
+    }
+
+    @Override
+    public int size()
+    {
+      return AttributeTerm.terms(AttributeTerm.this.load()).size();
+    }
+
+    @Override
+    public Term set(int index, Term term)
+    {
+      List<Term> terms = new ArrayList<Term>(AttributeTerm.terms(AttributeTerm.this.load()));
+      Term previous = terms.set(index, term);
+
+      AttributeTerm.this.store(AttributeTerm.normalize(terms));
+
+      return previous;
+    }
+
+    @Override
+    public void add(int index, Term term)
+    {
+      List<Term> terms = new ArrayList<Term>(AttributeTerm.terms(AttributeTerm.this.load()));
+      terms.add(index, term);
+
+      AttributeTerm.this.store(AttributeTerm.normalize(terms));
+
+      this.modCount++;
+    }
+
+    @Override
+    public Term remove(int index)
+    {
+      List<Term> terms = new ArrayList<Term>(AttributeTerm.terms(AttributeTerm.this.load()));
+      Term previous = terms.remove(index);
+
+      AttributeTerm.this.store(AttributeTerm.normalize(terms));
+
+      this.modCount++;
+
+      return previous;
     }
   }
 
@@ -106,7 +187,7 @@ public class AttributeTerm extends Attribute
 
     toString += " Terms: ";
 
-    for (Term term : this.terms)
+    for (Term term : this.getTerms())
     {
       toString += term.toString();
     }
@@ -1,15 +1,17 @@
 package org.commongeoregistry.adapter.dataaccess;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
 import org.commongeoregistry.adapter.RegistryAdapter;
+import org.commongeoregistry.adapter.json.JsonStreams;
 import org.commongeoregistry.adapter.metadata.HierarchyType;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * This object is used to model a tree of {@link GeoObject}s representing children relationships 
@@ -65,26 +67,22 @@ public class ChildTreeNode extends TreeNode
   }
   
   /**
-   * Returns the relationships of the {@link ChildTreeNode}.
+   * Writes the relationships of the {@link ChildTreeNode}.
    * 
-   * @param _json the JSON being constructed.
-   * 
-   * @return JSON being constructed
+   * @param writer the writer positioned inside of the JSON object being constructed.
+   * @throws IOException
    */
   @Override
-  protected JsonObject relationshipsToJSON(JsonObject json)
+  protected void writeRelationships(JsonWriter writer) throws IOException
   {
-    JsonArray jaChildren = new JsonArray();
+    writer.name(JSON_CHILDREN).beginArray();
     for (int i = 0; i < this.children.size(); ++i)
     {
       ChildTreeNode child = this.children.get(i);
       
-      jaChildren.add(child.toJSON());
+      child.writeTo(writer);
     }
-    
-    json.add(JSON_CHILDREN, jaChildren);
-    
-    return json;
+    writer.endArray();
   }
   
   /**
@@ -96,33 +94,64 @@ public class ChildTreeNode extends TreeNode
    */
   public static ChildTreeNode fromJSON(String sJson, RegistryAdapter registry)
   {
-    JsonParser parser = new JsonParser();
-    
-    JsonObject oJson = parser.parse(sJson).getAsJsonObject();
-    
-    GeoObject geoObj = GeoObject.fromJSON(registry, oJson.get(JSON_GEO_OBJECT).getAsJsonObject().toString());
-    
+    return JsonStreams.read(sJson, reader -> ChildTreeNode.fromJSON(reader, registry));
+  }
+  
+  /**
+   * Constructs a {@link ChildTreeNode} from the JSON object at the current position of the given reader. The whole
+   * tree is decoded in a single pass over the input, the reader is advanced past the end of the object.
+   * 
+   * @param reader
+   * @param registry Adapter class containing cached metadata.
+   * @return
+   * @throws IOException
+   */
+  public static ChildTreeNode fromJSON(JsonReader reader, RegistryAdapter registry) throws IOException
+  {
+    GeoObject geoObj = null;
     HierarchyType hierarchyType = null;
-    if (oJson.has(JSON_HIERARCHY_TYPE))
-    {
-      hierarchyType = registry.getMetadataCache().getHierachyType(oJson.get(JSON_HIERARCHY_TYPE).getAsString()).get();
-    }
+    List<ChildTreeNode> children = new LinkedList<ChildTreeNode>();
     
-    ChildTreeNode tn = new ChildTreeNode(geoObj, hierarchyType);
+    reader.beginObject();
     
-    if (oJson.has(JSON_CHILDREN))
+    while (reader.hasNext())
     {
-      JsonArray jaChildren = oJson.get(JSON_CHILDREN).getAsJsonArray();
-      for (int i = 0; i < jaChildren.size(); ++i)
+      String name = reader.nextName();
+      
+      if (name.equals(JSON_GEO_OBJECT))
+      {
+        geoObj = GeoObject.fromJSON(registry, reader);
+      }
+      else if (name.equals(JSON_HIERARCHY_TYPE) && reader.peek() != JsonToken.NULL)
       {
-        JsonObject joChild = jaChildren.get(i).getAsJsonObject();
+        hierarchyType = registry.getMetadataCache().getHierachyType(reader.nextString()).get();
+      }
+      else if (name.equals(JSON_CHILDREN))
+      {
+        reader.beginArray();
         
-        ChildTreeNode tnChild = ChildTreeNode.fromJSON(joChild.toString(), registry);
+        while (reader.hasNext())
+        {
+          children.add(ChildTreeNode.fromJSON(reader, registry));
+        }
         
-        tn.addChild(tnChild);
+        reader.endArray();
+      }
+      else
+      {
+        reader.skipValue();
       }
     }
     
+    reader.endObject();
+    
+    ChildTreeNode tn = new ChildTreeNode(geoObj, hierarchyType);
+    
+    for (ChildTreeNode tnChild : children)
+    {
+      tn.addChild(tnChild);
+    }
+    
     return tn;
   }
 }
@@ -1,6 +1,10 @@
 package org.commongeoregistry.adapter.dataaccess;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -8,16 +12,18 @@ import org.commongeoregistry.adapter.RegistryAdapter;
 import org.commongeoregistry.adapter.Term;
 import org.commongeoregistry.adapter.constants.DefaultAttribute;
 import org.commongeoregistry.adapter.constants.GeometryType;
+import org.commongeoregistry.adapter.json.GeoJSONCodec;
+import org.commongeoregistry.adapter.json.JsonStreams;
 import org.commongeoregistry.adapter.metadata.AttributeType;
 import org.commongeoregistry.adapter.metadata.GeoObjectType;
-import org.wololo.jts2geojson.GeoJSONReader;
-import org.wololo.jts2geojson.GeoJSONWriter;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.io.ParseException;
 import com.vividsolutions.jts.io.WKTReader;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 public class GeoObject implements Serializable
 {
@@ -25,7 +31,7 @@ public class GeoObject implements Serializable
   /**
    * 
    */
-  private static final long      serialVersionUID          = 7686140708200106783L;
+  private static final long      serialVersionUID          = -7760496785777680106L;
   
   public static final String     UID                       = DefaultAttribute.UID.getName();
   
@@ -47,31 +53,116 @@ public class GeoObject implements Serializable
 
   private Geometry               geometry;
 
-  private Map<String, Attribute> attributeMap;
+  /**
+   * Attribute values, indexed by the slots the {@link GeoObjectType} assigned to its attributes.
+   */
+  private Object[]               values;
+  
+  private transient GeoObjectCodec codec;
 
   /**
    * Use the factory method on the {@link RegistryAdapter} to create new instances of a {@link GeoObject}
    * 
+   * The values of the given {@link Attribute}s are copied to the {@link GeoObject} and the {@link Attribute}s are then
+   * bound to it, they read and write the values of this {@link GeoObject} from then on. An {@link Attribute} can only
+   * be bound to one {@link GeoObject}, passing the same map to several constructors leaves it bound to the last one.
+   * 
    * @param geoObjectType
    * @param geometryType
    * @param attributeMap
    */
   public GeoObject(GeoObjectType geoObjectType, GeometryType geometryType,
       Map<String, Attribute> attributeMap)
+  {
+    this(geoObjectType, geometryType, (GeoObjectCodec) null);
+    
+    for (Attribute attribute : attributeMap.values())
+    {
+      int slot = geoObjectType.getSlot(attribute.getName());
+      
+      if (slot != -1)
+      {
+        if (!attribute.getName().equals(DefaultAttribute.TYPE.getName()))
+        {
+          this.store(slot, attribute.load());
+        }
+        
+        attribute.bind(this, slot);
+      }
+    }
+  }
+  
+  /**
+   * Use the factory method on the {@link RegistryAdapter} to create new instances of a {@link GeoObject}
+   * 
+   * @param geoObjectType
+   * @param geometryType
+   * @param codec cached encode and decode plan of the {@link GeoObjectType}, may be null. The initial values of the
+   *          {@link GeoObject} are copied from the plan.
+   */
+  public GeoObject(GeoObjectType geoObjectType, GeometryType geometryType, GeoObjectCodec codec)
   {
     this.geoObjectType = geoObjectType;
+    
+    this.codec = codec;
 
     this.geometryType = geometryType;
 
     this.geometry = null;
 
-    this.attributeMap = attributeMap;
+    if (codec != null && codec.isValid(geoObjectType))
+    {
+      this.values = codec.newValues();
+    }
+    else
+    {
+      this.values = new Object[geoObjectType.getSlotCount()];
+      
+      this.store(geoObjectType.getSlot(DefaultAttribute.TYPE.getName()), geoObjectType.getCode());
+    }
+  }
+  
+  /**
+   * Creates a copy of the given {@link GeoObject} which shares no mutable state with it, used to hand out cached
+   * {@link GeoObject}s without decoding them again. The value slots are copied, dates and the geometry are cloned and
+   * terms are shared, they belong to the metadata of the registry.
+   * 
+   * @param geoObject
+   */
+  private GeoObject(GeoObject geoObject)
+  {
+    this.geoObjectType = geoObject.geoObjectType;
+    
+    this.codec = geoObject.codec;
+    
+    this.geometryType = geoObject.geometryType;
+    
+    this.geometry = geoObject.geometry != null ? (Geometry) geoObject.geometry.clone() : null;
+    
+    Object[] values = geoObject.values.clone();
+    
+    for (int i = 0; i < values.length; i++)
+    {
+      if (values[i] instanceof Date)
+      {
+        values[i] = new Date(( (Date) values[i] ).getTime());
+      }
+    }
     
-    this.getAttribute(DefaultAttribute.TYPE.getName()).setValue(geoObjectType.getCode());
+    this.values = values;
+  }
+  
+  /**
+   * Returns a copy of this {@link GeoObject}, changes to the copy do not change this {@link GeoObject}.
+   */
+  GeoObject copy()
+  {
+    return new GeoObject(this);
   }
   
   /**
-   * Returns a map of {@link Attribute} objects for a {@link GeoObject} of the given {@link GeoObjectType}. 
+   * Returns a map of {@link Attribute} objects for a {@link GeoObject} of the given {@link GeoObjectType}. The
+   * {@link GeoObject} itself no longer keeps such a map, its values are stored in the slots of the type.
    * 
    * @param geoObjectType
    * 
@@ -113,6 +204,50 @@ public class GeoObject implements Serializable
     return this.geometryType;
   }
 
+  /**
+   * Returns the encode and decode plan of the {@link GeoObjectType} of this {@link GeoObject}.
+   * 
+   * @return the encode and decode plan of the {@link GeoObjectType} of this {@link GeoObject}.
+   */
+  private GeoObjectCodec getCodec()
+  {
+    if (this.codec == null || !this.codec.isValid(this.geoObjectType))
+    {
+      this.codec = new GeoObjectCodec(this.geoObjectType);
+    }
+    
+    return this.codec;
+  }
+
+  /**
+   * Returns the value stored in the given slot, null if the slot was assigned after the value array was sized.
+   * 
+   * @param slot
+   */
+  Object load(int slot)
+  {
+    Object[] values = this.values;
+    
+    return slot >= 0 && slot < values.length ? values[slot] : null;
+  }
+  
+  /**
+   * Stores a value in the given slot, growing the value array if the {@link GeoObjectType} gained attributes since
+   * this {@link GeoObject} was created.
+   * 
+   * @param slot
+   * @param value
+   */
+  synchronized void store(int slot, Object value)
+  {
+    if (slot >= this.values.length)
+    {
+      this.values = Arrays.copyOf(this.values, Math.max(slot + 1, this.geoObjectType.getSlotCount()));
+    }
+    
+    this.values[slot] = value;
+  }
+
   /**
    * Returns the geometry of this {@link GeoObject}
    * 
@@ -167,7 +302,7 @@ public class GeoObject implements Serializable
    */
   public Object getValue(String attributeName)
   {
-    return this.attributeMap.get(attributeName).getValue();
+    return this.getCodec().getValue(this, attributeName);
   }
   
   /**
@@ -178,22 +313,38 @@ public class GeoObject implements Serializable
    */
   public void setValue(String attributeName, Object _value)
   {
-    this.attributeMap.get(attributeName).setValue(_value);
+    this.getCodec().setValue(this, attributeName, _value);
   }
 
   /**
-   * Returns the {@link attribute} object with the given name.
+   * Returns the {@link attribute} object with the given name. The returned {@link Attribute} is a view which reads
+   * and writes the value stored by this {@link GeoObject}.
    * 
    * @pre attribute with the given name is defined on the {@link GeoObjectType}
    * that defines this {@link GeoObject}.
    * 
    * @param attributeName
    * 
-   * @return
+   * @return the attribute, or null if the {@link GeoObjectType} does not define it.
    */
   public Attribute getAttribute(String attributeName)
   {
-    return this.attributeMap.get(attributeName);
+    int slot = this.geoObjectType.getSlot(attributeName);
+    
+    if (slot == -1)
+    {
+      return null;
+    }
+    
+    Attribute attribute = Attribute.attributeFactory(this.geoObjectType.getAttributeMap().get(attributeName));
+    attribute.bind(this, slot);
+    
+    return attribute;
+  }
+  
+  private Object load(String attributeName)
+  {
+    return this.load(this.geoObjectType.getSlot(attributeName));
   }
   
   /**
@@ -203,7 +354,7 @@ public class GeoObject implements Serializable
    */
   public void setCode(String code)
   {
-    this.attributeMap.get(CODE).setValue(code);
+    this.store(this.geoObjectType.getSlot(CODE), code);
   }
   
   /**
@@ -213,7 +364,7 @@ public class GeoObject implements Serializable
    */
   public String getCode()
   {
-    return (String) this.attributeMap.get(CODE).getValue();
+    return (String) this.load(CODE);
   }
   
   /**
@@ -223,7 +374,7 @@ public class GeoObject implements Serializable
    */
   public void setUid(String uid)
   {
-    this.attributeMap.get(UID).setValue(uid);
+    this.store(this.geoObjectType.getSlot(UID), uid);
   }
   
   /**
@@ -233,7 +384,7 @@ public class GeoObject implements Serializable
    */
   public String getUid()
   {
-    return (String) this.attributeMap.get(UID).getValue();
+    return (String) this.load(UID);
   }
   
   /**
@@ -243,12 +394,12 @@ public class GeoObject implements Serializable
    */
   public String getLocalizedDisplayLabel()
   {
-    return (String) this.attributeMap.get(LOCALIZED_DISPLAY_LABEL).getValue();
+    return (String) this.load(LOCALIZED_DISPLAY_LABEL);
   }
   
   public void setLocalizedDisplayLabel(String _displayLabel)
   {
-    this.attributeMap.get(LOCALIZED_DISPLAY_LABEL).setValue(_displayLabel);
+    this.store(this.geoObjectType.getSlot(LOCALIZED_DISPLAY_LABEL), _displayLabel);
   } 
   
   /**
@@ -258,12 +409,12 @@ public class GeoObject implements Serializable
    */
   public Term getStatus()
   {
-    return ((AttributeTerm)this.getAttribute(DefaultAttribute.STATUS.getName())).getValue().get(0);
+    return AttributeTerm.firstTerm(this.load(DefaultAttribute.STATUS.getName()));
   }
   
   public void setStatus(Term status)
   {
-    this.getAttribute(DefaultAttribute.STATUS.getName()).setValue(status);
+    this.setValue(DefaultAttribute.STATUS.getName(), status);
   }
   
   /**
@@ -278,33 +429,102 @@ public class GeoObject implements Serializable
    */
   public static GeoObject fromJSON(RegistryAdapter _registry, String _sJson)
   {
-    JsonParser parser = new JsonParser();
-    
-    JsonObject oJson = parser.parse(_sJson).getAsJsonObject();
-    JsonObject oJsonProps = oJson.getAsJsonObject(JSON_PROPERTIES);
+    return JsonStreams.read(_sJson, reader -> GeoObject.fromJSON(_registry, reader));
+  }
+  
+  /**
+   * Creates a {@link GeoObject} from the JSON object at the current position of the given reader. The reader is
+   * advanced past the end of the object.
+   * 
+   * @pre assumes the attributes on the JSON are valid attributes defined by the {@link GeoObjectType}
+   * 
+   * @param _registry
+   * @param _reader
+   * 
+   * @return {@link GeoObject} from the given JSON.
+   * @throws IOException
+   */
+  public static GeoObject fromJSON(RegistryAdapter _registry, JsonReader _reader) throws IOException
+  {
+    GeoObject geoObj = null;
+    Geometry geometry = null;
     
-    GeoObject geoObj = _registry.newGeoObjectInstance(oJsonProps.get(JSON_TYPE).getAsString());
+    _reader.beginObject();
     
-    JsonElement oGeom = oJson.get(JSON_GEOMETRY);
-    if (oGeom != null)
+    while (_reader.hasNext())
     {
-      GeoJSONReader reader = new GeoJSONReader();
-      Geometry jtsGeom = reader.read(oGeom.toString());
+      String name = _reader.nextName();
       
-      geoObj.setGeometry(jtsGeom);
+      if (name.equals(JSON_GEOMETRY) && _reader.peek() != JsonToken.NULL)
+      {
+        geometry = GeoJSONCodec.read(_reader);
+      }
+      else if (name.equals(JSON_PROPERTIES))
+      {
+        geoObj = GeoObject.propertiesFromJSON(_registry, _reader);
+      }
+      else
+      {
+        _reader.skipValue();
+      }
     }
     
-    for (String key : geoObj.attributeMap.keySet())
+    _reader.endObject();
+    
+    geoObj.setGeometry(geometry);
+    
+    return geoObj;
+  }
+  
+  /**
+   * Creates a {@link GeoObject} from the properties object at the current position of the given reader. The
+   * properties are decoded directly with the plan of the {@link GeoObjectType} when the type is the first property,
+   * which is always the case for JSON written by this adapter. Otherwise they are buffered until the type is known.
+   */
+  private static GeoObject propertiesFromJSON(RegistryAdapter _registry, JsonReader _reader) throws IOException
+  {
+    _reader.beginObject();
+    
+    String name = _reader.hasNext() ? _reader.nextName() : null;
+    
+    if (JSON_TYPE.equals(name) && _reader.peek() == JsonToken.STRING)
     {
-      Attribute attr = geoObj.attributeMap.get(key);
+      GeoObject geoObj = _registry.newGeoObjectInstance(_reader.nextString(), false);
       
-      if (oJsonProps.has(key))
-      {
-        attr.fromJSON(oJsonProps.get(key), _registry);
-      }
+      geoObj.getCodec().readProperties(_reader, geoObj, _registry);
+      
+      _reader.endObject();
+      
+      return geoObj;
     }
     
-    return geoObj;
+    JsonParser parser = new JsonParser();
+    JsonObject oJsonProps = new JsonObject();
+    
+    if (name != null)
+    {
+      oJsonProps.add(name, parser.parse(_reader));
+    }
+    
+    while (_reader.hasNext())
+    {
+      oJsonProps.add(_reader.nextName(), parser.parse(_reader));
+    }
+    
+    _reader.endObject();
+    
+    GeoObject geoObj = _registry.newGeoObjectInstance(oJsonProps.get(JSON_TYPE).getAsString(), false);
+    
+    return JsonStreams.read(oJsonProps, reader ->
+    {
+      reader.beginObject();
+      
+      geoObj.getCodec().readProperties(reader, geoObj, _registry);
+      
+      reader.endObject();
+      
+      return geoObj;
+    });
   }
   
   /**
@@ -314,70 +534,53 @@ public class GeoObject implements Serializable
    */
   public JsonObject toJSON()
   {
-    JsonObject jsonObj = new JsonObject();
+    return JsonStreams.toJsonTree(this::writeTo).getAsJsonObject();
+  }
+  
+  /**
+   * Writes the JSON representation of this {@link GeoObject} to the given stream as UTF-8 without building the
+   * intermediate {@link JsonObject}. The stream is flushed but not closed.
+   * 
+   * @param out
+   */
+  public void writeTo(OutputStream out)
+  {
+    JsonStreams.write(out, this::writeTo);
+  }
+  
+  /**
+   * Writes the JSON representation of this {@link GeoObject} to the given writer.
+   * 
+   * @param writer
+   * @throws IOException
+   */
+  public void writeTo(JsonWriter writer) throws IOException
+  {
+    writer.beginObject();
 
     // It's assumed that GeoObjects are simple features rather than
     // FeatureCollections.
     // Spec reference: https://tools.ietf.org/html/rfc7946#section-3.3
-    jsonObj.addProperty(JSON_TYPE, JSON_FEATURE);
+    writer.name(JSON_TYPE).value(JSON_FEATURE);
 
     if (this.getGeometry() != null)
     {
-      GeoJSONWriter gw = new GeoJSONWriter();
-      org.wololo.geojson.Geometry gJSON = gw.write(this.getGeometry());
-      
-      JsonParser parser = new JsonParser();
-      JsonObject geomObj = parser.parse(gJSON.toString()).getAsJsonObject();
-      
-      jsonObj.add(JSON_GEOMETRY, geomObj);
+      writer.name(JSON_GEOMETRY);
+      GeoJSONCodec.write(this.getGeometry(), writer);
     }
     
-    JsonObject props = new JsonObject();
-    for (String key : this.attributeMap.keySet())
-    {
-      Attribute attr = this.attributeMap.get(key);
-      
-      attr.toJSON(props);
-      
-//      if(attr instanceof AttributeTerm)
-//      {
-//        attrs.add(key, attr.toJSON());
-//      }
-//      else
-//      {
-//        
-//        System.out.println(attr.toJSON());
-//        
-//        // TODO: All these attributes are required by the CGR spec. Adding an
-//        // empty string is a temporary step for me to work on another area of 
-//        // the adapter. Ensure that Values are always present and handle 
-//        // NULLs as errors.
-//        if(attr.getValue() == null )
-//        {
-//          attrs.addProperty(key, ""); 
-//        }
-//        else
-//        {
-//          attrs.addProperty(key, attr.getValue().toString() );
-//        }
-//      }
-      
-//      JsonParser attrParser = new JsonParser();
-//      JsonObject geomObj = attrParser.parse(attr.toJSON().toString()).getAsJsonObject();
-      
-    }
-
-    jsonObj.add(JSON_PROPERTIES, props);
+    writer.name(JSON_PROPERTIES).beginObject();
+    this.getCodec().writeProperties(this, writer);
+    writer.endObject();
     
-
-    return jsonObj;
+    writer.endObject();
   }
 
   public void printAttributes()
   {
-    for (Attribute attribute : attributeMap.values())
+    for (String attributeName : this.geoObjectType.getAttributeMap().keySet())
     {
-      System.out.println(attribute.toString());
+      System.out.println(this.getAttribute(attributeName).toString());
     }
 
     System.out.println("Geometry: " + this.geometry);
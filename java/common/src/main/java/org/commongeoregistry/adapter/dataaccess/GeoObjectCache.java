@@ -0,0 +1,433 @@
+package org.commongeoregistry.adapter.dataaccess;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.commongeoregistry.adapter.RegistryAdapter;
+import org.commongeoregistry.adapter.metadata.GeoObjectType;
+
+/**
+ * Bounded in-process cache of the {@link GeoObject}s returned by the common geo-registry, used by
+ * {@link org.commongeoregistry.adapter.HttpRegistryClient} to answer repeated lookups without a request. Entries are
+ * found by UID or by code, both together with the code of their {@link GeoObjectType}. When the cache is full the
+ * least recently used entry is evicted. Entries expire after the time to live of their type, or the default time to
+ * live if their type has none, and are dropped once a metadata refresh replaced their type.
+ *
+ * The cache keeps its own copy of each {@link GeoObject} and every lookup returns a copy of it, the value slots and
+ * the geometry are copied instead of decoded again. Each caller may modify its {@link GeoObject} without changing the
+ * cached entry.
+ * Changes are sent with {@link org.commongeoregistry.adapter.HttpRegistryClient#updateGeoObject(GeoObject)} which
+ * replaces the cached entry.
+ *
+ * All methods are thread-safe. Large caches are split in segments by UID, each with its own lock and least recently
+ * used order, so that lookups of different threads rarely wait for each other. The entry evicted is then the least
+ * recently used one of its segment.
+ */
+public class GeoObjectCache
+{
+  public static final int     DEFAULT_MAXIMUM_SIZE = 10000;
+
+  public static final long    DEFAULT_TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(10);
+
+  /**
+   * Maximum number of segments.
+   */
+  private static final int    MAX_SEGMENTS         = 16;
+
+  /**
+   * Minimum number of entries of a segment, smaller caches have a single segment and an exact least recently used
+   * order.
+   */
+  private static final int    MIN_SEGMENT_SIZE     = 64;
+
+  private static class Entry
+  {
+    private final GeoObject geoObject;
+
+    private final String    uidKey;
+
+    private final String    codeKey;
+
+    private final long      expires;
+
+    private Entry(GeoObject geoObject, String uidKey, String codeKey, long expires)
+    {
+      this.geoObject = geoObject;
+      this.uidKey = uidKey;
+      this.codeKey = codeKey;
+      this.expires = expires;
+    }
+  }
+
+  /**
+   * Entries of one segment by UID key in access order, the eldest entry is the least recently used. Guarded by the
+   * segment.
+   */
+  private static class Segment
+  {
+    private final int                maximumSize;
+
+    private final Map<String, Entry> entries;
+
+    private Segment(int maximumSize)
+    {
+      this.maximumSize = maximumSize;
+      this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    }
+  }
+
+  private final int                 maximumSize;
+
+  private volatile long             timeToLive;
+
+  private final Map<String, Long>   timeToLives;
+
+  private final Segment[]           segments;
+
+  /**
+   * UID key of the entries by code key.
+   */
+  private final Map<String, String> codes;
+
+  private final AtomicLong          hitCount;
+
+  private final AtomicLong          missCount;
+
+  private final AtomicLong          evictionCount;
+
+  public GeoObjectCache()
+  {
+    this(DEFAULT_MAXIMUM_SIZE);
+  }
+
+  /**
+   * @param maximumSize
+   *          maximum number of {@link GeoObject}s in the cache.
+   */
+  public GeoObjectCache(int maximumSize)
+  {
+    this.maximumSize = maximumSize;
+    this.timeToLive = DEFAULT_TIME_TO_LIVE;
+    this.timeToLives = new ConcurrentHashMap<String, Long>();
+    this.codes = new ConcurrentHashMap<String, String>();
+    this.hitCount = new AtomicLong();
+    this.missCount = new AtomicLong();
+    this.evictionCount = new AtomicLong();
+
+    int count = 1;
+
+    while (count < MAX_SEGMENTS && count * 2 * MIN_SEGMENT_SIZE <= maximumSize)
+    {
+      count *= 2;
+    }
+
+    this.segments = new Segment[count];
+
+    for (int i = 0; i < count; i++)
+    {
+      // The first segments take the rest of the division
+      this.segments[i] = new Segment(maximumSize / count + ( i < maximumSize % count ? 1 : 0 ));
+    }
+  }
+
+  public int getMaximumSize()
+  {
+    return this.maximumSize;
+  }
+
+  public long getTimeToLive()
+  {
+    return this.timeToLive;
+  }
+
+  /**
+   * @param timeToLive
+   *          time in milliseconds after which the entries of types without a time to live of their own expire.
+   */
+  public void setTimeToLive(long timeToLive)
+  {
+    this.timeToLive = timeToLive;
+  }
+
+  /**
+   * Returns the time to live of the entries of the given type.
+   *
+   * @param typeCode
+   */
+  public long getTimeToLive(String typeCode)
+  {
+    return this.timeToLives.getOrDefault(typeCode, this.timeToLive);
+  }
+
+  /**
+   * Sets the time to live of the entries of the given type, for example a longer one for types which rarely change.
+   * Applies to entries added afterwards.
+   *
+   * @param typeCode
+   * @param timeToLive
+   *          time in milliseconds.
+   */
+  public void setTimeToLive(String typeCode, long timeToLive)
+  {
+    this.timeToLives.put(typeCode, timeToLive);
+  }
+
+  /**
+   * Returns a copy of the cached {@link GeoObject} with the given UID, or null if it is not cached or has expired.
+   *
+   * @param registry
+   *          registry adapter whose metadata the cached {@link GeoObject} must be of.
+   * @param uid
+   * @param typeCode
+   */
+  public GeoObject getByUid(RegistryAdapter registry, String uid, String typeCode)
+  {
+    return this.get(registry, key(uid, typeCode), null);
+  }
+
+  /**
+   * Returns a copy of the cached {@link GeoObject} with the given code, or null if it is not cached or has expired.
+   *
+   * @param registry
+   *          registry adapter whose metadata the cached {@link GeoObject} must be of.
+   * @param code
+   * @param typeCode
+   */
+  public GeoObject getByCode(RegistryAdapter registry, String code, String typeCode)
+  {
+    String codeKey = key(code, typeCode);
+    String uidKey = this.codes.get(codeKey);
+
+    if (uidKey == null)
+    {
+      this.missCount.incrementAndGet();
+
+      return null;
+    }
+
+    return this.get(registry, uidKey, codeKey);
+  }
+
+  /**
+   * Returns a copy of the entry with the given UID key, the copy is made outside of the lock.
+   *
+   * @param codeKey
+   *          code key the entry must have, null for any.
+   */
+  private GeoObject get(RegistryAdapter registry, String uidKey, String codeKey)
+  {
+    Segment segment = this.segment(uidKey);
+    Entry entry;
+    boolean evicted = false;
+
+    synchronized (segment)
+    {
+      entry = segment.entries.get(uidKey);
+
+      // A type replaced by a metadata refresh may have other attributes
+      if (entry != null && ( entry.expires - System.nanoTime() <= 0 || !isCurrent(registry, entry.geoObject.getType()) ))
+      {
+        segment.entries.remove(uidKey);
+
+        evicted = true;
+      }
+    }
+
+    if (evicted)
+    {
+      this.removeCode(entry);
+      this.evictionCount.incrementAndGet();
+
+      entry = null;
+    }
+
+    // The code may have moved to another UID since it was looked up
+    if (entry == null || ( codeKey != null && !codeKey.equals(entry.codeKey) ))
+    {
+      this.missCount.incrementAndGet();
+
+      return null;
+    }
+
+    this.hitCount.incrementAndGet();
+
+    return entry.geoObject.copy();
+  }
+
+  private static boolean isCurrent(RegistryAdapter registry, GeoObjectType type)
+  {
+    Optional<GeoObjectType> current = registry.getMetadataCache().getGeoObjectType(type.getCode());
+
+    return current.isPresent() && current.get() == type;
+  }
+
+  /**
+   * Adds or replaces the given {@link GeoObject}. {@link GeoObject}s without a UID are not cached. The cache keeps a
+   * copy, later changes to the given {@link GeoObject} do not change the cached entry.
+   *
+   * @param geoObject
+   */
+  public void put(GeoObject geoObject)
+  {
+    if (geoObject.getUid() == null)
+    {
+      return;
+    }
+
+    String typeCode = geoObject.getType().getCode();
+    String uidKey = key(geoObject.getUid(), typeCode);
+    String codeKey = geoObject.getCode() != null ? key(geoObject.getCode(), typeCode) : null;
+
+    Entry entry = new Entry(geoObject.copy(), uidKey, codeKey, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.getTimeToLive(typeCode)));
+
+    Segment segment = this.segment(uidKey);
+    Entry previous;
+    List<Entry> evicted = new ArrayList<Entry>(1);
+
+    synchronized (segment)
+    {
+      previous = segment.entries.put(uidKey, entry);
+
+      Iterator<Entry> iterator = segment.entries.values().iterator();
+
+      while (segment.entries.size() > segment.maximumSize)
+      {
+        evicted.add(iterator.next());
+        iterator.remove();
+      }
+    }
+
+    if (previous != null)
+    {
+      this.removeCode(previous);
+    }
+
+    if (codeKey != null)
+    {
+      // A code which moved to another UID no longer finds the previous entry
+      String previousUidKey = this.codes.put(codeKey, uidKey);
+
+      if (previousUidKey != null && !previousUidKey.equals(uidKey))
+      {
+        this.remove(previousUidKey);
+      }
+    }
+
+    for (Entry eldest : evicted)
+    {
+      this.removeCode(eldest);
+      this.evictionCount.incrementAndGet();
+    }
+  }
+
+  /**
+   * Removes the {@link GeoObject} with the given UID.
+   *
+   * @param uid
+   * @param typeCode
+   */
+  public void invalidate(String uid, String typeCode)
+  {
+    this.remove(key(uid, typeCode));
+  }
+
+  /**
+   * Removes all {@link GeoObject}s.
+   */
+  public void invalidateAll()
+  {
+    for (Segment segment : this.segments)
+    {
+      synchronized (segment)
+      {
+        segment.entries.clear();
+      }
+    }
+
+    this.codes.clear();
+  }
+
+  private void remove(String uidKey)
+  {
+    Segment segment = this.segment(uidKey);
+    Entry entry;
+
+    synchronized (segment)
+    {
+      entry = segment.entries.remove(uidKey);
+    }
+
+    if (entry != null)
+    {
+      this.removeCode(entry);
+    }
+  }
+
+  private void removeCode(Entry entry)
+  {
+    if (entry.codeKey != null)
+    {
+      // The code may have been taken over by another entry since
+      this.codes.remove(entry.codeKey, entry.uidKey);
+    }
+  }
+
+  private Segment segment(String uidKey)
+  {
+    int hash = uidKey.hashCode();
+
+    return this.segments[( hash ^ ( hash >>> 16 ) ) & ( this.segments.length - 1 )];
+  }
+
+  public int size()
+  {
+    int size = 0;
+
+    for (Segment segment : this.segments)
+    {
+      synchronized (segment)
+      {
+        size += segment.entries.size();
+      }
+    }
+
+    return size;
+  }
+
+  /**
+   * Returns the number of lookups which found a {@link GeoObject}.
+   */
+  public long getHitCount()
+  {
+    return this.hitCount.get();
+  }
+
+  /**
+   * Returns the number of lookups which did not find a {@link GeoObject}.
+   */
+  public long getMissCount()
+  {
+    return this.missCount.get();
+  }
+
+  /**
+   * Returns the number of {@link GeoObject}s removed because the cache was full, they had expired or their type was
+   * replaced. Invalidated {@link GeoObject}s are not counted.
+   */
+  public long getEvictionCount()
+  {
+    return this.evictionCount.get();
+  }
+
+  private static String key(String value, String typeCode)
+  {
+    return typeCode + "\u0000" + value;
+  }
+}
@@ -0,0 +1,238 @@
+package org.commongeoregistry.adapter.dataaccess;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.commongeoregistry.adapter.RegistryAdapter;
+import org.commongeoregistry.adapter.constants.DefaultAttribute;
+import org.commongeoregistry.adapter.metadata.AttributeType;
+import org.commongeoregistry.adapter.metadata.GeoObjectType;
+import org.commongeoregistry.adapter.metadata.MetadataCache;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Encode and decode plan for the properties of the {@link GeoObject}s of one {@link GeoObjectType}. The attributes of
+ * the type are resolved once into an ordered array together with their property names and the {@link AttributeCodec}
+ * of their kind, so that encoding and decoding a {@link GeoObject} does not have to inspect the type again. The
+ * {@link DefaultAttribute#TYPE} attribute is always the first property, which allows the decoder to resolve the plan
+ * before it reads the remaining properties. Values are read from and stored to the value slots the type assigned to
+ * each attribute, no {@link Attribute} objects are created.
+ *
+ * Plans are cached by the {@link MetadataCache} and are only valid for the version of the {@link GeoObjectType} they
+ * were built from.
+ */
+public class GeoObjectCodec
+{
+  private final GeoObjectType        geoObjectType;
+
+  private final int                  version;
+
+  private final AttributeType[]      attributeTypes;
+
+  private final String[]             names;
+
+  private final AttributeCodec[]     codecs;
+
+  private final int[]                slots;
+
+  private final Map<String, Integer> indexes;
+
+  /**
+   * Values of a new {@link GeoObject} of the type, indexed by slot.
+   */
+  private final Object[]             prototype;
+
+  public GeoObjectCodec(GeoObjectType geoObjectType)
+  {
+    this(geoObjectType, Collections.<String, Object> emptyMap());
+  }
+
+  /**
+   * @param geoObjectType
+   * @param defaultValues
+   *          values of new {@link GeoObject}s of the type by attribute name, in addition to the type code. Values must
+   *          be immutable as they are shared by all new {@link GeoObject}s.
+   */
+  public GeoObjectCodec(GeoObjectType geoObjectType, Map<String, Object> defaultValues)
+  {
+    this.geoObjectType = geoObjectType;
+    this.version = geoObjectType.getVersion();
+
+    List<AttributeType> ordered = new ArrayList<AttributeType>(geoObjectType.getAttributeMap().values());
+
+    for (int i = 1; i < ordered.size(); i++)
+    {
+      if (ordered.get(i).getName().equals(DefaultAttribute.TYPE.getName()))
+      {
+        ordered.add(0, ordered.remove(i));
+        break;
+      }
+    }
+
+    this.attributeTypes = ordered.toArray(new AttributeType[ordered.size()]);
+    this.names = new String[this.attributeTypes.length];
+    this.codecs = new AttributeCodec[this.attributeTypes.length];
+    this.slots = new int[this.attributeTypes.length];
+    this.indexes = new HashMap<String, Integer>();
+
+    for (int i = 0; i < this.attributeTypes.length; i++)
+    {
+      this.names[i] = this.attributeTypes[i].getName();
+      this.codecs[i] = AttributeCodec.forType(this.attributeTypes[i].getType());
+      this.slots[i] = geoObjectType.getSlot(this.names[i]);
+      this.indexes.put(this.names[i], i);
+    }
+
+    this.prototype = new Object[geoObjectType.getSlotCount()];
+    this.prototype[geoObjectType.getSlot(DefaultAttribute.TYPE.getName())] = geoObjectType.getCode();
+
+    for (Map.Entry<String, Object> entry : defaultValues.entrySet())
+    {
+      int slot = geoObjectType.getSlot(entry.getKey());
+
+      if (slot != -1)
+      {
+        this.prototype[slot] = entry.getValue();
+      }
+    }
+  }
+
+  /**
+   * Returns the {@link GeoObjectType} this plan was built from.
+   *
+   * @return the {@link GeoObjectType} this plan was built from.
+   */
+  public GeoObjectType getGeoObjectType()
+  {
+    return this.geoObjectType;
+  }
+
+  /**
+   * Returns the attributes of the {@link GeoObjectType} in the order they are written.
+   *
+   * @return the attributes of the {@link GeoObjectType} in the order they are written.
+   */
+  public AttributeType[] getAttributeTypes()
+  {
+    return this.attributeTypes.clone();
+  }
+
+  /**
+   * Returns true if this plan still describes the given {@link GeoObjectType}.
+   *
+   * @param geoObjectType
+   * @return true if this plan still describes the given {@link GeoObjectType}.
+   */
+  public boolean isValid(GeoObjectType geoObjectType)
+  {
+    return this.geoObjectType == geoObjectType && this.version == geoObjectType.getVersion() && this.names.length == geoObjectType.getAttributeMap().size();
+  }
+
+  /**
+   * Returns a copy of the values of a new {@link GeoObject} of the type.
+   */
+  Object[] newValues()
+  {
+    return this.prototype.clone();
+  }
+
+  /**
+   * Returns the value of the attribute with the given name as {@link Attribute#getValue()} does, without creating the
+   * {@link Attribute}.
+   *
+   * @param geoObject
+   * @param name
+   */
+  Object getValue(GeoObject geoObject, String name)
+  {
+    int index = this.indexOf(name);
+
+    if (this.codecs[index] == AttributeCodec.TERM)
+    {
+      // The list of terms writes through to the GeoObject
+      AttributeTerm attribute = new AttributeTerm(name);
+      attribute.bind(geoObject, this.slots[index]);
+
+      return attribute.getTerms();
+    }
+
+    return this.codecs[index].toValue(geoObject.load(this.slots[index]));
+  }
+
+  /**
+   * Sets the value of the attribute with the given name as {@link Attribute#setValue(Object)} does, without creating
+   * the {@link Attribute}.
+   *
+   * @param geoObject
+   * @param name
+   * @param value
+   */
+  void setValue(GeoObject geoObject, String name, Object value)
+  {
+    int index = this.indexOf(name);
+
+    geoObject.store(this.slots[index], this.codecs[index].toStored(value));
+  }
+
+  private int indexOf(String name)
+  {
+    Integer index = this.indexes.get(name);
+
+    if (index == null)
+    {
+      throw new IllegalArgumentException("Unable to find attribute [" + name + "] on type [" + this.geoObjectType.getCode() + "].");
+    }
+
+    return index;
+  }
+
+  /**
+   * Writes the attributes of the given {@link GeoObject} as the members of its properties object.
+   *
+   * @param geoObject
+   * @param writer
+   * @throws IOException
+   */
+  void writeProperties(GeoObject geoObject, JsonWriter writer) throws IOException
+  {
+    for (int i = 0; i < this.names.length; i++)
+    {
+      this.codecs[i].write(writer, this.names[i], geoObject.load(this.slots[i]));
+    }
+  }
+
+  /**
+   * Reads the remaining members of a properties object into the attributes of the given {@link GeoObject}. Members
+   * which are not attributes of the type are skipped.
+   *
+   * @param reader
+   * @param geoObject
+   * @param registry
+   * @throws IOException
+   */
+  void readProperties(JsonReader reader, GeoObject geoObject, RegistryAdapter registry) throws IOException
+  {
+    while (reader.hasNext())
+    {
+      String name = reader.nextName();
+      Integer index = this.indexes.get(name);
+
+      if (index != null)
+      {
+        int slot = this.slots[index];
+
+        geoObject.store(slot, this.codecs[index].read(reader, geoObject.load(slot), registry));
+      }
+      else
+      {
+        reader.skipValue();
+      }
+    }
+  }
+}
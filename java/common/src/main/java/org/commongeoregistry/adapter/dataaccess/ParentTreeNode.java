@@ -1,15 +1,17 @@
 package org.commongeoregistry.adapter.dataaccess;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
 import org.commongeoregistry.adapter.RegistryAdapter;
+import org.commongeoregistry.adapter.json.JsonStreams;
 import org.commongeoregistry.adapter.metadata.HierarchyType;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 public class ParentTreeNode extends TreeNode
 {
@@ -57,26 +59,22 @@ public class ParentTreeNode extends TreeNode
   }
   
   /**
-   * Returns the relationships of the {@link ParentTreeNode}.
+   * Writes the relationships of the {@link ParentTreeNode}.
    * 
-   * @param json the JSON being constructed.
-   * 
-   * @return JSON being constructed
+   * @param writer the writer positioned inside of the JSON object being constructed.
+   * @throws IOException
    */
   @Override
-  protected JsonObject relationshipsToJSON(JsonObject json)
+  protected void writeRelationships(JsonWriter writer) throws IOException
   {
-    JsonArray jaParents = new JsonArray();
+    writer.name(JSON_PARENTS).beginArray();
     for (int i = 0; i < this.parents.size(); ++i)
     {
       ParentTreeNode parent = this.parents.get(i);
       
-      jaParents.add(parent.toJSON());
+      parent.writeTo(writer);
     }
-    
-    json.add(JSON_PARENTS, jaParents);
-    
-    return json;
+    writer.endArray();
   }
   
   /**
@@ -88,31 +86,62 @@ public class ParentTreeNode extends TreeNode
    */
   public static ParentTreeNode fromJSON(String sJson, RegistryAdapter registry)
   {
-    JsonParser parser = new JsonParser();
-    
-    JsonObject oJson = parser.parse(sJson).getAsJsonObject();
-    
-    GeoObject geoObj = GeoObject.fromJSON(registry, oJson.get(JSON_GEO_OBJECT).getAsJsonObject().toString());
-    
+    return JsonStreams.read(sJson, reader -> ParentTreeNode.fromJSON(reader, registry));
+  }
+  
+  /**
+   * Constructs a {@link ParentTreeNode} from the JSON object at the current position of the given reader. The whole
+   * tree is decoded in a single pass over the input, the reader is advanced past the end of the object.
+   * 
+   * @param reader
+   * @param registry Adapter class containing cached metadata.
+   * @return
+   * @throws IOException
+   */
+  public static ParentTreeNode fromJSON(JsonReader reader, RegistryAdapter registry) throws IOException
+  {
+    GeoObject geoObj = null;
     HierarchyType hierarchyType = null;
-    if (oJson.has(JSON_HIERARCHY_TYPE))
-    {
-      hierarchyType = registry.getMetadataCache().getHierachyType(oJson.get(JSON_HIERARCHY_TYPE).getAsString()).get();
-    }
+    List<ParentTreeNode> parents = new LinkedList<ParentTreeNode>();
     
-    ParentTreeNode tn = new ParentTreeNode(geoObj, hierarchyType);
+    reader.beginObject();
     
-    if (oJson.has(JSON_PARENTS))
+    while (reader.hasNext())
     {
-      JsonArray jaParents = oJson.get(JSON_PARENTS).getAsJsonArray();
-      for (int i = 0; i < jaParents.size(); ++i)
+      String name = reader.nextName();
+      
+      if (name.equals(JSON_GEO_OBJECT))
+      {
+        geoObj = GeoObject.fromJSON(registry, reader);
+      }
+      else if (name.equals(JSON_HIERARCHY_TYPE) && reader.peek() != JsonToken.NULL)
+      {
+        hierarchyType = registry.getMetadataCache().getHierachyType(reader.nextString()).get();
+      }
+      else if (name.equals(JSON_PARENTS))
       {
-        JsonObject joParent = jaParents.get(i).getAsJsonObject();
+        reader.beginArray();
         
-        ParentTreeNode tnParent = ParentTreeNode.fromJSON(joParent.toString(), registry);
+        while (reader.hasNext())
+        {
+          parents.add(ParentTreeNode.fromJSON(reader, registry));
+        }
         
-        tn.addParent(tnParent);
+        reader.endArray();
       }
+      else
+      {
+        reader.skipValue();
+      }
+    }
+    
+    reader.endObject();
+    
+    ParentTreeNode tn = new ParentTreeNode(geoObj, hierarchyType);
+    
+    for (ParentTreeNode tnParent : parents)
+    {
+      tn.addParent(tnParent);
     }
     
     return tn;
@@ -1,10 +1,14 @@
 package org.commongeoregistry.adapter.dataaccess;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
 
+import org.commongeoregistry.adapter.json.JsonStreams;
 import org.commongeoregistry.adapter.metadata.HierarchyType;
 
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 
 public abstract class TreeNode implements Serializable
 {
@@ -40,28 +44,50 @@ public abstract class TreeNode implements Serializable
 
   public JsonObject toJSON()
   {
-    JsonObject json = new JsonObject();
+    return JsonStreams.toJsonTree(this::writeTo).getAsJsonObject();
+  }
+  
+  /**
+   * Writes the JSON representation of this {@link TreeNode} and all of its descendants to the given stream as UTF-8
+   * without building the intermediate {@link JsonObject}. The stream is flushed but not closed.
+   * 
+   * @param out
+   */
+  public void writeTo(OutputStream out)
+  {
+    JsonStreams.write(out, this::writeTo);
+  }
+  
+  /**
+   * Writes the JSON representation of this {@link TreeNode} to the given writer.
+   * 
+   * @param writer
+   * @throws IOException
+   */
+  public void writeTo(JsonWriter writer) throws IOException
+  {
+    writer.beginObject();
     
-    json.add(JSON_GEO_OBJECT, this.geoObject.toJSON());
+    writer.name(JSON_GEO_OBJECT);
+    this.geoObject.writeTo(writer);
     
     if (this.hierarchyType != null) // The hierarchyType is null on the root node
     {
-      json.addProperty(JSON_HIERARCHY_TYPE, this.hierarchyType.getCode());
+      writer.name(JSON_HIERARCHY_TYPE).value(this.hierarchyType.getCode());
     }
     
-    json = this.relationshipsToJSON(json);
+    this.writeRelationships(writer);
     
-    return json;
+    writer.endObject();
   }
   
   /**
-   * Returns the relationships of the {@link TreeNode}.
-   * 
-   * @param json the JSON being constructed.
+   * Writes the relationships of the {@link TreeNode}.
    * 
-   * @return JSON being constructed
+   * @param writer the writer positioned inside of the JSON object being constructed.
+   * @throws IOException
    */
-  protected abstract JsonObject relationshipsToJSON(JsonObject json);
+  protected abstract void writeRelationships(JsonWriter writer) throws IOException;
   
 
 //  public static TreeNode fromJSON(String sJson, RegistryAdapterServer registry)
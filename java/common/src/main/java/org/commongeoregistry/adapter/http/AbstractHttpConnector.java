@@ -20,10 +20,12 @@ package org.commongeoregistry.adapter.http;
 
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
@@ -32,14 +34,25 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import org.commongeoregistry.adapter.constants.RegistryUrls;
-
-import com.google.gson.JsonArray;
-import com.google.gson.JsonParser;
+import org.commongeoregistry.adapter.metrics.MetricsRecorder;
 
 public abstract class AbstractHttpConnector implements Connector
 {
   private String serverurl;
 
+  private volatile MetricsRecorder metricsRecorder = MetricsRecorder.NONE;
+
+  public MetricsRecorder getMetricsRecorder()
+  {
+    return metricsRecorder;
+  }
+
+  @Override
+  public void setMetricsRecorder(MetricsRecorder recorder)
+  {
+    this.metricsRecorder = recorder != null ? recorder : MetricsRecorder.NONE;
+  }
+
   public String getServerUrl()
   {
     return serverurl;
@@ -66,51 +79,11 @@ public abstract class AbstractHttpConnector implements Connector
   {
     try
     {
-      StringBuilder builder = new StringBuilder();
-      builder.append(this.getServerUrl());
-      builder.append(RegistryUrls.REGISTRY_CONTROLLER_URL);
-      builder.append("/");
-      builder.append(url);
+      String requestUrl = this.getRequestUrl(url, params);
       
-      if (params.size() > 0)
-      {
-        Set<Entry<String, String>> entries = params.entrySet();
-        
-        int count = 0;
-        for (Entry<String, String> entry : entries)
-        {
-          String value = entry.getValue();
-          
-//          if (value.startsWith("[") && value.endsWith("]"))
-//          {
-//            JsonArray array = new JsonParser().parse(value).getAsJsonArray();
-//            String key = entry.getKey();
-//            
-//            for (int i = 0; i < array.size(); ++i)
-//            {
-//              builder.append( ( count == 0 ? "?" : "&" ));
-//              builder.append(URLEncoder.encode(key, "utf-8"));
-//              builder.append("=");
-//              builder.append(URLEncoder.encode(array.get(i).getAsString(), "utf-8"));
-//              
-//              count++;
-//            }
-//          }
-//          else
-//          {
-            builder.append( ( count == 0 ? "?" : "&" ));
-            builder.append(URLEncoder.encode(entry.getKey(), "utf-8"));
-            builder.append("=");
-            builder.append(URLEncoder.encode(value, "utf-8"));
-//          }
-          
-          count++;
-        }
-      }
+      System.out.println("Sending HTTP GET request to [" + requestUrl + "].");
       
-      System.out.println("Sending HTTP GET request to [" + builder.toString() + "].");
-      
-      URL obj = new URL(builder.toString());
+      URL obj = new URL(requestUrl);
       HttpURLConnection con = (HttpURLConnection) obj.openConnection();
 
       try
@@ -134,7 +107,15 @@ public abstract class AbstractHttpConnector implements Connector
           is = con.getInputStream();
         }
 
-        try (BufferedReader in = new BufferedReader(new InputStreamReader(is)))
+        // Responses without a body, such as 304 Not Modified, have no error stream
+        if (is == null)
+        {
+          return new HttpResponse("", status);
+        }
+
+        CountingInputStream counted = new CountingInputStream(is);
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(counted)))
         {
           String inputLine;
           StringBuffer response = new StringBuffer();
@@ -147,6 +128,8 @@ public abstract class AbstractHttpConnector implements Connector
           
           HttpResponse resp = new HttpResponse(response.toString(), con.getResponseCode());
           
+          this.metricsRecorder.recordResponseSize(url, counted.getCount());
+          
           System.out.println("Receieved response [" + resp + "].");
 
           return resp;
@@ -163,6 +146,43 @@ public abstract class AbstractHttpConnector implements Connector
     }
   }
   
+  /**
+   * Returns the absolute URL of the given end point of the registry with the given parameters encoded as query string.
+   * 
+   * @param url
+   *          end point relative to the registry controller, see {@link RegistryUrls}.
+   * @param params
+   * @throws UnsupportedEncodingException
+   */
+  protected String getRequestUrl(String url, Map<String, String> params) throws UnsupportedEncodingException
+  {
+    StringBuilder builder = new StringBuilder();
+    builder.append(this.getServerUrl());
+    builder.append(RegistryUrls.REGISTRY_CONTROLLER_URL);
+    builder.append("/");
+    builder.append(url);
+    
+    if (params.size() > 0)
+    {
+      Set<Entry<String, String>> entries = params.entrySet();
+      
+      int count = 0;
+      for (Entry<String, String> entry : entries)
+      {
+        String value = entry.getValue();
+        
+        builder.append( ( count == 0 ? "?" : "&" ));
+        builder.append(URLEncoder.encode(entry.getKey(), "utf-8"));
+        builder.append("=");
+        builder.append(URLEncoder.encode(value, "utf-8"));
+        
+        count++;
+      }
+    }
+    
+    return builder.toString();
+  }
+  
   public void configureHttpUrlConnectionPost(HttpURLConnection con)
   {
   }
@@ -220,7 +240,14 @@ public abstract class AbstractHttpConnector implements Connector
           is = con.getInputStream();
         }
         
-        try (BufferedReader in = new BufferedReader(new InputStreamReader(is)))
+        if (is == null)
+        {
+          return new HttpResponse("", status);
+        }
+        
+        CountingInputStream counted = new CountingInputStream(is);
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(counted)))
         {
           String inputLine;
           StringBuffer response = new StringBuffer();
@@ -232,6 +259,8 @@ public abstract class AbstractHttpConnector implements Connector
           
           HttpResponse resp = new HttpResponse(response.toString(), con.getResponseCode());
           
+          this.metricsRecorder.recordResponseSize(url, counted.getCount());
+          
           System.out.println("Receieved response [" + resp + "].");
 
           return resp;
@@ -247,4 +276,50 @@ public abstract class AbstractHttpConnector implements Connector
       throw new RuntimeException(e);
     }
   }
+
+  /**
+   * Counts the bytes read from the response body, the lines returned by the reader lack their line terminators.
+   */
+  private static class CountingInputStream extends FilterInputStream
+  {
+    private long count;
+
+    private CountingInputStream(InputStream in)
+    {
+      super(in);
+
+      this.count = 0;
+    }
+
+    public long getCount()
+    {
+      return this.count;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+      int b = super.read();
+
+      if (b != -1)
+      {
+        this.count++;
+      }
+
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+      int count = super.read(b, off, len);
+
+      if (count > 0)
+      {
+        this.count += count;
+      }
+
+      return count;
+    }
+  }
 }
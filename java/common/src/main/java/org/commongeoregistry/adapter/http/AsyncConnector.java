@@ -0,0 +1,18 @@
+package org.commongeoregistry.adapter.http;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link Connector}. The returned futures complete with the response once it has been
+ * received, an implementation backed by a non-blocking HTTP client does not hold a thread while a request is in
+ * flight. {@link ExecutorAsyncConnector} adapts a blocking {@link Connector}.
+ */
+public interface AsyncConnector
+{
+
+  CompletableFuture<HttpResponse> httpGetAsync(String url, Map<String, String> params);
+
+  CompletableFuture<HttpResponse> httpPostAsync(String url, String body);
+
+}
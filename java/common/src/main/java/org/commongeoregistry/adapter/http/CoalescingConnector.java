@@ -0,0 +1,154 @@
+package org.commongeoregistry.adapter.http;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.commongeoregistry.adapter.metrics.MetricsRecorder;
+
+/**
+ * {@link Connector} decorator which lets concurrent identical GET requests share one request to the registry. The
+ * first caller sends the request, callers asking for the same URL with the same parameters while it is in flight wait
+ * for its response instead of sending their own. Each caller receives its own {@link HttpResponse} with the shared
+ * status and body, or the shared exception. A request is only shared while it is in flight, the responses are not
+ * cached.
+ *
+ * POST requests are passed through unchanged. Streamed GET requests are coalesced as well and therefore return buffered
+ * responses.
+ */
+public class CoalescingConnector implements Connector
+{
+  private Connector                                                  connector;
+
+  private ConcurrentHashMap<String, CompletableFuture<HttpResponse>> inFlight;
+
+  private AtomicLong                                                 requestCount;
+
+  private AtomicLong                                                 coalescedCount;
+
+  /**
+   * @param connector
+   *          sends the requests.
+   */
+  public CoalescingConnector(Connector connector)
+  {
+    this.connector = connector;
+    this.inFlight = new ConcurrentHashMap<String, CompletableFuture<HttpResponse>>();
+    this.requestCount = new AtomicLong();
+    this.coalescedCount = new AtomicLong();
+  }
+
+  public Connector getConnector()
+  {
+    return this.connector;
+  }
+
+  /**
+   * Returns the number of GET requests made through this connector.
+   */
+  public long getRequestCount()
+  {
+    return this.requestCount.get();
+  }
+
+  /**
+   * Returns the number of GET requests which shared the response of an identical request in flight instead of being
+   * sent.
+   */
+  public long getCoalescedCount()
+  {
+    return this.coalescedCount.get();
+  }
+
+  @Override
+  public void setMetricsRecorder(MetricsRecorder recorder)
+  {
+    this.connector.setMetricsRecorder(recorder);
+  }
+
+  @Override
+  public HttpResponse httpGet(String url, Map<String, String> params)
+  {
+    this.requestCount.incrementAndGet();
+
+    String key = key(url, params);
+    CompletableFuture<HttpResponse> future = new CompletableFuture<HttpResponse>();
+    CompletableFuture<HttpResponse> existing = this.inFlight.putIfAbsent(key, future);
+
+    if (existing != null)
+    {
+      this.coalescedCount.incrementAndGet();
+
+      try
+      {
+        HttpResponse resp = existing.join();
+
+        return new HttpResponse(resp.getAsString(), resp.getStatusCode());
+      }
+      catch (CompletionException e)
+      {
+        if (e.getCause() instanceof RuntimeException)
+        {
+          throw (RuntimeException) e.getCause();
+        }
+
+        throw new RuntimeException(e.getCause());
+      }
+    }
+
+    try
+    {
+      HttpResponse resp = this.connector.httpGet(url, params);
+
+      // The waiting callers copy the body, make sure it is buffered first
+      resp.getAsString();
+
+      future.complete(resp);
+
+      return resp;
+    }
+    catch (RuntimeException | Error e)
+    {
+      future.completeExceptionally(e);
+
+      throw e;
+    }
+    finally
+    {
+      this.inFlight.remove(key, future);
+    }
+  }
+
+  @Override
+  public HttpResponse httpPost(String url, String body)
+  {
+    return this.connector.httpPost(url, body);
+  }
+
+  @Override
+  public HttpResponse httpPostStream(String url, String body)
+  {
+    return this.connector.httpPostStream(url, body);
+  }
+
+  /**
+   * Returns a key which is equal for requests to the same URL with the same parameters in any order.
+   */
+  private static String key(String url, Map<String, String> params)
+  {
+    StringBuilder builder = new StringBuilder(url);
+
+    if (params != null)
+    {
+      for (Map.Entry<String, String> entry : new TreeMap<String, String>(params).entrySet())
+      {
+        builder.append('\u0000').append(entry.getKey()).append('\u0000').append(entry.getValue());
+      }
+    }
+
+    return builder.toString();
+  }
+}
@@ -2,6 +2,8 @@ package org.commongeoregistry.adapter.http;
 
 import java.util.Map;
 
+import org.commongeoregistry.adapter.metrics.MetricsRecorder;
+
 public interface Connector
 {
 
@@ -9,4 +11,31 @@ public interface Connector
 
   HttpResponse httpPost(String url, String body);
 
+  /**
+   * Sends a GET request whose response body may be streamed instead of buffered, see
+   * {@link HttpResponse#read(org.commongeoregistry.adapter.json.JsonStreams.ReadFunction)}. The caller must close the
+   * response. Connectors which cannot stream return a buffered response.
+   */
+  default HttpResponse httpGetStream(String url, Map<String, String> params)
+  {
+    return this.httpGet(url, params);
+  }
+
+  /**
+   * Sends a POST request whose response body may be streamed instead of buffered, see
+   * {@link #httpGetStream(String, Map)}.
+   */
+  default HttpResponse httpPostStream(String url, String body)
+  {
+    return this.httpPost(url, body);
+  }
+
+  /**
+   * Sets the recorder the connector reports the size of the response bodies to. Connectors which do not measure their
+   * responses ignore it, decorators pass it on to the connector they wrap.
+   */
+  default void setMetricsRecorder(MetricsRecorder recorder)
+  {
+  }
+
 }
\ No newline at end of file
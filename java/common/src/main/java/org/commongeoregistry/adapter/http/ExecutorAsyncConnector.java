@@ -0,0 +1,39 @@
+package org.commongeoregistry.adapter.http;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link AsyncConnector} which runs the requests of a blocking {@link Connector} on an {@link Executor}. Each request
+ * in flight holds a thread of the executor, the size of the executor bounds the number of concurrent requests.
+ */
+public class ExecutorAsyncConnector implements AsyncConnector
+{
+  private Connector connector;
+
+  private Executor  executor;
+
+  public ExecutorAsyncConnector(Connector connector, Executor executor)
+  {
+    this.connector = connector;
+    this.executor = executor;
+  }
+
+  public Connector getConnector()
+  {
+    return this.connector;
+  }
+
+  @Override
+  public CompletableFuture<HttpResponse> httpGetAsync(String url, Map<String, String> params)
+  {
+    return CompletableFuture.supplyAsync(() -> this.connector.httpGet(url, params), this.executor);
+  }
+
+  @Override
+  public CompletableFuture<HttpResponse> httpPostAsync(String url, String body)
+  {
+    return CompletableFuture.supplyAsync(() -> this.connector.httpPost(url, body), this.executor);
+  }
+}
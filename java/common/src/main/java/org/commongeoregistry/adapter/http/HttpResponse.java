@@ -18,15 +18,33 @@
  */
 package org.commongeoregistry.adapter.http;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+import org.commongeoregistry.adapter.json.JsonStreams;
+import org.commongeoregistry.adapter.json.JsonStreams.ReadFunction;
+
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
-public class HttpResponse
+/**
+ * Status and body of a response from the registry. The body is either buffered as a string or streamed from a
+ * {@link Reader}, see {@link Connector#httpGetStream(String, java.util.Map)}. A streamed body can be read once, with
+ * {@link #read(ReadFunction)} or one of the getAsJson methods, and is buffered only if {@link #getAsString()} is called
+ * first. Streamed responses must be closed, which releases the underlying connection.
+ */
+public class HttpResponse implements Closeable
 {
-  private String response;
+  private String      response;
+
+  private Reader      reader;
+
+  private JsonElement json;
 
-  private int    statusCode;
+  private int         statusCode;
 
   public HttpResponse(String sResp, int statusCode)
   {
@@ -34,25 +52,118 @@ public class HttpResponse
     this.statusCode = statusCode;
   }
 
-  public JsonObject getAsJsonObject()
+  /**
+   * Creates a response whose body is streamed from the given reader.
+   * 
+   * @param reader
+   *          body of the response, closed once it has been read or the response is closed.
+   * @param statusCode
+   */
+  public HttpResponse(Reader reader, int statusCode)
   {
-    JsonParser parser = new JsonParser();
+    this.reader = reader;
+    this.statusCode = statusCode;
+  }
 
-    return parser.parse(this.response).getAsJsonObject();
+  /**
+   * @return true if the body is streamed and has not been read or buffered yet.
+   */
+  public boolean isStreaming()
+  {
+    return this.reader != null;
   }
 
-  public JsonArray getAsJsonArray()
+  /**
+   * Decodes the body with the given function, directly from the stream if the body has not been buffered.
+   * 
+   * @param function
+   * @return the decoded value.
+   * @throws IllegalStateException
+   *           if the streamed body has already been read.
+   */
+  public <T> T read(ReadFunction<T> function)
+  {
+    if (this.response != null)
+    {
+      return JsonStreams.read(this.response, function);
+    }
+    else if (this.json != null)
+    {
+      return JsonStreams.read(this.json, function);
+    }
+
+    return JsonStreams.read(this.takeReader(), function);
+  }
+
+  /**
+   * Returns the body as a {@link JsonElement}. The body is parsed once, every call returns the same element.
+   */
+  public JsonElement getAsJsonElement()
+  {
+    if (this.json == null)
+    {
+      this.json = this.response != null ? new JsonParser().parse(this.response) : JsonStreams.read(this.takeReader(), reader -> new JsonParser().parse(reader));
+    }
+
+    return this.json;
+  }
+
+  public JsonObject getAsJsonObject()
   {
-    JsonParser parser = new JsonParser();
+    return this.getAsJsonElement().getAsJsonObject();
+  }
 
-    return parser.parse(this.response).getAsJsonArray();
+  public JsonArray getAsJsonArray()
+  {
+    return this.getAsJsonElement().getAsJsonArray();
   }
 
+  /**
+   * Returns the body as a string, reading a streamed body to the end and buffering it.
+   */
   public String getAsString()
   {
+    if (this.response == null)
+    {
+      if (this.json != null)
+      {
+        return this.json.toString();
+      }
+
+      try (Reader in = this.takeReader())
+      {
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[8192];
+
+        for (int count = in.read(buffer); count != -1; count = in.read(buffer))
+        {
+          builder.append(buffer, 0, count);
+        }
+
+        this.response = builder.toString();
+      }
+      catch (IOException e)
+      {
+        throw new RuntimeException(e);
+      }
+    }
+
     return this.response;
   }
 
+  private Reader takeReader()
+  {
+    if (this.reader == null)
+    {
+      throw new IllegalStateException("The streamed body of the response has already been read.");
+    }
+
+    Reader reader = this.reader;
+    this.reader = null;
+
+    return reader;
+  }
+
   public int getStatusCode()
   {
     return statusCode;
@@ -62,13 +173,32 @@ public class HttpResponse
   {
     this.statusCode = statusCode;
   }
+
+  /**
+   * Closes the stream of a body which has not been read, does nothing for buffered bodies.
+   */
+  @Override
+  public void close()
+  {
+    if (this.reader != null)
+    {
+      try
+      {
+        this.takeReader().close();
+      }
+      catch (IOException e)
+      {
+        throw new RuntimeException(e);
+      }
+    }
+  }
   
   @Override
   public String toString()
   {
     String status = "HTTPResponse [" + this.statusCode + "]";
     
-    if (this.response.length() > 300)
+    if (this.response == null || this.response.length() > 300)
     {
       return status;
     }
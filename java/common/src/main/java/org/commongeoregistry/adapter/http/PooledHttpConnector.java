@@ -0,0 +1,447 @@
+package org.commongeoregistry.adapter.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Production {@link Connector} which reuses connections to the registry. Unlike {@link AbstractHttpConnector} it does
+ * not disconnect after a request: the response body is read to the end and closed, which returns the connection to
+ * the keep-alive cache of the platform for the next request to the same host. At most
+ * {@link #getMaxConnections()} requests are in flight at the same time, further requests wait for a connection. The
+ * number of idle connections kept alive per host is bounded by the platform, see the {@code http.maxConnections}
+ * system property.
+ *
+ * Responses are requested with gzip or deflate encoding and decoded as they are read, request bodies of at least
+ * {@link #getCompressionThreshold()} bytes are sent gzip encoded if {@link #setCompressRequests(boolean)} is enabled
+ * and the registry accepts encoded requests. Read timeouts can be set per end point. Bodies are read as bytes and
+ * decoded with the charset of the response, UTF-8 by default. The stream methods return the body without buffering
+ * it, the connection stays in use until the response is closed.
+ */
+public class PooledHttpConnector extends AbstractHttpConnector
+{
+  public static final int      DEFAULT_MAX_CONNECTIONS       = 8;
+
+  public static final int      DEFAULT_CONNECT_TIMEOUT       = 10000;
+
+  public static final int      DEFAULT_READ_TIMEOUT          = 60000;
+
+  public static final int      DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+  private int                  maxConnections;
+
+  private Semaphore            connections;
+
+  private int                  connectTimeout;
+
+  private int                  readTimeout;
+
+  private Map<String, Integer> readTimeouts;
+
+  private boolean              compressRequests;
+
+  private int                  compressionThreshold;
+
+  public PooledHttpConnector()
+  {
+    this(DEFAULT_MAX_CONNECTIONS);
+  }
+
+  /**
+   * @param maxConnections
+   *          maximum number of requests in flight at the same time.
+   */
+  public PooledHttpConnector(int maxConnections)
+  {
+    this.maxConnections = maxConnections;
+    this.connections = new Semaphore(maxConnections, true);
+    this.connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    this.readTimeout = DEFAULT_READ_TIMEOUT;
+    this.readTimeouts = new ConcurrentHashMap<String, Integer>();
+    this.compressRequests = false;
+    this.compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+  }
+
+  public int getMaxConnections()
+  {
+    return this.maxConnections;
+  }
+
+  public int getConnectTimeout()
+  {
+    return this.connectTimeout;
+  }
+
+  /**
+   * @param connectTimeout
+   *          timeout in milliseconds for establishing a connection, 0 for none.
+   */
+  public void setConnectTimeout(int connectTimeout)
+  {
+    this.connectTimeout = connectTimeout;
+  }
+
+  public int getReadTimeout()
+  {
+    return this.readTimeout;
+  }
+
+  /**
+   * @param readTimeout
+   *          timeout in milliseconds for reading the response of end points without a timeout of their own, 0 for
+   *          none.
+   */
+  public void setReadTimeout(int readTimeout)
+  {
+    this.readTimeout = readTimeout;
+  }
+
+  /**
+   * Returns the read timeout of the given end point.
+   *
+   * @param url
+   *          end point, see {@link org.commongeoregistry.adapter.constants.RegistryUrls}.
+   */
+  public int getReadTimeout(String url)
+  {
+    return this.readTimeouts.getOrDefault(url, this.readTimeout);
+  }
+
+  /**
+   * Sets the read timeout of the given end point, for example a longer one for end points which return whole trees.
+   *
+   * @param url
+   *          end point, see {@link org.commongeoregistry.adapter.constants.RegistryUrls}.
+   * @param readTimeout
+   *          timeout in milliseconds, 0 for none.
+   */
+  public void setReadTimeout(String url, int readTimeout)
+  {
+    this.readTimeouts.put(url, readTimeout);
+  }
+
+  public boolean isCompressRequests()
+  {
+    return this.compressRequests;
+  }
+
+  public void setCompressRequests(boolean compressRequests)
+  {
+    this.compressRequests = compressRequests;
+  }
+
+  public int getCompressionThreshold()
+  {
+    return this.compressionThreshold;
+  }
+
+  public void setCompressionThreshold(int compressionThreshold)
+  {
+    this.compressionThreshold = compressionThreshold;
+  }
+
+  @Override
+  public HttpResponse httpGet(String url, Map<String, String> params)
+  {
+    return this.get(url, params, false);
+  }
+
+  @Override
+  public HttpResponse httpGetStream(String url, Map<String, String> params)
+  {
+    return this.get(url, params, true);
+  }
+
+  @Override
+  public HttpResponse httpPost(String url, String body)
+  {
+    return this.post(url, body, false);
+  }
+
+  @Override
+  public HttpResponse httpPostStream(String url, String body)
+  {
+    return this.post(url, body, true);
+  }
+
+  private HttpResponse get(String url, Map<String, String> params, boolean streaming)
+  {
+    try
+    {
+      HttpURLConnection con = this.open(url, this.getRequestUrl(url, params));
+      con.setRequestMethod("GET");
+
+      return this.execute(url, con, null, streaming);
+    }
+    catch (IOException e)
+    {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private HttpResponse post(String url, String body, boolean streaming)
+  {
+    try
+    {
+      HttpURLConnection con = this.open(url, this.getRequestUrl(url, Collections.<String, String> emptyMap()));
+      con.setRequestMethod("POST");
+      con.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+      con.setDoOutput(true);
+
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+      if (this.compressRequests && bytes.length >= this.compressionThreshold)
+      {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed))
+        {
+          out.write(bytes);
+        }
+
+        bytes = compressed.toByteArray();
+        con.setRequestProperty("Content-Encoding", "gzip");
+      }
+
+      con.setFixedLengthStreamingMode(bytes.length);
+
+      return this.execute(url, con, bytes, streaming);
+    }
+    catch (IOException e)
+    {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private HttpURLConnection open(String url, String requestUrl) throws IOException
+  {
+    HttpURLConnection con = (HttpURLConnection) new URL(requestUrl).openConnection();
+    con.setConnectTimeout(this.connectTimeout);
+    con.setReadTimeout(this.getReadTimeout(url));
+    con.setRequestProperty("Accept", "application/json");
+    con.setRequestProperty("Accept-Encoding", "gzip, deflate");
+    con.setRequestProperty("Connection", "keep-alive");
+
+    this.configureHttpUrlConnectionPost(con);
+
+    return con;
+  }
+
+  /**
+   * Sends the request on a pooled connection and reads the response.
+   *
+   * @param url
+   *          end point the response size is recorded for.
+   * @param con
+   * @param body
+   *          request body, or null.
+   * @param streaming
+   *          true to return the body as a stream which keeps the connection until it is closed.
+   */
+  private HttpResponse execute(String url, HttpURLConnection con, byte[] body, boolean streaming) throws IOException
+  {
+    try
+    {
+      this.connections.acquire();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+
+      throw new InterruptedIOException("Interrupted while waiting for a connection to [" + con.getURL() + "].");
+    }
+
+    boolean released = true;
+
+    try
+    {
+      if (body != null)
+      {
+        try (OutputStream out = con.getOutputStream())
+        {
+          out.write(body);
+        }
+      }
+
+      int status = con.getResponseCode();
+
+      InputStream is = status < HttpURLConnection.HTTP_BAD_REQUEST ? con.getInputStream() : con.getErrorStream();
+
+      // Responses without a body, such as 304 Not Modified, have no error stream
+      if (is == null)
+      {
+        this.getMetricsRecorder().recordResponseSize(url, 0);
+
+        return new HttpResponse("", status);
+      }
+
+      String encoding = con.getContentEncoding();
+
+      if ("gzip".equalsIgnoreCase(encoding))
+      {
+        is = new GZIPInputStream(is);
+      }
+      else if ("deflate".equalsIgnoreCase(encoding))
+      {
+        is = new InflaterInputStream(is);
+      }
+
+      if (streaming)
+      {
+        released = false;
+
+        return new HttpResponse(new InputStreamReader(new ReleasingInputStream(url, is), charset(con.getContentType())), status);
+      }
+
+      // Reading to the end and closing the stream returns the connection to the keep-alive cache
+      try (InputStream in = is)
+      {
+        byte[] bytes = read(in);
+
+        this.getMetricsRecorder().recordResponseSize(url, bytes.length);
+
+        return new HttpResponse(new String(bytes, charset(con.getContentType())), status);
+      }
+    }
+    catch (IOException e)
+    {
+      // The state of the connection is unknown, do not reuse it
+      con.disconnect();
+
+      released = true;
+
+      throw e;
+    }
+    finally
+    {
+      if (released)
+      {
+        this.connections.release();
+      }
+    }
+  }
+
+  /**
+   * Body of a streamed response, gives the connection back and records the number of bytes read when it is closed.
+   */
+  private class ReleasingInputStream extends FilterInputStream
+  {
+    private String  url;
+
+    private long    count;
+
+    private boolean closed;
+
+    private ReleasingInputStream(String url, InputStream in)
+    {
+      super(in);
+
+      this.url = url;
+      this.count = 0;
+      this.closed = false;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+      int b = super.read();
+
+      if (b != -1)
+      {
+        this.count++;
+      }
+
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+      int count = super.read(b, off, len);
+
+      if (count > 0)
+      {
+        this.count += count;
+      }
+
+      return count;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      if (!this.closed)
+      {
+        this.closed = true;
+
+        try
+        {
+          // The platform reuses the connection if the remainder of the body can be skipped
+          super.close();
+        }
+        finally
+        {
+          connections.release();
+
+          getMetricsRecorder().recordResponseSize(this.url, this.count);
+        }
+      }
+    }
+  }
+
+  private static byte[] read(InputStream in) throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+    byte[] buffer = new byte[8192];
+
+    for (int count = in.read(buffer); count != -1; count = in.read(buffer))
+    {
+      out.write(buffer, 0, count);
+    }
+
+    return out.toByteArray();
+  }
+
+  /**
+   * Returns the charset of the given content type, UTF-8 if there is none.
+   */
+  private static Charset charset(String contentType)
+  {
+    if (contentType != null)
+    {
+      for (String parameter : contentType.split(";"))
+      {
+        String[] pair = parameter.trim().split("=", 2);
+
+        if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("charset"))
+        {
+          try
+          {
+            return Charset.forName(pair[1].trim().replace("\"", ""));
+          }
+          catch (IllegalArgumentException e)
+          {
+            // Unknown charset, fall back to the default
+          }
+        }
+      }
+    }
+
+    return StandardCharsets.UTF_8;
+  }
+}
@@ -0,0 +1,579 @@
+package org.commongeoregistry.adapter.http;
+
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.commongeoregistry.adapter.constants.RegistryUrls;
+import org.commongeoregistry.adapter.metrics.MetricsRecorder;
+
+/**
+ * {@link Connector} decorator which protects callers from slow or failing registry nodes.
+ * <ul>
+ * <li>Idempotent requests, every GET and the POSTs registered with {@link #addIdempotentUrl(String)}, are retried
+ * after a failure or a 408, 429, 502, 503 or 504 response, up to {@link #getMaxRetries()} times with exponential
+ * backoff and full jitter.</li>
+ * <li>GET requests which take longer than the {@link #getHedgePercentile()} latency of the recent GET requests are
+ * hedged: a second identical request is sent and the first response wins. GET attempts which take longer than
+ * {@link #getTimeout()} fail, they are cancelled and count as a latency of the timeout. GET requests are sent on at
+ * most {@link #getMaxThreads()} threads, once they are all busy further GETs are sent on the calling thread without a
+ * hedge or timeout.</li>
+ * <li>After {@link #getFailureThreshold()} consecutive failures the circuit opens and requests fail fast with a
+ * {@link ResponseException} with status 503 for {@link #getOpenDuration()} milliseconds. The next request is then let
+ * through as a trial, its outcome closes or reopens the circuit.</li>
+ * </ul>
+ * A failure is an exception of the wrapped connector or a 5xx response. The returned responses are those of the
+ * wrapped connector, the status is validated by the caller as usual.
+ */
+public class ResilientConnector implements Connector
+{
+  public static final int    DEFAULT_MAX_RETRIES       = 3;
+
+  public static final long   DEFAULT_BACKOFF           = 100;
+
+  public static final long   DEFAULT_MAX_BACKOFF       = 5000;
+
+  public static final double DEFAULT_HEDGE_PERCENTILE  = 0.95;
+
+  public static final long   DEFAULT_TIMEOUT           = 60000;
+
+  public static final int    DEFAULT_FAILURE_THRESHOLD = 5;
+
+  public static final long   DEFAULT_OPEN_DURATION     = 30000;
+
+  public static final int    DEFAULT_MAX_THREADS       = 64;
+
+  /**
+   * Number of recent GET latencies the hedge delay is computed from.
+   */
+  private static final int   LATENCY_SAMPLES           = 256;
+
+  /**
+   * Number of GET latencies needed before requests are hedged.
+   */
+  private static final int   MIN_LATENCY_SAMPLES       = 20;
+
+  private static final Set<Integer> RETRY_STATUSES = new HashSet<Integer>(Arrays.asList(HttpURLConnection.HTTP_CLIENT_TIMEOUT, 429, HttpURLConnection.HTTP_BAD_GATEWAY, HttpURLConnection.HTTP_UNAVAILABLE, HttpURLConnection.HTTP_GATEWAY_TIMEOUT));
+
+  private enum State
+  {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private Connector       connector;
+
+  private ThreadPoolExecutor executor;
+
+  private Set<String>     idempotentUrls;
+
+  private volatile int    maxRetries;
+
+  private volatile long   backoff;
+
+  private volatile long   maxBackoff;
+
+  private volatile double hedgePercentile;
+
+  private volatile long   timeout;
+
+  private volatile int    failureThreshold;
+
+  private volatile long   openDuration;
+
+  /**
+   * Latencies of the recent GET requests in nanoseconds, used as a ring buffer.
+   */
+  private long[]          latencies;
+
+  private int             latencyCount;
+
+  private State           state;
+
+  private int             failures;
+
+  private long            openedAt;
+
+  private AtomicLong      retryCount;
+
+  private AtomicLong      hedgeCount;
+
+  private AtomicLong      rejectedCount;
+
+  /**
+   * @param connector
+   *          sends the requests.
+   */
+  public ResilientConnector(Connector connector)
+  {
+    this(connector, DEFAULT_MAX_THREADS);
+  }
+
+  /**
+   * @param connector
+   *          sends the requests.
+   * @param maxThreads
+   *          maximum number of threads sending GET requests and their hedges.
+   */
+  public ResilientConnector(Connector connector, int maxThreads)
+  {
+    this.connector = connector;
+    this.executor = new ThreadPoolExecutor(0, Math.max(1, maxThreads), 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), runnable ->
+    {
+      Thread thread = new Thread(runnable, "registry-request");
+      thread.setDaemon(true);
+
+      return thread;
+    });
+    this.idempotentUrls = ConcurrentHashMap.newKeySet();
+    this.idempotentUrls.add(RegistryUrls.GEO_OBJECT_GET_BULK);
+    this.maxRetries = DEFAULT_MAX_RETRIES;
+    this.backoff = DEFAULT_BACKOFF;
+    this.maxBackoff = DEFAULT_MAX_BACKOFF;
+    this.hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
+    this.timeout = DEFAULT_TIMEOUT;
+    this.failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    this.openDuration = DEFAULT_OPEN_DURATION;
+    this.latencies = new long[LATENCY_SAMPLES];
+    this.latencyCount = 0;
+    this.state = State.CLOSED;
+    this.failures = 0;
+    this.retryCount = new AtomicLong();
+    this.hedgeCount = new AtomicLong();
+    this.rejectedCount = new AtomicLong();
+  }
+
+  public Connector getConnector()
+  {
+    return this.connector;
+  }
+
+  public int getMaxThreads()
+  {
+    return this.executor.getMaximumPoolSize();
+  }
+
+  /**
+   * Registers a POST end point which can safely be sent more than once, such as a read with a large request body.
+   *
+   * @param url
+   *          end point, see {@link RegistryUrls}.
+   */
+  public void addIdempotentUrl(String url)
+  {
+    this.idempotentUrls.add(url);
+  }
+
+  public int getMaxRetries()
+  {
+    return this.maxRetries;
+  }
+
+  public void setMaxRetries(int maxRetries)
+  {
+    this.maxRetries = maxRetries;
+  }
+
+  public long getBackoff()
+  {
+    return this.backoff;
+  }
+
+  /**
+   * @param backoff
+   *          delay in milliseconds before the first retry, doubled for every further retry.
+   */
+  public void setBackoff(long backoff)
+  {
+    this.backoff = backoff;
+  }
+
+  public long getMaxBackoff()
+  {
+    return this.maxBackoff;
+  }
+
+  public void setMaxBackoff(long maxBackoff)
+  {
+    this.maxBackoff = maxBackoff;
+  }
+
+  public double getHedgePercentile()
+  {
+    return this.hedgePercentile;
+  }
+
+  /**
+   * @param hedgePercentile
+   *          percentile of the recent GET latencies after which a GET request is hedged, for example 0.95, or 0 to
+   *          never hedge.
+   */
+  public void setHedgePercentile(double hedgePercentile)
+  {
+    this.hedgePercentile = hedgePercentile;
+  }
+
+  public long getTimeout()
+  {
+    return this.timeout;
+  }
+
+  /**
+   * @param timeout
+   *          time in milliseconds after which a GET attempt, including its hedge, fails.
+   */
+  public void setTimeout(long timeout)
+  {
+    this.timeout = timeout;
+  }
+
+  public int getFailureThreshold()
+  {
+    return this.failureThreshold;
+  }
+
+  public void setFailureThreshold(int failureThreshold)
+  {
+    this.failureThreshold = failureThreshold;
+  }
+
+  public long getOpenDuration()
+  {
+    return this.openDuration;
+  }
+
+  /**
+   * @param openDuration
+   *          time in milliseconds the circuit stays open before a trial request is let through.
+   */
+  public void setOpenDuration(long openDuration)
+  {
+    this.openDuration = openDuration;
+  }
+
+  /**
+   * Returns the number of requests which were sent again after a failure.
+   */
+  public long getRetryCount()
+  {
+    return this.retryCount.get();
+  }
+
+  /**
+   * Returns the number of hedge requests sent.
+   */
+  public long getHedgeCount()
+  {
+    return this.hedgeCount.get();
+  }
+
+  /**
+   * Returns the number of requests which failed fast because the circuit was open.
+   */
+  public long getRejectedCount()
+  {
+    return this.rejectedCount.get();
+  }
+
+  /**
+   * @return true if requests currently fail fast.
+   */
+  public synchronized boolean isOpen()
+  {
+    return this.state != State.CLOSED;
+  }
+
+  @Override
+  public void setMetricsRecorder(MetricsRecorder recorder)
+  {
+    this.connector.setMetricsRecorder(recorder);
+  }
+
+  @Override
+  public HttpResponse httpGet(String url, Map<String, String> params)
+  {
+    return this.execute(url, () -> this.connector.httpGet(url, params), true, true);
+  }
+
+  @Override
+  public HttpResponse httpPost(String url, String body)
+  {
+    return this.execute(url, () -> this.connector.httpPost(url, body), this.idempotentUrls.contains(url), false);
+  }
+
+  private HttpResponse execute(String url, Supplier<HttpResponse> request, boolean idempotent, boolean hedge)
+  {
+    for (int attempt = 0;; attempt++)
+    {
+      this.acquire(url);
+
+      HttpResponse resp;
+
+      try
+      {
+        resp = hedge ? this.hedged(url, request) : request.get();
+      }
+      catch (RuntimeException e)
+      {
+        this.onFailure();
+
+        if (!idempotent || attempt >= this.maxRetries)
+        {
+          throw e;
+        }
+
+        this.sleep(attempt);
+
+        continue;
+      }
+
+      if (resp.getStatusCode() >= HttpURLConnection.HTTP_INTERNAL_ERROR)
+      {
+        this.onFailure();
+      }
+      else
+      {
+        this.onSuccess();
+      }
+
+      if (!idempotent || attempt >= this.maxRetries || !RETRY_STATUSES.contains(resp.getStatusCode()))
+      {
+        return resp;
+      }
+
+      this.sleep(attempt);
+    }
+  }
+
+  /**
+   * Sends the request and, if it has not completed after the hedge delay, the same request again. Returns the first
+   * response, fails if both requests fail or neither completes in time. The attempts still running are cancelled.
+   */
+  private HttpResponse hedged(String url, Supplier<HttpResponse> request)
+  {
+    long delay = this.getHedgeDelay();
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.MILLISECONDS.toNanos(this.timeout);
+
+    CompletableFuture<HttpResponse> result = new CompletableFuture<HttpResponse>();
+    AtomicInteger pending = new AtomicInteger(1);
+
+    Future<?> primary = this.submit(request, result, pending);
+
+    if (primary == null)
+    {
+      // Every thread is busy, send the request without a hedge rather than queue it
+      return this.record(request.get(), System.nanoTime() - start);
+    }
+
+    Future<?> hedge = null;
+
+    try
+    {
+      if (delay > 0)
+      {
+        try
+        {
+          return this.record(result.get(delay, TimeUnit.NANOSECONDS), System.nanoTime() - start);
+        }
+        catch (TimeoutException e)
+        {
+          pending.incrementAndGet();
+
+          hedge = this.submit(request, result, pending);
+
+          if (hedge != null)
+          {
+            this.hedgeCount.incrementAndGet();
+          }
+          else
+          {
+            pending.decrementAndGet();
+          }
+        }
+      }
+
+      return this.record(result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS), System.nanoTime() - start);
+    }
+    catch (TimeoutException e)
+    {
+      this.record(null, TimeUnit.MILLISECONDS.toNanos(this.timeout));
+
+      throw new RuntimeException("No response from [" + url + "] within [" + this.timeout + "] ms.", e);
+    }
+    catch (ExecutionException e)
+    {
+      if (e.getCause() instanceof RuntimeException)
+      {
+        throw (RuntimeException) e.getCause();
+      }
+
+      throw new RuntimeException(e.getCause());
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+
+      throw new RuntimeException(e);
+    }
+    finally
+    {
+      primary.cancel(true);
+
+      if (hedge != null)
+      {
+        hedge.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * Sends the request on the executor. The first response completes the result, a failure only once no other request
+   * is pending. Returns null if every thread is busy.
+   */
+  private Future<?> submit(Supplier<HttpResponse> request, CompletableFuture<HttpResponse> result, AtomicInteger pending)
+  {
+    try
+    {
+      return this.executor.submit(() ->
+      {
+        try
+        {
+          HttpResponse resp = request.get();
+
+          // The response of the losing attempt is not read
+          if (!result.complete(resp))
+          {
+            resp.close();
+          }
+        }
+        catch (RuntimeException e)
+        {
+          if (pending.decrementAndGet() == 0)
+          {
+            result.completeExceptionally(e);
+          }
+        }
+      });
+    }
+    catch (RejectedExecutionException e)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Adds the latency in nanoseconds of a GET request to the recent latencies.
+   */
+  private HttpResponse record(HttpResponse resp, long latency)
+  {
+    synchronized (this.latencies)
+    {
+      this.latencies[this.latencyCount % LATENCY_SAMPLES] = latency;
+      this.latencyCount++;
+    }
+
+    return resp;
+  }
+
+  /**
+   * Returns the hedge delay in nanoseconds, 0 if requests are not hedged.
+   */
+  private long getHedgeDelay()
+  {
+    double percentile = this.hedgePercentile;
+
+    if (percentile <= 0)
+    {
+      return 0;
+    }
+
+    long[] samples;
+
+    synchronized (this.latencies)
+    {
+      if (this.latencyCount < MIN_LATENCY_SAMPLES)
+      {
+        return 0;
+      }
+
+      samples = Arrays.copyOf(this.latencies, Math.min(this.latencyCount, LATENCY_SAMPLES));
+    }
+
+    Arrays.sort(samples);
+
+    return Math.max(1, samples[Math.min(samples.length - 1, (int) ( samples.length * percentile ))]);
+  }
+
+  /**
+   * Waits before the given retry, a random time up to the exponential backoff.
+   */
+  private void sleep(int attempt)
+  {
+    this.retryCount.incrementAndGet();
+
+    long delay = Math.min(this.maxBackoff, this.backoff << Math.min(attempt, 30));
+
+    try
+    {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(delay + 1));
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Fails fast if the circuit is open, lets one trial request through once it has been open long enough.
+   */
+  private synchronized void acquire(String url)
+  {
+    if (this.state == State.OPEN && System.nanoTime() - this.openedAt >= TimeUnit.MILLISECONDS.toNanos(this.openDuration))
+    {
+      this.state = State.HALF_OPEN;
+
+      return;
+    }
+
+    if (this.state != State.CLOSED)
+    {
+      this.rejectedCount.incrementAndGet();
+
+      throw new ResponseException("The registry is unavailable, not sending the request to [" + url + "].", HttpURLConnection.HTTP_UNAVAILABLE);
+    }
+  }
+
+  private synchronized void onSuccess()
+  {
+    this.state = State.CLOSED;
+    this.failures = 0;
+  }
+
+  private synchronized void onFailure()
+  {
+    this.failures++;
+
+    if (this.state == State.HALF_OPEN || this.failures >= this.failureThreshold)
+    {
+      this.state = State.OPEN;
+      this.openedAt = System.nanoTime();
+    }
+  }
+}
@@ -1,12 +1,14 @@
 package org.commongeoregistry.adapter.id;
 
+import java.util.List;
 
 public interface AdapterIdServiceIF
 {
   /**
-   * Populates the id cache with ids. After invoking this method, the id cache will be guaranteed to contain @size ids.
-   * If the id cache already contains ids, the actual amount fetched from the server will be the difference between @size
-   * and the current amount in the cache. As such, @size should be set to the max size of the id cache.
+   * Populates the id cache with ids. After invoking this method, the id cache will be guaranteed to contain @size ids,
+   * less the ids taken with {@link #next()} by other threads while the ids were being fetched. If the id cache already
+   * contains ids, the actual amount fetched from the server will be the difference between @size and the current amount
+   * in the cache. As such, @size should be set to the max size of the id cache.
    */
   public void populate(int size);
   
@@ -16,4 +18,21 @@ public interface AdapterIdServiceIF
    * @return
    */
   public String next() throws EmptyIdCacheException;
+  
+  /**
+   * Fetches the next @n ids from the id cache in one operation, for creators of many objects. If the id cache holds
+   * fewer than @n ids, a EmptyIdCacheException is thrown and the id cache is left untouched.
+   * 
+   * The default implementation throws an UnsupportedOperationException, taking the ids one at a time with
+   * {@link #next()} would lose the ids already taken when the cache runs dry. The id services of the adapter override
+   * it.
+   * 
+   * @return
+   * @throws UnsupportedOperationException
+   *           if the id service cannot take several ids at once.
+   */
+  public default List<String> next(int n) throws EmptyIdCacheException
+  {
+    throw new UnsupportedOperationException("The id service [" + this.getClass().getName() + "] does not support taking several ids at once.");
+  }
 }
@@ -0,0 +1,184 @@
+package org.commongeoregistry.adapter.id;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.commongeoregistry.adapter.HttpRegistryClient;
+import org.commongeoregistry.adapter.metrics.MetricsRecorder;
+
+/**
+ * Keeps the ids issued by the common geo-registry in memory without a lock, for many threads creating objects at once.
+ * Every {@link #populate(int)} adds the fetched ids as one block, an array with a cursor, to a lock-free deque. Taking
+ * ids advances the cursor of the first block with a single atomic operation, {@link #next(int)} claims a whole range of
+ * a block at once. Exhausted blocks are dropped from the deque.
+ *
+ * Like {@link MemoryOnlyIdService} without a low watermark, the cache is only filled by {@link #populate(int)} and
+ * {@link #next()} throws an {@link EmptyIdCacheException} once it runs dry.
+ */
+public class ConcurrentIdService implements AdapterIdServiceIF
+{
+  /**
+   * Ids fetched by one request, handed out from the start of the array.
+   */
+  private static class Block
+  {
+    private final String[]      ids;
+
+    private final AtomicInteger cursor;
+
+    private Block(String[] ids)
+    {
+      this.ids = ids;
+      this.cursor = new AtomicInteger();
+    }
+
+    private int remaining()
+    {
+      return Math.max(0, this.ids.length - this.cursor.get());
+    }
+  }
+
+  private final ConcurrentLinkedDeque<Block> blocks;
+
+  private HttpRegistryClient                 client;
+
+  public ConcurrentIdService()
+  {
+    this.blocks = new ConcurrentLinkedDeque<Block>();
+  }
+
+  public void setClient(HttpRegistryClient client)
+  {
+    this.client = client;
+  }
+
+  /**
+   * Returns the number of ids in the cache. Only a snapshot while other threads take ids.
+   */
+  public int size()
+  {
+    int size = 0;
+
+    for (Block block : this.blocks)
+    {
+      size += block.remaining();
+    }
+
+    return size;
+  }
+
+  /**
+   * Concurrent calls may each fetch the missing ids, leaving more than the given size in the cache.
+   */
+  @Override
+  public void populate(int size)
+  {
+    int amount = size - this.size();
+
+    if (amount > 0)
+    {
+      Set<String> fetchedSet = this.client.getGeoObjectUids(amount);
+
+      if (fetchedSet.size() > 0)
+      {
+        this.blocks.offerLast(new Block(fetchedSet.toArray(new String[fetchedSet.size()])));
+      }
+    }
+  }
+
+  @Override
+  public String next() throws EmptyIdCacheException
+  {
+    Block block;
+
+    while ( ( block = this.blocks.peekFirst() ) != null)
+    {
+      int index = block.cursor.getAndIncrement();
+
+      if (index < block.ids.length)
+      {
+        String id = block.ids[index];
+        block.ids[index] = null;
+
+        if (index == block.ids.length - 1)
+        {
+          this.blocks.remove(block);
+        }
+
+        this.getMetricsRecorder().recordCacheAccess(MetricsRecorder.CACHE_ID, true);
+
+        return id;
+      }
+
+      // Exhausted by other threads, which may not have dropped it yet
+      this.blocks.remove(block);
+    }
+
+    this.getMetricsRecorder().recordCacheAccess(MetricsRecorder.CACHE_ID, false);
+
+    throw new EmptyIdCacheException();
+  }
+
+  /**
+   * Claims the ids a block at a time, usually with a single compare and set. If the cache holds fewer than n ids the
+   * claimed ones are put back at the front of the cache before the exception is thrown.
+   */
+  @Override
+  public List<String> next(int n) throws EmptyIdCacheException
+  {
+    List<String> ids = new ArrayList<String>(n);
+    Block block;
+
+    while (ids.size() < n && ( block = this.blocks.peekFirst() ) != null)
+    {
+      int start = block.cursor.get();
+
+      if (start >= block.ids.length)
+      {
+        this.blocks.remove(block);
+      }
+      else
+      {
+        int end = start + Math.min(block.ids.length - start, n - ids.size());
+
+        if (block.cursor.compareAndSet(start, end))
+        {
+          for (int i = start; i < end; i++)
+          {
+            ids.add(block.ids[i]);
+            block.ids[i] = null;
+          }
+
+          if (end == block.ids.length)
+          {
+            this.blocks.remove(block);
+          }
+        }
+      }
+    }
+
+    if (ids.size() < n)
+    {
+      this.getMetricsRecorder().recordCacheAccess(MetricsRecorder.CACHE_ID, false);
+
+      if (ids.size() > 0)
+      {
+        this.blocks.offerFirst(new Block(ids.toArray(new String[ids.size()])));
+      }
+
+      throw new EmptyIdCacheException();
+    }
+
+    this.getMetricsRecorder().recordCacheAccess(MetricsRecorder.CACHE_ID, true);
+
+    return ids;
+  }
+
+  private MetricsRecorder getMetricsRecorder()
+  {
+    return this.client != null ? this.client.getMetricsRecorder() : MetricsRecorder.NONE;
+  }
+}
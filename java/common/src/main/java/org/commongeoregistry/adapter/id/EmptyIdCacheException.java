@@ -5,4 +5,18 @@ public class EmptyIdCacheException extends RuntimeException
 
   private static final long serialVersionUID = 6728100885240251613L;
 
+  public EmptyIdCacheException()
+  {
+    super();
+  }
+
+  /**
+   * @param cause
+   *          failure of the refill the id cache was waiting for.
+   */
+  public EmptyIdCacheException(Throwable cause)
+  {
+    super(cause);
+  }
+
 }
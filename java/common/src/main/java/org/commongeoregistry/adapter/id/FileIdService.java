@@ -0,0 +1,511 @@
+package org.commongeoregistry.adapter.id;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.commongeoregistry.adapter.HttpRegistryClient;
+import org.commongeoregistry.adapter.metrics.MetricsRecorder;
+
+/**
+ * Keeps the ids issued by the common geo-registry in an append-only file, so that a client resumes from the ids left
+ * by its previous run instead of requesting new ones before its first create. The file is a sequence of lines:
+ *
+ * <pre>
+ * +&lt;uid&gt;  an id added by {@link #populate(int)}
+ * &#64;&lt;n&gt;    the first n ids of the file are claimed
+ * </pre>
+ *
+ * Ids are claimed in batches of {@link #getClaimSize()}: before the first id of a batch is handed out a claim line is
+ * appended and forced to disk, the ids of the batch are then handed out without touching the file. An id is never
+ * handed out twice, a crash loses at most the unused rest of the last claimed batch, {@link #close()} releases it. A
+ * line torn by a crash is dropped when the file is opened again.
+ *
+ * The file is rewritten with only the unclaimed ids, through a temporary file like the metadata snapshot, once most of
+ * its ids are claimed. A lock file next to it keeps other processes from using the same pool. Only java.io file
+ * operations are used, java.nio.file is not available on Android before API 26.
+ */
+public class FileIdService implements AdapterIdServiceIF, AutoCloseable
+{
+  public static final int     DEFAULT_CLAIM_SIZE = 100;
+
+  /**
+   * Minimum number of claimed ids before the file is rewritten.
+   */
+  private static final int    COMPACT_MIN        = 1000;
+
+  private final File          file;
+
+  private final int           claimSize;
+
+  private final Object        lock;
+
+  private FileChannel         lockChannel;
+
+  private FileChannel         channel;
+
+  /**
+   * Ids of the file in order, claimed ones included until the file is rewritten.
+   */
+  private List<String>        ids;
+
+  /**
+   * Index of the next id to hand out.
+   */
+  private int                 position;
+
+  /**
+   * Number of ids covered by the last claim line.
+   */
+  private int                 claimed;
+
+  private HttpRegistryClient  client;
+
+  public FileIdService(File file)
+  {
+    this(file, DEFAULT_CLAIM_SIZE);
+  }
+
+  /**
+   * Opens the pool in the given file, creating it if it does not exist.
+   *
+   * @param file
+   * @param claimSize
+   *          number of ids claimed with one write to the file.
+   * @throws IllegalStateException
+   *           if the pool is in use by another process or service.
+   */
+  public FileIdService(File file, int claimSize)
+  {
+    this.file = file;
+    this.claimSize = Math.max(1, claimSize);
+    this.lock = new Object();
+
+    this.open();
+  }
+
+  public void setClient(HttpRegistryClient client)
+  {
+    this.client = client;
+  }
+
+  public File getFile()
+  {
+    return this.file;
+  }
+
+  public int getClaimSize()
+  {
+    return this.claimSize;
+  }
+
+  /**
+   * Returns the number of ids which have not been handed out.
+   */
+  public int size()
+  {
+    synchronized(lock)
+    {
+      return this.ids.size() - this.position;
+    }
+  }
+
+  @Override
+  public void populate(int size)
+  {
+    int amount;
+
+    synchronized(lock)
+    {
+      this.checkOpen();
+
+      amount = size - ( this.ids.size() - this.position );
+    }
+
+    // Callers of next() keep taking ids while the request is in flight
+    if (amount > 0)
+    {
+      Set<String> fetchedSet = this.client.getGeoObjectUids(amount);
+
+      synchronized(lock)
+      {
+        this.checkOpen();
+
+        if (this.position >= COMPACT_MIN && this.position >= this.ids.size() / 2)
+        {
+          this.compact();
+        }
+
+        StringBuilder lines = new StringBuilder();
+
+        for (String id : fetchedSet)
+        {
+          lines.append('+').append(id).append('\n');
+        }
+
+        this.append(lines);
+        this.ids.addAll(fetchedSet);
+      }
+    }
+  }
+
+  @Override
+  public String next() throws EmptyIdCacheException
+  {
+    synchronized(lock)
+    {
+      this.checkOpen();
+
+      MetricsRecorder recorder = this.getMetricsRecorder();
+
+      if (this.position >= this.ids.size())
+      {
+        recorder.recordCacheAccess(MetricsRecorder.CACHE_ID, false);
+
+        throw new EmptyIdCacheException();
+      }
+
+      if (this.position >= this.claimed)
+      {
+        this.claim(1);
+      }
+
+      recorder.recordCacheAccess(MetricsRecorder.CACHE_ID, true);
+
+      // Handed out ids are only kept in the file until it is rewritten
+      return this.ids.set(this.position++, null);
+    }
+  }
+
+  /**
+   * Takes the ids with at most one write to the file. The file is left untouched if it holds fewer than n ids.
+   */
+  @Override
+  public List<String> next(int n) throws EmptyIdCacheException
+  {
+    synchronized(lock)
+    {
+      this.checkOpen();
+
+      MetricsRecorder recorder = this.getMetricsRecorder();
+
+      if (this.ids.size() - this.position < n)
+      {
+        recorder.recordCacheAccess(MetricsRecorder.CACHE_ID, false);
+
+        throw new EmptyIdCacheException();
+      }
+
+      if (this.position + n > this.claimed)
+      {
+        this.claim(this.position + n - this.claimed);
+      }
+
+      recorder.recordCacheAccess(MetricsRecorder.CACHE_ID, true);
+
+      List<String> ids = new ArrayList<String>(n);
+
+      while (ids.size() < n)
+      {
+        ids.add(this.ids.set(this.position++, null));
+      }
+
+      return ids;
+    }
+  }
+
+  /**
+   * Releases the claimed ids which have not been handed out and closes the file.
+   */
+  @Override
+  public void close()
+  {
+    synchronized(lock)
+    {
+      if (this.channel == null)
+      {
+        return;
+      }
+
+      try
+      {
+        if (this.claimed > this.position)
+        {
+          this.claimed = this.position;
+
+          this.append(new StringBuilder().append('@').append(this.claimed).append('\n'));
+        }
+      }
+      finally
+      {
+        try
+        {
+          this.channel.close();
+          this.lockChannel.close();
+        }
+        catch (IOException e)
+        {
+          throw new RuntimeException("Unable to close the id pool [" + this.file + "].", e);
+        }
+        finally
+        {
+          this.channel = null;
+          this.lockChannel = null;
+        }
+      }
+    }
+  }
+
+  private void open()
+  {
+    boolean locked;
+
+    try
+    {
+      this.lockChannel = new RandomAccessFile(this.file.getPath() + ".lock", "rw").getChannel();
+
+      locked = tryLock(this.lockChannel);
+    }
+    catch (IOException e)
+    {
+      this.closeQuietly();
+
+      throw new RuntimeException("Unable to lock the id pool [" + this.file + "].", e);
+    }
+
+    if (!locked)
+    {
+      this.closeQuietly();
+
+      throw new IllegalStateException("The id pool [" + this.file + "] is in use.");
+    }
+
+    try
+    {
+      this.ids = new ArrayList<String>();
+
+      // A crash while the file was being rewritten may have left only the file set aside
+      if (!this.file.exists())
+      {
+        this.getOldFile().renameTo(this.file);
+      }
+
+      RandomAccessFile pool = new RandomAccessFile(this.file, "rw");
+      this.channel = pool.getChannel();
+
+      byte[] bytes = new byte[(int) pool.length()];
+      pool.readFully(bytes);
+
+      int start = 0;
+
+      for (int i = 0; i < bytes.length; i++)
+      {
+        if (bytes[i] == '\n')
+        {
+          String line = new String(bytes, start, i - start, StandardCharsets.UTF_8);
+
+          if (line.startsWith("+"))
+          {
+            this.ids.add(line.substring(1));
+          }
+          else if (line.startsWith("@"))
+          {
+            this.claimed = Integer.parseInt(line.substring(1));
+          }
+          else
+          {
+            throw new IOException("Unexpected line [" + line + "].");
+          }
+
+          start = i + 1;
+        }
+      }
+
+      // The claimed ids may have been handed out before the previous run ended
+      this.claimed = Math.min(this.claimed, this.ids.size());
+      this.position = this.claimed;
+
+      // Drop a line torn by a crash
+      this.channel.truncate(start);
+      this.channel.position(start);
+
+      if (this.position > 0 && this.position >= this.ids.size() / 2)
+      {
+        this.compact();
+      }
+    }
+    catch (IOException | RuntimeException e)
+    {
+      this.closeQuietly();
+
+      throw new RuntimeException("Unable to open the id pool [" + this.file + "].", e);
+    }
+  }
+
+  /**
+   * Locks the given file, unless another process or a channel of this process holds the lock.
+   */
+  private static boolean tryLock(FileChannel channel) throws IOException
+  {
+    try
+    {
+      return channel.tryLock() != null;
+    }
+    catch (OverlappingFileLockException e)
+    {
+      return false;
+    }
+  }
+
+  /**
+   * Claims the next batch of ids, at least the given number, must be called holding the lock.
+   */
+  private void claim(int missing)
+  {
+    this.claimed = Math.min(this.ids.size(), this.claimed + Math.max(this.claimSize, missing));
+
+    this.append(new StringBuilder().append('@').append(this.claimed).append('\n'));
+  }
+
+  /**
+   * Appends the given lines to the file and forces them to disk, must be called holding the lock.
+   */
+  private void append(CharSequence lines)
+  {
+    try
+    {
+      ByteBuffer buffer = StandardCharsets.UTF_8.encode(lines.toString());
+
+      while (buffer.hasRemaining())
+      {
+        this.channel.write(buffer);
+      }
+
+      this.channel.force(false);
+    }
+    catch (IOException e)
+    {
+      throw new RuntimeException("Unable to write the id pool [" + this.file + "].", e);
+    }
+  }
+
+  /**
+   * Rewrites the file with the ids which have not been handed out, must be called holding the lock.
+   */
+  private void compact()
+  {
+    File temp = new File(this.file.getPath() + ".tmp");
+    List<String> remaining = new ArrayList<String>(this.ids.subList(this.position, this.ids.size()));
+
+    try
+    {
+      try (FileChannel out = new FileOutputStream(temp).getChannel())
+      {
+        StringBuilder lines = new StringBuilder();
+
+        for (String id : remaining)
+        {
+          lines.append('+').append(id).append('\n');
+        }
+
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(lines.toString());
+
+        while (buffer.hasRemaining())
+        {
+          out.write(buffer);
+        }
+
+        out.force(false);
+      }
+
+      this.channel.close();
+
+      try
+      {
+        // The rename replaces the file atomically on POSIX file systems, elsewhere the existing file is kept aside
+        // until the new one is in place
+        if (!temp.renameTo(this.file))
+        {
+          File old = this.getOldFile();
+          old.delete();
+
+          if (!this.file.renameTo(old))
+          {
+            throw new IOException("Unable to replace [" + this.file + "] with [" + temp + "].");
+          }
+
+          if (!temp.renameTo(this.file))
+          {
+            old.renameTo(this.file);
+
+            throw new IOException("Unable to replace [" + this.file + "] with [" + temp + "].");
+          }
+
+          old.delete();
+        }
+      }
+      finally
+      {
+        this.channel = new RandomAccessFile(this.file, "rw").getChannel();
+        this.channel.position(this.channel.size());
+      }
+
+      this.ids = remaining;
+      this.position = 0;
+      this.claimed = 0;
+    }
+    catch (IOException e)
+    {
+      temp.delete();
+
+      throw new RuntimeException("Unable to compact the id pool [" + this.file + "].", e);
+    }
+  }
+
+  private File getOldFile()
+  {
+    return new File(this.file.getPath() + ".old");
+  }
+
+  private void checkOpen()
+  {
+    if (this.channel == null)
+    {
+      throw new IllegalStateException("The id pool [" + this.file + "] is closed.");
+    }
+  }
+
+  private void closeQuietly()
+  {
+    for (FileChannel open : new FileChannel[] { this.channel, this.lockChannel })
+    {
+      try
+      {
+        if (open != null)
+        {
+          open.close();
+        }
+      }
+      catch (IOException e)
+      {
+        // Already failing
+      }
+    }
+
+    this.channel = null;
+    this.lockChannel = null;
+  }
+
+  private MetricsRecorder getMetricsRecorder()
+  {
+    return this.client != null ? this.client.getMetricsRecorder() : MetricsRecorder.NONE;
+  }
+}
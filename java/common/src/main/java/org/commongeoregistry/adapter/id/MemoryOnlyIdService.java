@@ -1,44 +1,229 @@
 package org.commongeoregistry.adapter.id;
 
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.commongeoregistry.adapter.HttpRegistryClient;
+import org.commongeoregistry.adapter.metrics.MetricsRecorder;
 
+/**
+ * Keeps the ids issued by the common geo-registry in memory. By default the cache is only filled by
+ * {@link #populate(int)} and {@link #next()} throws an {@link EmptyIdCacheException} once it runs dry.
+ *
+ * With a low watermark set, see {@link #setLowWatermark(int)}, the cache refills itself in the background whenever it
+ * holds fewer ids than the watermark. The size of a refill follows the rate at which ids were taken since the previous
+ * refill, enough for {@link #getRefillPeriod()} milliseconds, but at least twice the watermark and at most
+ * {@link #getMaxRefill()} ids. {@link #next()} then only waits if the cache is empty, up to
+ * {@link #getWaitTimeout()} milliseconds for the refill in flight.
+ */
 public class MemoryOnlyIdService implements AdapterIdServiceIF
 {
+  public static final long DEFAULT_REFILL_PERIOD = 60000;
+
+  public static final int  DEFAULT_MAX_REFILL    = 10000;
+
+  public static final long DEFAULT_WAIT_TIMEOUT  = 30000;
+
   protected Set<String> cache;
 
   protected HttpRegistryClient client;
-  
+
   protected Object lock;
-  
+
+  private int lowWatermark;
+
+  private long refillPeriod;
+
+  private int maxRefill;
+
+  private long waitTimeout;
+
+  private Executor executor;
+
+  /**
+   * True while a background refill is in flight, guarded by the lock.
+   */
+  private boolean refilling;
+
+  /**
+   * True while a call to {@link #populate(int)} is in flight, guarded by the lock.
+   */
+  private boolean populating;
+
+  /**
+   * Failure of the last background refill, cleared by the next one.
+   */
+  private RuntimeException refillFailure;
+
+  /**
+   * Ids taken since the last background refill was started and when it was started.
+   */
+  private long taken;
+
+  private long takenSince;
+
   public MemoryOnlyIdService()
   {
-    this.cache = new HashSet<String>(100);
+    this.cache = new LinkedHashSet<String>(100);
     this.lock = new Object();
+    this.lowWatermark = 0;
+    this.refillPeriod = DEFAULT_REFILL_PERIOD;
+    this.maxRefill = DEFAULT_MAX_REFILL;
+    this.waitTimeout = DEFAULT_WAIT_TIMEOUT;
+    this.refilling = false;
+    this.populating = false;
+    this.taken = 0;
+    this.takenSince = System.nanoTime();
   }
-  
+
   public void setClient(HttpRegistryClient client)
   {
     this.client = client;
   }
-  
+
+  public int getLowWatermark()
+  {
+    return this.lowWatermark;
+  }
+
+  /**
+   * @param lowWatermark
+   *          number of ids below which the cache refills itself in the background, 0 to only fill it with
+   *          {@link #populate(int)}.
+   */
+  public void setLowWatermark(int lowWatermark)
+  {
+    synchronized(lock)
+    {
+      this.lowWatermark = lowWatermark;
+    }
+  }
+
+  public long getRefillPeriod()
+  {
+    return this.refillPeriod;
+  }
+
+  /**
+   * @param refillPeriod
+   *          time in milliseconds a background refill should last at the observed consumption rate.
+   */
+  public void setRefillPeriod(long refillPeriod)
+  {
+    this.refillPeriod = refillPeriod;
+  }
+
+  public int getMaxRefill()
+  {
+    return this.maxRefill;
+  }
+
+  /**
+   * @param maxRefill
+   *          maximum number of ids requested by a background refill.
+   */
+  public void setMaxRefill(int maxRefill)
+  {
+    this.maxRefill = maxRefill;
+  }
+
+  public long getWaitTimeout()
+  {
+    return this.waitTimeout;
+  }
+
+  /**
+   * @param waitTimeout
+   *          maximum time in milliseconds {@link #next()} waits for a background refill when the cache is empty.
+   */
+  public void setWaitTimeout(long waitTimeout)
+  {
+    this.waitTimeout = waitTimeout;
+  }
+
+  /**
+   * @param executor
+   *          runs the background refills, by default a daemon thread of the id service.
+   */
+  public void setExecutor(Executor executor)
+  {
+    synchronized(lock)
+    {
+      this.executor = executor;
+    }
+  }
+
+  /**
+   * Returns the number of ids in the cache.
+   */
+  public int size()
+  {
+    synchronized(lock)
+    {
+      return this.cache.size();
+    }
+  }
+
+  /**
+   * Callers of {@link #next()} keep taking ids while the request is in flight, the ids they take are not replaced.
+   * Concurrent calls wait for the one in flight and only request the ids still missing once it completes.
+   */
   @Override
   public void populate(int size)
   {
+    int amount;
+
     synchronized(lock)
     {
-      int amount = size - this.cache.size();
-      
-      if (amount > 0)
+      while (this.populating)
+      {
+        try
+        {
+          lock.wait();
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+
+          throw new RuntimeException(e);
+        }
+      }
+
+      amount = size - this.cache.size();
+
+      if (amount <= 0)
+      {
+        return;
+      }
+
+      this.populating = true;
+    }
+
+    try
+    {
+      Set<String> fetchedSet = this.client.getGeoObjectUids(amount);
+
+      synchronized(lock)
       {
-        Set<String> fetchedSet = this.client.getGeoObjectUids(amount);
-        
         this.cache.addAll(fetchedSet);
       }
     }
+    finally
+    {
+      synchronized(lock)
+      {
+        this.populating = false;
+
+        lock.notifyAll();
+      }
+    }
   }
 
   @Override
@@ -46,20 +231,206 @@ public class MemoryOnlyIdService implements AdapterIdServiceIF
   {
     synchronized(lock)
     {
+      MetricsRecorder recorder = this.client != null ? this.client.getMetricsRecorder() : MetricsRecorder.NONE;
+
       if (this.cache.size() > 0)
       {
-        Iterator<String> it = this.cache.iterator();
-        
-        String id = it.next();
-        it.remove();
-        
-        return id;
+        recorder.recordCacheAccess(MetricsRecorder.CACHE_ID, true);
       }
       else
+      {
+        recorder.recordCacheAccess(MetricsRecorder.CACHE_ID, false);
+
+        this.awaitRefill(1);
+      }
+
+      Iterator<String> it = this.cache.iterator();
+
+      String id = it.next();
+      it.remove();
+
+      this.taken++;
+
+      if (this.cache.size() < this.lowWatermark)
+      {
+        this.refill(0);
+      }
+
+      return id;
+    }
+  }
+
+  /**
+   * Takes the ids under a single acquisition of the lock. The cache is left untouched if it holds fewer than n ids,
+   * with a low watermark set the refill started for them requests at least the missing ids.
+   */
+  @Override
+  public List<String> next(int n) throws EmptyIdCacheException
+  {
+    synchronized(lock)
+    {
+      MetricsRecorder recorder = this.client != null ? this.client.getMetricsRecorder() : MetricsRecorder.NONE;
+
+      if (this.cache.size() >= n)
+      {
+        recorder.recordCacheAccess(MetricsRecorder.CACHE_ID, true);
+      }
+      else
+      {
+        recorder.recordCacheAccess(MetricsRecorder.CACHE_ID, false);
+
+        this.awaitRefill(n);
+      }
+
+      List<String> ids = new ArrayList<String>(n);
+      Iterator<String> it = this.cache.iterator();
+
+      while (ids.size() < n)
+      {
+        ids.add(it.next());
+        it.remove();
+      }
+
+      this.taken += n;
+
+      if (this.cache.size() < this.lowWatermark)
+      {
+        this.refill(0);
+      }
+
+      return ids;
+    }
+  }
+
+  /**
+   * Waits until the cache holds at least the given number of ids, must be called holding the lock.
+   *
+   * @throws EmptyIdCacheException
+   *           if there is no low watermark, or the refill failed, did not complete in time or returned too few ids.
+   */
+  private void awaitRefill(int needed) throws EmptyIdCacheException
+  {
+    if (this.lowWatermark <= 0)
+    {
+      throw new EmptyIdCacheException();
+    }
+
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.waitTimeout);
+    boolean requested = false;
+
+    while (this.cache.size() < needed)
+    {
+      if (!this.refilling)
+      {
+        if (requested)
+        {
+          // The refill requested for the missing ids returned too few or failed
+          throw this.refillFailure != null ? new EmptyIdCacheException(this.refillFailure) : new EmptyIdCacheException();
+        }
+
+        // No refill in flight, or the one in flight was started for fewer ids
+        this.refill(needed - this.cache.size());
+
+        requested = true;
+
+        continue;
+      }
+
+      long remaining = deadline - System.nanoTime();
+
+      if (remaining <= 0)
       {
         throw new EmptyIdCacheException();
       }
+
+      try
+      {
+        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+
+        throw new EmptyIdCacheException(e);
+      }
+    }
+  }
+
+  /**
+   * Starts a background refill unless one is in flight, must be called holding the lock.
+   *
+   * @param missing
+   *          minimum number of ids to request.
+   */
+  private void refill(int missing)
+  {
+    if (this.refilling || this.client == null)
+    {
+      return;
+    }
+
+    long now = System.nanoTime();
+    double perMilli = this.taken / Math.max(1d, TimeUnit.NANOSECONDS.toMillis(now - this.takenSince));
+    int amount = (int) Math.max(missing, Math.min(this.maxRefill, Math.max(2 * this.lowWatermark, Math.ceil(perMilli * this.refillPeriod))));
+
+    this.taken = 0;
+    this.takenSince = now;
+    this.refilling = true;
+    this.refillFailure = null;
+
+    try
+    {
+      this.getExecutor().execute(() -> this.fetch(amount));
+    }
+    catch (RejectedExecutionException e)
+    {
+      this.refilling = false;
+      this.refillFailure = e;
+    }
+  }
+
+  private void fetch(int amount)
+  {
+    Set<String> fetchedSet = null;
+    RuntimeException failure = null;
+
+    try
+    {
+      fetchedSet = this.client.getGeoObjectUids(amount);
+    }
+    catch (RuntimeException e)
+    {
+      failure = e;
+    }
+
+    synchronized(lock)
+    {
+      if (fetchedSet != null)
+      {
+        this.cache.addAll(fetchedSet);
+      }
+
+      this.refilling = false;
+      this.refillFailure = failure;
+
+      lock.notifyAll();
+    }
+  }
+
+  private Executor getExecutor()
+  {
+    if (this.executor == null)
+    {
+      this.executor = Executors.newSingleThreadExecutor(runnable ->
+      {
+        Thread thread = new Thread(runnable, "id-service-refill");
+        thread.setDaemon(true);
+
+        return thread;
+      });
     }
+
+    return this.executor;
   }
 
 }
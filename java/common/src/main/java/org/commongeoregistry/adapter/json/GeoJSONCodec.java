@@ -0,0 +1,441 @@
+package org.commongeoregistry.adapter.json;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.commongeoregistry.adapter.constants.GeometryType;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.MultiLineString;
+import com.vividsolutions.jts.geom.MultiPoint;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+
+/**
+ * Reads and writes GeoJSON geometries (RFC 7946 section 3.1) directly between a Gson stream and JTS geometries. The
+ * output is the same as the output of the jts2geojson GeoJSONWriter, but the coordinates are copied straight from the
+ * {@link CoordinateSequence} of each geometry instead of going through an intermediate JSON string.
+ */
+public class GeoJSONCodec
+{
+  public static final String           JSON_TYPE                = "type";
+
+  public static final String           JSON_COORDINATES         = "coordinates";
+
+  public static final String           JSON_GEOMETRIES          = "geometries";
+
+  public static final String           POINT                    = "Point";
+
+  public static final String           LINE_STRING              = "LineString";
+
+  public static final String           POLYGON                  = "Polygon";
+
+  public static final String           MULTI_POINT              = "MultiPoint";
+
+  public static final String           MULTI_LINE_STRING        = "MultiLineString";
+
+  public static final String           MULTI_POLYGON            = "MultiPolygon";
+
+  public static final String           GEOMETRY_COLLECTION      = "GeometryCollection";
+
+  private static final GeometryFactory FACTORY                  = new GeometryFactory();
+
+  /**
+   * Returns the GeoJSON type name of geometries of the given {@link GeometryType}.
+   *
+   * @param geometryType
+   * @return GeoJSON type name.
+   */
+  public static String getGeoJSONType(GeometryType geometryType)
+  {
+    switch (geometryType)
+    {
+      case POINT:
+        return POINT;
+      case LINE:
+        return LINE_STRING;
+      case POLYGON:
+        return POLYGON;
+      case MULTIPOINT:
+        return MULTI_POINT;
+      case MULTILINE:
+        return MULTI_LINE_STRING;
+      case MULTIPOLYGON:
+        return MULTI_POLYGON;
+      default:
+        throw new UnsupportedOperationException(geometryType.name());
+    }
+  }
+
+  /**
+   * Writes the given geometry as a GeoJSON geometry object.
+   *
+   * @param geometry
+   * @param writer
+   * @throws IOException
+   */
+  public static void write(Geometry geometry, JsonWriter writer) throws IOException
+  {
+    writer.beginObject();
+
+    if (geometry instanceof GeometryCollection && ! ( geometry instanceof MultiPoint || geometry instanceof MultiLineString || geometry instanceof MultiPolygon ))
+    {
+      writer.name(JSON_TYPE).value(GEOMETRY_COLLECTION);
+      writer.name(JSON_GEOMETRIES).beginArray();
+
+      for (int i = 0; i < geometry.getNumGeometries(); i++)
+      {
+        write(geometry.getGeometryN(i), writer);
+      }
+
+      writer.endArray();
+    }
+    else
+    {
+      writer.name(JSON_TYPE).value(getTypeName(geometry));
+      writer.name(JSON_COORDINATES);
+
+      writeCoordinates(geometry, writer);
+    }
+
+    writer.endObject();
+  }
+
+  private static String getTypeName(Geometry geometry)
+  {
+    if (geometry instanceof Point)
+    {
+      return POINT;
+    }
+    else if (geometry instanceof LineString)
+    {
+      return LINE_STRING;
+    }
+    else if (geometry instanceof Polygon)
+    {
+      return POLYGON;
+    }
+    else if (geometry instanceof MultiPoint)
+    {
+      return MULTI_POINT;
+    }
+    else if (geometry instanceof MultiLineString)
+    {
+      return MULTI_LINE_STRING;
+    }
+    else if (geometry instanceof MultiPolygon)
+    {
+      return MULTI_POLYGON;
+    }
+
+    throw new UnsupportedOperationException(geometry.getGeometryType());
+  }
+
+  private static void writeCoordinates(Geometry geometry, JsonWriter writer) throws IOException
+  {
+    if (geometry instanceof Point)
+    {
+      CoordinateSequence sequence = ( (Point) geometry ).getCoordinateSequence();
+
+      if (sequence.size() > 0)
+      {
+        writeCoordinate(sequence, 0, writer);
+      }
+      else
+      {
+        writer.beginArray().endArray();
+      }
+    }
+    else if (geometry instanceof LineString)
+    {
+      writeSequence(( (LineString) geometry ).getCoordinateSequence(), writer);
+    }
+    else if (geometry instanceof Polygon)
+    {
+      Polygon polygon = (Polygon) geometry;
+
+      writer.beginArray();
+
+      if (!polygon.isEmpty())
+      {
+        writeSequence(polygon.getExteriorRing().getCoordinateSequence(), writer);
+
+        for (int i = 0; i < polygon.getNumInteriorRing(); i++)
+        {
+          writeSequence(polygon.getInteriorRingN(i).getCoordinateSequence(), writer);
+        }
+      }
+
+      writer.endArray();
+    }
+    else
+    {
+      // MultiPoint, MultiLineString and MultiPolygon are arrays of the coordinates of their members
+      writer.beginArray();
+
+      for (int i = 0; i < geometry.getNumGeometries(); i++)
+      {
+        writeCoordinates(geometry.getGeometryN(i), writer);
+      }
+
+      writer.endArray();
+    }
+  }
+
+  private static void writeSequence(CoordinateSequence sequence, JsonWriter writer) throws IOException
+  {
+    writer.beginArray();
+
+    for (int i = 0; i < sequence.size(); i++)
+    {
+      writeCoordinate(sequence, i, writer);
+    }
+
+    writer.endArray();
+  }
+
+  private static void writeCoordinate(CoordinateSequence sequence, int index, JsonWriter writer) throws IOException
+  {
+    writer.beginArray();
+    writer.value(sequence.getX(index));
+    writer.value(sequence.getY(index));
+
+    if (sequence.getDimension() > 2)
+    {
+      double z = sequence.getOrdinate(index, CoordinateSequence.Z);
+
+      if (!Double.isNaN(z))
+      {
+        writer.value(z);
+      }
+    }
+
+    writer.endArray();
+  }
+
+  /**
+   * Reads the GeoJSON geometry object at the current position of the reader. The members of the object may be in any
+   * order, unknown members are skipped.
+   *
+   * @param reader
+   * @return the geometry
+   * @throws IOException
+   */
+  public static Geometry read(JsonReader reader) throws IOException
+  {
+    String type = null;
+    Object coordinates = null;
+    List<Geometry> geometries = null;
+
+    reader.beginObject();
+
+    while (reader.hasNext())
+    {
+      String name = reader.nextName();
+
+      if (name.equals(JSON_TYPE))
+      {
+        type = reader.nextString();
+      }
+      else if (name.equals(JSON_COORDINATES))
+      {
+        coordinates = readCoordinates(reader);
+      }
+      else if (name.equals(JSON_GEOMETRIES))
+      {
+        geometries = new ArrayList<Geometry>();
+
+        reader.beginArray();
+
+        while (reader.hasNext())
+        {
+          geometries.add(read(reader));
+        }
+
+        reader.endArray();
+      }
+      else
+      {
+        reader.skipValue();
+      }
+    }
+
+    reader.endObject();
+
+    if (type == null)
+    {
+      throw new JsonSyntaxException("GeoJSON geometry is missing the [" + JSON_TYPE + "] member");
+    }
+
+    if (type.equals(GEOMETRY_COLLECTION))
+    {
+      List<Geometry> members = geometries != null ? geometries : new ArrayList<Geometry>();
+
+      return FACTORY.createGeometryCollection(members.toArray(new Geometry[members.size()]));
+    }
+
+    if (coordinates == null)
+    {
+      throw new JsonSyntaxException("GeoJSON geometry is missing the [" + JSON_COORDINATES + "] member");
+    }
+
+    return build(type, coordinates);
+  }
+
+  /**
+   * Reads a nested coordinate array. Positions are returned as {@link Coordinate} objects and arrays of anything else
+   * as a {@link List}, which lets the coordinates be read before the type of the geometry is known.
+   */
+  private static Object readCoordinates(JsonReader reader) throws IOException
+  {
+    reader.beginArray();
+
+    if (reader.peek() == JsonToken.NUMBER)
+    {
+      Coordinate coordinate = new Coordinate(reader.nextDouble(), reader.nextDouble());
+
+      if (reader.hasNext())
+      {
+        coordinate.z = reader.nextDouble();
+      }
+
+      // Additional elements such as a measure are not supported by JTS
+      while (reader.hasNext())
+      {
+        reader.skipValue();
+      }
+
+      reader.endArray();
+
+      return coordinate;
+    }
+
+    List<Object> list = new ArrayList<Object>();
+
+    while (reader.hasNext())
+    {
+      list.add(readCoordinates(reader));
+    }
+
+    reader.endArray();
+
+    return list;
+  }
+
+  private static Geometry build(String type, Object coordinates)
+  {
+    if (type.equals(POINT))
+    {
+      if (coordinates instanceof Coordinate)
+      {
+        return FACTORY.createPoint((Coordinate) coordinates);
+      }
+      else if (toList(coordinates).size() == 0)
+      {
+        return FACTORY.createPoint((Coordinate) null);
+      }
+
+      throw new JsonSyntaxException("Expected a GeoJSON position but was a nested array");
+    }
+    else if (type.equals(LINE_STRING))
+    {
+      return FACTORY.createLineString(toCoordinates(coordinates));
+    }
+    else if (type.equals(POLYGON))
+    {
+      return toPolygon(coordinates);
+    }
+    else if (type.equals(MULTI_POINT))
+    {
+      return FACTORY.createMultiPoint(toCoordinates(coordinates));
+    }
+    else if (type.equals(MULTI_LINE_STRING))
+    {
+      List<?> list = toList(coordinates);
+      LineString[] lines = new LineString[list.size()];
+
+      for (int i = 0; i < lines.length; i++)
+      {
+        lines[i] = FACTORY.createLineString(toCoordinates(list.get(i)));
+      }
+
+      return FACTORY.createMultiLineString(lines);
+    }
+    else if (type.equals(MULTI_POLYGON))
+    {
+      List<?> list = toList(coordinates);
+      Polygon[] polygons = new Polygon[list.size()];
+
+      for (int i = 0; i < polygons.length; i++)
+      {
+        polygons[i] = toPolygon(list.get(i));
+      }
+
+      return FACTORY.createMultiPolygon(polygons);
+    }
+
+    throw new UnsupportedOperationException(type);
+  }
+
+  private static Polygon toPolygon(Object coordinates)
+  {
+    List<?> rings = toList(coordinates);
+
+    if (rings.size() == 0)
+    {
+      return FACTORY.createPolygon((LinearRing) null, null);
+    }
+
+    LinearRing shell = FACTORY.createLinearRing(toCoordinates(rings.get(0)));
+    LinearRing[] holes = new LinearRing[rings.size() - 1];
+
+    for (int i = 0; i < holes.length; i++)
+    {
+      holes[i] = FACTORY.createLinearRing(toCoordinates(rings.get(i + 1)));
+    }
+
+    return FACTORY.createPolygon(shell, holes);
+  }
+
+  private static Coordinate[] toCoordinates(Object coordinates)
+  {
+    List<?> list = toList(coordinates);
+    Coordinate[] array = new Coordinate[list.size()];
+
+    for (int i = 0; i < array.length; i++)
+    {
+      Object position = list.get(i);
+
+      if (! ( position instanceof Coordinate ))
+      {
+        throw new JsonSyntaxException("Expected a GeoJSON position but was a nested array");
+      }
+
+      array[i] = (Coordinate) position;
+    }
+
+    return array;
+  }
+
+  private static List<?> toList(Object coordinates)
+  {
+    if (! ( coordinates instanceof List ))
+    {
+      throw new JsonSyntaxException("Expected an array of GeoJSON positions but was a single position");
+    }
+
+    return (List<?>) coordinates;
+  }
+}
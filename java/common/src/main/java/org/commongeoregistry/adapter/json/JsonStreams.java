@@ -0,0 +1,338 @@
+package org.commongeoregistry.adapter.json;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * Helpers for decoding and encoding registry objects directly with a Gson {@link JsonReader} or {@link JsonWriter}
+ * instead of first building a {@link JsonElement} tree.
+ */
+public class JsonStreams
+{
+  /**
+   * Arrays with at least this many elements are decoded in parallel by
+   * {@link #decodeArray(JsonArray, Function, Executor)}.
+   */
+  public static final int PARALLEL_DECODE_THRESHOLD = 16;
+
+  /**
+   * Copies {@link JsonElement} trees to a {@link JsonWriter}.
+   */
+  private static final TypeAdapter<JsonElement> ELEMENT_ADAPTER = new Gson().getAdapter(JsonElement.class);
+
+  /**
+   * Reads a value from an open {@link JsonReader}.
+   *
+   * @param <T> type of the decoded value.
+   */
+  public interface ReadFunction<T>
+  {
+    T read(JsonReader reader) throws IOException;
+  }
+
+  /**
+   * Writes a value to an open {@link JsonWriter}.
+   */
+  public interface WriteFunction
+  {
+    void write(JsonWriter writer) throws IOException;
+  }
+
+  /**
+   * Decodes the given JSON string with the given function.
+   *
+   * @param json
+   * @param function
+   * @return the decoded value.
+   */
+  public static <T> T read(String json, ReadFunction<T> function)
+  {
+    return read(new StringReader(json), function);
+  }
+
+  /**
+   * Decodes the content of the given {@link Reader} with the given function. The reader is closed once the value has
+   * been read. Parsing errors are reported with the same exceptions thrown by {@link com.google.gson.JsonParser}.
+   *
+   * @param in
+   * @param function
+   * @return the decoded value.
+   */
+  public static <T> T read(Reader in, ReadFunction<T> function)
+  {
+    try (JsonReader reader = new JsonReader(in))
+    {
+      reader.setLenient(true);
+
+      return function.read(reader);
+    }
+    catch (MalformedJsonException e)
+    {
+      throw new JsonSyntaxException(e);
+    }
+    catch (IOException e)
+    {
+      throw new JsonIOException(e);
+    }
+  }
+
+  /**
+   * Decodes an already parsed {@link JsonElement} with the given function, which lets the same streaming decoder be
+   * used for values that had to be buffered.
+   *
+   * @param element
+   * @param function
+   * @return the decoded value.
+   */
+  public static <T> T read(JsonElement element, ReadFunction<T> function)
+  {
+    // The public TypeAdapter API is the only way to get a reader over a tree
+    TypeAdapter<T> adapter = new TypeAdapter<T>()
+    {
+      @Override
+      public T read(JsonReader reader) throws IOException
+      {
+        return function.read(reader);
+      }
+
+      @Override
+      public void write(JsonWriter writer, T value)
+      {
+        throw new UnsupportedOperationException();
+      }
+    };
+
+    return adapter.fromJsonTree(element);
+  }
+
+  /**
+   * Writes the output of the given function to a {@link JsonElement} tree. Used by the toJSON() methods which are
+   * implemented on top of their streaming counterparts.
+   *
+   * @param function
+   * @return the written value.
+   */
+  public static JsonElement toJsonTree(WriteFunction function)
+  {
+    TypeAdapter<WriteFunction> adapter = new TypeAdapter<WriteFunction>()
+    {
+      @Override
+      public void write(JsonWriter writer, WriteFunction value) throws IOException
+      {
+        writer.setLenient(true);
+
+        value.write(writer);
+      }
+
+      @Override
+      public WriteFunction read(JsonReader reader)
+      {
+        throw new UnsupportedOperationException();
+      }
+    };
+
+    return adapter.toJsonTree(function);
+  }
+
+  /**
+   * Writes the output of the given function to a string. The result is identical to calling toString() on the tree
+   * built by {@link #toJsonTree(WriteFunction)}.
+   *
+   * @param function
+   * @return the JSON string.
+   */
+  public static String toString(WriteFunction function)
+  {
+    StringWriter out = new StringWriter();
+
+    write(out, function);
+
+    return out.toString();
+  }
+
+  /**
+   * Writes the output of the given function to the stream as UTF-8. The stream is flushed but not closed.
+   *
+   * @param out
+   * @param function
+   */
+  public static void write(OutputStream out, WriteFunction function)
+  {
+    write(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), function);
+  }
+
+  /**
+   * Writes the output of the given function to the writer. The writer is flushed but not closed.
+   *
+   * @param out
+   * @param function
+   */
+  public static void write(Writer out, WriteFunction function)
+  {
+    try
+    {
+      JsonWriter writer = new JsonWriter(out);
+      writer.setLenient(true);
+
+      function.write(writer);
+
+      writer.flush();
+    }
+    catch (IOException e)
+    {
+      throw new JsonIOException(e);
+    }
+  }
+
+  /**
+   * Decodes the elements of the given array with the given function on the calling thread.
+   *
+   * @param array
+   * @param function
+   *          decodes one element.
+   * @return the decoded values in the order of the array.
+   */
+  public static <T> List<T> decodeArray(JsonArray array, Function<JsonElement, T> function)
+  {
+    List<T> values = new ArrayList<T>(array.size());
+
+    for (JsonElement element : array)
+    {
+      values.add(function.apply(element));
+    }
+
+    return values;
+  }
+
+  /**
+   * Decodes the elements of the given array with the given function. Arrays of at least
+   * {@link #PARALLEL_DECODE_THRESHOLD} elements are decoded in parallel on the given executor, the function must then
+   * be safe to call from several threads at once. The calling thread decodes elements as well, so the array is decoded
+   * even if the executor has no free thread.
+   *
+   * @param array
+   * @param function
+   *          decodes one element.
+   * @param executor
+   *          runs the decoders which help the calling thread, null to decode on the calling thread only.
+   * @return the decoded values in the order of the array.
+   */
+  public static <T> List<T> decodeArray(JsonArray array, Function<JsonElement, T> function, Executor executor)
+  {
+    int size = array.size();
+
+    if (executor == null || size < PARALLEL_DECODE_THRESHOLD)
+    {
+      return decodeArray(array, function);
+    }
+
+    Object[] values = new Object[size];
+    AtomicInteger next = new AtomicInteger();
+    CountDownLatch decoded = new CountDownLatch(size);
+    AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+    Runnable decoder = () ->
+    {
+      for (int i = next.getAndIncrement(); i < size; i = next.getAndIncrement())
+      {
+        try
+        {
+          if (failure.get() == null)
+          {
+            values[i] = function.apply(array.get(i));
+          }
+        }
+        catch (RuntimeException | Error e)
+        {
+          failure.compareAndSet(null, e);
+        }
+        finally
+        {
+          decoded.countDown();
+        }
+      }
+    };
+
+    int helpers = Math.min(Runtime.getRuntime().availableProcessors() - 1, size / PARALLEL_DECODE_THRESHOLD);
+
+    for (int i = 0; i < helpers; i++)
+    {
+      try
+      {
+        executor.execute(decoder);
+      }
+      catch (RejectedExecutionException e)
+      {
+        break;
+      }
+    }
+
+    decoder.run();
+
+    try
+    {
+      // Only elements taken by helpers which are running are left
+      decoded.await();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+
+      throw new RuntimeException("Unable to decode the array.", e);
+    }
+
+    Throwable t = failure.get();
+
+    if (t instanceof RuntimeException)
+    {
+      throw (RuntimeException) t;
+    }
+    else if (t instanceof Error)
+    {
+      throw (Error) t;
+    }
+
+    @SuppressWarnings("unchecked")
+    List<T> list = (List<T>) Arrays.asList(values);
+
+    return list;
+  }
+
+  /**
+   * Copies an already built {@link JsonElement} to the writer.
+   *
+   * @param element
+   * @param writer
+   * @throws IOException
+   */
+  public static void write(JsonElement element, JsonWriter writer) throws IOException
+  {
+    ELEMENT_ADAPTER.write(writer, element);
+  }
+}
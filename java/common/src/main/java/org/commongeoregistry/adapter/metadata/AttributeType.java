@@ -1,8 +1,12 @@
 package org.commongeoregistry.adapter.metadata;
 
+import java.io.IOException;
 import java.io.Serializable;
 
+import org.commongeoregistry.adapter.json.JsonStreams;
+
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Primary abstraction for attribute metadata on {@link GeoObjectType}.
@@ -97,16 +101,21 @@ public abstract class AttributeType implements Serializable
 
   public JsonObject toJSON()
   {
-    JsonObject json = new JsonObject();
+    return JsonStreams.toJsonTree(this::writeTo).getAsJsonObject();
+  }
+
+  public void writeTo(JsonWriter writer) throws IOException
+  {
+    writer.beginObject();
     
-    json.addProperty(JSON_NAME, this.getName());
+    writer.name(JSON_NAME).value(this.getName());
     
-    json.addProperty(JSON_TYPE, this.getType());
+    writer.name(JSON_TYPE).value(this.getType());
     
-    json.addProperty(JSON_LOCALIZED_LABEL, this.getLocalizedLabel());
+    writer.name(JSON_LOCALIZED_LABEL).value(this.getLocalizedLabel());
     
-    json.addProperty(JSON_LOCALIZED_DESCRIPTION, this.getLocalizedDescription());
+    writer.name(JSON_LOCALIZED_DESCRIPTION).value(this.getLocalizedDescription());
     
-    return json;
+    writer.endObject();
   }
 }
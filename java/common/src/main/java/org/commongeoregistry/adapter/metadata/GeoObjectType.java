@@ -1,6 +1,9 @@
 package org.commongeoregistry.adapter.metadata;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
@@ -11,10 +14,12 @@ import org.commongeoregistry.adapter.constants.DefaultAttribute;
 import org.commongeoregistry.adapter.constants.DefaultTerms;
 import org.commongeoregistry.adapter.constants.GeometryType;
 import org.commongeoregistry.adapter.dataaccess.GeoObject;
+import org.commongeoregistry.adapter.json.JsonStreams;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * A {@link GeoObjectType} represents the definition of a location type, such as state, county, province, district, village
@@ -31,7 +36,7 @@ public class GeoObjectType implements Serializable
   /**
    * 
    */
-  private static final long          serialVersionUID               = 2857923921744440744L;
+  private static final long          serialVersionUID               = -3306468996832610314L;
 
   
   public static final String         JSON_ATTRIBUTES                = "attributes";
@@ -84,6 +89,21 @@ public class GeoObjectType implements Serializable
    * 
    */
   private Map<String, AttributeType> attributeMap;
+  
+  /**
+   * Index of the value of each attribute in the value array of the {@link GeoObject}s of this type. Slots are
+   * assigned when an attribute is added and never change.
+   * 
+   * key: {@code AttributeType#getName()}
+   * 
+   * value: slot index
+   */
+  private Map<String, Integer>       slotMap;
+  
+  /**
+   * Incremented every time an attribute is added, used to detect stale encode and decode plans of this type.
+   */
+  private int                        version;
 
   /**
    * 
@@ -101,6 +121,22 @@ public class GeoObjectType implements Serializable
     this.init(code, geometryType, localizedLabel, localizedDescription, isLeaf);
 
     this.attributeMap = buildDefaultAttributes(registry);
+    this.slotMap = buildSlots(this.attributeMap);
+  }
+
+  /**
+   * Creates a {@link GeoObjectType} with the given attributes, which include the default attributes.
+   * 
+   * @param code unique identifier that his human readable.
+   * @param geometryType type of geometry for the {@link GeoObjectType} such as point, line, etc.
+   * @param localizedLabel localized label of the {@link GeoObjectType}.
+   * @param localizedDescription localized description of the {@link GeoObjectType}.
+   * @param isLeaf True if the type is a leaf, false otherwise.
+   * @param attributeMap attribute map.
+   */
+  GeoObjectType(String code, GeometryType geometryType, String localizedLabel, String localizedDescription, Boolean isLeaf, Map<String, AttributeType> attributeMap)
+  {
+    this(code, geometryType, localizedLabel, localizedDescription, isLeaf, attributeMap, buildSlots(attributeMap));
   }
 
   /**
@@ -113,12 +149,14 @@ public class GeoObjectType implements Serializable
    * @param localizedDescription localized description of the {@link GeoObjectType}.
    * @param isLeaf True if the type is a leaf, false otherwise.
    * @param attributeMap attribute map.
+   * @param slotMap slot indexes of the attributes.
    */
-  private GeoObjectType(String code, GeometryType geometryType, String localizedLabel, String localizedDescription, Boolean isLeaf, Map<String, AttributeType> attributeMap)
+  private GeoObjectType(String code, GeometryType geometryType, String localizedLabel, String localizedDescription, Boolean isLeaf, Map<String, AttributeType> attributeMap, Map<String, Integer> slotMap)
   {
     this.init(code, geometryType, localizedLabel, localizedDescription, isLeaf);
 
     this.attributeMap = attributeMap;
+    this.slotMap = slotMap;
   }
   
 
@@ -155,7 +193,7 @@ public class GeoObjectType implements Serializable
   public GeoObjectType copy(GeoObjectType gotSource)
   {
     
-    GeoObjectType newGeoObjt = new GeoObjectType(this.code, this.geometryType, this.localizedLabel, this.localizedDescription, this.isLeaf, this.attributeMap);
+    GeoObjectType newGeoObjt = new GeoObjectType(this.code, this.geometryType, this.localizedLabel, this.localizedDescription, this.isLeaf, this.attributeMap, this.slotMap);
     
     newGeoObjt.code = gotSource.getCode();
     newGeoObjt.localizedLabel = gotSource.getLocalizedLabel();
@@ -269,9 +307,49 @@ public class GeoObjectType implements Serializable
    * 
    * @param attributeType {@link AttributeType} to add to this {@link GeoObjectType}.
    */
-  public void addAttribute(AttributeType attributeType)
+  public synchronized void addAttribute(AttributeType attributeType)
   {
+    this.slotMap.putIfAbsent(attributeType.getName(), this.slotMap.size());
+    
     this.attributeMap.put(attributeType.getName(), attributeType);
+    
+    this.version++;
+  }
+  
+  /**
+   * Returns the index of the value of the attribute with the given name in the value array of the {@link GeoObject}s
+   * of this type.
+   * 
+   * @param name Name of the attribute {@code AttributeType#getName()}.
+   * 
+   * @return slot index, or -1 if the attribute is not defined on this {@link GeoObjectType}.
+   */
+  public int getSlot(String name)
+  {
+    Integer slot = this.slotMap.get(name);
+    
+    return slot != null ? slot : -1;
+  }
+  
+  /**
+   * Returns the number of value slots needed by the {@link GeoObject}s of this type.
+   * 
+   * @return number of value slots.
+   */
+  public int getSlotCount()
+  {
+    return this.slotMap.size();
+  }
+  
+  /**
+   * Returns the version of the attribute definitions of this {@link GeoObjectType}, which changes every time an
+   * attribute is added.
+   * 
+   * @return version of the attribute definitions.
+   */
+  public int getVersion()
+  {
+    return this.version;
   }
   
   /**
@@ -322,19 +400,43 @@ public class GeoObjectType implements Serializable
     return defaultAttributeMap;
   }
   
+  /**
+   * Assigns a slot index to each of the given attributes.
+   * 
+   * @param attributeMap
+   * @return slot indexes by attribute name.
+   */
+  private static Map<String, Integer> buildSlots(Map<String, AttributeType> attributeMap)
+  {
+    Map<String, Integer> slotMap = new ConcurrentHashMap<String, Integer>();
+    
+    for (String name : attributeMap.keySet())
+    {
+      slotMap.put(name, slotMap.size());
+    }
+    
+    return slotMap;
+  }
+  
   public static GeoObjectType[] fromJSONArray(String saJson, RegistryAdapter adapter)
   {
     JsonParser parser = new JsonParser();
 
-    JsonArray jaGots = parser.parse(saJson).getAsJsonArray();
-    GeoObjectType[] gots = new GeoObjectType[jaGots.size()];
-    for (int i = 0; i < jaGots.size(); ++i)
-    {
-      GeoObjectType got = GeoObjectType.fromJSON(jaGots.get(i).toString(), adapter);
-      gots[i] = got;
-    }
+    return GeoObjectType.fromJSONArray(parser.parse(saJson).getAsJsonArray(), adapter);
+  }
+  
+  /**
+   * Creates the {@link GeoObjectType}s of the given JSON array.
+   * 
+   * @param jaGots
+   * @param adapter
+   * @return
+   */
+  public static GeoObjectType[] fromJSONArray(JsonArray jaGots, RegistryAdapter adapter)
+  {
+    List<GeoObjectType> gots = JsonStreams.decodeArray(jaGots, element -> GeoObjectType.fromJSON(element.getAsJsonObject(), adapter));
     
-    return gots;
+    return gots.toArray(new GeoObjectType[gots.size()]);
   }
   
   /**
@@ -348,7 +450,18 @@ public class GeoObjectType implements Serializable
   {
     JsonParser parser = new JsonParser();
     
-    JsonObject oJson = parser.parse(sJson).getAsJsonObject();
+    return GeoObjectType.fromJSON(parser.parse(sJson).getAsJsonObject(), registry);
+  }
+  
+  /**
+   * Creates a {@link GeoObjectType} from the given JSON object.
+   * 
+   * @param oJson JSON object that defines the {@link GeoObjectType}.
+   * @param registry {@link RegistryAdapter} from which this {@link GeoObjectType} object comes. 
+   * @return
+   */
+  public static GeoObjectType fromJSON(JsonObject oJson, RegistryAdapter registry)
+  {
     JsonArray oJsonAttrs = oJson.getAsJsonArray(JSON_ATTRIBUTES);
     
     String code = oJson.get(JSON_CODE).getAsString();
@@ -368,7 +481,7 @@ public class GeoObjectType implements Serializable
     }
     
     // TODO Need to validate that the default attributes are still defined.
-    GeoObjectType geoObjType = new GeoObjectType(code, geometryType, localizedLabel, localizedDescription, isLeaf, attributeMap);
+    GeoObjectType geoObjType = new GeoObjectType(code, geometryType, localizedLabel, localizedDescription, isLeaf, attributeMap, buildSlots(attributeMap));
     
     return geoObjType;
   }
@@ -380,30 +493,52 @@ public class GeoObjectType implements Serializable
    */
   public JsonObject toJSON()
   {
-    JsonObject json = new JsonObject();
+    return JsonStreams.toJsonTree(this::writeTo).getAsJsonObject();
+  }
+  
+  /**
+   * Writes the JSON representation of this {@link GeoObjectType} to the given stream as UTF-8. The stream is flushed
+   * but not closed.
+   * 
+   * @param out
+   */
+  public void writeTo(OutputStream out)
+  {
+    JsonStreams.write(out, this::writeTo);
+  }
+  
+  /**
+   * Writes the JSON representation of this {@link GeoObjectType} to the given writer.
+   * 
+   * @param writer
+   * @throws IOException
+   */
+  public void writeTo(JsonWriter writer) throws IOException
+  {
+    writer.beginObject();
     
-    json.addProperty(JSON_CODE, this.getCode());
+    writer.name(JSON_CODE).value(this.getCode());
     
-    json.addProperty(JSON_LOCALIZED_LABEL, this.getLocalizedLabel());
+    writer.name(JSON_LOCALIZED_LABEL).value(this.getLocalizedLabel());
     
-    json.addProperty(JSON_LOCALIZED_DESCRIPTION, this.getLocalizedDescription());
+    writer.name(JSON_LOCALIZED_DESCRIPTION).value(this.getLocalizedDescription());
     
-    json.addProperty(JSON_GEOMETRY_TYPE, this.geometryType.name()); // TODO: PROPOSED but not yet approved. Required for fromJSON reconstruction.
+    writer.name(JSON_GEOMETRY_TYPE).value(this.geometryType.name()); // TODO: PROPOSED but not yet approved. Required for fromJSON reconstruction.
     
-    json.addProperty(JSON_IS_LEAF, this.isLeaf().toString()); 
+    writer.name(JSON_IS_LEAF).value(this.isLeaf().toString()); 
     
-    JsonArray attrs = new JsonArray();
+    writer.name(JSON_ATTRIBUTES).beginArray();
     
     for (String key : this.attributeMap.keySet())
     {
       AttributeType attrType = this.attributeMap.get(key);
       
-      attrs.add(attrType.toJSON());
+      attrType.writeTo(writer);
     }
     
-    json.add(JSON_ATTRIBUTES, attrs);
+    writer.endArray();
     
-    return json;
+    writer.endObject();
   }
   
 }
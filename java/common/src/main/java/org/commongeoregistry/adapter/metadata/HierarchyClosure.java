@@ -0,0 +1,292 @@
+package org.commongeoregistry.adapter.metadata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.commongeoregistry.adapter.metadata.HierarchyType.HierarchyNode;
+
+/**
+ * Immutable index over the nodes of a {@link HierarchyType} which answers questions about the {@link GeoObjectType}s in
+ * the hierarchy without walking the node lists. The nodes are numbered in pre-order, the descendants of a node are the
+ * nodes between its own number and the end of its subtree, so ancestor tests take constant time and paths take time
+ * proportional to the depth of the type.
+ *
+ * Closures are obtained from {@link MetadataCache#getHierarchyClosure(String)}, which builds one per published
+ * {@link HierarchyType} and rebuilds it once nodes are added to the {@link HierarchyType}. A type which is not part of the hierarchy has no ancestors, descendants or path.
+ */
+public class HierarchyClosure
+{
+  private static final int[]       NONE = new int[0];
+
+  private final HierarchyType      hierarchyType;
+
+  /**
+   * Version of the {@link HierarchyType} when the closure was built.
+   */
+  private final int                version;
+
+  /**
+   * {@link GeoObjectType} of each node in pre-order.
+   */
+  private final GeoObjectType[]    types;
+
+  /**
+   * Parent of each node, -1 for the roots.
+   */
+  private final int[]              parents;
+
+  /**
+   * End of the subtree of each node, exclusive.
+   */
+  private final int[]              ends;
+
+  /**
+   * Depth of each node, 0 for the roots.
+   */
+  private final int[]              depths;
+
+  /**
+   * Nodes of each {@link GeoObjectType} code, a type usually appears once in a hierarchy.
+   */
+  private final Map<String, int[]> nodes;
+
+  HierarchyClosure(HierarchyType hierarchyType)
+  {
+    this.hierarchyType = hierarchyType;
+
+    // Read first, a node added while the closure is built makes it stale
+    this.version = hierarchyType.getVersion();
+
+    List<GeoObjectType> types = new ArrayList<GeoObjectType>();
+    List<Integer> parents = new ArrayList<Integer>();
+    List<Integer> ends = new ArrayList<Integer>();
+    List<Integer> depths = new ArrayList<Integer>();
+
+    for (HierarchyNode root : new ArrayList<HierarchyNode>(hierarchyType.getRootGeoObjectTypes()))
+    {
+      number(root, -1, 0, types, parents, ends, depths);
+    }
+
+    this.types = types.toArray(new GeoObjectType[types.size()]);
+    this.parents = new int[this.types.length];
+    this.ends = new int[this.types.length];
+    this.depths = new int[this.types.length];
+    this.nodes = new HashMap<String, int[]>();
+
+    for (int i = 0; i < this.types.length; i++)
+    {
+      this.parents[i] = parents.get(i);
+      this.ends[i] = ends.get(i);
+      this.depths[i] = depths.get(i);
+
+      int[] previous = this.nodes.getOrDefault(this.types[i].getCode(), NONE);
+      int[] current = Arrays.copyOf(previous, previous.length + 1);
+      current[previous.length] = i;
+
+      this.nodes.put(this.types[i].getCode(), current);
+    }
+  }
+
+  /**
+   * Numbers the given node and its subtree in pre-order.
+   */
+  private static void number(HierarchyNode node, int parent, int depth, List<GeoObjectType> types, List<Integer> parents, List<Integer> ends, List<Integer> depths)
+  {
+    int index = types.size();
+
+    types.add(node.getGeoObjectType());
+    parents.add(parent);
+    ends.add(-1);
+    depths.add(depth);
+
+    for (HierarchyNode child : new ArrayList<HierarchyNode>(node.getChildren()))
+    {
+      number(child, index, depth + 1, types, parents, ends, depths);
+    }
+
+    ends.set(index, types.size());
+  }
+
+  /**
+   * Returns the {@link HierarchyType} this closure was built from.
+   */
+  public HierarchyType getHierarchyType()
+  {
+    return this.hierarchyType;
+  }
+
+  /**
+   * Returns true if this closure still describes the given {@link HierarchyType}.
+   *
+   * @param hierarchyType
+   */
+  boolean isValid(HierarchyType hierarchyType)
+  {
+    return this.hierarchyType == hierarchyType && this.version == hierarchyType.getVersion();
+  }
+
+  /**
+   * @param code
+   * @return true if the {@link GeoObjectType} with the given code is part of the hierarchy.
+   */
+  public boolean contains(String code)
+  {
+    return this.nodes.containsKey(code);
+  }
+
+  /**
+   * Returns true if the {@link GeoObjectType} with the given ancestor code is above the one with the given descendant
+   * code in the hierarchy, directly or indirectly.
+   *
+   * @param ancestorCode
+   * @param descendantCode
+   */
+  public boolean isAncestor(String ancestorCode, String descendantCode)
+  {
+    for (int ancestor : this.nodes.getOrDefault(ancestorCode, NONE))
+    {
+      for (int descendant : this.nodes.getOrDefault(descendantCode, NONE))
+      {
+        if (ancestor < descendant && descendant < this.ends[ancestor])
+        {
+          return true;
+        }
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns true if the {@link GeoObjectType} with the given child code is directly below the one with the given
+   * parent code in the hierarchy, that is if {@link org.commongeoregistry.adapter.dataaccess.GeoObject}s of the child
+   * type can be added as children of the parent type.
+   *
+   * @param childCode
+   * @param parentCode
+   */
+  public boolean canBeChildOf(String childCode, String parentCode)
+  {
+    for (int child : this.nodes.getOrDefault(childCode, NONE))
+    {
+      int parent = this.parents[child];
+
+      if (parent != -1 && this.types[parent].getCode().equals(parentCode))
+      {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns the depth of the {@link GeoObjectType} with the given code, 0 for the root types.
+   *
+   * @param code
+   * @return depth of the type, or -1 if it is not part of the hierarchy.
+   */
+  public int getDepth(String code)
+  {
+    int[] nodes = this.nodes.get(code);
+
+    return nodes != null ? this.depths[nodes[0]] : -1;
+  }
+
+  /**
+   * Returns the {@link GeoObjectType}s from the root of the hierarchy down to and including the type with the given
+   * code. If the type appears more than once in the hierarchy the path to its first appearance is returned.
+   *
+   * @param code
+   * @return the path, or an empty list if the type is not part of the hierarchy.
+   */
+  public List<GeoObjectType> getPath(String code)
+  {
+    int[] nodes = this.nodes.get(code);
+
+    if (nodes == null)
+    {
+      return Collections.emptyList();
+    }
+
+    GeoObjectType[] path = new GeoObjectType[this.depths[nodes[0]] + 1];
+
+    for (int node = nodes[0], i = path.length - 1; node != -1; node = this.parents[node], i--)
+    {
+      path[i] = this.types[node];
+    }
+
+    return Collections.unmodifiableList(Arrays.asList(path));
+  }
+
+  /**
+   * Returns the {@link GeoObjectType}s directly below the type with the given code.
+   *
+   * @param code
+   */
+  public List<GeoObjectType> getChildren(String code)
+  {
+    Set<GeoObjectType> children = new LinkedHashSet<GeoObjectType>();
+
+    for (int node : this.nodes.getOrDefault(code, NONE))
+    {
+      for (int child = node + 1; child < this.ends[node]; child = this.ends[child])
+      {
+        children.add(this.types[child]);
+      }
+    }
+
+    return Collections.unmodifiableList(new ArrayList<GeoObjectType>(children));
+  }
+
+  /**
+   * Returns all {@link GeoObjectType}s below the type with the given code in pre-order.
+   *
+   * @param code
+   */
+  public List<GeoObjectType> getDescendants(String code)
+  {
+    int[] nodes = this.nodes.getOrDefault(code, NONE);
+
+    if (nodes.length == 1)
+    {
+      // The subtree is a contiguous range of the pre-order numbering
+      return Collections.unmodifiableList(Arrays.asList(this.types).subList(nodes[0] + 1, this.ends[nodes[0]]));
+    }
+
+    Set<GeoObjectType> descendants = new LinkedHashSet<GeoObjectType>();
+
+    for (int node : nodes)
+    {
+      descendants.addAll(Arrays.asList(this.types).subList(node + 1, this.ends[node]));
+    }
+
+    return Collections.unmodifiableList(new ArrayList<GeoObjectType>(descendants));
+  }
+
+  /**
+   * Returns all {@link GeoObjectType}s above the type with the given code, nearest first.
+   *
+   * @param code
+   */
+  public List<GeoObjectType> getAncestors(String code)
+  {
+    Set<GeoObjectType> ancestors = new LinkedHashSet<GeoObjectType>();
+
+    for (int node : this.nodes.getOrDefault(code, NONE))
+    {
+      for (int parent = this.parents[node]; parent != -1; parent = this.parents[parent])
+      {
+        ancestors.add(this.types[parent]);
+      }
+    }
+
+    return Collections.unmodifiableList(new ArrayList<GeoObjectType>(ancestors));
+  }
+}
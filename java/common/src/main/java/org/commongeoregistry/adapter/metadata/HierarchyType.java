@@ -1,15 +1,20 @@
 package org.commongeoregistry.adapter.metadata;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Function;
 
 import org.commongeoregistry.adapter.RegistryAdapter;
+import org.commongeoregistry.adapter.json.JsonStreams;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Metadata that describes a hierarchy type, such as Geopolitical or health administrative.
@@ -50,6 +55,11 @@ public class HierarchyType implements Serializable
   private String localizedDescription;
   
   private List<HierarchyNode> rootGeoObjectTypes;
+  
+  /**
+   * Incremented every time a node is added, used to detect stale closure indexes of this hierarchy.
+   */
+  private int version;
 
   public HierarchyType(String _code, String _localizedLabel, String _localizedDescription)
   {
@@ -97,6 +107,27 @@ public class HierarchyType implements Serializable
   public void addRootGeoObjects(HierarchyNode hierarchyNode)
   {
     this.rootGeoObjectTypes.add(hierarchyNode);
+    
+    hierarchyNode.attach(this);
+    
+    this.modified();
+  }
+  
+  /**
+   * Returns the version of the nodes of this {@link HierarchyType}, which changes every time a node is added with
+   * {@link #addRootGeoObjects(HierarchyNode)} or {@link HierarchyNode#addChild(HierarchyNode)}. Nodes added directly
+   * to the node lists are not counted.
+   * 
+   * @return version of the nodes.
+   */
+  public synchronized int getVersion()
+  {
+    return this.version;
+  }
+  
+  private synchronized void modified()
+  {
+    this.version++;
   }
   
   /**
@@ -117,6 +148,11 @@ public class HierarchyType implements Serializable
      * Children {@link GeoObjectType}s in the hierarchy.
      */
     private List<HierarchyNode> children;
+    
+    /**
+     * {@link HierarchyType} the node has been added to, null until then.
+     */
+    private HierarchyType       hierarchyType;
 
     /**
      * 
@@ -146,6 +182,31 @@ public class HierarchyType implements Serializable
     public void addChild(HierarchyNode _hierarchyNode)
     {
       this.children.add(_hierarchyNode);
+      
+      HierarchyType hierarchyType = this.hierarchyType;
+      
+      if (hierarchyType != null)
+      {
+        _hierarchyNode.attach(hierarchyType);
+        
+        hierarchyType.modified();
+      }
+    }
+    
+    /**
+     * Records the {@link HierarchyType} this node and its subtree were added to.
+     */
+    private void attach(HierarchyType _hierarchyType)
+    {
+      this.hierarchyType = _hierarchyType;
+      
+      synchronized (this.children)
+      {
+        for (HierarchyNode child : this.children)
+        {
+          child.attach(_hierarchyType);
+        }
+      }
     }
     
     /**
@@ -165,20 +226,31 @@ public class HierarchyType implements Serializable
      */
     public JsonObject toJSON()
     {
-      JsonObject jsonObj = new JsonObject();
+      return JsonStreams.toJsonTree(this::writeTo).getAsJsonObject();
+    }
+    
+    /**
+     * Writes the JSON for this object to the given writer.
+     * 
+     * @param writer
+     * @throws IOException
+     */
+    public void writeTo(JsonWriter writer) throws IOException
+    {
+      writer.beginObject();
 
-      jsonObj.addProperty(JSON_GEOOBJECTTYPE, geoObjectType.getCode());
+      writer.name(JSON_GEOOBJECTTYPE).value(geoObjectType.getCode());
       
-      JsonArray jaChildren = new JsonArray();
+      writer.name(JSON_CHILDREN).beginArray();
       for (int i = 0; i < children.size(); ++i)
       {
         HierarchyNode hnode = children.get(i);
         
-        jaChildren.add(hnode.toJSON());
+        hnode.writeTo(writer);
       }
-      jsonObj.add(JSON_CHILDREN, jaChildren);
+      writer.endArray();
       
-      return jsonObj;
+      writer.endObject();
     }
     
     
@@ -190,12 +262,30 @@ public class HierarchyType implements Serializable
      * @return JSON for the Hierarchy Node.
      */
     protected static HierarchyNode fromJSON(String sJson, RegistryAdapter registry)
+    {
+      return HierarchyNode.fromJSON(sJson, resolver(registry));
+    }
+    
+    /**
+     * Generates JSON for the Hierarchy Node.
+     * 
+     * @param sJson
+     * @param resolver
+     *          returns the {@link GeoObjectType} with the given code.
+     * @return JSON for the Hierarchy Node.
+     */
+    protected static HierarchyNode fromJSON(String sJson, Function<String, GeoObjectType> resolver)
     {
       JsonParser parser = new JsonParser();
       
       JsonObject oJson = parser.parse(sJson).getAsJsonObject();
       
-      GeoObjectType got = registry.getMetadataCache().getGeoObjectType(oJson.get(JSON_GEOOBJECTTYPE).getAsString()).get();
+      return HierarchyNode.fromJSON(oJson, resolver);
+    }
+    
+    private static HierarchyNode fromJSON(JsonObject oJson, Function<String, GeoObjectType> resolver)
+    {
+      GeoObjectType got = resolver.apply(oJson.get(JSON_GEOOBJECTTYPE).getAsString());
       
       HierarchyNode node = new HierarchyNode(got);
       
@@ -204,7 +294,7 @@ public class HierarchyType implements Serializable
       {
         JsonObject joChild = jaChildren.get(i).getAsJsonObject();
         
-        HierarchyNode hnChild = HierarchyNode.fromJSON(joChild.toString(), registry);
+        HierarchyNode hnChild = HierarchyNode.fromJSON(joChild, resolver);
         
         node.addChild(hnChild);
       }
@@ -220,25 +310,46 @@ public class HierarchyType implements Serializable
    */
   public JsonObject toJSON()
   {
-    JsonObject jsonObj = new JsonObject();
+    return JsonStreams.toJsonTree(this::writeTo).getAsJsonObject();
+  }
+  
+  /**
+   * Writes the JSON representation of this metadata to the given stream as UTF-8. The stream is flushed but not
+   * closed.
+   * 
+   * @param out
+   */
+  public void writeTo(OutputStream out)
+  {
+    JsonStreams.write(out, this::writeTo);
+  }
+  
+  /**
+   * Writes the JSON representation of this metadata to the given writer.
+   * 
+   * @param writer
+   * @throws IOException
+   */
+  public void writeTo(JsonWriter writer) throws IOException
+  {
+    writer.beginObject();
 
-    jsonObj.addProperty(JSON_CODE, this.getCode());
+    writer.name(JSON_CODE).value(this.getCode());
 
-    jsonObj.addProperty(JSON_LOCALIZED_LABEL, this.getLocalizedLabel());
+    writer.name(JSON_LOCALIZED_LABEL).value(this.getLocalizedLabel());
     
-    jsonObj.addProperty(JSON_LOCALIZED_DESCRIPTION, this.getLocalizedDescription());
+    writer.name(JSON_LOCALIZED_DESCRIPTION).value(this.getLocalizedDescription());
     
-    JsonArray jaRoots = new JsonArray();
+    writer.name(JSON_ROOT_GEOOBJECTTYPES).beginArray();
     for (int i = 0; i < rootGeoObjectTypes.size(); ++i)
     {
       HierarchyNode hnode = rootGeoObjectTypes.get(i);
       
-      jaRoots.add(hnode.toJSON());
+      hnode.writeTo(writer);
     }
-
-    jsonObj.add(JSON_ROOT_GEOOBJECTTYPES, jaRoots);
+    writer.endArray();
     
-    return jsonObj;
+    writer.endObject();
   }
   
   
@@ -249,11 +360,37 @@ public class HierarchyType implements Serializable
    * @return
    */
   public static HierarchyType fromJSON(String _sJson, RegistryAdapter _registry)
+  {
+    return HierarchyType.fromJSON(_sJson, resolver(_registry));
+  }
+  
+  /**
+   * Constructs a {@link HierarchyType} from the given JSON. The {@link GeoObjectType}s of the nodes are resolved with
+   * the given function instead of the metadata cache, which allows the hierarchy to reference types which have not
+   * been published to the cache yet.
+   * 
+   * @param _sJson
+   * @param _resolver
+   *          returns the {@link GeoObjectType} with the given code.
+   * @return
+   */
+  public static HierarchyType fromJSON(String _sJson, Function<String, GeoObjectType> _resolver)
   {
     JsonParser parser = new JsonParser();
     
-    JsonObject oJson = parser.parse(_sJson).getAsJsonObject();
-    
+    return HierarchyType.fromJSON(parser.parse(_sJson).getAsJsonObject(), _resolver);
+  }
+  
+  /**
+   * Constructs a {@link HierarchyType} from the given JSON object, see {@link #fromJSON(String, Function)}.
+   * 
+   * @param oJson
+   * @param _resolver
+   *          returns the {@link GeoObjectType} with the given code.
+   * @return
+   */
+  public static HierarchyType fromJSON(JsonObject oJson, Function<String, GeoObjectType> _resolver)
+  {
     String code = oJson.get(JSON_CODE).getAsString();
     String localizedLabel = oJson.get(JSON_LOCALIZED_LABEL).getAsString();
     String localizedDescription = oJson.get(JSON_LOCALIZED_DESCRIPTION).getAsString();
@@ -265,7 +402,7 @@ public class HierarchyType implements Serializable
     {
       for (int i = 0; i < rootGeoObjectTypes.size(); ++i)
       {
-        HierarchyNode node = HierarchyNode.fromJSON(rootGeoObjectTypes.get(i).getAsJsonObject().toString(), _registry);
+        HierarchyNode node = HierarchyNode.fromJSON(rootGeoObjectTypes.get(i).getAsJsonObject(), _resolver);
         
         ht.addRootGeoObjects(node);
       }
@@ -275,17 +412,25 @@ public class HierarchyType implements Serializable
   }
 
   public static HierarchyType[] fromJSONArray(String saJson, RegistryAdapter adapter)
+  {
+    return HierarchyType.fromJSONArray(saJson, resolver(adapter));
+  }
+  
+  public static HierarchyType[] fromJSONArray(String saJson, Function<String, GeoObjectType> resolver)
   {
     JsonParser parser = new JsonParser();
 
     JsonArray jaHts = parser.parse(saJson).getAsJsonArray();
-    HierarchyType[] hts = new HierarchyType[jaHts.size()];
-    for (int i = 0; i < jaHts.size(); ++i)
-    {
-      HierarchyType ht = HierarchyType.fromJSON(jaHts.get(i).toString(), adapter);
-      hts[i] = ht;
-    }
+    List<HierarchyType> hts = JsonStreams.decodeArray(jaHts, element -> HierarchyType.fromJSON(element.getAsJsonObject(), resolver));
     
-    return hts;
+    return hts.toArray(new HierarchyType[hts.size()]);
+  }
+  
+  /**
+   * Resolves {@link GeoObjectType}s from the metadata cache of the given registry.
+   */
+  private static Function<String, GeoObjectType> resolver(RegistryAdapter registry)
+  {
+    return code -> registry.getMetadataCache().getGeoObjectType(code).get();
   }
 }
@@ -1,20 +1,33 @@
 package org.commongeoregistry.adapter.metadata;
 
+import java.io.File;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.commongeoregistry.adapter.RegistryAdapter;
 import org.commongeoregistry.adapter.Term;
+import org.commongeoregistry.adapter.constants.DefaultAttribute;
 import org.commongeoregistry.adapter.constants.DefaultTerms;
+import org.commongeoregistry.adapter.constants.DefaultTerms.GeoObjectStatusTerm;
 import org.commongeoregistry.adapter.dataaccess.GeoObject;
+import org.commongeoregistry.adapter.dataaccess.GeoObjectCodec;
+import org.commongeoregistry.adapter.metrics.MetricsRecorder;
 
 /**
  * This is a singleton instance that caches {@link GeoObjectType} objects for creating {@link GeoObject}s and 
  * that caches {@link HierarchyType}.
  * 
+ * The contents of the cache are held in an immutable {@link MetadataSnapshot}. Every change builds a new snapshot off
+ * to the side and publishes it with a single reference swap, so readers never lock and never see a partially
+ * refreshed cache.
+ * 
  * @author nathan
  *
  */
@@ -24,75 +37,309 @@ public class MetadataCache implements Serializable
    * 
    */
   private static final long serialVersionUID = -8829469298178067536L;
-  private Map<String, GeoObjectType> geoGeoObjectTypeMap;
-  private Map<String, HierarchyType> hierarchyTypeMap;
-  private Map<String, Term> termMap;
+  private volatile MetadataSnapshot snapshot;
+  private transient volatile Map<String, GeoObjectCodec> codecMap;
+  private transient volatile Map<String, HierarchyClosure> closureMap;
   private RegistryAdapter adapter;
   
   public MetadataCache(RegistryAdapter adapter)
   {
     this.adapter = adapter;
+    this.snapshot = MetadataSnapshot.EMPTY;
   }
   
   /** 
-   * Clears the metadata cache.
+   * Clears the metadata cache. Readers will see an empty cache until it is populated again, use
+   * {@link #refresh(GeoObjectType[], HierarchyType[])} to replace the contents of a cache which is in use.
    */
   public void rebuild()
   {
-    this.geoGeoObjectTypeMap = new ConcurrentHashMap<String, GeoObjectType>();
-    this.hierarchyTypeMap = new ConcurrentHashMap<String, HierarchyType>();
-    this.termMap = new ConcurrentHashMap<String, Term>();
+    synchronized (this)
+    {
+      this.publish(this.snapshot.toBuilder().clearTypes().clearTerms());
+      
+      this.getCodecMap().clear();
+    }
 
     DefaultTerms.buildGeoObjectStatusTree(adapter);
   }
   
-  public void addTerm(Term term) 
+  /**
+   * Replaces all {@link GeoObjectType}s and {@link HierarchyType}s of the cache in one step. The {@link Term}s of the
+   * cache are kept.
+   * 
+   * @param geoObjectTypes
+   * @param hierarchyTypes
+   */
+  public void refresh(GeoObjectType[] geoObjectTypes, HierarchyType[] hierarchyTypes)
   {
-    this.termMap.put(term.getCode(), term);
+    this.refresh(Arrays.asList(geoObjectTypes), Collections.<String, String> emptyMap(), Arrays.asList(hierarchyTypes), Collections.<String, String> emptyMap());
+  }
+  
+  /**
+   * Replaces all {@link GeoObjectType}s and {@link HierarchyType}s of the cache in one step, together with the
+   * fingerprints they were loaded with. The {@link Term}s of the cache are kept.
+   * 
+   * @param geoObjectTypes
+   * @param geoObjectTypeFingerprints
+   *          fingerprints of the types by code, see {@link MetadataFingerprint}.
+   * @param hierarchyTypes
+   * @param hierarchyTypeFingerprints
+   *          fingerprints of the hierarchies by code, see {@link MetadataFingerprint}.
+   */
+  public synchronized void refresh(Collection<GeoObjectType> geoObjectTypes, Map<String, String> geoObjectTypeFingerprints, Collection<HierarchyType> hierarchyTypes, Map<String, String> hierarchyTypeFingerprints)
+  {
+    MetadataSnapshot.Builder builder = this.snapshot.toBuilder().clearTypes();
+    
+    for (GeoObjectType geoObjectType : geoObjectTypes)
+    {
+      builder.putGeoObjectType(geoObjectType, geoObjectTypeFingerprints.get(geoObjectType.getCode()));
+    }
+    
+    for (HierarchyType hierarchyType : hierarchyTypes)
+    {
+      builder.putHierarchyType(hierarchyType, hierarchyTypeFingerprints.get(hierarchyType.getCode()));
+    }
+    
+    this.publish(builder);
+  }
+  
+  /**
+   * Returns the current contents of the cache. The snapshot does not change, a reader which needs consistent
+   * lookups across several calls should hold on to it rather than calling back into the cache.
+   * 
+   * @return the current contents of the cache.
+   */
+  public MetadataSnapshot getSnapshot()
+  {
+    return this.snapshot;
+  }
+  
+  /**
+   * Saves the current contents of the cache to the given file in a compact binary form which can be loaded with
+   * {@link #load(File)}. The file is replaced atomically.
+   *
+   * @param file
+   */
+  public void save(File file)
+  {
+    MetadataSnapshotFile.write(this.snapshot, file);
+  }
+
+  /**
+   * Replaces the contents of the cache, including the {@link Term}s, with the snapshot saved to the given file. The
+   * fingerprints are restored as well, so that a refresh after loading only transfers what changed on the registry
+   * since the file was saved.
+   *
+   * @param file
+   * @throws RuntimeException if the file can not be read or was saved by an incompatible version.
+   */
+  public synchronized void load(File file)
+  {
+    MetadataSnapshot.Builder builder = this.snapshot.toBuilder().clearTypes().clearTerms();
+
+    MetadataSnapshotFile.read(file, builder);
+
+    this.publish(builder);
+
+    this.getCodecMap().clear();
+  }
+
+  private void publish(MetadataSnapshot.Builder builder)
+  {
+    this.snapshot = builder.build();
+  }
+  
+  public synchronized void addTerm(Term term) 
+  {
+    this.publish(this.snapshot.toBuilder().putTerm(term));
+    
+    // The prototypes of new GeoObjects hold the NEW status
+    if (term.getCode().equals(GeoObjectStatusTerm.NEW.code))
+    {
+      this.getCodecMap().clear();
+    }
   }
     
   public Optional<Term> getTerm(String code) 
   {
-    return Optional.of(this.termMap.get(code));
+    return Optional.ofNullable(this.snapshot.getTerm(code));
   }
   
-  public void addGeoObjectType(GeoObjectType geoObjectType) 
+  public synchronized void addGeoObjectType(GeoObjectType geoObjectType) 
   {
-    this.geoGeoObjectTypeMap.put(geoObjectType.getCode(), geoObjectType);
+    this.publish(this.snapshot.toBuilder().putGeoObjectType(geoObjectType));
+    this.getCodecMap().remove(geoObjectType.getCode());
   }
     
   public Optional<GeoObjectType> getGeoObjectType(String code) 
   {
-    return Optional.of(this.geoGeoObjectTypeMap.get(code));
+    GeoObjectType geoObjectType = this.snapshot.getGeoObjectType(code);
+    
+    this.adapter.getMetricsRecorder().recordCacheAccess(MetricsRecorder.CACHE_GEO_OBJECT_TYPE, geoObjectType != null);
+    
+    return Optional.ofNullable(geoObjectType);
+  }
+  
+  public synchronized void removeGeoObjectType(String code)
+  {
+    this.publish(this.snapshot.toBuilder().removeGeoObjectType(code));
+    this.getCodecMap().remove(code);
   }
   
-  public void removeGeoObjectType(String code)
+  /**
+   * Returns the encode and decode plan of the given {@link GeoObjectType}. Plans are built the first time they are
+   * requested and rebuilt when the attributes of the type change. The plan also holds the prototype values of new
+   * {@link GeoObject}s, the type code and the NEW status.
+   * 
+   * @param geoObjectType
+   * @return the {@link GeoObjectCodec} of the given {@link GeoObjectType}.
+   */
+  public GeoObjectCodec getGeoObjectCodec(GeoObjectType geoObjectType)
   {
-    this.geoGeoObjectTypeMap.remove(code);
+    Map<String, GeoObjectCodec> codecMap = this.getCodecMap();
+    
+    GeoObjectCodec codec = codecMap.get(geoObjectType.getCode());
+    boolean hit = codec != null && codec.isValid(geoObjectType);
+    
+    this.adapter.getMetricsRecorder().recordCacheAccess(MetricsRecorder.CACHE_CODEC, hit);
+    
+    if (!hit)
+    {
+      Map<String, Object> defaultValues = new HashMap<String, Object>();
+      
+      Term newStatus = this.snapshot.getTerm(GeoObjectStatusTerm.NEW.code);
+      
+      if (newStatus != null)
+      {
+        defaultValues.put(DefaultAttribute.STATUS.getName(), newStatus);
+      }
+      
+      codec = new GeoObjectCodec(geoObjectType, defaultValues);
+      
+      codecMap.put(geoObjectType.getCode(), codec);
+    }
+    
+    return codec;
   }
   
-  public void addHierarchyType(HierarchyType hierarchyType) 
+  /**
+   * Returns the encode and decode plan of the {@link GeoObjectType} with the given code.
+   * 
+   * @param code
+   * @return the {@link GeoObjectCodec} of the {@link GeoObjectType} with the given code.
+   * @throws NoSuchElementException if there is no {@link GeoObjectType} with the given code.
+   */
+  public GeoObjectCodec getGeoObjectCodec(String code)
+  {
+    GeoObjectType geoObjectType = this.snapshot.getGeoObjectType(code);
+    
+    if (geoObjectType == null)
+    {
+      throw new NoSuchElementException("Unable to find GeoObjectType with code [" + code + "].");
+    }
+    
+    return this.getGeoObjectCodec(geoObjectType);
+  }
+  
+  private Map<String, GeoObjectCodec> getCodecMap()
   {
-    this.hierarchyTypeMap.put(hierarchyType.getCode(), hierarchyType);
+    // The plans are not serialized with the cache
+    if (this.codecMap == null)
+    {
+      synchronized (this)
+      {
+        if (this.codecMap == null)
+        {
+          this.codecMap = new ConcurrentHashMap<String, GeoObjectCodec>();
+        }
+      }
+    }
+    
+    return this.codecMap;
+  }
+  
+  public synchronized void addHierarchyType(HierarchyType hierarchyType) 
+  {
+    this.publish(this.snapshot.toBuilder().putHierarchyType(hierarchyType));
+    this.getClosureMap().remove(hierarchyType.getCode());
+  }
+  
+  /**
+   * Returns the closure index of the {@link HierarchyType} with the given code. The index is built the first time it
+   * is requested and rebuilt when a different {@link HierarchyType} is published under the code or nodes were added
+   * to the hierarchy since, see {@link HierarchyType#getVersion()}.
+   * 
+   * @param code
+   * @return the {@link HierarchyClosure} of the {@link HierarchyType} with the given code.
+   * @throws NoSuchElementException if there is no {@link HierarchyType} with the given code.
+   */
+  public HierarchyClosure getHierarchyClosure(String code)
+  {
+    HierarchyType hierarchyType = this.snapshot.getHierarchyType(code);
+    
+    if (hierarchyType == null)
+    {
+      throw new NoSuchElementException("Unable to find HierarchyType with code [" + code + "].");
+    }
+    
+    Map<String, HierarchyClosure> closureMap = this.getClosureMap();
+    
+    HierarchyClosure closure = closureMap.get(code);
+    
+    if (closure == null || !closure.isValid(hierarchyType))
+    {
+      closure = new HierarchyClosure(hierarchyType);
+      
+      closureMap.put(code, closure);
+    }
+    
+    return closure;
+  }
+  
+  private Map<String, HierarchyClosure> getClosureMap()
+  {
+    // The indexes are not serialized with the cache
+    if (this.closureMap == null)
+    {
+      synchronized (this)
+      {
+        if (this.closureMap == null)
+        {
+          this.closureMap = new ConcurrentHashMap<String, HierarchyClosure>();
+        }
+      }
+    }
+    
+    return this.closureMap;
   }
   
   public Optional<HierarchyType> getHierachyType(String code) 
   {
-    return Optional.of(this.hierarchyTypeMap.get(code));
+    HierarchyType hierarchyType = this.snapshot.getHierarchyType(code);
+    
+    this.adapter.getMetricsRecorder().recordCacheAccess(MetricsRecorder.CACHE_HIERARCHY_TYPE, hierarchyType != null);
+    
+    return Optional.ofNullable(hierarchyType);
   }
   
-  public void removeHierarchyType(String code)
+  public synchronized void removeHierarchyType(String code)
   {
-    this.hierarchyTypeMap.remove(code);
+    this.publish(this.snapshot.toBuilder().removeHierarchyType(code));
+    this.getClosureMap().remove(code);
   }
 
   public GeoObjectType[] getAllGeoObjectTypes()
   {
-    return this.geoGeoObjectTypeMap.values().toArray(new GeoObjectType[this.geoGeoObjectTypeMap.values().size()]);
+    Collection<GeoObjectType> values = this.snapshot.getGeoObjectTypes();
+    
+    return values.toArray(new GeoObjectType[values.size()]);
   }
 
   public HierarchyType[] getAllHierarchyTypes()
   {
-    return this.hierarchyTypeMap.values().toArray(new HierarchyType[this.hierarchyTypeMap.values().size()]);
+    Collection<HierarchyType> values = this.snapshot.getHierarchyTypes();
+    
+    return values.toArray(new HierarchyType[values.size()]);
   }
 }
@@ -0,0 +1,161 @@
+package org.commongeoregistry.adapter.metadata;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Content fingerprints of {@link GeoObjectType}s and {@link HierarchyType}s, used for conditional metadata refreshes.
+ * The client posts the fingerprints of the metadata it holds to the updates end point of the kind of metadata:
+ *
+ * <pre>
+ * { "fingerprints" : { "code" : "fingerprint", ... } }
+ * </pre>
+ *
+ * The fingerprints are sent in the body rather than in the query string, which could not hold those of thousands of
+ * types. The server answers with HTTP 304 if nothing changed and otherwise with only the entries which were added or
+ * changed and the codes which were removed:
+ *
+ * <pre>
+ * { "updated" : [ ... ], "removed" : [ "code", ... ] }
+ * </pre>
+ *
+ * A server without the updates end point answers with HTTP 404 and the client requests the full JSON array instead.
+ * Both sides compute fingerprints with this class so that they agree on the content of an entry.
+ */
+public class MetadataFingerprint
+{
+  public static final String JSON_UPDATED = "updated";
+
+  public static final String JSON_REMOVED = "removed";
+
+  /**
+   * Returns the fingerprint of the given {@link GeoObjectType}. Attributes are ordered by name as the order of the
+   * attribute map is not part of the content.
+   *
+   * @param geoObjectType
+   * @return fingerprint of the given {@link GeoObjectType}.
+   */
+  public static String of(GeoObjectType geoObjectType)
+  {
+    JsonObject json = geoObjectType.toJSON();
+
+    List<JsonElement> attributes = new ArrayList<JsonElement>();
+    json.getAsJsonArray(GeoObjectType.JSON_ATTRIBUTES).forEach(attributes::add);
+    attributes.sort(Comparator.comparing(element -> element.getAsJsonObject().get(AttributeType.JSON_NAME).getAsString()));
+
+    JsonArray sorted = new JsonArray();
+    attributes.forEach(sorted::add);
+    json.add(GeoObjectType.JSON_ATTRIBUTES, sorted);
+
+    return digest(json.toString());
+  }
+
+  /**
+   * Returns the fingerprint of the given {@link HierarchyType}.
+   *
+   * @param hierarchyType
+   * @return fingerprint of the given {@link HierarchyType}.
+   */
+  public static String of(HierarchyType hierarchyType)
+  {
+    return digest(hierarchyType.toJSON().toString());
+  }
+
+  /**
+   * Returns the fingerprints as the JSON object posted with a conditional request.
+   *
+   * @param fingerprints
+   *          fingerprints by code.
+   */
+  public static JsonObject toJSON(Map<String, String> fingerprints)
+  {
+    JsonObject json = new JsonObject();
+
+    for (Map.Entry<String, String> entry : fingerprints.entrySet())
+    {
+      json.addProperty(entry.getKey(), entry.getValue());
+    }
+
+    return json;
+  }
+
+  /**
+   * Builds the response to a conditional request on the server.
+   *
+   * @param fingerprints
+   *          JSON object of the fingerprints posted by the client.
+   * @param entries
+   *          current metadata of the server.
+   * @param code
+   *          returns the code of an entry.
+   * @param fingerprint
+   *          returns the fingerprint of an entry.
+   * @param json
+   *          returns the JSON of an entry.
+   * @return the JSON response, or null if the client is up to date and the server should answer with HTTP 304.
+   */
+  public static <T> String delta(JsonObject fingerprints, Collection<T> entries, Function<T, String> code, Function<T, String> fingerprint, Function<T, JsonElement> json)
+  {
+    JsonObject known = fingerprints.deepCopy();
+
+    JsonArray updated = new JsonArray();
+    JsonArray removed = new JsonArray();
+
+    for (T entry : entries)
+    {
+      JsonElement previous = known.remove(code.apply(entry));
+
+      if (previous == null || !previous.getAsString().equals(fingerprint.apply(entry)))
+      {
+        updated.add(json.apply(entry));
+      }
+    }
+
+    // Codes left over are no longer defined on the server
+    known.keySet().forEach(removed::add);
+
+    if (updated.size() == 0 && removed.size() == 0)
+    {
+      return null;
+    }
+
+    JsonObject response = new JsonObject();
+    response.add(JSON_UPDATED, updated);
+    response.add(JSON_REMOVED, removed);
+
+    return response.toString();
+  }
+
+  private static String digest(String content)
+  {
+    try
+    {
+      byte[] hash = MessageDigest.getInstance("SHA-1").digest(content.getBytes(StandardCharsets.UTF_8));
+
+      // 64 bits are plenty for change detection and keep the request short
+      StringBuilder builder = new StringBuilder();
+
+      for (int i = 0; i < 8; i++)
+      {
+        builder.append(String.format("%02x", hash[i]));
+      }
+
+      return builder.toString();
+    }
+    catch (NoSuchAlgorithmException e)
+    {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,265 @@
+package org.commongeoregistry.adapter.metadata;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.commongeoregistry.adapter.Term;
+
+/**
+ * Immutable version of the contents of the {@link MetadataCache}. The cache publishes a new snapshot each time its
+ * contents change, a reader holding a snapshot sees a consistent set of {@link GeoObjectType}s, {@link HierarchyType}s
+ * and {@link Term}s regardless of concurrent refreshes. Lookups do not lock or allocate, they return null for unknown
+ * codes.
+ */
+public class MetadataSnapshot implements Serializable
+{
+  /**
+   *
+   */
+  private static final long                serialVersionUID = 5150943214426604932L;
+
+  static final MetadataSnapshot            EMPTY            = new Builder().build();
+
+  private final long                       version;
+
+  private final Map<String, GeoObjectType> geoObjectTypeMap;
+
+  private final Map<String, HierarchyType> hierarchyTypeMap;
+
+  private final Map<String, Term>          termMap;
+
+  /**
+   * Fingerprints of the {@link GeoObjectType}s which were loaded from the registry, see {@link MetadataFingerprint}.
+   */
+  private final Map<String, String>        geoObjectTypeFingerprints;
+
+  /**
+   * Fingerprints of the {@link HierarchyType}s which were loaded from the registry, see {@link MetadataFingerprint}.
+   */
+  private final Map<String, String>        hierarchyTypeFingerprints;
+
+  private MetadataSnapshot(Builder builder)
+  {
+    this.version = builder.version;
+    this.geoObjectTypeMap = Collections.unmodifiableMap(builder.geoObjectTypeMap);
+    this.hierarchyTypeMap = Collections.unmodifiableMap(builder.hierarchyTypeMap);
+    this.termMap = Collections.unmodifiableMap(builder.termMap);
+    this.geoObjectTypeFingerprints = Collections.unmodifiableMap(builder.geoObjectTypeFingerprints);
+    this.hierarchyTypeFingerprints = Collections.unmodifiableMap(builder.hierarchyTypeFingerprints);
+  }
+
+  /**
+   * Returns the version of this snapshot, each snapshot published by a {@link MetadataCache} has a higher version than
+   * the previous one.
+   */
+  public long getVersion()
+  {
+    return this.version;
+  }
+
+  /**
+   * @param code
+   * @return the {@link GeoObjectType} with the given code, or null.
+   */
+  public GeoObjectType getGeoObjectType(String code)
+  {
+    return this.geoObjectTypeMap.get(code);
+  }
+
+  /**
+   * @param code
+   * @return the {@link HierarchyType} with the given code, or null.
+   */
+  public HierarchyType getHierarchyType(String code)
+  {
+    return this.hierarchyTypeMap.get(code);
+  }
+
+  /**
+   * @param code
+   * @return the {@link Term} with the given code, or null.
+   */
+  public Term getTerm(String code)
+  {
+    return this.termMap.get(code);
+  }
+
+  public Collection<GeoObjectType> getGeoObjectTypes()
+  {
+    return this.geoObjectTypeMap.values();
+  }
+
+  public Collection<HierarchyType> getHierarchyTypes()
+  {
+    return this.hierarchyTypeMap.values();
+  }
+
+  public Collection<Term> getTerms()
+  {
+    return this.termMap.values();
+  }
+
+  /**
+   * Returns the fingerprints of the {@link GeoObjectType}s loaded from the registry by code. Types which were added or
+   * changed locally have no fingerprint.
+   */
+  public Map<String, String> getGeoObjectTypeFingerprints()
+  {
+    return this.geoObjectTypeFingerprints;
+  }
+
+  /**
+   * Returns the fingerprints of the {@link HierarchyType}s loaded from the registry by code. Hierarchies which were
+   * added or changed locally have no fingerprint.
+   */
+  public Map<String, String> getHierarchyTypeFingerprints()
+  {
+    return this.hierarchyTypeFingerprints;
+  }
+
+  /**
+   * Returns a builder initialized with the contents of this snapshot.
+   */
+  Builder toBuilder()
+  {
+    return new Builder(this);
+  }
+
+  /**
+   * Collects the contents of the next snapshot off to the side of the published one.
+   */
+  static class Builder
+  {
+    private final long                       version;
+
+    private final Map<String, GeoObjectType> geoObjectTypeMap;
+
+    private final Map<String, HierarchyType> hierarchyTypeMap;
+
+    private final Map<String, Term>          termMap;
+
+    private final Map<String, String>        geoObjectTypeFingerprints;
+
+    private final Map<String, String>        hierarchyTypeFingerprints;
+
+    private Builder()
+    {
+      this.version = 0;
+      this.geoObjectTypeMap = new HashMap<String, GeoObjectType>();
+      this.hierarchyTypeMap = new HashMap<String, HierarchyType>();
+      this.termMap = new HashMap<String, Term>();
+      this.geoObjectTypeFingerprints = new HashMap<String, String>();
+      this.hierarchyTypeFingerprints = new HashMap<String, String>();
+    }
+
+    private Builder(MetadataSnapshot snapshot)
+    {
+      this.version = snapshot.version + 1;
+      this.geoObjectTypeMap = new HashMap<String, GeoObjectType>(snapshot.geoObjectTypeMap);
+      this.hierarchyTypeMap = new HashMap<String, HierarchyType>(snapshot.hierarchyTypeMap);
+      this.termMap = new HashMap<String, Term>(snapshot.termMap);
+      this.geoObjectTypeFingerprints = new HashMap<String, String>(snapshot.geoObjectTypeFingerprints);
+      this.hierarchyTypeFingerprints = new HashMap<String, String>(snapshot.hierarchyTypeFingerprints);
+    }
+
+    Builder clearTypes()
+    {
+      this.geoObjectTypeMap.clear();
+      this.hierarchyTypeMap.clear();
+      this.geoObjectTypeFingerprints.clear();
+      this.hierarchyTypeFingerprints.clear();
+
+      return this;
+    }
+
+    Builder clearTerms()
+    {
+      this.termMap.clear();
+
+      return this;
+    }
+
+    Builder putGeoObjectType(GeoObjectType geoObjectType)
+    {
+      return this.putGeoObjectType(geoObjectType, null);
+    }
+
+    /**
+     * @param geoObjectType
+     * @param fingerprint
+     *          fingerprint of the type as loaded from the registry, null for types defined locally.
+     */
+    Builder putGeoObjectType(GeoObjectType geoObjectType, String fingerprint)
+    {
+      this.geoObjectTypeMap.put(geoObjectType.getCode(), geoObjectType);
+
+      if (fingerprint != null)
+      {
+        this.geoObjectTypeFingerprints.put(geoObjectType.getCode(), fingerprint);
+      }
+      else
+      {
+        this.geoObjectTypeFingerprints.remove(geoObjectType.getCode());
+      }
+
+      return this;
+    }
+
+    Builder removeGeoObjectType(String code)
+    {
+      this.geoObjectTypeMap.remove(code);
+      this.geoObjectTypeFingerprints.remove(code);
+
+      return this;
+    }
+
+    Builder putHierarchyType(HierarchyType hierarchyType)
+    {
+      return this.putHierarchyType(hierarchyType, null);
+    }
+
+    /**
+     * @param hierarchyType
+     * @param fingerprint
+     *          fingerprint of the hierarchy as loaded from the registry, null for hierarchies defined locally.
+     */
+    Builder putHierarchyType(HierarchyType hierarchyType, String fingerprint)
+    {
+      this.hierarchyTypeMap.put(hierarchyType.getCode(), hierarchyType);
+
+      if (fingerprint != null)
+      {
+        this.hierarchyTypeFingerprints.put(hierarchyType.getCode(), fingerprint);
+      }
+      else
+      {
+        this.hierarchyTypeFingerprints.remove(hierarchyType.getCode());
+      }
+
+      return this;
+    }
+
+    Builder removeHierarchyType(String code)
+    {
+      this.hierarchyTypeMap.remove(code);
+      this.hierarchyTypeFingerprints.remove(code);
+
+      return this;
+    }
+
+    Builder putTerm(Term term)
+    {
+      this.termMap.put(term.getCode(), term);
+
+      return this;
+    }
+
+    MetadataSnapshot build()
+    {
+      return new MetadataSnapshot(this);
+    }
+  }
+}
@@ -0,0 +1,398 @@
+package org.commongeoregistry.adapter.metadata;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.commongeoregistry.adapter.Term;
+import org.commongeoregistry.adapter.constants.GeometryType;
+import org.commongeoregistry.adapter.metadata.HierarchyType.HierarchyNode;
+
+/**
+ * Compact binary form of a {@link MetadataSnapshot}, used by {@link MetadataCache#save(File)} and
+ * {@link MetadataCache#load(File)} so that a client can start from the metadata of its previous run instead of
+ * downloading and parsing all of it again. Terms, types and hierarchies reference each other by code, the fingerprints
+ * are kept so that the loaded metadata can be revalidated with a conditional refresh.
+ *
+ * <pre>
+ * header      magic, format version
+ * strings     count, { UTF-8 length, bytes }
+ * terms       count, { code, label, description, in cache, child count, { child code } }
+ * types       count, { code, label, description, geometry type, is leaf, fingerprint, attribute count,
+ *                      { name, label, description, type, root term code } }
+ * hierarchies count, { code, label, description, fingerprint, root count, { node } }
+ * node        type code, child count, { node }
+ * </pre>
+ *
+ * Codes, labels and attribute definitions repeat across types, each distinct string is stored once in the string table
+ * and referenced by its index everywhere else, an index of -1 stands for null. The file is read through a memory
+ * mapping. Only java.io file operations are used, java.nio.file is not available on Android before API 26.
+ */
+class MetadataSnapshotFile
+{
+  private static final int         MAGIC   = 0x43475253;
+
+  private static final int         VERSION = 1;
+
+  /**
+   * Index of each string in the string table, while writing.
+   */
+  private final Map<String, Integer> index;
+
+  /**
+   * String table, while reading.
+   */
+  private String[]                   strings;
+
+  private MetadataSnapshotFile()
+  {
+    this.index = new LinkedHashMap<String, Integer>();
+  }
+
+  /**
+   * Writes the given snapshot to the given file. The snapshot is written to a temporary file first which then replaces
+   * the given file, a reader never sees a partially written snapshot.
+   *
+   * @param snapshot
+   * @param file
+   */
+  static void write(MetadataSnapshot snapshot, File file)
+  {
+    File temp = new File(file.getPath() + ".tmp");
+
+    try
+    {
+      // The string table precedes the entries which reference it
+      MetadataSnapshotFile encoder = new MetadataSnapshotFile();
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+      try (DataOutputStream out = new DataOutputStream(body))
+      {
+        encoder.writeTerms(out, snapshot);
+
+        out.writeInt(snapshot.getGeoObjectTypes().size());
+
+        for (GeoObjectType geoObjectType : snapshot.getGeoObjectTypes())
+        {
+          encoder.writeGeoObjectType(out, geoObjectType, snapshot.getGeoObjectTypeFingerprints().get(geoObjectType.getCode()));
+        }
+
+        out.writeInt(snapshot.getHierarchyTypes().size());
+
+        for (HierarchyType hierarchyType : snapshot.getHierarchyTypes())
+        {
+          encoder.writeHierarchyType(out, hierarchyType, snapshot.getHierarchyTypeFingerprints().get(hierarchyType.getCode()));
+        }
+      }
+
+      FileOutputStream stream = new FileOutputStream(temp);
+
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream)))
+      {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        out.writeInt(encoder.index.size());
+
+        for (String string : encoder.index.keySet())
+        {
+          byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+
+          out.writeInt(bytes.length);
+          out.write(bytes);
+        }
+
+        body.writeTo(out);
+        out.flush();
+
+        stream.getFD().sync();
+      }
+
+      // The rename replaces the file atomically on POSIX file systems, elsewhere the existing file has to go first
+      if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file)))
+      {
+        throw new IOException("Unable to replace [" + file + "] with [" + temp + "].");
+      }
+    }
+    catch (IOException e)
+    {
+      temp.delete();
+
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Reads the snapshot in the given file into the given builder.
+   *
+   * @param file
+   * @param builder
+   *          receives the terms, types and hierarchies of the file.
+   * @throws RuntimeException
+   *           if the file can not be read or was not written by this version of the adapter.
+   */
+  static void read(File file, MetadataSnapshot.Builder builder)
+  {
+    try (FileInputStream in = new FileInputStream(file))
+    {
+      FileChannel channel = in.getChannel();
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+      {
+        throw new IOException("[" + file + "] is not a metadata snapshot of this version.");
+      }
+
+      MetadataSnapshotFile decoder = new MetadataSnapshotFile();
+      decoder.strings = new String[buffer.getInt()];
+
+      for (int i = 0; i < decoder.strings.length; i++)
+      {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+
+        decoder.strings[i] = new String(bytes, StandardCharsets.UTF_8);
+      }
+
+      Map<String, Term> terms = decoder.readTerms(buffer, builder);
+
+      Map<String, GeoObjectType> geoObjectTypes = new HashMap<String, GeoObjectType>();
+
+      for (int i = buffer.getInt(); i > 0; i--)
+      {
+        decoder.readGeoObjectType(buffer, terms, geoObjectTypes, builder);
+      }
+
+      for (int i = buffer.getInt(); i > 0; i--)
+      {
+        decoder.readHierarchyType(buffer, geoObjectTypes, builder);
+      }
+    }
+    catch (IOException | RuntimeException e)
+    {
+      throw new RuntimeException("Unable to read the metadata snapshot [" + file + "].", e);
+    }
+  }
+
+  private void writeTerms(DataOutputStream out, MetadataSnapshot snapshot) throws IOException
+  {
+    // Child terms do not have to be in the cache themselves
+    Map<String, Term> terms = new LinkedHashMap<String, Term>();
+    List<Term> pending = new ArrayList<Term>(snapshot.getTerms());
+
+    while (!pending.isEmpty())
+    {
+      Term term = pending.remove(pending.size() - 1);
+
+      if (terms.putIfAbsent(term.getCode(), term) == null)
+      {
+        pending.addAll(term.getChildren());
+      }
+    }
+
+    out.writeInt(terms.size());
+
+    for (Term term : terms.values())
+    {
+      writeString(out, term.getCode());
+      writeString(out, term.getLocalizedLabel());
+      writeString(out, term.getLocalizedDescription());
+      out.writeBoolean(snapshot.getTerm(term.getCode()) != null);
+
+      List<Term> children = new ArrayList<Term>(term.getChildren());
+      out.writeInt(children.size());
+
+      for (Term child : children)
+      {
+        writeString(out, child.getCode());
+      }
+    }
+  }
+
+  private Map<String, Term> readTerms(ByteBuffer buffer, MetadataSnapshot.Builder builder)
+  {
+    Map<String, Term> terms = new HashMap<String, Term>();
+    Map<Term, String[]> children = new HashMap<Term, String[]>();
+
+    for (int i = buffer.getInt(); i > 0; i--)
+    {
+      Term term = new Term(readString(buffer), readString(buffer), readString(buffer));
+      terms.put(term.getCode(), term);
+
+      if (buffer.get() != 0)
+      {
+        builder.putTerm(term);
+      }
+
+      String[] codes = new String[buffer.getInt()];
+
+      for (int j = 0; j < codes.length; j++)
+      {
+        codes[j] = readString(buffer);
+      }
+
+      children.put(term, codes);
+    }
+
+    // Children are written by code, link them once all terms exist
+    for (Map.Entry<Term, String[]> entry : children.entrySet())
+    {
+      for (String code : entry.getValue())
+      {
+        entry.getKey().addChild(terms.get(code));
+      }
+    }
+
+    return terms;
+  }
+
+  private void writeGeoObjectType(DataOutputStream out, GeoObjectType geoObjectType, String fingerprint) throws IOException
+  {
+    writeString(out, geoObjectType.getCode());
+    writeString(out, geoObjectType.getLocalizedLabel());
+    writeString(out, geoObjectType.getLocalizedDescription());
+    writeString(out, geoObjectType.getGeometryType().name());
+    out.writeBoolean(geoObjectType.isLeaf());
+    writeString(out, fingerprint);
+
+    List<AttributeType> attributes = new ArrayList<AttributeType>(geoObjectType.getAttributeMap().values());
+    out.writeInt(attributes.size());
+
+    for (AttributeType attributeType : attributes)
+    {
+      writeString(out, attributeType.getName());
+      writeString(out, attributeType.getLocalizedLabel());
+      writeString(out, attributeType.getLocalizedDescription());
+      writeString(out, attributeType.getType());
+
+      Term rootTerm = attributeType instanceof AttributeTermType ? ( (AttributeTermType) attributeType ).getRootTerm() : null;
+      writeString(out, rootTerm != null ? rootTerm.getCode() : null);
+    }
+  }
+
+  private void readGeoObjectType(ByteBuffer buffer, Map<String, Term> terms, Map<String, GeoObjectType> geoObjectTypes, MetadataSnapshot.Builder builder)
+  {
+    String code = readString(buffer);
+    String localizedLabel = readString(buffer);
+    String localizedDescription = readString(buffer);
+    GeometryType geometryType = GeometryType.valueOf(readString(buffer));
+    Boolean isLeaf = buffer.get() != 0;
+    String fingerprint = readString(buffer);
+
+    Map<String, AttributeType> attributeMap = new ConcurrentHashMap<String, AttributeType>();
+
+    for (int i = buffer.getInt(); i > 0; i--)
+    {
+      AttributeType attributeType = AttributeType.factory(readString(buffer), readString(buffer), readString(buffer), readString(buffer));
+      String rootTerm = readString(buffer);
+
+      if (rootTerm != null)
+      {
+        ( (AttributeTermType) attributeType ).setRootTerm(terms.get(rootTerm));
+      }
+
+      attributeMap.put(attributeType.getName(), attributeType);
+    }
+
+    GeoObjectType geoObjectType = new GeoObjectType(code, geometryType, localizedLabel, localizedDescription, isLeaf, attributeMap);
+    geoObjectTypes.put(code, geoObjectType);
+
+    builder.putGeoObjectType(geoObjectType, fingerprint);
+  }
+
+  private void writeHierarchyType(DataOutputStream out, HierarchyType hierarchyType, String fingerprint) throws IOException
+  {
+    writeString(out, hierarchyType.getCode());
+    writeString(out, hierarchyType.getLocalizedLabel());
+    writeString(out, hierarchyType.getLocalizedDescription());
+    writeString(out, fingerprint);
+    writeNodes(out, hierarchyType.getRootGeoObjectTypes());
+  }
+
+  private void readHierarchyType(ByteBuffer buffer, Map<String, GeoObjectType> geoObjectTypes, MetadataSnapshot.Builder builder)
+  {
+    HierarchyType hierarchyType = new HierarchyType(readString(buffer), readString(buffer), readString(buffer));
+    String fingerprint = readString(buffer);
+
+    for (int i = buffer.getInt(); i > 0; i--)
+    {
+      hierarchyType.addRootGeoObjects(readNode(buffer, geoObjectTypes));
+    }
+
+    builder.putHierarchyType(hierarchyType, fingerprint);
+  }
+
+  private void writeNodes(DataOutputStream out, List<HierarchyNode> nodes) throws IOException
+  {
+    List<HierarchyNode> copy = new ArrayList<HierarchyNode>(nodes);
+    out.writeInt(copy.size());
+
+    for (HierarchyNode node : copy)
+    {
+      writeString(out, node.getGeoObjectType().getCode());
+      writeNodes(out, node.getChildren());
+    }
+  }
+
+  private HierarchyNode readNode(ByteBuffer buffer, Map<String, GeoObjectType> geoObjectTypes)
+  {
+    String code = readString(buffer);
+    GeoObjectType geoObjectType = geoObjectTypes.get(code);
+
+    if (geoObjectType == null)
+    {
+      throw new IllegalStateException("Unable to find GeoObjectType with code [" + code + "].");
+    }
+
+    HierarchyNode node = new HierarchyNode(geoObjectType);
+
+    for (int i = buffer.getInt(); i > 0; i--)
+    {
+      node.addChild(readNode(buffer, geoObjectTypes));
+    }
+
+    return node;
+  }
+
+  private void writeString(DataOutputStream out, String value) throws IOException
+  {
+    if (value == null)
+    {
+      out.writeInt(-1);
+    }
+    else
+    {
+      Integer position = this.index.get(value);
+
+      if (position == null)
+      {
+        position = this.index.size();
+
+        this.index.put(value, position);
+      }
+
+      out.writeInt(position);
+    }
+  }
+
+  private String readString(ByteBuffer buffer)
+  {
+    int position = buffer.getInt();
+
+    return position < 0 ? null : this.strings[position];
+  }
+}
@@ -0,0 +1,155 @@
+package org.commongeoregistry.adapter.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of durations in nanoseconds with a relative precision of about 3%. Values are counted in
+ * logarithmic buckets which are each divided into {@value #SUB_BUCKETS} linear sub-buckets, as done by HdrHistogram,
+ * so the bucket of a value is found with a few bit operations. Recording a value does not allocate and does not block,
+ * reading percentiles while values are recorded returns an approximate result.
+ */
+public class LatencyHistogram
+{
+  private static final int   SUB_BUCKET_BITS = 5;
+
+  public static final int    SUB_BUCKETS     = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * Values below 2 * {@link #SUB_BUCKETS} are counted exactly, every following power of two adds
+   * {@link #SUB_BUCKETS} buckets up to {@link Long#MAX_VALUE}.
+   */
+  private static final int   BUCKETS         = ( 64 - SUB_BUCKET_BITS ) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts;
+
+  private final LongAdder       count;
+
+  private final LongAdder       total;
+
+  private final AtomicLong      max;
+
+  public LatencyHistogram()
+  {
+    this.counts = new AtomicLongArray(BUCKETS);
+    this.count = new LongAdder();
+    this.total = new LongAdder();
+    this.max = new AtomicLong();
+  }
+
+  /**
+   * Records the given duration, negative durations are recorded as 0.
+   *
+   * @param nanos
+   */
+  public void record(long nanos)
+  {
+    long value = Math.max(0, nanos);
+
+    this.counts.incrementAndGet(index(value));
+    this.count.increment();
+    this.total.add(value);
+
+    if (value > this.max.get())
+    {
+      this.max.accumulateAndGet(value, Math::max);
+    }
+  }
+
+  public long getCount()
+  {
+    return this.count.sum();
+  }
+
+  public long getMax()
+  {
+    return this.max.get();
+  }
+
+  public double getMean()
+  {
+    long count = this.count.sum();
+
+    return count == 0 ? 0 : (double) this.total.sum() / count;
+  }
+
+  /**
+   * Returns the duration at or below which the given percentage of the recorded durations fall, rounded up to the
+   * upper bound of its bucket.
+   *
+   * @param percentile
+   *          between 0 and 100.
+   * @return the duration in nanoseconds, 0 if nothing has been recorded.
+   */
+  public long getValueAtPercentile(double percentile)
+  {
+    long total = 0;
+
+    for (int i = 0; i < BUCKETS; i++)
+    {
+      total += this.counts.get(i);
+    }
+
+    if (total == 0)
+    {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total));
+    long cumulative = 0;
+
+    for (int i = 0; i < BUCKETS; i++)
+    {
+      cumulative += this.counts.get(i);
+
+      if (cumulative >= rank)
+      {
+        return Math.min(highestValue(i), this.max.get());
+      }
+    }
+
+    return this.max.get();
+  }
+
+  public void reset()
+  {
+    for (int i = 0; i < BUCKETS; i++)
+    {
+      this.counts.set(i, 0);
+    }
+
+    this.count.reset();
+    this.total.reset();
+    this.max.set(0);
+  }
+
+  static int index(long value)
+  {
+    if (value < 2 * SUB_BUCKETS)
+    {
+      return (int) value;
+    }
+
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    int subBucket = (int) ( value >>> shift ) & ( SUB_BUCKETS - 1 );
+
+    return ( shift + 1 ) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Returns the largest value counted in the bucket with the given index.
+   */
+  static long highestValue(int index)
+  {
+    if (index < 2 * SUB_BUCKETS)
+    {
+      return index;
+    }
+
+    int shift = index / SUB_BUCKETS - 1;
+    long lowest = (long) ( SUB_BUCKETS + index % SUB_BUCKETS ) << shift;
+
+    return lowest + ( ( 1L << shift ) - 1 );
+  }
+}
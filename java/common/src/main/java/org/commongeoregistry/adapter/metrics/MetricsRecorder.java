@@ -0,0 +1,82 @@
+package org.commongeoregistry.adapter.metrics;
+
+import org.commongeoregistry.adapter.constants.RegistryUrls;
+
+/**
+ * Receives the measurements of the registry client: the {@link org.commongeoregistry.adapter.HttpRegistryClient}
+ * reports the network and decode time of every request, the
+ * {@link org.commongeoregistry.adapter.http.Connector}s report the size of the response bodies, and the caches and the
+ * id service report their hits and misses. End points are identified by their {@link RegistryUrls} constant.
+ *
+ * The methods are called on the request threads and must not block. All methods do nothing by default, {@link #NONE}
+ * is used when no recorder has been set, see {@link RegistryMetrics} for a recorder which collects the measurements.
+ */
+public interface MetricsRecorder
+{
+  /**
+   * Recorder which discards all measurements.
+   */
+  public static final MetricsRecorder NONE = new MetricsRecorder()
+  {
+  };
+
+  public static final String CACHE_GEO_OBJECT      = "geoObject";
+
+  public static final String CACHE_GEO_OBJECT_TYPE = "geoObjectType";
+
+  public static final String CACHE_HIERARCHY_TYPE  = "hierarchyType";
+
+  public static final String CACHE_CODEC           = "geoObjectCodec";
+
+  public static final String CACHE_ID              = "id";
+
+  /**
+   * Records a request to the registry.
+   *
+   * @param url
+   *          end point, see {@link RegistryUrls}.
+   * @param statusCode
+   *          status code of the response, or -1 if the request failed without a response.
+   * @param nanos
+   *          time from sending the request until the response was received. The body of a streamed response is
+   *          received while it is decoded, its transfer is part of {@link #recordDecode(String, long)}.
+   */
+  default void recordRequest(String url, int statusCode, long nanos)
+  {
+  }
+
+  /**
+   * Records the time taken to decode the body of a response.
+   *
+   * @param url
+   *          end point, see {@link RegistryUrls}.
+   * @param nanos
+   */
+  default void recordDecode(String url, long nanos)
+  {
+  }
+
+  /**
+   * Records the size of a response body.
+   *
+   * @param url
+   *          end point, see {@link RegistryUrls}.
+   * @param bytes
+   *          size of the body after decoding the content encoding.
+   */
+  default void recordResponseSize(String url, long bytes)
+  {
+  }
+
+  /**
+   * Records a lookup in one of the caches of the client.
+   *
+   * @param cache
+   *          name of the cache, one of the CACHE constants.
+   * @param hit
+   *          true if the cache held the entry.
+   */
+  default void recordCacheAccess(String cache, boolean hit)
+  {
+  }
+}
@@ -0,0 +1,292 @@
+package org.commongeoregistry.adapter.metrics;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link MetricsRecorder} which keeps the measurements in memory: request and error counts, network and decode
+ * {@link LatencyHistogram}s and response sizes per end point, and hit rates per cache. Recording does not allocate
+ * once an end point or cache has been seen for the first time.
+ */
+public class RegistryMetrics implements MetricsRecorder
+{
+  /**
+   * Measurements of one end point of the registry.
+   */
+  public static class Endpoint
+  {
+    private final LongAdder        requests;
+
+    private final LongAdder        errors;
+
+    private final LongAdder        responses;
+
+    private final LongAdder        responseBytes;
+
+    private final LatencyHistogram network;
+
+    private final LatencyHistogram decode;
+
+    private Endpoint()
+    {
+      this.requests = new LongAdder();
+      this.errors = new LongAdder();
+      this.responses = new LongAdder();
+      this.responseBytes = new LongAdder();
+      this.network = new LatencyHistogram();
+      this.decode = new LatencyHistogram();
+    }
+
+    public long getRequestCount()
+    {
+      return this.requests.sum();
+    }
+
+    /**
+     * Returns the number of requests which failed without a response or were answered with an error status.
+     */
+    public long getErrorCount()
+    {
+      return this.errors.sum();
+    }
+
+    /**
+     * Returns the total size in bytes of the response bodies.
+     */
+    public long getResponseBytes()
+    {
+      return this.responseBytes.sum();
+    }
+
+    public double getMeanResponseBytes()
+    {
+      long responses = this.responses.sum();
+
+      return responses == 0 ? 0 : (double) this.responseBytes.sum() / responses;
+    }
+
+    /**
+     * Returns the time from sending a request until its response was received.
+     */
+    public LatencyHistogram getNetworkLatency()
+    {
+      return this.network;
+    }
+
+    /**
+     * Returns the time taken to decode the response bodies.
+     */
+    public LatencyHistogram getDecodeLatency()
+    {
+      return this.decode;
+    }
+  }
+
+  /**
+   * Hits and misses of one cache.
+   */
+  public static class Cache
+  {
+    private final LongAdder hits;
+
+    private final LongAdder misses;
+
+    private Cache()
+    {
+      this.hits = new LongAdder();
+      this.misses = new LongAdder();
+    }
+
+    public long getHitCount()
+    {
+      return this.hits.sum();
+    }
+
+    public long getMissCount()
+    {
+      return this.misses.sum();
+    }
+
+    /**
+     * Returns the share of the lookups answered by the cache, between 0 and 1.
+     */
+    public double getHitRate()
+    {
+      long hits = this.hits.sum();
+      long total = hits + this.misses.sum();
+
+      return total == 0 ? 0 : (double) hits / total;
+    }
+  }
+
+  private final long                                started;
+
+  private final ConcurrentHashMap<String, Endpoint> endpoints;
+
+  private final ConcurrentHashMap<String, Cache>    caches;
+
+  public RegistryMetrics()
+  {
+    this.started = System.nanoTime();
+    this.endpoints = new ConcurrentHashMap<String, Endpoint>();
+    this.caches = new ConcurrentHashMap<String, Cache>();
+  }
+
+  @Override
+  public void recordRequest(String url, int statusCode, long nanos)
+  {
+    Endpoint endpoint = this.endpoint(url);
+
+    endpoint.requests.increment();
+    endpoint.network.record(nanos);
+
+    if (statusCode == -1 || statusCode >= 400)
+    {
+      endpoint.errors.increment();
+    }
+  }
+
+  @Override
+  public void recordDecode(String url, long nanos)
+  {
+    this.endpoint(url).decode.record(nanos);
+  }
+
+  @Override
+  public void recordResponseSize(String url, long bytes)
+  {
+    Endpoint endpoint = this.endpoint(url);
+
+    endpoint.responses.increment();
+    endpoint.responseBytes.add(bytes);
+  }
+
+  @Override
+  public void recordCacheAccess(String cache, boolean hit)
+  {
+    Cache entry = this.caches.get(cache);
+
+    if (entry == null)
+    {
+      entry = this.caches.computeIfAbsent(cache, name -> new Cache());
+    }
+
+    if (hit)
+    {
+      entry.hits.increment();
+    }
+    else
+    {
+      entry.misses.increment();
+    }
+  }
+
+  private Endpoint endpoint(String url)
+  {
+    Endpoint endpoint = this.endpoints.get(url);
+
+    if (endpoint == null)
+    {
+      endpoint = this.endpoints.computeIfAbsent(url, key -> new Endpoint());
+    }
+
+    return endpoint;
+  }
+
+  /**
+   * Returns the end points requests have been recorded for.
+   */
+  public Set<String> getEndpoints()
+  {
+    return Collections.unmodifiableSet(this.endpoints.keySet());
+  }
+
+  /**
+   * Returns the measurements of the given end point, or null if nothing has been recorded for it.
+   *
+   * @param url
+   *          end point, see {@link org.commongeoregistry.adapter.constants.RegistryUrls}.
+   */
+  public Endpoint getEndpoint(String url)
+  {
+    return this.endpoints.get(url);
+  }
+
+  /**
+   * Returns the requests per second to the given end point since the metrics were created.
+   *
+   * @param url
+   *          end point, see {@link org.commongeoregistry.adapter.constants.RegistryUrls}.
+   */
+  public double getThroughput(String url)
+  {
+    Endpoint endpoint = this.endpoints.get(url);
+    long elapsed = System.nanoTime() - this.started;
+
+    return endpoint == null || elapsed <= 0 ? 0 : endpoint.getRequestCount() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+  }
+
+  /**
+   * Returns the hits and misses of the given cache, or null if nothing has been recorded for it.
+   *
+   * @param cache
+   *          name of the cache, one of the CACHE constants of {@link MetricsRecorder}.
+   */
+  public Cache getCache(String cache)
+  {
+    return this.caches.get(cache);
+  }
+
+  /**
+   * Returns the caches lookups have been recorded for.
+   */
+  public Set<String> getCaches()
+  {
+    return Collections.unmodifiableSet(this.caches.keySet());
+  }
+
+  /**
+   * Returns a summary of the measurements, one line per end point and cache, for logging.
+   */
+  @Override
+  public String toString()
+  {
+    StringBuilder builder = new StringBuilder();
+
+    for (String url : new TreeSet<String>(this.endpoints.keySet()))
+    {
+      Endpoint endpoint = this.endpoints.get(url);
+      LatencyHistogram network = endpoint.getNetworkLatency();
+      LatencyHistogram decode = endpoint.getDecodeLatency();
+
+      builder.append(url);
+      builder.append(": requests=").append(endpoint.getRequestCount());
+      builder.append(", errors=").append(endpoint.getErrorCount());
+      builder.append(", network p50/p99=").append(millis(network.getValueAtPercentile(50))).append('/').append(millis(network.getValueAtPercentile(99))).append(" ms");
+      builder.append(", decode p50/p99=").append(millis(decode.getValueAtPercentile(50))).append('/').append(millis(decode.getValueAtPercentile(99))).append(" ms");
+      builder.append(", bytes=").append(endpoint.getResponseBytes());
+      builder.append(System.lineSeparator());
+    }
+
+    for (String name : new TreeSet<String>(this.caches.keySet()))
+    {
+      Cache cache = this.caches.get(name);
+
+      builder.append(name);
+      builder.append(" cache: hits=").append(cache.getHitCount());
+      builder.append(", misses=").append(cache.getMissCount());
+      builder.append(System.lineSeparator());
+    }
+
+    return builder.toString();
+  }
+
+  private static String millis(long nanos)
+  {
+    return String.format("%.3f", nanos / 1000000d);
+  }
+}
@@ -0,0 +1,101 @@
+package org.commongeoregistry.adapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.commongeoregistry.adapter.action.AbstractAction;
+import org.commongeoregistry.adapter.action.ActionBatchWriter;
+import org.commongeoregistry.adapter.action.AddChildAction;
+import org.commongeoregistry.adapter.constants.RegistryUrls;
+import org.commongeoregistry.adapter.http.Connector;
+import org.commongeoregistry.adapter.http.HttpResponse;
+import org.commongeoregistry.adapter.http.ResponseException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.gson.JsonParser;
+
+public class ActionBatchWriterTest
+{
+
+  @Test
+  public void testActionBatchWriter() throws Exception
+  {
+    List<AbstractAction[]> batches = Collections.synchronizedList(new ArrayList<AbstractAction[]>());
+    
+    Connector connector = new Connector()
+    {
+      @Override
+      public HttpResponse httpGet(String url, Map<String, String> params)
+      {
+        throw new UnsupportedOperationException();
+      }
+      
+      @Override
+      public HttpResponse httpPost(String url, String body)
+      {
+        Assert.assertEquals(RegistryUrls.EXECUTE_ACTIONS, url);
+        
+        AbstractAction[] actions = AbstractAction.parseActions(new JsonParser().parse(body).getAsJsonObject().get(RegistryUrls.EXECUTE_ACTIONS_PARAM_ACTIONS).getAsString());
+        batches.add(actions);
+        
+        // The registry rejects batches with actions on the parent "bad"
+        for (AbstractAction action : actions)
+        {
+          if (action instanceof AddChildAction && ( (AddChildAction) action ).getParentId().equals("bad"))
+          {
+            return new HttpResponse("", 400);
+          }
+        }
+        
+        return new HttpResponse("", 200);
+      }
+    };
+    
+    List<CompletableFuture<Void>> results = new ArrayList<CompletableFuture<Void>>();
+    
+    try (ActionBatchWriter writer = new ActionBatchWriter(connector, 3, 50, 2))
+    {
+      for (int i = 0; i < 7; i++)
+      {
+        results.add(writer.add(new AddChildAction("child" + i, "District", i == 4 ? "bad" : "parent", "Province", "Admin")));
+      }
+      
+      // The last action is sent once it has waited for the maximum delay
+      CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[results.size()])).handle((result, t) -> null).get(5, TimeUnit.SECONDS);
+      
+      Assert.assertEquals(3, batches.size());
+      Assert.assertEquals(3, batches.get(0).length);
+      Assert.assertEquals(1, batches.get(2).length);
+      Assert.assertEquals(2, writer.getBatchCount());
+      Assert.assertEquals(4, writer.getActionCount());
+      Assert.assertEquals(3, writer.getFailedActionCount());
+      
+      // Every action of the rejected batch fails
+      for (int i = 3; i < 6; i++)
+      {
+        try
+        {
+          results.get(i).get();
+          
+          Assert.fail("Able to execute an action of a rejected batch");
+        }
+        catch (ExecutionException e)
+        {
+          Assert.assertTrue(e.getCause() instanceof ResponseException);
+        }
+      }
+      
+      results.add(writer.add(new AddChildAction("child7", "District", "parent", "Province", "Admin")));
+    }
+    
+    // Closing sends the remaining actions
+    Assert.assertTrue(results.get(7).isDone());
+    Assert.assertEquals(4, batches.size());
+  }
+}
@@ -0,0 +1,119 @@
+package org.commongeoregistry.adapter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.commongeoregistry.adapter.constants.RegistryUrls;
+import org.commongeoregistry.adapter.dataaccess.GeoObject;
+import org.commongeoregistry.adapter.http.PooledHttpConnector;
+
+import com.google.gson.JsonParser;
+
+/**
+ * Compares resolving GeoObjects one {@link HttpRegistryClient#getGeoObject(String, String)} at a time against
+ * {@link HttpRegistryClient#getGeoObjects(java.util.Collection, String)}, with and without the bulk end point, on a local
+ * {@link MockHttpServer}. The server waits a fixed time before answering each request to stand in for the round trip to
+ * a remote registry. Not run as part of the unit tests, launch the main method directly. The optional arguments are the
+ * number of GeoObjects and the simulated round trip in milliseconds.
+ */
+public class BulkGetBenchmark
+{
+  public static void main(String[] args) throws Exception
+  {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+    int latency = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+    HttpRegistryClient client = new HttpRegistryClient(new PooledHttpConnector(), new MockIdService());
+    client.getIdSerivce().populate(count);
+    TestFixture.defineExampleHierarchies(client);
+
+    Map<String, String> geoObjects = new HashMap<String, String>();
+    List<String> ids = new ArrayList<String>();
+
+    for (int i = 0; i < count; i++)
+    {
+      GeoObject geoObject = TestFixture.createGeoObject(client, "GO_" + i, TestFixture.PROVINCE);
+
+      geoObjects.put(geoObject.getUid(), geoObject.toJSON().toString());
+      ids.add(geoObject.getUid());
+    }
+
+    boolean[] bulk = new boolean[] { true };
+
+    MockHttpServer.Handler handler = (method, path, query, body) ->
+    {
+      try
+      {
+        Thread.sleep(latency);
+      }
+      catch (InterruptedException e)
+      {
+        throw new RuntimeException(e);
+      }
+
+      if (path.equals(RegistryUrls.GEO_OBJECT_GET))
+      {
+        return geoObjects.get(query.get(RegistryUrls.GEO_OBJECT_GET_PARAM_ID));
+      }
+      else if (bulk[0] && path.equals(RegistryUrls.GEO_OBJECT_GET_BULK))
+      {
+        StringBuilder response = new StringBuilder("[");
+
+        new JsonParser().parse(body).getAsJsonObject().getAsJsonArray(RegistryUrls.GEO_OBJECT_GET_BULK_PARAM_IDS).forEach(id ->
+        {
+          response.append(response.length() > 1 ? "," : "").append(geoObjects.get(id.getAsString()));
+        });
+
+        return response.append("]").toString();
+      }
+
+      return null;
+    };
+
+    try (MockHttpServer server = new MockHttpServer(handler, 8))
+    {
+      ( (PooledHttpConnector) client.getConnector() ).setServerUrl(server.getServerUrl());
+
+      // Warm up
+      for (int i = 0; i < 200; i++)
+      {
+        client.getGeoObject(ids.get(i), TestFixture.PROVINCE);
+      }
+
+      client.getGeoObjects(ids, TestFixture.PROVINCE);
+
+      long start = System.nanoTime();
+
+      for (String id : ids)
+      {
+        client.getGeoObject(id, TestFixture.PROVINCE);
+      }
+
+      long sequential = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      int bulkCount = client.getGeoObjects(ids, TestFixture.PROVINCE).size();
+      long batched = System.nanoTime() - start;
+
+      // Registry without the bulk end point, the chunks fall back to single requests
+      bulk[0] = false;
+      client.getGeoObjects(ids.subList(0, 1), TestFixture.PROVINCE);
+
+      start = System.nanoTime();
+      int fallbackCount = client.getGeoObjects(ids, TestFixture.PROVINCE).size();
+      long fallback = System.nanoTime() - start;
+
+      System.out.println("GeoObjects: " + count + ", round trip: " + latency + " ms, chunk size: " + client.getBulkChunkSize() + ", concurrency: " + client.getBulkConcurrency());
+      System.out.println("Sequential getGeoObject: " + report(count, sequential));
+      System.out.println("Bulk getGeoObjects:      " + report(bulkCount, batched));
+      System.out.println("Parallel single gets:    " + report(fallbackCount, fallback));
+    }
+  }
+
+  private static String report(int count, long nanos)
+  {
+    return ( nanos / 1000000 ) + " ms, " + ( count * 1000000000L / nanos ) + " GeoObjects/s";
+  }
+}
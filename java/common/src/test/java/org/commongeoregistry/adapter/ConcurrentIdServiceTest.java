@@ -0,0 +1,149 @@
+package org.commongeoregistry.adapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.commongeoregistry.adapter.id.AdapterIdServiceIF;
+import org.commongeoregistry.adapter.id.ConcurrentIdService;
+import org.commongeoregistry.adapter.id.EmptyIdCacheException;
+import org.commongeoregistry.adapter.id.MemoryOnlyIdService;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrentIdServiceTest
+{
+  @Test
+  public void testConcurrentIdService() throws Exception
+  {
+    MockUidConnector connector = new MockUidConnector(0);
+    ConcurrentIdService idService = new ConcurrentIdService();
+    new HttpRegistryClient(connector, idService);
+    
+    int creators = 8;
+    int perCreator = 500;
+    
+    // Several populates leave several blocks in the cache
+    for (int i = 1; i <= 10; i++)
+    {
+      idService.populate(i * creators * perCreator / 10);
+    }
+    
+    Assert.assertEquals(creators * perCreator, idService.size());
+    
+    Set<String> ids = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    ExecutorService executor = Executors.newFixedThreadPool(creators);
+    
+    try
+    {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      
+      // Half the creators take single ids, the others blocks which span the ends of the populated blocks
+      for (int i = 0; i < creators; i++)
+      {
+        boolean bulk = i % 2 == 0;
+        
+        futures.add(executor.submit(() ->
+        {
+          for (int j = 0; j < perCreator; j += bulk ? 25 : 1)
+          {
+            if (bulk)
+            {
+              List<String> block = idService.next(25);
+              
+              Assert.assertEquals(25, block.size());
+              
+              ids.addAll(block);
+            }
+            else
+            {
+              ids.add(idService.next());
+            }
+          }
+        }));
+      }
+      
+      for (Future<?> future : futures)
+      {
+        future.get();
+      }
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+    
+    // Every id is handed out once
+    Assert.assertEquals(creators * perCreator, ids.size());
+    Assert.assertEquals(0, idService.size());
+    Assert.assertEquals(10, connector.getRequests());
+    
+    // A bulk request larger than the cache leaves it untouched
+    idService.populate(30);
+    idService.populate(60);
+    
+    try
+    {
+      idService.next(61);
+      
+      Assert.fail("Expected an EmptyIdCacheException");
+    }
+    catch (EmptyIdCacheException e)
+    {
+      Assert.assertEquals(60, idService.size());
+    }
+    
+    Assert.assertEquals(60, new HashSet<String>(idService.next(60)).size());
+    
+    // The same holds for the id service with a lock
+    MemoryOnlyIdService memoryOnly = new MemoryOnlyIdService();
+    new HttpRegistryClient(connector, memoryOnly);
+    memoryOnly.populate(60);
+    
+    try
+    {
+      memoryOnly.next(61);
+      
+      Assert.fail("Expected an EmptyIdCacheException");
+    }
+    catch (EmptyIdCacheException e)
+    {
+      Assert.assertEquals(60, memoryOnly.size());
+    }
+    
+    Assert.assertEquals(60, new HashSet<String>(memoryOnly.next(60)).size());
+    Assert.assertEquals(0, memoryOnly.size());
+    
+    // Id services written before next(int) existed keep compiling, without taking ids they cannot give back
+    AdapterIdServiceIF legacy = new AdapterIdServiceIF()
+    {
+      @Override
+      public void populate(int size)
+      {
+      }
+      
+      @Override
+      public String next() throws EmptyIdCacheException
+      {
+        return "ID";
+      }
+    };
+    
+    try
+    {
+      legacy.next(2);
+      
+      Assert.fail("Expected an UnsupportedOperationException");
+    }
+    catch (UnsupportedOperationException e)
+    {
+      // Expected
+    }
+  }
+}
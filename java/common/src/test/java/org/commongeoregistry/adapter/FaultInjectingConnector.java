@@ -0,0 +1,146 @@
+package org.commongeoregistry.adapter;
+
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.commongeoregistry.adapter.http.Connector;
+import org.commongeoregistry.adapter.http.HttpResponse;
+
+/**
+ * Stand-in {@link Connector} which answers requests with scripted outcomes: a delay or a latch followed by a response or
+ * by an exception. Requests beyond the script are answered immediately with the default body and status 200.
+ */
+public class FaultInjectingConnector implements Connector
+{
+  private static class Outcome
+  {
+    private long           delay;
+
+    private int            status;
+
+    private String         body;
+
+    private CountDownLatch latch;
+
+    private Outcome(long delay, int status, String body)
+    {
+      this.delay = delay;
+      this.status = status;
+      this.body = body;
+    }
+  }
+
+  private LinkedList<Outcome> outcomes;
+
+  private String              body;
+
+  private AtomicInteger       requests;
+
+  private AtomicInteger       interrupted;
+
+  public FaultInjectingConnector(String body)
+  {
+    this.outcomes = new LinkedList<Outcome>();
+    this.body = body;
+    this.requests = new AtomicInteger();
+    this.interrupted = new AtomicInteger();
+  }
+
+  /**
+   * Answers the next request with the given status and body after the given delay in milliseconds.
+   */
+  public synchronized FaultInjectingConnector respond(long delay, int status, String body)
+  {
+    this.outcomes.add(new Outcome(delay, status, body));
+
+    return this;
+  }
+
+  /**
+   * Answers the next request with the given status and body once the latch is released.
+   */
+  public synchronized FaultInjectingConnector respond(CountDownLatch latch, int status, String body)
+  {
+    Outcome outcome = new Outcome(0, status, body);
+    outcome.latch = latch;
+
+    this.outcomes.add(outcome);
+
+    return this;
+  }
+
+  /**
+   * Fails the next request after the given delay in milliseconds, as a connection failure would.
+   */
+  public synchronized FaultInjectingConnector fail(long delay)
+  {
+    this.outcomes.add(new Outcome(delay, -1, null));
+
+    return this;
+  }
+
+  public int getRequests()
+  {
+    return this.requests.get();
+  }
+
+  /**
+   * Returns the number of requests which were interrupted while waiting, cancelled by the caller.
+   */
+  public int getInterrupted()
+  {
+    return this.interrupted.get();
+  }
+
+  @Override
+  public HttpResponse httpGet(String url, Map<String, String> params)
+  {
+    return this.next();
+  }
+
+  @Override
+  public HttpResponse httpPost(String url, String body)
+  {
+    return this.next();
+  }
+
+  private HttpResponse next()
+  {
+    this.requests.incrementAndGet();
+
+    Outcome outcome;
+
+    synchronized (this)
+    {
+      outcome = this.outcomes.isEmpty() ? new Outcome(0, 200, this.body) : this.outcomes.removeFirst();
+    }
+
+    try
+    {
+      if (outcome.delay > 0)
+      {
+        Thread.sleep(outcome.delay);
+      }
+
+      if (outcome.latch != null)
+      {
+        outcome.latch.await();
+      }
+    }
+    catch (InterruptedException e)
+    {
+      this.interrupted.incrementAndGet();
+
+      throw new RuntimeException(e);
+    }
+
+    if (outcome.status == -1)
+    {
+      throw new RuntimeException("Connection reset");
+    }
+
+    return new HttpResponse(outcome.body, outcome.status);
+  }
+}
@@ -0,0 +1,88 @@
+package org.commongeoregistry.adapter;
+
+import java.io.File;
+
+import org.commongeoregistry.adapter.id.FileIdService;
+import org.commongeoregistry.adapter.id.MemoryOnlyIdService;
+
+/**
+ * Measures the {@link FileIdService}: the time to the first id after a restart compared to a {@link MemoryOnlyIdService}
+ * which has to request its ids again, and the time per id for different claim sizes, each claim being forced to disk.
+ * The UID end point is the {@link MockUidConnector}. Not run as part of the unit tests, launch the main method
+ * directly. The optional arguments are the number of ids in the pool and the simulated round trip in milliseconds.
+ */
+public class FileIdServiceBenchmark
+{
+  private static final int[] CLAIM_SIZES = new int[] { 1, 10, 100, 1000 };
+
+  public static void main(String[] args) throws Exception
+  {
+    int pool = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    int latency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+    File file = File.createTempFile("ids", ".pool");
+    file.delete();
+
+    try
+    {
+      try (FileIdService idService = new FileIdService(file))
+      {
+        new HttpRegistryClient(new MockUidConnector(0), idService);
+        idService.populate(pool);
+      }
+
+      System.out.println("Pool: " + pool + " ids, round trip: " + latency + " ms");
+
+      // Restart
+      long start = System.nanoTime();
+
+      try (FileIdService idService = new FileIdService(file))
+      {
+        idService.next();
+
+        System.out.println("First id, file pool:      " + millis(System.nanoTime() - start) + " ms");
+      }
+
+      start = System.nanoTime();
+
+      MemoryOnlyIdService memoryOnly = new MemoryOnlyIdService();
+      new HttpRegistryClient(new MockUidConnector(latency), memoryOnly);
+      memoryOnly.populate(pool);
+      memoryOnly.next();
+
+      System.out.println("First id, memory pool:    " + millis(System.nanoTime() - start) + " ms");
+
+      // Claims
+      for (int claimSize : CLAIM_SIZES)
+      {
+        file.delete();
+
+        try (FileIdService idService = new FileIdService(file, claimSize))
+        {
+          new HttpRegistryClient(new MockUidConnector(0), idService);
+          idService.populate(pool);
+
+          int count = Math.min(pool, claimSize * 500);
+          start = System.nanoTime();
+
+          for (int i = 0; i < count; i++)
+          {
+            idService.next();
+          }
+
+          System.out.println(String.format("Claim size %4d:          %8.0f ns/id", claimSize, (double) ( System.nanoTime() - start ) / count));
+        }
+      }
+    }
+    finally
+    {
+      new File(file.getPath() + ".lock").delete();
+      file.delete();
+    }
+  }
+
+  private static String millis(long nanos)
+  {
+    return String.format("%.1f", nanos / 1000000d);
+  }
+}
@@ -0,0 +1,112 @@
+package org.commongeoregistry.adapter;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.commongeoregistry.adapter.id.FileIdService;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FileIdServiceTest
+{
+
+  @Test
+  public void testFileIdService() throws Exception
+  {
+    MockUidConnector connector = new MockUidConnector(0);
+    
+    File file = File.createTempFile("ids", ".pool");
+    File copy = new File(file.getPath() + ".copy");
+    file.delete();
+    
+    try
+    {
+      Set<String> ids = new HashSet<String>();
+      
+      try (FileIdService idService = new FileIdService(file, 10))
+      {
+        new HttpRegistryClient(connector, idService);
+        idService.populate(100);
+        
+        // Only one service at a time may use the pool
+        try
+        {
+          new FileIdService(file);
+          
+          Assert.fail("Expected an IllegalStateException");
+        }
+        catch (IllegalStateException e)
+        {
+          // Expected
+        }
+        
+        for (int i = 0; i < 25; i++)
+        {
+          ids.add(idService.next());
+        }
+        
+        ids.addAll(idService.next(15));
+        
+        Assert.assertEquals(40, ids.size());
+        Assert.assertEquals(60, idService.size());
+        
+        // A crash loses the rest of the claimed batch, a torn line is dropped
+        ids.add(idService.next());
+        
+        Files.copy(file.toPath(), copy.toPath());
+        Files.write(copy.toPath(), "+torn".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        
+        try (FileIdService crashed = new FileIdService(copy, 10))
+        {
+          Assert.assertEquals(50, crashed.size());
+          
+          for (String id : crashed.next(50))
+          {
+            Assert.assertFalse(ids.contains(id));
+          }
+        }
+      }
+      
+      // A restart resumes from the ids left by a clean shutdown without requesting new ones
+      try (FileIdService idService = new FileIdService(file, 10))
+      {
+        new HttpRegistryClient(connector, idService);
+        
+        Assert.assertEquals(59, idService.size());
+        
+        while (idService.size() > 0)
+        {
+          Assert.assertTrue(ids.add(idService.next()));
+        }
+        
+        Assert.assertEquals(1, connector.getRequests());
+        
+        // Once most ids are handed out the file is rewritten with the rest
+        idService.populate(2000);
+        idService.next(1500);
+        idService.populate(2000);
+        
+        Assert.assertEquals(2000, idService.size());
+      }
+      
+      Assert.assertEquals(2000, Files.readAllLines(file.toPath()).size());
+      
+      try (FileIdService idService = new FileIdService(file, 10))
+      {
+        Assert.assertEquals(2000, idService.size());
+      }
+    }
+    finally
+    {
+      for (File pool : new File[] { file, copy })
+      {
+        new File(pool.getPath() + ".lock").delete();
+        pool.delete();
+      }
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package org.commongeoregistry.adapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.commongeoregistry.adapter.constants.DefaultAttribute;
+import org.commongeoregistry.adapter.dataaccess.Attribute;
+import org.commongeoregistry.adapter.dataaccess.GeoObject;
+import org.commongeoregistry.adapter.metadata.GeoObjectType;
+
+/**
+ * Compares the heap used by GeoObjects storing their values in the slots of their type against the previous storage
+ * of one ConcurrentHashMap of {@link Attribute} objects per GeoObject. Not run as part of the unit tests, launch the
+ * main method directly. The optional argument is the number of objects.
+ */
+public class GeoObjectFootprintBenchmark
+{
+  public static void main(String[] args)
+  {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+
+    RegistryAdapterServer registry = new RegistryAdapterServer(new MockIdService());
+    TestFixture.defineExampleHierarchies(registry);
+
+    GeoObjectType province = registry.getMetadataCache().getGeoObjectType(TestFixture.PROVINCE).get();
+
+    System.out.println("Objects: " + count + ", attributes per object: " + province.getAttributeMap().size());
+
+    long baseline = usedMemory();
+
+    List<Map<String, Attribute>> maps = new ArrayList<Map<String, Attribute>>(count);
+
+    for (int i = 0; i < count; i++)
+    {
+      Map<String, Attribute> map = GeoObject.buildAttributeMap(province);
+      map.get(DefaultAttribute.TYPE.getName()).setValue(province.getCode());
+      map.get(GeoObject.CODE).setValue("CODE_" + i);
+
+      maps.add(map);
+    }
+
+    long legacy = usedMemory() - baseline;
+    maps = null;
+
+    baseline = usedMemory();
+
+    GeoObject[] objects = new GeoObject[count];
+
+    for (int i = 0; i < count; i++)
+    {
+      objects[i] = new GeoObject(province, province.getGeometryType(), registry.getMetadataCache().getGeoObjectCodec(province));
+      objects[i].setCode("CODE_" + i);
+    }
+
+    long slots = usedMemory() - baseline;
+
+    System.out.println("Attribute map per object: " + ( legacy / count ) + " bytes/object");
+    System.out.println("Value slots per object:   " + ( slots / count ) + " bytes/object");
+
+    // Keep the objects reachable until they have been measured
+    System.out.println(objects.length);
+  }
+
+  private static long usedMemory()
+  {
+    Runtime runtime = Runtime.getRuntime();
+
+    for (int i = 0; i < 3; i++)
+    {
+      System.gc();
+    }
+
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
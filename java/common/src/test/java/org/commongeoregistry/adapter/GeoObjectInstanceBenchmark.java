@@ -0,0 +1,103 @@
+package org.commongeoregistry.adapter;
+
+import java.util.Map;
+
+import org.commongeoregistry.adapter.constants.DefaultAttribute;
+import org.commongeoregistry.adapter.constants.DefaultTerms.GeoObjectStatusTerm;
+import org.commongeoregistry.adapter.dataaccess.Attribute;
+import org.commongeoregistry.adapter.dataaccess.GeoObject;
+import org.commongeoregistry.adapter.metadata.GeoObjectType;
+
+/**
+ * Compares {@link RegistryAdapter#newGeoObjectInstance(String)}, which copies the prototype cached for the type,
+ * against the previous implementation which looked up the type and the NEW status and built the attributes of every
+ * instance. The decode path, which does not take a uid from the id service, is measured separately. Not run as part of the unit tests, launch the main method directly. The optional argument is the number of
+ * instances per iteration.
+ */
+public class GeoObjectInstanceBenchmark
+{
+  public static void main(String[] args)
+  {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+    int iterations = 50;
+
+    MockIdService idService = new MockIdService();
+    RegistryAdapterServer registry = new RegistryAdapterServer(idService);
+    TestFixture.defineExampleHierarchies(registry);
+
+    for (int i = 0; i < 3; i++)
+    {
+      idService.populate(count);
+      legacy(registry, count);
+
+      idService.populate(count);
+      prototype(registry, count, true);
+
+      prototype(registry, count, false);
+    }
+
+    long legacy = 0;
+    long prototype = 0;
+    long decode = 0;
+
+    for (int i = 0; i < iterations; i++)
+    {
+      idService.populate(count);
+
+      long start = System.nanoTime();
+      legacy(registry, count);
+      legacy += System.nanoTime() - start;
+
+      idService.populate(count);
+
+      start = System.nanoTime();
+      prototype(registry, count, true);
+      prototype += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      prototype(registry, count, false);
+      decode += System.nanoTime() - start;
+    }
+
+    System.out.println("Instances: " + count);
+    System.out.println("Attribute map + lookups: " + ( (long) count * iterations * 1000000000L / legacy ) + " ops/s");
+    System.out.println("Prototype:               " + ( (long) count * iterations * 1000000000L / prototype ) + " ops/s");
+    System.out.println("Prototype, no uid:       " + ( (long) count * iterations * 1000000000L / decode ) + " ops/s");
+  }
+
+  private static void legacy(RegistryAdapter registry, int count)
+  {
+    for (int i = 0; i < count; i++)
+    {
+      legacyNewGeoObjectInstance(registry, TestFixture.PROVINCE);
+    }
+  }
+
+  private static void prototype(RegistryAdapter registry, int count, boolean generateUid)
+  {
+    for (int i = 0; i < count; i++)
+    {
+      registry.newGeoObjectInstance(TestFixture.PROVINCE, generateUid);
+    }
+  }
+
+  /**
+   * The factory method as it was implemented before the prototype.
+   */
+  private static GeoObject legacyNewGeoObjectInstance(RegistryAdapter registry, String geoObjectTypeCode)
+  {
+    GeoObjectType geoObjectType = registry.getMetadataCache().getGeoObjectType(geoObjectTypeCode).get();
+
+    Map<String, Attribute> attributeMap = GeoObject.buildAttributeMap(geoObjectType);
+
+    GeoObject geoObject = new GeoObject(geoObjectType, geoObjectType.getGeometryType(), attributeMap);
+
+    Term newStatus = registry.getMetadataCache().getTerm(GeoObjectStatusTerm.NEW.code).get();
+    geoObject.getAttribute(DefaultAttribute.STATUS.getName()).setValue(newStatus);
+
+    String uid = registry.getIdSerivce().next();
+    geoObject.setUid(uid);
+
+    return geoObject;
+  }
+}
@@ -0,0 +1,109 @@
+package org.commongeoregistry.adapter;
+
+import org.commongeoregistry.adapter.json.GeoJSONCodec;
+import org.commongeoregistry.adapter.json.JsonStreams;
+import org.wololo.jts2geojson.GeoJSONReader;
+import org.wololo.jts2geojson.GeoJSONWriter;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+/**
+ * Compares the {@link GeoJSONCodec} against the previous geometry path which converted between jts2geojson and Gson
+ * through an intermediate JSON string. Not run as part of the unit tests, launch the main method directly. The
+ * optional arguments are the number of vertices in the polygon and the number of iterations.
+ */
+public class GeometryCodecBenchmark
+{
+  public static void main(String[] args)
+  {
+    int vertices = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+    int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+    Geometry polygon = buildPolygon(vertices);
+    String json = JsonStreams.toString(writer -> GeoJSONCodec.write(polygon, writer));
+
+    System.out.println("Vertices: " + vertices + ", geometry size: " + ( json.length() / 1024 ) + " KB");
+
+    for (int i = 0; i < 5; i++)
+    {
+      legacyWrite(polygon);
+      JsonStreams.toString(writer -> GeoJSONCodec.write(polygon, writer));
+      legacyRead(json);
+      JsonStreams.read(json, GeoJSONCodec::read);
+    }
+
+    long legacyWrite = 0;
+    long codecWrite = 0;
+    long legacyRead = 0;
+    long codecRead = 0;
+
+    for (int i = 0; i < iterations; i++)
+    {
+      long start = System.nanoTime();
+      legacyWrite(polygon);
+      legacyWrite += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      JsonStreams.toString(writer -> GeoJSONCodec.write(polygon, writer));
+      codecWrite += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      legacyRead(json);
+      legacyRead += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      JsonStreams.read(json, GeoJSONCodec::read);
+      codecRead += System.nanoTime() - start;
+    }
+
+    System.out.println("Write, jts2geojson + re-parse: " + ( legacyWrite / iterations / 1000 ) + " us/op");
+    System.out.println("Write, codec:                  " + ( codecWrite / iterations / 1000 ) + " us/op");
+    System.out.println("Read, jts2geojson + toString:  " + ( legacyRead / iterations / 1000 ) + " us/op");
+    System.out.println("Read, codec:                   " + ( codecRead / iterations / 1000 ) + " us/op");
+  }
+
+  private static Geometry buildPolygon(int vertices)
+  {
+    Coordinate[] shell = new Coordinate[vertices + 1];
+
+    for (int i = 0; i < vertices; i++)
+    {
+      double angle = 2 * Math.PI * i / vertices;
+      double radius = 1 + 0.1 * Math.sin(angle * 40);
+
+      shell[i] = new Coordinate(32.58 + radius * Math.cos(angle), 0.31 + radius * Math.sin(angle));
+    }
+
+    shell[vertices] = new Coordinate(shell[0]);
+
+    GeometryFactory factory = new GeometryFactory();
+
+    return factory.createPolygon(factory.createLinearRing(shell), null);
+  }
+
+  /**
+   * The geometry writer as it was implemented before the codec.
+   */
+  private static String legacyWrite(Geometry geometry)
+  {
+    org.wololo.geojson.Geometry gJSON = new GeoJSONWriter().write(geometry);
+
+    JsonElement geomObj = new JsonParser().parse(gJSON.toString());
+
+    return geomObj.toString();
+  }
+
+  /**
+   * The geometry reader as it was implemented before the codec.
+   */
+  private static Geometry legacyRead(String json)
+  {
+    JsonElement oGeom = new JsonParser().parse(json);
+
+    return new GeoJSONReader().read(oGeom.toString());
+  }
+}
@@ -0,0 +1,139 @@
+package org.commongeoregistry.adapter;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.commongeoregistry.adapter.constants.RegistryUrls;
+import org.commongeoregistry.adapter.dataaccess.GeoObject;
+import org.commongeoregistry.adapter.http.AbstractHttpConnector;
+import org.commongeoregistry.adapter.http.Connector;
+import org.commongeoregistry.adapter.http.PooledHttpConnector;
+import org.commongeoregistry.adapter.json.JsonStreams;
+
+/**
+ * Compares {@link AbstractHttpConnector}, which disconnects after every request, against {@link PooledHttpConnector}
+ * on a local {@link MockHttpServer} returning a list of GeoObjects. Reports requests per second, the 99th percentile
+ * latency, the number of new connections the server saw and the response bytes sent. The request logging of
+ * {@link AbstractHttpConnector} is discarded so that only the transport is compared. Not run as part of the unit tests,
+ * launch the main method directly. The optional arguments are the number of client threads and the number of requests
+ * per thread.
+ */
+public class HttpConnectorBenchmark
+{
+  public static void main(String[] args) throws Exception
+  {
+    int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+    int requests = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+    // Keep an idle connection per client thread alive
+    System.setProperty("http.maxConnections", Integer.toString(threads));
+
+    PrintStream out = System.out;
+    System.setOut(new PrintStream(new OutputStream()
+    {
+      @Override
+      public void write(int b)
+      {
+      }
+    }));
+
+    RegistryAdapterServer registry = new RegistryAdapterServer(new MockIdService());
+    TestFixture.defineExampleHierarchies(registry);
+
+    String json = JsonStreams.toString(writer ->
+    {
+      writer.beginArray();
+
+      for (int i = 0; i < 50; i++)
+      {
+        GeoObject geoObject = TestFixture.createGeoObject(registry, "GO_" + i, TestFixture.PROVINCE);
+        geoObject.writeTo(writer);
+      }
+
+      writer.endArray();
+    });
+
+    try (MockHttpServer server = new MockHttpServer(json, threads))
+    {
+      AbstractHttpConnector legacy = new AbstractHttpConnector()
+      {
+      };
+      legacy.setServerUrl(server.getServerUrl());
+
+      PooledHttpConnector pooled = new PooledHttpConnector(threads);
+      pooled.setServerUrl(server.getServerUrl());
+
+      // Warm up
+      run(legacy, threads, requests / 5);
+      run(pooled, threads, requests / 5);
+
+      int before = server.getConnections();
+      long bytes = server.getBytes();
+      long[] legacyResult = run(legacy, threads, requests);
+      int legacyConnections = server.getConnections() - before;
+      long legacyBytes = ( server.getBytes() - bytes ) / ( threads * requests );
+
+      before = server.getConnections();
+      bytes = server.getBytes();
+      long[] pooledResult = run(pooled, threads, requests);
+      int pooledConnections = server.getConnections() - before;
+      long pooledBytes = ( server.getBytes() - bytes ) / ( threads * requests );
+
+      out.println("Threads: " + threads + ", requests per thread: " + requests + ", response: " + json.length() + " chars");
+      out.println("AbstractHttpConnector: " + legacyResult[0] + " req/s, p99 " + legacyResult[1] + " us, " + legacyConnections + " new connections, " + legacyBytes + " bytes per response");
+      out.println("PooledHttpConnector:   " + pooledResult[0] + " req/s, p99 " + pooledResult[1] + " us, " + pooledConnections + " new connections, " + pooledBytes + " bytes per response");
+    }
+  }
+
+  /**
+   * Sends the given number of requests from each thread.
+   *
+   * @return requests per second and the 99th percentile latency in microseconds.
+   */
+  private static long[] run(Connector connector, int threads, int requests) throws Exception
+  {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    long[] latencies = new long[threads * requests];
+
+    try
+    {
+      Future<?>[] futures = new Future<?>[threads];
+      long start = System.nanoTime();
+
+      for (int t = 0; t < threads; t++)
+      {
+        int offset = t * requests;
+
+        futures[t] = executor.submit(() ->
+        {
+          for (int i = 0; i < requests; i++)
+          {
+            long begin = System.nanoTime();
+            connector.httpGet(RegistryUrls.GEO_OBJECT_GET_CHILDREN, Collections.singletonMap(RegistryUrls.GEO_OBJECT_GET_CHILDREN_PARAM_PARENTID, "GO_" + i));
+            latencies[offset + i] = System.nanoTime() - begin;
+          }
+        });
+      }
+
+      for (Future<?> future : futures)
+      {
+        future.get();
+      }
+
+      long elapsed = System.nanoTime() - start;
+
+      Arrays.sort(latencies);
+
+      return new long[] { latencies.length * 1000000000L / elapsed, latencies[(int) ( latencies.length * 0.99 )] / 1000 };
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+  }
+}
@@ -1,21 +1,50 @@
 package org.commongeoregistry.adapter;
 
+import java.io.File;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.commongeoregistry.adapter.constants.DefaultTerms.GeoObjectStatusTerm;
 import org.commongeoregistry.adapter.constants.GeometryType;
 import org.commongeoregistry.adapter.constants.RegistryUrls;
 import org.commongeoregistry.adapter.dataaccess.ChildTreeNode;
 import org.commongeoregistry.adapter.dataaccess.GeoObject;
+import org.commongeoregistry.adapter.dataaccess.GeoObjectCache;
 import org.commongeoregistry.adapter.dataaccess.ParentTreeNode;
+import org.commongeoregistry.adapter.http.AsyncConnector;
+import org.commongeoregistry.adapter.http.CoalescingConnector;
+import org.commongeoregistry.adapter.http.Connector;
 import org.commongeoregistry.adapter.http.HttpResponse;
+import org.commongeoregistry.adapter.http.PooledHttpConnector;
 import org.commongeoregistry.adapter.http.ResponseException;
-import org.commongeoregistry.adapter.id.MemoryOnlyIdService;
+import org.commongeoregistry.adapter.json.JsonStreams;
+import org.commongeoregistry.adapter.metadata.AttributeIntegerType;
+import org.commongeoregistry.adapter.metadata.AttributeType;
 import org.commongeoregistry.adapter.metadata.GeoObjectType;
 import org.commongeoregistry.adapter.metadata.HierarchyType;
 import org.commongeoregistry.adapter.metadata.MetadataCache;
 import org.commongeoregistry.adapter.metadata.MetadataFactory;
+import org.commongeoregistry.adapter.metadata.MetadataFingerprint;
+import org.commongeoregistry.adapter.metadata.MetadataSnapshot;
+import org.commongeoregistry.adapter.metrics.MetricsRecorder;
+import org.commongeoregistry.adapter.metrics.RegistryMetrics;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -44,8 +73,8 @@ public class HttpRegistryClientTest
     req2Array.add(locatedIn.toJSON());
 
     MockHttpRequest[] requests = new MockHttpRequest[]{
-        new MockHttpRequest(new HttpResponse(req1Array.toString(), 200)),
-        new MockHttpRequest(new HttpResponse(req2Array.toString(), 200))
+        new MockHttpRequest(RegistryUrls.GEO_OBJECT_TYPE_GET_ALL, new HttpResponse(req1Array.toString(), 200)),
+        new MockHttpRequest(RegistryUrls.HIERARCHY_TYPE_GET_ALL, new HttpResponse(req2Array.toString(), 200))
     };
     MockHttpConnector connector = new MockHttpConnector(requests);
 
@@ -55,8 +84,8 @@ public class HttpRegistryClientTest
     HttpRegistryClient client = new HttpRegistryClient(connector);
     client.refreshMetadataCache();
 
-    MockHttpRequest req1 = connector.getRequests().get(0);
-    MockHttpRequest req2 = connector.getRequests().get(1);
+    MockHttpRequest req1 = requests[0];
+    MockHttpRequest req2 = requests[1];
     
     /*
      * Validate request
@@ -95,11 +124,382 @@ public class HttpRegistryClientTest
     Assert.assertEquals(locatedIn.getLocalizedLabel(), htCache.getLocalizedLabel());
   }
 
+  @Test
+  public void testRefreshMetadataCacheSnapshot()
+  {
+    RegistryAdapterServer registry = new RegistryAdapterServer(new MockIdService());
+    GeoObjectType state = MetadataFactory.newGeoObjectType("State", GeometryType.POLYGON, "State", "", false, registry);
+    HierarchyType locatedIn = MetadataFactory.newHierarchyType("LocatedIn", "LOCATED_IN_LABEL", "LOCATED_IN_DESCRIPTION", registry);
+    locatedIn.addRootGeoObjects(new HierarchyType.HierarchyNode(state));
+
+    JsonArray types = new JsonArray();
+    types.add(state.toJSON());
+    
+    JsonArray hierarchies = new JsonArray();
+    hierarchies.add(locatedIn.toJSON());
+
+    MockHttpConnector connector = new MockHttpConnector(new MockHttpRequest[]{
+        new MockHttpRequest(RegistryUrls.GEO_OBJECT_TYPE_GET_ALL, new HttpResponse(types.toString(), 200)),
+        new MockHttpRequest(RegistryUrls.HIERARCHY_TYPE_GET_ALL, new HttpResponse(hierarchies.toString(), 200)),
+        new MockHttpRequest(RegistryUrls.GEO_OBJECT_TYPE_GET_ALL, new HttpResponse(types.toString(), 200)),
+        new MockHttpRequest(RegistryUrls.HIERARCHY_TYPE_GET_ALL, new HttpResponse(new JsonArray().toString(), 400))
+    });
+
+    HttpRegistryClient client = new HttpRegistryClient(connector);
+    MetadataSnapshot before = client.getMetadataCache().getSnapshot();
+    
+    client.refreshMetadataCache();
+    
+    // Readers holding the previous snapshot are not affected by the refresh
+    MetadataSnapshot after = client.getMetadataCache().getSnapshot();
+    Assert.assertNull(before.getGeoObjectType(state.getCode()));
+    Assert.assertTrue(after.getVersion() > before.getVersion());
+    Assert.assertFalse(client.getMetadataCache().getGeoObjectType("Unknown").isPresent());
+    
+    // The hierarchy references the type of the same refresh
+    GeoObjectType refreshed = after.getGeoObjectType(state.getCode());
+    Assert.assertNotNull(refreshed);
+    Assert.assertSame(refreshed, after.getHierarchyType(locatedIn.getCode()).getRootGeoObjectTypes().get(0).getGeoObjectType());
+    Assert.assertNotNull(client.newGeoObjectInstance(state.getCode(), false).getStatus());
+    
+    // A failed refresh leaves the cache unchanged
+    try
+    {
+      client.refreshMetadataCache();
+      
+      Assert.fail("Expected a ResponseException");
+    }
+    catch (ResponseException e)
+    {
+      // Expected
+    }
+    
+    Assert.assertSame(after, client.getMetadataCache().getSnapshot());
+  }
+
+  @Test
+  public void testConditionalRefreshMetadataCache()
+  {
+    RegistryAdapterServer registry = new RegistryAdapterServer(new MockIdService());
+    TestFixture.defineExampleHierarchies(registry);
+    
+    MockRegistryServer server = new MockRegistryServer(registry);
+    HttpRegistryClient client = new HttpRegistryClient(server);
+    
+    client.refreshMetadataCache();
+    
+    int types = registry.getMetadataCache().getAllGeoObjectTypes().length;
+    int hierarchies = registry.getMetadataCache().getAllHierarchyTypes().length;
+    
+    Assert.assertEquals(types + hierarchies, server.getEntries());
+    Assert.assertEquals(types, client.getMetadataCache().getSnapshot().getGeoObjectTypeFingerprints().size());
+    Assert.assertEquals(hierarchies, client.getMetadataCache().getSnapshot().getHierarchyTypeFingerprints().size());
+    
+    // Nothing changed: no metadata is transferred, parsed or published
+    MetadataSnapshot snapshot = client.getMetadataCache().getSnapshot();
+    server.resetCounts();
+    
+    client.refreshMetadataCache();
+    
+    Assert.assertEquals(2, server.getRequests());
+    Assert.assertEquals(0, server.getBytes());
+    Assert.assertEquals(0, server.getEntries());
+    Assert.assertSame(snapshot, client.getMetadataCache().getSnapshot());
+    
+    // Change one type, add one type and remove one hierarchy
+    registry.getMetadataCache().getGeoObjectType(TestFixture.PROVINCE).get().addAttribute(AttributeType.factory("population", "Population", "", AttributeIntegerType.TYPE));
+    MetadataFactory.newGeoObjectType("State", GeometryType.POLYGON, "State", "", false, registry);
+    registry.getMetadataCache().removeHierarchyType(TestFixture.HEALTH_ADMINISTRATIVE);
+    server.resetCounts();
+    
+    client.refreshMetadataCache();
+    
+    Assert.assertEquals(2, server.getEntries());
+    
+    MetadataCache cache = client.getMetadataCache();
+    GeoObjectType province = cache.getGeoObjectType(TestFixture.PROVINCE).get();
+    Assert.assertTrue(province.getAttribute("population").isPresent());
+    Assert.assertTrue(cache.getGeoObjectType("State").isPresent());
+    Assert.assertSame(snapshot.getGeoObjectType(TestFixture.DISTRICT), cache.getGeoObjectType(TestFixture.DISTRICT).get());
+    Assert.assertFalse(cache.getHierachyType(TestFixture.HEALTH_ADMINISTRATIVE).isPresent());
+    
+    // The unchanged hierarchy references the refreshed types
+    HierarchyType geoPolitical = cache.getHierachyType(TestFixture.GEOPOLITICAL).get();
+    Assert.assertSame(province, geoPolitical.getRootGeoObjectTypes().get(0).getGeoObjectType());
+    
+    server.resetCounts();
+    client.refreshMetadataCache();
+    Assert.assertEquals(0, server.getBytes());
+    
+    // A registry without the updates end point is asked for all entries
+    AtomicInteger posts = new AtomicInteger();
+    
+    Connector legacy = new Connector()
+    {
+      @Override
+      public HttpResponse httpGet(String url, Map<String, String> params)
+      {
+        return server.httpGet(url, params);
+      }
+      
+      @Override
+      public HttpResponse httpPost(String url, String body)
+      {
+        posts.incrementAndGet();
+        
+        return new HttpResponse("", HttpURLConnection.HTTP_NOT_FOUND);
+      }
+    };
+    
+    HttpRegistryClient legacyClient = new HttpRegistryClient(legacy);
+    legacyClient.refreshMetadataCache();
+    server.resetCounts();
+    legacyClient.refreshMetadataCache();
+    
+    Assert.assertEquals(registry.getMetadataCache().getAllGeoObjectTypes().length + registry.getMetadataCache().getAllHierarchyTypes().length, server.getEntries());
+    Assert.assertTrue(legacyClient.getMetadataCache().getGeoObjectType("State").isPresent());
+    
+    // The updates end point is only tried again once the retry interval has passed
+    int attempts = posts.get();
+    Assert.assertTrue(attempts > 0);
+    
+    legacyClient.refreshMetadataCache();
+    Assert.assertEquals(attempts, posts.get());
+    
+    legacyClient.setUpdatesRetryInterval(0);
+    legacyClient.refreshMetadataCache();
+    Assert.assertTrue(posts.get() > attempts);
+  }
+
+  @Test
+  public void testConcurrentRefreshMetadataCache() throws Exception
+  {
+    RegistryAdapterServer registry = new RegistryAdapterServer(new MockIdService());
+    TestFixture.defineExampleHierarchies(registry);
+    
+    for (int i = 0; i < JsonStreams.PARALLEL_DECODE_THRESHOLD; i++)
+    {
+      MetadataFactory.newGeoObjectType("TYPE_" + i, GeometryType.POLYGON, "Type " + i, "", false, registry);
+    }
+    
+    MockRegistryServer server = new MockRegistryServer(registry);
+    CountDownLatch hierarchies = new CountDownLatch(1);
+    
+    // The types are only answered once the hierarchies have been requested as well
+    Connector connector = new Connector()
+    {
+      @Override
+      public HttpResponse httpGet(String url, Map<String, String> params)
+      {
+        if (url.equals(RegistryUrls.HIERARCHY_TYPE_GET_ALL))
+        {
+          hierarchies.countDown();
+        }
+        else
+        {
+          try
+          {
+            Assert.assertTrue(hierarchies.await(10, TimeUnit.SECONDS));
+          }
+          catch (InterruptedException e)
+          {
+            throw new RuntimeException(e);
+          }
+        }
+        
+        return server.httpGet(url, params);
+      }
+      
+      @Override
+      public HttpResponse httpPost(String url, String body)
+      {
+        return server.httpPost(url, body);
+      }
+    };
+    
+    HttpRegistryClient client = new HttpRegistryClient(connector);
+    client.refreshMetadataCache();
+    
+    MetadataCache cache = client.getMetadataCache();
+    
+    Assert.assertEquals(registry.getMetadataCache().getAllGeoObjectTypes().length, cache.getAllGeoObjectTypes().length);
+    Assert.assertEquals(registry.getMetadataCache().getAllHierarchyTypes().length, cache.getAllHierarchyTypes().length);
+    Assert.assertTrue(cache.getGeoObjectType("TYPE_0").isPresent());
+    
+    // The hierarchies reference the types of the same refresh
+    GeoObjectType province = cache.getGeoObjectType(TestFixture.PROVINCE).get();
+    Assert.assertSame(province, cache.getHierachyType(TestFixture.GEOPOLITICAL).get().getRootGeoObjectTypes().get(0).getGeoObjectType());
+  }
+
+  @Test
+  public void testRefreshMetadataCacheExecutor() throws Exception
+  {
+    RegistryAdapterServer registry = new RegistryAdapterServer(new MockIdService());
+    TestFixture.defineExampleHierarchies(registry);
+    
+    for (int i = 0; i < JsonStreams.PARALLEL_DECODE_THRESHOLD * 4; i++)
+    {
+      MetadataFactory.newGeoObjectType("TYPE_" + i, GeometryType.POLYGON, "Type " + i, "", false, registry);
+    }
+    
+    MockRegistryServer server = new MockRegistryServer(registry);
+    AtomicInteger hierarchyRequests = new AtomicInteger();
+    AtomicBoolean failTypes = new AtomicBoolean();
+    
+    Connector connector = new Connector()
+    {
+      @Override
+      public HttpResponse httpGet(String url, Map<String, String> params)
+      {
+        if (url.equals(RegistryUrls.HIERARCHY_TYPE_GET_ALL))
+        {
+          hierarchyRequests.incrementAndGet();
+        }
+        else if (failTypes.get())
+        {
+          return new HttpResponse("", 500);
+        }
+        
+        return server.httpGet(url, params);
+      }
+      
+      @Override
+      public HttpResponse httpPost(String url, String body)
+      {
+        return server.httpPost(url, body);
+      }
+    };
+    
+    // The types are decoded on the executor of the client, even one with a single busy thread
+    ExecutorService single = Executors.newSingleThreadExecutor();
+    
+    try
+    {
+      HttpRegistryClient client = new HttpRegistryClient(connector);
+      client.setExecutor(single);
+      client.refreshMetadataCache();
+      
+      Assert.assertEquals(registry.getMetadataCache().getAllGeoObjectTypes().length, client.getMetadataCache().getAllGeoObjectTypes().length);
+      Assert.assertEquals(1, hierarchyRequests.get());
+    }
+    finally
+    {
+      single.shutdown();
+    }
+    
+    // A failed type download cancels the hierarchy download which has not started yet
+    List<Runnable> queued = new ArrayList<Runnable>();
+    
+    HttpRegistryClient client = new HttpRegistryClient(connector);
+    client.setExecutor(queued::add);
+    failTypes.set(true);
+    
+    try
+    {
+      client.refreshMetadataCache();
+      
+      Assert.fail("Expected the refresh to fail");
+    }
+    catch (ResponseException e)
+    {
+      // Expected
+    }
+    
+    Assert.assertEquals(1, queued.size());
+    queued.forEach(Runnable::run);
+    Assert.assertEquals(1, hierarchyRequests.get());
+  }
+  
+  @Test
+  public void testMetadataSnapshotFile() throws Exception
+  {
+    RegistryAdapterServer registry = new RegistryAdapterServer(new MockIdService());
+    TestFixture.defineExampleHierarchies(registry);
+    
+    MockRegistryServer server = new MockRegistryServer(registry);
+    
+    File file = File.createTempFile("metadata", ".snapshot");
+    file.delete();
+    
+    try
+    {
+      // No snapshot yet: the cache is refreshed before returning and then saved
+      HttpRegistryClient first = new HttpRegistryClient(server);
+      first.refreshMetadataCache(file, Runnable::run).get();
+      
+      Assert.assertTrue(file.exists());
+      
+      MetadataSnapshot expected = first.getMetadataCache().getSnapshot();
+      
+      // The next start is served from the file and revalidated in the background
+      server.resetCounts();
+      
+      HttpRegistryClient client = new HttpRegistryClient(server);
+      CountDownLatch revalidate = new CountDownLatch(1);
+      
+      CompletableFuture<Void> future = client.refreshMetadataCache(file, command -> new Thread(() ->
+      {
+        try
+        {
+          revalidate.await();
+        }
+        catch (InterruptedException e)
+        {
+          throw new RuntimeException(e);
+        }
+        
+        command.run();
+      }).start());
+      
+      Assert.assertEquals(0, server.getRequests());
+      
+      MetadataSnapshot actual = client.getMetadataCache().getSnapshot();
+      
+      Assert.assertEquals(expected.getGeoObjectTypeFingerprints(), actual.getGeoObjectTypeFingerprints());
+      Assert.assertEquals(expected.getHierarchyTypeFingerprints(), actual.getHierarchyTypeFingerprints());
+      
+      for (GeoObjectType geoObjectType : expected.getGeoObjectTypes())
+      {
+        Assert.assertEquals(MetadataFingerprint.of(geoObjectType), MetadataFingerprint.of(actual.getGeoObjectType(geoObjectType.getCode())));
+      }
+      
+      for (HierarchyType hierarchyType : expected.getHierarchyTypes())
+      {
+        Assert.assertEquals(hierarchyType.toJSON(), actual.getHierarchyType(hierarchyType.getCode()).toJSON());
+      }
+      
+      // Terms are linked and the loaded hierarchies reference the loaded types
+      Term root = actual.getTerm(GeoObjectStatusTerm.ROOT.code);
+      Assert.assertEquals(expected.getTerm(GeoObjectStatusTerm.ROOT.code).getChildren().size(), root.getChildren().size());
+      
+      GeoObjectType province = actual.getGeoObjectType(TestFixture.PROVINCE);
+      Assert.assertSame(province, actual.getHierarchyType(TestFixture.GEOPOLITICAL).getRootGeoObjectTypes().get(0).getGeoObjectType());
+      
+      GeoObject geoObject = client.newGeoObjectInstance(TestFixture.PROVINCE, false);
+      Assert.assertEquals(GeoObjectStatusTerm.NEW.code, geoObject.getStatus().getCode());
+      
+      // Nothing changed on the registry: the revalidation transfers nothing and keeps the file
+      long modified = file.lastModified();
+      
+      revalidate.countDown();
+      future.get();
+      
+      Assert.assertEquals(2, server.getRequests());
+      Assert.assertEquals(0, server.getBytes());
+      Assert.assertSame(actual, client.getMetadataCache().getSnapshot());
+      Assert.assertEquals(modified, file.lastModified());
+    }
+    finally
+    {
+      file.delete();
+    }
+  }
+
   @Test(expected = ResponseException.class)
   public void testRefreshMetadataCacheBadStatus()
   {
     HttpResponse response = new HttpResponse(new JsonArray().toString(), 400);
-    MockHttpConnector connector = new MockHttpConnector(new MockHttpRequest[]{new MockHttpRequest(response)});
+    MockHttpConnector connector = new MockHttpConnector(new MockHttpRequest[]{new MockHttpRequest(RegistryUrls.GEO_OBJECT_TYPE_GET_ALL, response)});
 
     /*
      * Invoke method
@@ -176,6 +576,474 @@ public class HttpRegistryClientTest
     client.getGeoObject("23", "foo");
   }
 
+  @Test
+  public void testGeoObjectCache() throws Exception
+  {
+    MockHttpConnector connector = new MockHttpConnector(new MockHttpRequest[]{MockIdService.getIdRequest(500)});
+    HttpRegistryClient client = new HttpRegistryClient(connector);
+    client.getIdSerivce().populate(500);
+    
+    MetadataFactory.newGeoObjectType("State", GeometryType.POLYGON, "State", "", false, client);
+    
+    GeoObjectCache cache = new GeoObjectCache(2);
+    client.setGeoObjectCache(cache);
+    
+    GeoObject geoObject = client.newGeoObjectInstance("State");
+    geoObject.setCode("Test");
+    geoObject.setUid("blarg");
+    
+    connector.setNextRequest(new MockHttpRequest(new HttpResponse(geoObject.toJSON().toString(), 200)));
+    
+    GeoObject test = client.getGeoObject("blarg", "State");
+    
+    // Further lookups by UID and code are answered without a request
+    connector.setNextRequest(new MockHttpRequest(new HttpResponse("", 500)));
+    
+    Assert.assertEquals(test.getCode(), client.getGeoObject("blarg", "State").getCode());
+    Assert.assertEquals(test.getUid(), client.getGeoObjectByCode("Test", "State").getUid());
+    Assert.assertEquals(2, cache.getHitCount());
+    Assert.assertEquals(1, cache.getMissCount());
+    
+    // Every lookup gets its own copy, changes to it do not reach the cache
+    test.setLocalizedDisplayLabel("Changed");
+    client.getGeoObject("blarg", "State").setCode("Changed");
+    
+    GeoObject copy = client.getGeoObject("blarg", "State");
+    
+    Assert.assertNotSame(test, copy);
+    Assert.assertEquals("Test", copy.getCode());
+    Assert.assertNotEquals("Changed", copy.getLocalizedDisplayLabel());
+    
+    // Updates replace the cached entry
+    geoObject.setCode("Test2");
+    connector.setNextRequest(new MockHttpRequest(new HttpResponse(geoObject.toJSON().toString(), 200)));
+    
+    GeoObject updated = client.updateGeoObject(geoObject);
+    
+    Assert.assertEquals(updated.getUid(), client.getGeoObjectByCode("Test2", "State").getUid());
+    Assert.assertNull(cache.getByCode(client, "Test", "State"));
+    
+    // The asynchronous client shares the cache
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    
+    try
+    {
+      AsyncRegistryClient async = new AsyncRegistryClient(client, executor);
+      
+      Assert.assertEquals("Test2", async.getGeoObject("blarg", "State").get().getCode());
+      
+      geoObject.setCode("Test3");
+      connector.setNextRequest(new MockHttpRequest(new HttpResponse(geoObject.toJSON().toString(), 200)));
+      
+      async.updateGeoObject(geoObject).get();
+      
+      Assert.assertNull(cache.getByCode(client, "Test2", "State"));
+      Assert.assertEquals("Test3", async.getGeoObjectByCode("Test3", "State").get().getCode());
+      
+      connector.setNextRequest(new MockHttpRequest(new HttpResponse("", 500)));
+      
+      try
+      {
+        async.addChild("blarg", "State", "child", "State", "GEOPOLITICAL").get();
+      }
+      catch (ExecutionException e)
+      {
+        // The cached entry is stale even if the request fails
+      }
+      
+      Assert.assertNull(cache.getByUid(client, "blarg", "State"));
+      
+      connector.setNextRequest(new MockHttpRequest(new HttpResponse(geoObject.toJSON().toString(), 200)));
+      
+      client.getGeoObject("blarg", "State");
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+    
+    // The least recently used entry is evicted
+    for (String uid : new String[] { "one", "two" })
+    {
+      GeoObject other = client.newGeoObjectInstance("State");
+      other.setCode(uid);
+      other.setUid(uid);
+      
+      cache.put(other);
+    }
+    
+    Assert.assertEquals(2, cache.size());
+    Assert.assertEquals(1, cache.getEvictionCount());
+    Assert.assertNull(cache.getByUid(client, "blarg", "State"));
+    Assert.assertNotNull(cache.getByCode(client, "one", "State"));
+    
+    // Entries expire after the time to live of their type
+    cache.setTimeToLive("State", 0);
+    cache.put(updated);
+    
+    Assert.assertNull(cache.getByUid(client, "blarg", "State"));
+    Assert.assertEquals(3, cache.getEvictionCount());
+    
+    // Copies do not share their geometry
+    cache.setTimeToLive("State", GeoObjectCache.DEFAULT_TIME_TO_LIVE);
+    
+    GeoObject withGeometry = client.newGeoObjectInstance("State");
+    withGeometry.setUid("geometry");
+    withGeometry.setCode("geometry");
+    withGeometry.setWKTGeometry("POLYGON ((0 0, 1 0, 1 1, 0 0))");
+    cache.put(withGeometry);
+    
+    GeoObject first = cache.getByUid(client, "geometry", "State");
+    first.getGeometry().getCoordinates()[1].x = 5;
+    
+    Assert.assertEquals(1, cache.getByUid(client, "geometry", "State").getGeometry().getCoordinates()[1].x, 0);
+    Assert.assertEquals(1, withGeometry.getGeometry().getCoordinates()[1].x, 0);
+    
+    // Entries of a type replaced by a metadata refresh are dropped
+    MetadataFactory.newGeoObjectType("State", GeometryType.POLYGON, "State", "", false, client);
+    
+    Assert.assertNull(cache.getByUid(client, "geometry", "State"));
+    Assert.assertEquals(4, cache.getEvictionCount());
+    
+    cache.invalidateAll();
+    
+    Assert.assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testGetGeoObjects() throws Exception
+  {
+    HttpRegistryClient client = new HttpRegistryClient(new PooledHttpConnector(), new MockIdService());
+    TestFixture.defineExampleHierarchies(client);
+    
+    Map<String, String> geoObjects = new HashMap<String, String>();
+    List<String> ids = new ArrayList<String>();
+    
+    for (int i = 0; i < 5; i++)
+    {
+      GeoObject geoObject = TestFixture.createGeoObject(client, "GO_" + i, TestFixture.PROVINCE);
+      
+      geoObjects.put(geoObject.getUid(), geoObject.toJSON().toString());
+      ids.add(geoObject.getUid());
+    }
+    
+    ids.add(2, "unknown");
+    
+    List<String> bulkRequests = Collections.synchronizedList(new ArrayList<String>());
+    
+    MockHttpServer.Handler bulk = (method, path, query, body) ->
+    {
+      if (path.equals(RegistryUrls.GEO_OBJECT_GET_BULK))
+      {
+        bulkRequests.add(body);
+        
+        JsonArray response = new JsonArray();
+        new JsonParser().parse(body).getAsJsonObject().getAsJsonArray(RegistryUrls.GEO_OBJECT_GET_BULK_PARAM_IDS).forEach(id -> Optional.ofNullable(geoObjects.get(id.getAsString())).ifPresent(json -> response.add(new JsonParser().parse(json))));
+        
+        return response.toString();
+      }
+      
+      return null;
+    };
+    
+    try (MockHttpServer server = new MockHttpServer(bulk, 2))
+    {
+      ( (PooledHttpConnector) client.getConnector() ).setServerUrl(server.getServerUrl());
+      client.setBulkChunkSize(2);
+      client.setBulkConcurrency(2);
+      
+      Map<String, GeoObject> result = client.getGeoObjects(ids, TestFixture.PROVINCE);
+      
+      // Found in the order of the UIDs, the unknown UID left out
+      Assert.assertEquals(ids.stream().filter(geoObjects::containsKey).collect(Collectors.toList()), new ArrayList<String>(result.keySet()));
+      Assert.assertEquals("GO_3_CODE", result.get(ids.get(4)).getCode());
+      Assert.assertEquals(3, bulkRequests.size());
+    }
+    
+    // A registry without the bulk end point is asked for each GeoObject, the cache is only checked once per UID
+    MockHttpServer.Handler single = (method, path, query, body) -> path.equals(RegistryUrls.GEO_OBJECT_GET) ? geoObjects.get(query.get(RegistryUrls.GEO_OBJECT_GET_PARAM_ID)) : null;
+    
+    RegistryMetrics metrics = new RegistryMetrics();
+    client.setMetricsRecorder(metrics);
+    client.setGeoObjectCache(new GeoObjectCache());
+    
+    try (MockHttpServer server = new MockHttpServer(single, 2))
+    {
+      ( (PooledHttpConnector) client.getConnector() ).setServerUrl(server.getServerUrl());
+      
+      Map<String, GeoObject> result = client.getGeoObjects(ids, TestFixture.PROVINCE);
+      
+      Assert.assertEquals(5, result.size());
+      Assert.assertEquals("GO_0_CODE", result.get(ids.get(0)).getCode());
+      Assert.assertEquals(0, client.getGeoObjects(Collections.<String> emptyList(), TestFixture.PROVINCE).size());
+      Assert.assertEquals(ids.size(), metrics.getCache(MetricsRecorder.CACHE_GEO_OBJECT).getMissCount());
+      Assert.assertEquals(ids.size(), metrics.getEndpoint(RegistryUrls.GEO_OBJECT_GET).getRequestCount());
+    }
+    
+    // The bulk end point is tried again once the retry interval has passed
+    client.setGeoObjectCache(null);
+    client.setBulkRetryInterval(0);
+    
+    try (MockHttpServer server = new MockHttpServer(bulk, 2))
+    {
+      ( (PooledHttpConnector) client.getConnector() ).setServerUrl(server.getServerUrl());
+      
+      Assert.assertEquals(5, client.getGeoObjects(ids, TestFixture.PROVINCE).size());
+      Assert.assertEquals(6, bulkRequests.size());
+    }
+  }
+
+  @Test
+  public void testAsyncGetGeoObject() throws Exception
+  {
+    MockHttpConnector connector = new MockHttpConnector(new MockHttpRequest[]{MockIdService.getIdRequest(500)});
+    HttpRegistryClient client = new HttpRegistryClient(connector);
+    client.getIdSerivce().populate(500);
+    
+    MetadataFactory.newGeoObjectType("State", GeometryType.POLYGON, "State", "", false, client);
+
+    GeoObject geoObject = client.newGeoObjectInstance("State");
+    geoObject.setCode("Test");
+    geoObject.setUid("blarg");
+    
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    
+    try
+    {
+      // Blocking connector run on the executor
+      AsyncRegistryClient async = new AsyncRegistryClient(client, executor);
+      
+      connector.setNextRequest(new MockHttpRequest(new HttpResponse(geoObject.toJSON().toString(), 200)));
+      
+      GeoObject test = async.getGeoObject(geoObject.getUid(), geoObject.getType().getCode()).get();
+      
+      Assert.assertEquals(geoObject.getCode(), test.getCode());
+      Assert.assertEquals(RegistryUrls.GEO_OBJECT_GET, connector.getUrl());
+      Assert.assertEquals(geoObject.getUid(), connector.getParams().get(RegistryUrls.GEO_OBJECT_GET_PARAM_ID));
+      
+      try
+      {
+        async.getGeoObject(null, "State").get();
+        
+        Assert.fail("Expected the missing id to be reported");
+      }
+      catch (ExecutionException e)
+      {
+        Assert.assertTrue(e.getCause() instanceof RequiredParameterException);
+      }
+      
+      // Non-blocking connector: requests stay in flight without holding a thread
+      List<CompletableFuture<HttpResponse>> inFlight = new ArrayList<CompletableFuture<HttpResponse>>();
+      
+      AsyncConnector nonBlocking = new AsyncConnector()
+      {
+        @Override
+        public synchronized CompletableFuture<HttpResponse> httpGetAsync(String url, Map<String, String> params)
+        {
+          CompletableFuture<HttpResponse> future = new CompletableFuture<HttpResponse>();
+          inFlight.add(future);
+          
+          return future;
+        }
+        
+        @Override
+        public CompletableFuture<HttpResponse> httpPostAsync(String url, String body)
+        {
+          throw new UnsupportedOperationException(url);
+        }
+      };
+      
+      async = new AsyncRegistryClient(client, nonBlocking, executor);
+      
+      List<CompletableFuture<GeoObject>> results = new ArrayList<CompletableFuture<GeoObject>>();
+      
+      for (int i = 0; i < 100; i++)
+      {
+        results.add(async.getGeoObject(geoObject.getUid(), geoObject.getType().getCode()));
+      }
+      
+      Assert.assertEquals(100, inFlight.size());
+      Assert.assertFalse(results.get(0).isDone());
+      
+      inFlight.forEach(future -> future.complete(new HttpResponse(geoObject.toJSON().toString(), 200)));
+      
+      for (CompletableFuture<GeoObject> result : results)
+      {
+        Assert.assertEquals(geoObject.getUid(), result.get().getUid());
+      }
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testCoalescingConnector() throws Exception
+  {
+    AtomicInteger sent = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    
+    CoalescingConnector connector = new CoalescingConnector(new Connector()
+    {
+      @Override
+      public HttpResponse httpGet(String url, Map<String, String> params)
+      {
+        sent.incrementAndGet();
+        
+        try
+        {
+          release.await();
+        }
+        catch (InterruptedException e)
+        {
+          throw new RuntimeException(e);
+        }
+        
+        return new HttpResponse("[\"" + params.get(RegistryUrls.GEO_OBJECT_GET_PARAM_ID) + "\"]", 200);
+      }
+      
+      @Override
+      public HttpResponse httpPost(String url, String body)
+      {
+        throw new UnsupportedOperationException();
+      }
+    });
+    
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    
+    try
+    {
+      List<Future<HttpResponse>> futures = new ArrayList<Future<HttpResponse>>();
+      
+      for (int i = 0; i < threads; i++)
+      {
+        futures.add(executor.submit(() -> connector.httpGet(RegistryUrls.GEO_OBJECT_GET, Collections.singletonMap(RegistryUrls.GEO_OBJECT_GET_PARAM_ID, "blarg"))));
+      }
+      
+      // Wait until every request but the first is waiting for the first one
+      while (connector.getCoalescedCount() < threads - 1)
+      {
+        Thread.sleep(1);
+      }
+      
+      release.countDown();
+      
+      for (Future<HttpResponse> future : futures)
+      {
+        Assert.assertEquals("blarg", future.get().getAsJsonArray().get(0).getAsString());
+      }
+      
+      Assert.assertEquals(1, sent.get());
+      Assert.assertEquals(threads, connector.getRequestCount());
+      
+      // Requests which are no longer in flight are sent again
+      Assert.assertEquals("other", connector.httpGet(RegistryUrls.GEO_OBJECT_GET, Collections.singletonMap(RegistryUrls.GEO_OBJECT_GET_PARAM_ID, "other")).getAsJsonArray().get(0).getAsString());
+      connector.httpGet(RegistryUrls.GEO_OBJECT_GET, Collections.singletonMap(RegistryUrls.GEO_OBJECT_GET_PARAM_ID, "blarg"));
+      
+      Assert.assertEquals(3, sent.get());
+      Assert.assertEquals(threads - 1, connector.getCoalescedCount());
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testPooledHttpConnector() throws Exception
+  {
+    String json = "{\n  \"code\" : \"Test\",\n  \"label\" : \"H\u00f4pital\"\n}";
+    
+    try (MockHttpServer server = new MockHttpServer(json, 2))
+    {
+      PooledHttpConnector connector = new PooledHttpConnector(2);
+      connector.setServerUrl(server.getServerUrl());
+      
+      // The body is read as bytes and decoded, line breaks and non-ASCII characters survive the gzip round trip
+      for (int i = 0; i < 20; i++)
+      {
+        HttpResponse response = connector.httpGet(RegistryUrls.GEO_OBJECT_GET, Collections.singletonMap(RegistryUrls.GEO_OBJECT_GET_PARAM_ID, "a b"));
+        
+        Assert.assertEquals(200, response.getStatusCode());
+        Assert.assertEquals(json, response.getAsString());
+      }
+      
+      Assert.assertEquals("GET", server.getMethod());
+      Assert.assertEquals(RegistryUrls.GEO_OBJECT_GET_PARAM_ID + "=a+b", server.getQuery());
+      
+      // Sequential requests reuse the kept alive connection
+      Assert.assertEquals(1, server.getConnections());
+      
+      connector.setCompressRequests(true);
+      connector.setCompressionThreshold(0);
+      
+      HttpResponse response = connector.httpPost(RegistryUrls.GEO_OBJECT_CREATE, json);
+      
+      Assert.assertEquals("gzip", server.getContentEncoding());
+      Assert.assertEquals(json, server.getBody());
+      Assert.assertEquals(json, response.getAsString());
+    }
+  }
+
+  @Test
+  public void testStreamingHttpResponse() throws Exception
+  {
+    String json = "{\"code\" : \"Test\", \"label\" : \"H\u00f4pital\"}";
+    
+    // A streamed body is parsed once and cannot be read again
+    HttpResponse streamed = new HttpResponse(new StringReader(json), 200);
+    
+    Assert.assertTrue(streamed.isStreaming());
+    Assert.assertSame(streamed.getAsJsonObject(), streamed.getAsJsonObject());
+    Assert.assertFalse(streamed.isStreaming());
+    Assert.assertEquals("Test", streamed.read(reader -> new JsonParser().parse(reader)).getAsJsonObject().get("code").getAsString());
+    
+    streamed = new HttpResponse(new StringReader(json), 200);
+    
+    Assert.assertEquals("Test", streamed.read(reader -> new JsonParser().parse(reader)).getAsJsonObject().get("code").getAsString());
+    
+    try
+    {
+      streamed.getAsString();
+      
+      Assert.fail("Able to read a streamed body twice");
+    }
+    catch (IllegalStateException e)
+    {
+      // Expected
+    }
+    
+    // Asking for the string buffers the body
+    streamed = new HttpResponse(new StringReader(json), 200);
+    
+    Assert.assertEquals(json, streamed.getAsString());
+    Assert.assertEquals("Test", streamed.getAsJsonObject().get("code").getAsString());
+    
+    try (MockHttpServer server = new MockHttpServer(json, 1))
+    {
+      PooledHttpConnector connector = new PooledHttpConnector(1);
+      connector.setServerUrl(server.getServerUrl());
+      
+      // Closing a streamed response gives the only connection back, read or not
+      for (int i = 0; i < 5; i++)
+      {
+        try (HttpResponse response = connector.httpGetStream(RegistryUrls.GEO_OBJECT_GET, Collections.emptyMap()))
+        {
+          Assert.assertTrue(response.isStreaming());
+          
+          if (i % 2 == 0)
+          {
+            Assert.assertEquals("H\u00f4pital", response.getAsJsonObject().get("label").getAsString());
+          }
+        }
+      }
+      
+      Assert.assertEquals(json, connector.httpGet(RegistryUrls.GEO_OBJECT_GET, Collections.emptyMap()).getAsString());
+    }
+  }
+
   @Test
   public void testCreateGeoObject()
   {
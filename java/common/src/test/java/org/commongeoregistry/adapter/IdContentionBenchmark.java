@@ -0,0 +1,109 @@
+package org.commongeoregistry.adapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.commongeoregistry.adapter.id.AdapterIdServiceIF;
+import org.commongeoregistry.adapter.id.ConcurrentIdService;
+import org.commongeoregistry.adapter.id.MemoryOnlyIdService;
+
+/**
+ * Compares the time per id taken from a populated {@link MemoryOnlyIdService}, which takes every id under a lock, and
+ * a {@link ConcurrentIdService} at 1, 8 and 64 threads, both one id at a time and in blocks with next(n). The ids are
+ * fetched before the measurement starts. Not run as part of the unit tests, launch the main method directly. The
+ * optional arguments are the total number of ids and the block size.
+ */
+public class IdContentionBenchmark
+{
+  private static final int[] THREADS = new int[] { 1, 8, 64 };
+
+  public static void main(String[] args) throws Exception
+  {
+    int total = args.length > 0 ? Integer.parseInt(args[0]) : 256000;
+    int block = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+    // Warm up
+    for (int threads : THREADS)
+    {
+      run(MemoryOnlyIdService::new, threads, total / 4, 1);
+      run(ConcurrentIdService::new, threads, total / 4, 1);
+      run(ConcurrentIdService::new, threads, total / 4, block);
+    }
+
+    System.out.println("Ids: " + total + ", block: " + block + ", processors: " + Runtime.getRuntime().availableProcessors());
+
+    for (int threads : THREADS)
+    {
+      System.out.println(threads + " threads");
+      System.out.println("  MemoryOnlyIdService next():    " + run(MemoryOnlyIdService::new, threads, total, 1));
+      System.out.println("  MemoryOnlyIdService next(n):   " + run(MemoryOnlyIdService::new, threads, total, block));
+      System.out.println("  ConcurrentIdService next():    " + run(ConcurrentIdService::new, threads, total, 1));
+      System.out.println("  ConcurrentIdService next(n):   " + run(ConcurrentIdService::new, threads, total, block));
+    }
+  }
+
+  private static String run(Supplier<AdapterIdServiceIF> factory, int threads, int total, int block) throws Exception
+  {
+    AdapterIdServiceIF idService = factory.get();
+    new HttpRegistryClient(new MockUidConnector(0), idService);
+
+    // Populate in several requests, the way a long running client fills its cache
+    for (int i = 1; i <= 16; i++)
+    {
+      idService.populate(total / 16 * i);
+    }
+
+    int perThread = total / 16 * 16 / threads / block;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+
+    try
+    {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+
+      for (int i = 0; i < threads; i++)
+      {
+        futures.add(executor.submit(() ->
+        {
+          start.await();
+
+          for (int j = 0; j < perThread; j++)
+          {
+            if (block == 1)
+            {
+              idService.next();
+            }
+            else
+            {
+              idService.next(block);
+            }
+          }
+
+          return null;
+        }));
+      }
+
+      long started = System.nanoTime();
+      start.countDown();
+
+      for (Future<?> future : futures)
+      {
+        future.get();
+      }
+
+      long nanos = System.nanoTime() - started;
+      long count = (long) threads * perThread * block;
+
+      return String.format("%6.1f ns/id", (double) nanos / count);
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package org.commongeoregistry.adapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.commongeoregistry.adapter.id.EmptyIdCacheException;
+import org.commongeoregistry.adapter.id.MemoryOnlyIdService;
+
+/**
+ * Compares the throughput of many concurrent creators taking ids from a {@link MemoryOnlyIdService} which they refill
+ * themselves with {@link MemoryOnlyIdService#populate(int)} whenever it runs dry against one which refills itself in
+ * the background below a low watermark. The UID end point is the {@link MockUidConnector}, which waits a fixed time
+ * per request. Besides the throughput the number of ids a creator had to wait more than a millisecond for is reported.
+ * Not run as part of the unit tests, launch the main method directly. The optional arguments are the
+ * number of creators, the number of ids per creator and the simulated round trip in milliseconds.
+ */
+public class IdServiceBenchmark
+{
+  private static final int BATCH = 500;
+
+  public static void main(String[] args) throws Exception
+  {
+    int creators = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+    int perCreator = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+    int latency = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+    // Warm up
+    run(creators, perCreator / 10, latency, false);
+    run(creators, perCreator / 10, latency, true);
+
+    System.out.println("Creators: " + creators + ", ids per creator: " + perCreator + ", round trip: " + latency + " ms");
+    System.out.println("Populate when empty:    " + run(creators, perCreator, latency, false));
+    System.out.println("Low watermark prefetch: " + run(creators, perCreator, latency, true));
+  }
+
+  private static String run(int creators, int perCreator, int latency, boolean prefetch) throws Exception
+  {
+    MockUidConnector connector = new MockUidConnector(latency);
+    HttpRegistryClient client = new HttpRegistryClient(connector);
+
+    MemoryOnlyIdService idService = (MemoryOnlyIdService) client.getIdSerivce();
+
+    if (prefetch)
+    {
+      idService.setLowWatermark(BATCH);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(creators);
+    AtomicInteger stalls = new AtomicInteger();
+
+    try
+    {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      long start = System.nanoTime();
+
+      for (int i = 0; i < creators; i++)
+      {
+        futures.add(executor.submit(() ->
+        {
+          for (int j = 0; j < perCreator; j++)
+          {
+            long taken = System.nanoTime();
+
+            while (true)
+            {
+              try
+              {
+                idService.next();
+
+                break;
+              }
+              catch (EmptyIdCacheException e)
+              {
+                idService.populate(BATCH);
+              }
+            }
+
+            if (System.nanoTime() - taken > 1000000)
+            {
+              stalls.incrementAndGet();
+            }
+          }
+        }));
+      }
+
+      for (Future<?> future : futures)
+      {
+        future.get();
+      }
+
+      long nanos = System.nanoTime() - start;
+      long count = (long) creators * perCreator;
+
+      return ( nanos / 1000000 ) + " ms, " + ( count * 1000000000L / nanos ) + " ids/s, " + connector.getRequests() + " requests, " + stalls.get() + " stalls";
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package org.commongeoregistry.adapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.commongeoregistry.adapter.http.ResponseException;
+import org.commongeoregistry.adapter.id.EmptyIdCacheException;
+import org.commongeoregistry.adapter.id.MemoryOnlyIdService;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MemoryOnlyIdServiceTest
+{
+
+  @Test
+  public void testPrefetchingIdService() throws Exception
+  {
+    MockUidConnector connector = new MockUidConnector(20);
+    HttpRegistryClient client = new HttpRegistryClient(connector);
+    
+    MemoryOnlyIdService idService = (MemoryOnlyIdService) client.getIdSerivce();
+    idService.setLowWatermark(200);
+    idService.setRefillPeriod(200);
+    
+    int creators = 16;
+    int perCreator = 1000;
+    Set<String> ids = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    ExecutorService executor = Executors.newFixedThreadPool(creators);
+    
+    try
+    {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      
+      // The first creators wait for the initial refill, the others never find the cache empty
+      for (int i = 0; i < creators; i++)
+      {
+        futures.add(executor.submit(() ->
+        {
+          for (int j = 0; j < perCreator; j++)
+          {
+            ids.add(idService.next());
+          }
+        }));
+      }
+      
+      for (Future<?> future : futures)
+      {
+        future.get();
+      }
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+    
+    // Every id is handed out once and the cache was refilled in batches
+    Assert.assertEquals(creators * perCreator, ids.size());
+    Assert.assertTrue(connector.getRequests() < creators * perCreator / idService.getLowWatermark());
+    
+    // A failed refill is reported to the waiting creator
+    connector.setFailing(true);
+    
+    try
+    {
+      while (true)
+      {
+        idService.next();
+      }
+    }
+    catch (EmptyIdCacheException e)
+    {
+      Assert.assertTrue(e.getCause() instanceof ResponseException);
+    }
+    
+    // Without a low watermark an empty cache is not refilled
+    MemoryOnlyIdService manual = new MemoryOnlyIdService();
+    manual.setClient(client);
+    
+    try
+    {
+      manual.next();
+      
+      Assert.fail("Expected an EmptyIdCacheException");
+    }
+    catch (EmptyIdCacheException e)
+    {
+      Assert.assertNull(e.getCause());
+    }
+  }
+
+  @Test
+  public void testConcurrentPopulate() throws Exception
+  {
+    MockUidConnector connector = new MockUidConnector(100);
+    MemoryOnlyIdService idService = new MemoryOnlyIdService();
+    new HttpRegistryClient(connector, idService);
+    
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    
+    try
+    {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      
+      for (int i = 0; i < 4; i++)
+      {
+        futures.add(executor.submit(() -> idService.populate(100)));
+      }
+      
+      for (Future<?> future : futures)
+      {
+        future.get();
+      }
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+    
+    // The populates started while one was in flight only request the ids still missing, none
+    Assert.assertEquals(100, idService.size());
+    Assert.assertEquals(1, connector.getRequests());
+  }
+
+  @Test
+  public void testRefillInFlightTooSmall() throws Exception
+  {
+    MemoryOnlyIdService idService = new MemoryOnlyIdService();
+    new HttpRegistryClient(new MockUidConnector(0), idService);
+    
+    List<Runnable> refills = Collections.synchronizedList(new ArrayList<Runnable>());
+    
+    idService.setExecutor(refills::add);
+    idService.setLowWatermark(5);
+    idService.setMaxRefill(10);
+    idService.setRefillPeriod(1);
+    idService.populate(1);
+    
+    // Taking the last id starts a refill of 10 ids
+    idService.next();
+    
+    Assert.assertEquals(1, refills.size());
+    
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    
+    try
+    {
+      Future<List<String>> block = executor.submit(() -> idService.next(50));
+      
+      refills.remove(0).run();
+      
+      // Once the refill in flight completes with too few ids, the creator requests the missing ones
+      for (int i = 0; i < 500 && refills.isEmpty(); i++)
+      {
+        Thread.sleep(10);
+      }
+      
+      Assert.assertEquals(1, refills.size());
+      
+      refills.remove(0).run();
+      
+      Assert.assertEquals(50, new HashSet<String>(block.get(5, TimeUnit.SECONDS)).size());
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+  }
+}
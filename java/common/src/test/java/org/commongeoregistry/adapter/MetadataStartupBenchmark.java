@@ -0,0 +1,104 @@
+package org.commongeoregistry.adapter;
+
+import java.io.File;
+
+import org.commongeoregistry.adapter.constants.GeometryType;
+import org.commongeoregistry.adapter.metadata.AttributeCharacterType;
+import org.commongeoregistry.adapter.metadata.AttributeType;
+import org.commongeoregistry.adapter.metadata.GeoObjectType;
+import org.commongeoregistry.adapter.metadata.HierarchyType;
+import org.commongeoregistry.adapter.metadata.HierarchyType.HierarchyNode;
+import org.commongeoregistry.adapter.metadata.MetadataFactory;
+
+/**
+ * Compares the time until the metadata cache of a new {@link HttpRegistryClient} is usable when it is refreshed from
+ * the registry against loading the snapshot file saved by a previous run. The background revalidation of the loaded
+ * snapshot is measured separately. The registry is the in-process {@link MockRegistryServer}, so the refresh does not
+ * include any network time. Not run as part of the unit tests, launch the main method directly. The optional arguments
+ * are the number of types and the number of attributes per type.
+ */
+public class MetadataStartupBenchmark
+{
+  public static void main(String[] args) throws Exception
+  {
+    int types = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+    int attributes = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+    int iterations = 20;
+
+    RegistryAdapterServer registry = new RegistryAdapterServer(new MockIdService());
+    define(registry, types, attributes);
+
+    MockRegistryServer server = new MockRegistryServer(registry);
+
+    File file = File.createTempFile("metadata", ".snapshot");
+    new HttpRegistryClient(server).refreshMetadataCache(file, Runnable::run).get();
+
+    for (int i = 0; i < 5; i++)
+    {
+      new HttpRegistryClient(server).refreshMetadataCache();
+      new HttpRegistryClient(server).refreshMetadataCache(file, Runnable::run).get();
+    }
+
+    long refresh = 0;
+    long load = 0;
+    long revalidate = 0;
+
+    for (int i = 0; i < iterations; i++)
+    {
+      HttpRegistryClient client = new HttpRegistryClient(server);
+
+      long start = System.nanoTime();
+      client.refreshMetadataCache();
+      refresh += System.nanoTime() - start;
+
+      client = new HttpRegistryClient(server);
+
+      start = System.nanoTime();
+      client.getMetadataCache().load(file);
+      load += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      client.refreshMetadataCache();
+      revalidate += System.nanoTime() - start;
+    }
+
+    System.out.println("Types: " + types + ", attributes per type: " + attributes + ", snapshot file: " + file.length() + " bytes");
+    System.out.println("Full refresh:          " + ( refresh / iterations / 1000 ) + " us");
+    System.out.println("Snapshot file:         " + ( load / iterations / 1000 ) + " us");
+    System.out.println("Revalidation (304):    " + ( revalidate / iterations / 1000 ) + " us");
+
+    file.delete();
+  }
+
+  /**
+   * Defines the given number of types with the given number of attributes each, arranged in hierarchies of ten levels.
+   */
+  private static void define(RegistryAdapterServer registry, int types, int attributes)
+  {
+    HierarchyNode parent = null;
+
+    for (int i = 0; i < types; i++)
+    {
+      GeoObjectType geoObjectType = MetadataFactory.newGeoObjectType("TYPE_" + i, GeometryType.POLYGON, "Type " + i, "Synthetic type " + i, false, registry);
+
+      for (int j = 0; j < attributes; j++)
+      {
+        geoObjectType.addAttribute(AttributeType.factory("attribute" + j, "Attribute " + j, "Synthetic attribute " + j, AttributeCharacterType.TYPE));
+      }
+
+      HierarchyNode node = new HierarchyNode(geoObjectType);
+
+      if (i % 10 == 0)
+      {
+        HierarchyType hierarchyType = MetadataFactory.newHierarchyType("HIERARCHY_" + ( i / 10 ), "Hierarchy " + ( i / 10 ), "", registry);
+        hierarchyType.addRootGeoObjects(node);
+      }
+      else
+      {
+        parent.addChild(node);
+      }
+
+      parent = node;
+    }
+  }
+}
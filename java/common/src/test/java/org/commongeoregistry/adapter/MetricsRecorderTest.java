@@ -0,0 +1,115 @@
+package org.commongeoregistry.adapter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.commongeoregistry.adapter.constants.RegistryUrls;
+import org.commongeoregistry.adapter.dataaccess.GeoObject;
+import org.commongeoregistry.adapter.dataaccess.GeoObjectCache;
+import org.commongeoregistry.adapter.http.AbstractHttpConnector;
+import org.commongeoregistry.adapter.http.PooledHttpConnector;
+import org.commongeoregistry.adapter.http.ResponseException;
+import org.commongeoregistry.adapter.metrics.LatencyHistogram;
+import org.commongeoregistry.adapter.metrics.MetricsRecorder;
+import org.commongeoregistry.adapter.metrics.RegistryMetrics;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MetricsRecorderTest
+{
+
+  @Test
+  public void testMetricsRecorder() throws Exception
+  {
+    HttpRegistryClient client = new HttpRegistryClient(new PooledHttpConnector(), new MockIdService());
+    TestFixture.defineExampleHierarchies(client);
+    
+    GeoObject geoObject = TestFixture.createGeoObject(client, "GO_0", TestFixture.PROVINCE);
+    String json = geoObject.toJSON().toString();
+    
+    RegistryMetrics metrics = new RegistryMetrics();
+    client.setMetricsRecorder(metrics);
+    client.setGeoObjectCache(new GeoObjectCache());
+    
+    MockHttpServer.Handler handler = (method, path, query, body) -> geoObject.getUid().equals(query.get(RegistryUrls.GEO_OBJECT_GET_PARAM_ID)) ? json : null;
+    
+    try (MockHttpServer server = new MockHttpServer(handler, 2))
+    {
+      ( (PooledHttpConnector) client.getConnector() ).setServerUrl(server.getServerUrl());
+      
+      client.getGeoObject(geoObject.getUid(), TestFixture.PROVINCE);
+      
+      // Answered by the cache
+      client.getGeoObject(geoObject.getUid(), TestFixture.PROVINCE);
+      
+      try
+      {
+        client.getGeoObject("unknown", TestFixture.PROVINCE);
+        
+        Assert.fail("Expected the request for an unknown UID to fail.");
+      }
+      catch (ResponseException e)
+      {
+        Assert.assertEquals(404, e.getStatus());
+      }
+    }
+    
+    RegistryMetrics.Endpoint endpoint = metrics.getEndpoint(RegistryUrls.GEO_OBJECT_GET);
+    
+    Assert.assertEquals(Collections.singleton(RegistryUrls.GEO_OBJECT_GET), metrics.getEndpoints());
+    Assert.assertEquals(2, endpoint.getRequestCount());
+    Assert.assertEquals(1, endpoint.getErrorCount());
+    Assert.assertEquals(2, endpoint.getNetworkLatency().getCount());
+    Assert.assertEquals(1, endpoint.getDecodeLatency().getCount());
+    Assert.assertTrue(endpoint.getResponseBytes() >= json.length());
+    
+    Assert.assertEquals(1, metrics.getCache(MetricsRecorder.CACHE_GEO_OBJECT).getHitCount());
+    Assert.assertEquals(2, metrics.getCache(MetricsRecorder.CACHE_GEO_OBJECT).getMissCount());
+    Assert.assertEquals(1d / 3, metrics.getCache(MetricsRecorder.CACHE_GEO_OBJECT).getHitRate(), 0.0001);
+    Assert.assertTrue(metrics.getCache(MetricsRecorder.CACHE_CODEC).getHitCount() > 0);
+    
+    client.newGeoObjectInstance(TestFixture.PROVINCE);
+    
+    Assert.assertEquals(1, metrics.getCache(MetricsRecorder.CACHE_ID).getHitCount());
+    
+    // Percentiles are accurate to the sub-bucket precision of the histogram
+    LatencyHistogram histogram = new LatencyHistogram();
+    
+    for (long micros = 1; micros <= 1000; micros++)
+    {
+      histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+    }
+    
+    Assert.assertEquals(1000, histogram.getCount());
+    Assert.assertEquals(TimeUnit.MICROSECONDS.toNanos(1000), histogram.getMax());
+    Assert.assertEquals(TimeUnit.MICROSECONDS.toNanos(500), histogram.getValueAtPercentile(50), TimeUnit.MICROSECONDS.toNanos(500) / LatencyHistogram.SUB_BUCKETS);
+    Assert.assertEquals(TimeUnit.MICROSECONDS.toNanos(990), histogram.getValueAtPercentile(99), TimeUnit.MICROSECONDS.toNanos(990) / LatencyHistogram.SUB_BUCKETS);
+    Assert.assertEquals(TimeUnit.MICROSECONDS.toNanos(1000), histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void testResponseSize() throws Exception
+  {
+    String body = "{\"label\":\"Province \u00e9\"}\n{\"label\":\"District\"}\n";
+    long bytes = body.getBytes(StandardCharsets.UTF_8).length;
+    
+    try (MockHttpServer server = new MockHttpServer(body, 1))
+    {
+      // Both connectors count the bytes of the body, line terminators and multi-byte characters included
+      for (AbstractHttpConnector connector : new AbstractHttpConnector[] { new AbstractHttpConnector()
+      {
+      }, new PooledHttpConnector() })
+      {
+        RegistryMetrics metrics = new RegistryMetrics();
+        connector.setMetricsRecorder(metrics);
+        connector.setServerUrl(server.getServerUrl());
+        
+        connector.httpGet(RegistryUrls.GEO_OBJECT_GET, Collections.emptyMap());
+        connector.httpPost(RegistryUrls.GEO_OBJECT_GET_BULK, body);
+        
+        Assert.assertEquals(2 * bytes, metrics.getEndpoint(RegistryUrls.GEO_OBJECT_GET).getResponseBytes() + metrics.getEndpoint(RegistryUrls.GEO_OBJECT_GET_BULK).getResponseBytes());
+      }
+    }
+  }
+}
@@ -77,9 +77,33 @@ public class MockHttpConnector extends AbstractHttpConnector
     this.current = this.requests.size()-1;
   }
 
+  /**
+   * Moves the first remaining request which was scripted for the given URL, or without a URL, to the front so
+   * requests the client sends concurrently to different URLs receive the responses scripted for them.
+   */
+  private void reorder(String url)
+  {
+    for (int i = this.current; i < this.requests.size(); i++)
+    {
+      String scripted = this.requests.get(i).getUrl();
+
+      if (scripted == null || scripted.equals(url))
+      {
+        if (i != this.current)
+        {
+          this.requests.add(this.current, this.requests.remove(i));
+        }
+
+        return;
+      }
+    }
+  }
+
   @Override
-  public HttpResponse httpGet(String url, Map<String, String> params)
+  public synchronized HttpResponse httpGet(String url, Map<String, String> params)
   {
+    this.reorder(url);
+
     MockHttpRequest curReq = this.getRequest();
     
     curReq.setUrl(url);
@@ -91,8 +115,10 @@ public class MockHttpConnector extends AbstractHttpConnector
   }
 
   @Override
-  public HttpResponse httpPost(String url, String body)
+  public synchronized HttpResponse httpPost(String url, String body)
   {
+    this.reorder(url);
+
     MockHttpRequest curReq = this.getRequest();
     
     curReq.setUrl(url);
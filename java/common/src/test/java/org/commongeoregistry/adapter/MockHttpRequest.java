@@ -26,6 +26,15 @@ public class MockHttpRequest
     this.initialize(response);
   }
   
+  /**
+   * Request which is only answered for the given URL, see {@link MockHttpConnector}.
+   */
+  public MockHttpRequest(String url, HttpResponse response)
+  {
+    this.initialize(response);
+    this.url = url;
+  }
+  
   private void initialize(HttpResponse response)
   {
     this.hasExecuted = false;
@@ -0,0 +1,231 @@
+package org.commongeoregistry.adapter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.commongeoregistry.adapter.constants.RegistryUrls;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP stand-in for the registry which answers every request with the same JSON body, gzip encoded if the
+ * client accepts it. POST requests are answered with their own body. Alternatively the responses are produced by a
+ * {@link Handler}. The server records the last request and counts the client connections it has seen and the bytes it
+ * has sent.
+ */
+public class MockHttpServer implements AutoCloseable
+{
+  /**
+   * Produces the response to a request.
+   */
+  public interface Handler
+  {
+    /**
+     * @param method
+     * @param path
+     *          path of the request relative to the registry controller, for example {@code geoobject/get}.
+     * @param query
+     *          decoded query parameters.
+     * @param body
+     *          decoded request body.
+     * @return the response body, or null to answer with 404 Not Found.
+     */
+    String handle(String method, String path, Map<String, String> query, String body);
+  }
+
+  static
+  {
+    // Small header and body writes would otherwise wait for the delayed ACK of the client
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  private HttpServer      server;
+
+  private ExecutorService executor;
+
+  private Handler         handler;
+
+  private Set<Integer>    connections;
+
+  private AtomicLong      bytes;
+
+  private volatile String method;
+
+  private volatile String query;
+
+  private volatile String body;
+
+  private volatile String contentEncoding;
+
+  public MockHttpServer(String response, int threads) throws IOException
+  {
+    this((method, path, query, body) -> method.equals("POST") ? body : response, threads);
+  }
+
+  public MockHttpServer(Handler handler, int threads) throws IOException
+  {
+    this.handler = handler;
+    this.connections = ConcurrentHashMap.newKeySet();
+    this.bytes = new AtomicLong();
+
+    this.executor = Executors.newFixedThreadPool(threads);
+
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 256);
+    this.server.createContext("/", this::handle);
+    this.server.setExecutor(this.executor);
+    this.server.start();
+  }
+
+  /**
+   * Returns the URL to configure on a connector, see
+   * {@link org.commongeoregistry.adapter.http.AbstractHttpConnector#setServerUrl(String)}.
+   */
+  public String getServerUrl()
+  {
+    return "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort() + "/";
+  }
+
+  public int getConnections()
+  {
+    return this.connections.size();
+  }
+
+  /**
+   * Returns the number of response body bytes sent.
+   */
+  public long getBytes()
+  {
+    return this.bytes.get();
+  }
+
+  public String getMethod()
+  {
+    return this.method;
+  }
+
+  public String getQuery()
+  {
+    return this.query;
+  }
+
+  public String getBody()
+  {
+    return this.body;
+  }
+
+  public String getContentEncoding()
+  {
+    return this.contentEncoding;
+  }
+
+  private void handle(HttpExchange exchange) throws IOException
+  {
+    this.connections.add(exchange.getRemoteAddress().getPort());
+
+    this.method = exchange.getRequestMethod();
+    this.query = exchange.getRequestURI().getRawQuery();
+    this.contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+
+    InputStream in = exchange.getRequestBody();
+
+    if ("gzip".equals(this.contentEncoding))
+    {
+      in = new GZIPInputStream(in);
+    }
+
+    byte[] request = read(in);
+    this.body = new String(request, StandardCharsets.UTF_8);
+
+    String path = exchange.getRequestURI().getPath().replaceFirst("^/" + RegistryUrls.REGISTRY_CONTROLLER_URL + "/", "");
+    String result = this.handler.handle(this.method, path, decode(this.query), this.body);
+
+    if (result == null)
+    {
+      exchange.sendResponseHeaders(404, -1);
+      exchange.close();
+
+      return;
+    }
+
+    byte[] response = result.getBytes(StandardCharsets.UTF_8);
+
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+
+    String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+
+    if (accept != null && accept.contains("gzip"))
+    {
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+      try (GZIPOutputStream out = new GZIPOutputStream(compressed))
+      {
+        out.write(response);
+      }
+
+      response = compressed.toByteArray();
+      exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+    }
+
+    this.bytes.addAndGet(response.length);
+
+    exchange.sendResponseHeaders(200, response.length);
+
+    try (OutputStream out = exchange.getResponseBody())
+    {
+      out.write(response);
+    }
+  }
+
+  private static Map<String, String> decode(String query) throws IOException
+  {
+    Map<String, String> params = new HashMap<String, String>();
+
+    if (query != null)
+    {
+      for (String pair : query.split("&"))
+      {
+        String[] parts = pair.split("=", 2);
+
+        params.put(URLDecoder.decode(parts[0], "UTF-8"), parts.length > 1 ? URLDecoder.decode(parts[1], "UTF-8") : "");
+      }
+    }
+
+    return params;
+  }
+
+  private static byte[] read(InputStream in) throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+
+    for (int count = in.read(buffer); count != -1; count = in.read(buffer))
+    {
+      out.write(buffer, 0, count);
+    }
+
+    return out.toByteArray();
+  }
+
+  @Override
+  public void close()
+  {
+    this.server.stop(0);
+    this.executor.shutdownNow();
+  }
+}
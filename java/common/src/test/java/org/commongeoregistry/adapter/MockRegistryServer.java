@@ -0,0 +1,134 @@
+package org.commongeoregistry.adapter;
+
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.commongeoregistry.adapter.constants.RegistryUrls;
+import org.commongeoregistry.adapter.http.AbstractHttpConnector;
+import org.commongeoregistry.adapter.http.HttpResponse;
+import org.commongeoregistry.adapter.json.JsonStreams;
+import org.commongeoregistry.adapter.metadata.GeoObjectType;
+import org.commongeoregistry.adapter.metadata.HierarchyType;
+import org.commongeoregistry.adapter.metadata.MetadataFingerprint;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+/**
+ * Local stand-in for the metadata end points of the common geo-registry, backed by a {@link RegistryAdapterServer}.
+ * Conditional requests posted to the updates end points are answered as described by {@link MetadataFingerprint},
+ * requests for all entries with the full JSON array. The server counts the bytes it sends and the number of metadata entries the client has to parse.
+ */
+public class MockRegistryServer extends AbstractHttpConnector
+{
+  private RegistryAdapterServer registry;
+
+  private long                  bytes;
+
+  private int                   entries;
+
+  private int                   requests;
+
+  public MockRegistryServer(RegistryAdapterServer registry)
+  {
+    this.registry = registry;
+  }
+
+  public synchronized long getBytes()
+  {
+    return bytes;
+  }
+
+  public synchronized int getEntries()
+  {
+    return entries;
+  }
+
+  public synchronized int getRequests()
+  {
+    return requests;
+  }
+
+  public synchronized void resetCounts()
+  {
+    this.bytes = 0;
+    this.entries = 0;
+    this.requests = 0;
+  }
+
+  @Override
+  public HttpResponse httpGet(String url, Map<String, String> params)
+  {
+    if (url.equals(RegistryUrls.GEO_OBJECT_TYPE_GET_ALL))
+    {
+      return this.respond(JsonStreams.toString(writer ->
+      {
+        writer.beginArray();
+
+        for (GeoObjectType geoObjectType : this.registry.getMetadataCache().getAllGeoObjectTypes())
+        {
+          geoObjectType.writeTo(writer);
+        }
+
+        writer.endArray();
+      }));
+    }
+    else if (url.equals(RegistryUrls.HIERARCHY_TYPE_GET_ALL))
+    {
+      return this.respond(JsonStreams.toString(writer ->
+      {
+        writer.beginArray();
+
+        for (HierarchyType hierarchyType : this.registry.getMetadataCache().getAllHierarchyTypes())
+        {
+          hierarchyType.writeTo(writer);
+        }
+
+        writer.endArray();
+      }));
+    }
+
+    throw new UnsupportedOperationException(url);
+  }
+
+  @Override
+  public HttpResponse httpPost(String url, String body)
+  {
+    if (url.equals(RegistryUrls.GEO_OBJECT_TYPE_GET_UPDATES))
+    {
+      return this.respond(this.registry.getGeoObjectTypeUpdates(body));
+    }
+    else if (url.equals(RegistryUrls.HIERARCHY_TYPE_GET_UPDATES))
+    {
+      return this.respond(this.registry.getHierarchyTypeUpdates(body));
+    }
+
+    throw new UnsupportedOperationException(url);
+  }
+
+  private synchronized HttpResponse respond(String body)
+  {
+    this.requests++;
+
+    if (body == null)
+    {
+      return new HttpResponse("", HttpURLConnection.HTTP_NOT_MODIFIED);
+    }
+
+    this.bytes += body.getBytes(StandardCharsets.UTF_8).length;
+
+    JsonElement json = new JsonParser().parse(body);
+
+    if (json.isJsonArray())
+    {
+      this.entries += json.getAsJsonArray().size();
+    }
+    else
+    {
+      this.entries += json.getAsJsonObject().getAsJsonArray(MetadataFingerprint.JSON_UPDATED).size();
+    }
+
+    return new HttpResponse(body, HttpURLConnection.HTTP_OK);
+  }
+}
@@ -0,0 +1,103 @@
+package org.commongeoregistry.adapter;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.commongeoregistry.adapter.constants.RegistryUrls;
+import org.commongeoregistry.adapter.http.Connector;
+import org.commongeoregistry.adapter.http.HttpResponse;
+
+import com.google.gson.JsonArray;
+
+/**
+ * Stand-in for the {@link RegistryUrls#GEO_OBJECT_GET_UIDS} end point of the registry. Every request waits a fixed
+ * time, standing in for the round trip, and is answered with the requested number of new UIDs.
+ */
+public class MockUidConnector implements Connector
+{
+  private long             latency;
+
+  private AtomicInteger    requests;
+
+  private AtomicLong       issued;
+
+  private volatile boolean failing;
+
+  /**
+   * @param latency
+   *          time in milliseconds each request waits before it is answered.
+   */
+  public MockUidConnector(long latency)
+  {
+    this.latency = latency;
+    this.requests = new AtomicInteger();
+    this.issued = new AtomicLong();
+    this.failing = false;
+  }
+
+  public int getRequests()
+  {
+    return this.requests.get();
+  }
+
+  /**
+   * Returns the number of UIDs issued.
+   */
+  public long getIssued()
+  {
+    return this.issued.get();
+  }
+
+  /**
+   * @param failing
+   *          true to answer the following requests with status 500.
+   */
+  public void setFailing(boolean failing)
+  {
+    this.failing = failing;
+  }
+
+  @Override
+  public HttpResponse httpGet(String url, Map<String, String> params)
+  {
+    if (!url.equals(RegistryUrls.GEO_OBJECT_GET_UIDS))
+    {
+      throw new UnsupportedOperationException(url);
+    }
+
+    this.requests.incrementAndGet();
+
+    try
+    {
+      Thread.sleep(this.latency);
+    }
+    catch (InterruptedException e)
+    {
+      throw new RuntimeException(e);
+    }
+
+    if (this.failing)
+    {
+      return new HttpResponse("", 500);
+    }
+
+    int amount = Integer.parseInt(params.get(RegistryUrls.GEO_OBJECT_GET_UIDS_PARAM_AMOUNT));
+    JsonArray uids = new JsonArray();
+
+    for (int i = 0; i < amount; i++)
+    {
+      uids.add(MockIdService.genId());
+    }
+
+    this.issued.addAndGet(amount);
+
+    return new HttpResponse(uids.toString(), 200);
+  }
+
+  @Override
+  public HttpResponse httpPost(String url, String body)
+  {
+    throw new UnsupportedOperationException(url);
+  }
+}
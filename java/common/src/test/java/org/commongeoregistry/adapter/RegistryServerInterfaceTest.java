@@ -1,7 +1,9 @@
 package org.commongeoregistry.adapter;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.commongeoregistry.adapter.constants.DefaultAttribute;
 import org.commongeoregistry.adapter.constants.DefaultTerms.GeoObjectStatusTerm;
@@ -9,6 +11,11 @@ import org.commongeoregistry.adapter.dataaccess.GeoObject;
 import org.commongeoregistry.adapter.metadata.AttributeTermType;
 import org.commongeoregistry.adapter.metadata.AttributeType;
 import org.commongeoregistry.adapter.metadata.GeoObjectType;
+import org.commongeoregistry.adapter.metadata.HierarchyClosure;
+import org.commongeoregistry.adapter.metadata.HierarchyType;
+import org.commongeoregistry.adapter.metadata.HierarchyType.HierarchyNode;
+import org.commongeoregistry.adapter.metadata.MetadataCache;
+import org.commongeoregistry.adapter.metadata.MetadataFactory;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -83,6 +90,78 @@ public class RegistryServerInterfaceTest
   }
   
   
+  @Test
+  public void testHierarchyClosure()
+  {
+    MetadataCache cache = registryServerInterface.getMetadataCache();
+    
+    HierarchyClosure closure = cache.getHierarchyClosure(TestFixture.GEOPOLITICAL);
+    
+    Assert.assertSame(closure, cache.getHierarchyClosure(TestFixture.GEOPOLITICAL));
+    
+    Assert.assertTrue(closure.isAncestor(TestFixture.PROVINCE, TestFixture.HOUSEHOLD));
+    Assert.assertFalse(closure.isAncestor(TestFixture.HOUSEHOLD, TestFixture.PROVINCE));
+    Assert.assertFalse(closure.isAncestor(TestFixture.PROVINCE, TestFixture.PROVINCE));
+    Assert.assertFalse(closure.isAncestor(TestFixture.PROVINCE, TestFixture.HEALTH_FACILITY));
+    
+    Assert.assertTrue(closure.canBeChildOf(TestFixture.DISTRICT, TestFixture.PROVINCE));
+    Assert.assertFalse(closure.canBeChildOf(TestFixture.COMMUNE, TestFixture.PROVINCE));
+    Assert.assertFalse(closure.canBeChildOf(TestFixture.PROVINCE, TestFixture.DISTRICT));
+    
+    Assert.assertEquals(3, closure.getDepth(TestFixture.VILLAGE));
+    Assert.assertEquals(-1, closure.getDepth(TestFixture.HEALTH_FACILITY));
+    
+    Assert.assertEquals(Arrays.asList(TestFixture.PROVINCE, TestFixture.DISTRICT, TestFixture.COMMUNE, TestFixture.VILLAGE), codes(closure.getPath(TestFixture.VILLAGE)));
+    Assert.assertEquals(Arrays.asList(TestFixture.COMMUNE, TestFixture.DISTRICT, TestFixture.PROVINCE), codes(closure.getAncestors(TestFixture.VILLAGE)));
+    Assert.assertEquals(Arrays.asList(TestFixture.COMMUNE, TestFixture.VILLAGE, TestFixture.HOUSEHOLD), codes(closure.getDescendants(TestFixture.DISTRICT)));
+    Assert.assertEquals(Arrays.asList(TestFixture.DISTRICT), codes(closure.getChildren(TestFixture.PROVINCE)));
+    Assert.assertTrue(closure.getDescendants(TestFixture.HOUSEHOLD).isEmpty());
+    
+    HierarchyClosure health = cache.getHierarchyClosure(TestFixture.HEALTH_ADMINISTRATIVE);
+    Assert.assertTrue(health.canBeChildOf(TestFixture.HEALTH_FACILITY, TestFixture.COMMUNE));
+    Assert.assertFalse(health.contains(TestFixture.VILLAGE));
+    
+    // Publishing the hierarchy again rebuilds the index
+    HierarchyType geoPolitical = cache.getHierachyType(TestFixture.GEOPOLITICAL).get();
+    cache.addHierarchyType(geoPolitical);
+    
+    Assert.assertNotSame(closure, cache.getHierarchyClosure(TestFixture.GEOPOLITICAL));
+    
+    // Adding nodes to a published hierarchy rebuilds the index as well
+    HierarchyType test = MetadataFactory.newHierarchyType("CLOSURE_TEST", "Closure Test", "", registryServerInterface);
+    HierarchyNode province = new HierarchyNode(cache.getGeoObjectType(TestFixture.PROVINCE).get());
+    test.addRootGeoObjects(province);
+    
+    try
+    {
+      HierarchyClosure before = cache.getHierarchyClosure(test.getCode());
+      Assert.assertFalse(before.contains(TestFixture.DISTRICT));
+      
+      HierarchyNode district = new HierarchyNode(cache.getGeoObjectType(TestFixture.DISTRICT).get());
+      district.addChild(new HierarchyNode(cache.getGeoObjectType(TestFixture.COMMUNE).get()));
+      province.addChild(district);
+      
+      HierarchyClosure after = cache.getHierarchyClosure(test.getCode());
+      Assert.assertNotSame(before, after);
+      Assert.assertTrue(after.isAncestor(TestFixture.PROVINCE, TestFixture.COMMUNE));
+      
+      // Nodes below an attached node count as well
+      district.getChildren().get(0).addChild(new HierarchyNode(cache.getGeoObjectType(TestFixture.VILLAGE).get()));
+      
+      Assert.assertTrue(cache.getHierarchyClosure(test.getCode()).contains(TestFixture.VILLAGE));
+      Assert.assertSame(cache.getHierarchyClosure(test.getCode()), cache.getHierarchyClosure(test.getCode()));
+    }
+    finally
+    {
+      cache.removeHierarchyType(test.getCode());
+    }
+  }
+  
+  private static List<String> codes(List<GeoObjectType> geoObjectTypes)
+  {
+    return geoObjectTypes.stream().map(GeoObjectType::getCode).collect(Collectors.toList());
+  }
+  
   @Test
   public void testCreateGeoObject()
   {
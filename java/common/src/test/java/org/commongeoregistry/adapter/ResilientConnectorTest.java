@@ -0,0 +1,127 @@
+package org.commongeoregistry.adapter;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+
+import org.commongeoregistry.adapter.constants.RegistryUrls;
+import org.commongeoregistry.adapter.http.ResilientConnector;
+import org.commongeoregistry.adapter.http.ResponseException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ResilientConnectorTest
+{
+
+  @Test
+  public void testResilientConnector() throws Exception
+  {
+    Map<String, String> params = Collections.singletonMap(RegistryUrls.GEO_OBJECT_GET_PARAM_ID, "blarg");
+    
+    FaultInjectingConnector faulty = new FaultInjectingConnector("fast");
+    ResilientConnector connector = new ResilientConnector(faulty);
+    connector.setBackoff(1);
+    connector.setFailureThreshold(3);
+    connector.setOpenDuration(200);
+    
+    // Failed GETs and retryable statuses are retried
+    faulty.fail(0).respond(0, 503, "").respond(0, 200, "ok");
+    
+    Assert.assertEquals("ok", connector.httpGet(RegistryUrls.GEO_OBJECT_GET, params).getAsString());
+    Assert.assertEquals(3, faulty.getRequests());
+    Assert.assertEquals(2, connector.getRetryCount());
+    
+    // POSTs are not retried unless they are idempotent
+    faulty.fail(0);
+    
+    try
+    {
+      connector.httpPost(RegistryUrls.GEO_OBJECT_CREATE, "{}");
+      
+      Assert.fail("Retried a POST");
+    }
+    catch (RuntimeException e)
+    {
+      Assert.assertEquals(4, faulty.getRequests());
+    }
+    
+    faulty.fail(0);
+    
+    Assert.assertEquals("fast", connector.httpPost(RegistryUrls.GEO_OBJECT_GET_BULK, "{}").getAsString());
+    
+    // Attempts which do not answer in time fail and are cancelled
+    connector.setHedgePercentile(0);
+    
+    for (int i = 0; i < 50; i++)
+    {
+      connector.httpGet(RegistryUrls.GEO_OBJECT_GET, params);
+    }
+    
+    CountDownLatch never = new CountDownLatch(1);
+    faulty.respond(never, 200, "never");
+    
+    connector.setMaxRetries(0);
+    connector.setTimeout(100);
+    
+    try
+    {
+      connector.httpGet(RegistryUrls.GEO_OBJECT_GET, params);
+      
+      Assert.fail("Received a response after the timeout");
+    }
+    catch (RuntimeException e)
+    {
+      Assert.assertTrue(e.getCause() instanceof TimeoutException);
+    }
+    
+    // GETs slower than the usual latency are hedged, the first response wins and the other attempt is cancelled
+    connector.setTimeout(ResilientConnector.DEFAULT_TIMEOUT);
+    connector.setHedgePercentile(ResilientConnector.DEFAULT_HEDGE_PERCENTILE);
+    
+    CountDownLatch slow = new CountDownLatch(1);
+    faulty.respond(slow, 200, "slow");
+    
+    Assert.assertEquals("fast", connector.httpGet(RegistryUrls.GEO_OBJECT_GET, params).getAsString());
+    Assert.assertEquals(1, connector.getHedgeCount());
+    
+    for (int i = 0; i < 500 && faulty.getInterrupted() < 2; i++)
+    {
+      Thread.sleep(10);
+    }
+    
+    Assert.assertEquals(2, faulty.getInterrupted());
+    
+    // Consecutive failures open the circuit, requests fail fast until the trial request succeeds
+    connector.setHedgePercentile(0);
+    
+    for (int i = 0; i < 3; i++)
+    {
+      faulty.respond(0, 500, "");
+      
+      Assert.assertEquals(500, connector.httpGet(RegistryUrls.GEO_OBJECT_GET, params).getStatusCode());
+    }
+    
+    Assert.assertTrue(connector.isOpen());
+    
+    int requests = faulty.getRequests();
+    
+    try
+    {
+      connector.httpGet(RegistryUrls.GEO_OBJECT_GET, params);
+      
+      Assert.fail("Sent a request while the circuit was open");
+    }
+    catch (ResponseException e)
+    {
+      Assert.assertEquals(503, e.getStatus());
+      Assert.assertEquals(requests, faulty.getRequests());
+      Assert.assertEquals(1, connector.getRejectedCount());
+    }
+    
+    Thread.sleep(250);
+    
+    Assert.assertEquals("fast", connector.httpGet(RegistryUrls.GEO_OBJECT_GET, params).getAsString());
+    Assert.assertFalse(connector.isOpen());
+  }
+}
@@ -1,21 +1,34 @@
 package org.commongeoregistry.adapter;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.commongeoregistry.adapter.action.AbstractAction;
 import org.commongeoregistry.adapter.action.AddChildAction;
 import org.commongeoregistry.adapter.action.CreateAction;
 import org.commongeoregistry.adapter.action.DeleteAction;
 import org.commongeoregistry.adapter.action.UpdateAction;
+import org.commongeoregistry.adapter.constants.DefaultAttribute;
 import org.commongeoregistry.adapter.constants.DefaultTerms;
 import org.commongeoregistry.adapter.constants.GeometryType;
+import org.commongeoregistry.adapter.dataaccess.Attribute;
+import org.commongeoregistry.adapter.dataaccess.AttributeTerm;
 import org.commongeoregistry.adapter.dataaccess.ChildTreeNode;
 import org.commongeoregistry.adapter.dataaccess.GeoObject;
+import org.commongeoregistry.adapter.dataaccess.GeoObjectCodec;
 import org.commongeoregistry.adapter.dataaccess.ParentTreeNode;
+import org.commongeoregistry.adapter.id.EmptyIdCacheException;
+import org.commongeoregistry.adapter.json.GeoJSONCodec;
+import org.commongeoregistry.adapter.json.JsonStreams;
 import org.commongeoregistry.adapter.metadata.AttributeBooleanType;
 import org.commongeoregistry.adapter.metadata.AttributeCharacterType;
 import org.commongeoregistry.adapter.metadata.AttributeDateType;
+import org.commongeoregistry.adapter.metadata.AttributeFloatType;
 import org.commongeoregistry.adapter.metadata.AttributeIntegerType;
 import org.commongeoregistry.adapter.metadata.AttributeTermType;
 import org.commongeoregistry.adapter.metadata.AttributeType;
@@ -24,6 +37,14 @@ import org.commongeoregistry.adapter.metadata.HierarchyType;
 import org.commongeoregistry.adapter.metadata.MetadataFactory;
 import org.junit.Assert;
 import org.junit.Test;
+import org.wololo.jts2geojson.GeoJSONReader;
+import org.wololo.jts2geojson.GeoJSONWriter;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.WKTReader;
 
 public class SerializationTest
 {
@@ -237,6 +258,59 @@ public class SerializationTest
     Assert.assertEquals(ptOne.getChildren().get(0).getHierachyType(), ptOne2.getChildren().get(0).getHierachyType());
   }
   
+  /**
+   * Tests that the streaming decoder does not depend on the order of the properties in the tree node JSON.
+   */
+  @Test
+  public void testChildTreeNodePropertyOrder()
+  {
+    RegistryAdapterServer registry = new RegistryAdapterServer(new MockIdService());
+    
+    TestFixture.defineExampleHierarchies(registry);
+    HierarchyType geoPolitical = registry.getMetadataCache().getHierachyType(TestFixture.GEOPOLITICAL).get();
+    
+    GeoObject pOne = TestFixture.createGeoObject(registry, "pOne", TestFixture.PROVINCE);
+    GeoObject dOne = TestFixture.createGeoObject(registry, "dOne", TestFixture.DISTRICT);
+    GeoObject cOne = TestFixture.createGeoObject(registry, "cOne", TestFixture.COMMUNE);
+    
+    JsonObject joCommune = new JsonObject();
+    joCommune.add(ChildTreeNode.JSON_CHILDREN, new JsonArray());
+    joCommune.addProperty(ChildTreeNode.JSON_HIERARCHY_TYPE, geoPolitical.getCode());
+    joCommune.add(ChildTreeNode.JSON_GEO_OBJECT, cOne.toJSON());
+    
+    JsonArray jaDistrictChildren = new JsonArray();
+    jaDistrictChildren.add(joCommune);
+    
+    JsonObject joDistrict = new JsonObject();
+    joDistrict.add(ChildTreeNode.JSON_CHILDREN, jaDistrictChildren);
+    joDistrict.add(ChildTreeNode.JSON_GEO_OBJECT, dOne.toJSON());
+    joDistrict.addProperty(ChildTreeNode.JSON_HIERARCHY_TYPE, geoPolitical.getCode());
+    joDistrict.addProperty("unknownProperty", "ignored");
+    
+    JsonArray jaProvinceChildren = new JsonArray();
+    jaProvinceChildren.add(joDistrict);
+    
+    JsonObject joProvince = new JsonObject();
+    joProvince.add(ChildTreeNode.JSON_CHILDREN, jaProvinceChildren);
+    joProvince.add(ChildTreeNode.JSON_GEO_OBJECT, pOne.toJSON());
+    
+    ChildTreeNode ptOne = ChildTreeNode.fromJSON(joProvince.toString(), registry);
+    
+    Assert.assertEquals(pOne.getUid(), ptOne.getGeoObject().getUid());
+    Assert.assertNull(ptOne.getHierachyType());
+    Assert.assertEquals(1, ptOne.getChildren().size());
+    
+    ChildTreeNode dtOne = ptOne.getChildren().get(0);
+    Assert.assertEquals(dOne.getUid(), dtOne.getGeoObject().getUid());
+    Assert.assertEquals(geoPolitical, dtOne.getHierachyType());
+    Assert.assertEquals(1, dtOne.getChildren().size());
+    
+    ChildTreeNode ctOne = dtOne.getChildren().get(0);
+    Assert.assertEquals(cOne.getUid(), ctOne.getGeoObject().getUid());
+    Assert.assertEquals(cOne.getGeometry(), ctOne.getGeoObject().getGeometry());
+    Assert.assertEquals(0, ctOne.getChildren().size());
+  }
+  
   @Test
   public void testParentTreeNode()
   {
@@ -287,6 +361,301 @@ public class SerializationTest
     Assert.assertEquals(ctOne.getParents().get(0).getHierachyType(), ctOne2.getParents().get(0).getHierachyType());
   }
   
+  /**
+   * Tests that the streaming writers produce the same JSON as the toJSON() methods and that empty values are written
+   * the same way they always have been.
+   */
+  @Test
+  public void testStreamingWriter()
+  {
+    RegistryAdapterServer registry = new RegistryAdapterServer(new MockIdService());
+    TestFixture.defineExampleHierarchies(registry);
+    
+    GeoObjectType state = MetadataFactory.newGeoObjectType("State", GeometryType.POLYGON, "State", "", false, registry);
+    state.addAttribute(AttributeType.factory("testDate",  "testDateLocalName", "testDateLocalDescrip", AttributeDateType.TYPE));
+    state.addAttribute(AttributeType.factory("testInteger",  "testIntegerLocalName", "testIntegerLocalDescrip", AttributeIntegerType.TYPE));
+    state.addAttribute(AttributeType.factory("testFloat",  "testFloatLocalName", "testFloatLocalDescrip", AttributeFloatType.TYPE));
+    state.addAttribute(AttributeType.factory("testBoolean",  "testBooleanName", "testBooleanDescrip", AttributeBooleanType.TYPE));
+    
+    GeoObject geoObject = registry.newGeoObjectInstance("State");
+    geoObject.setWKTGeometry("POLYGON ((10000 10000, 12300 40000, 16800 50000, 10000 10000))");
+    geoObject.setCode("Colorado");
+    geoObject.setValue("testFloat", 2.5F);
+    geoObject.setValue("testBoolean", true);
+    
+    String sJson = JsonStreams.toString(geoObject::writeTo);
+    Assert.assertEquals(geoObject.toJSON().toString(), sJson);
+    
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    geoObject.writeTo(out);
+    Assert.assertEquals(sJson, new String(out.toByteArray(), StandardCharsets.UTF_8));
+    
+    JsonObject props = geoObject.toJSON().getAsJsonObject(GeoObject.JSON_PROPERTIES);
+    Assert.assertFalse(props.has("testDate"));
+    Assert.assertTrue(props.get("testInteger").isJsonNull());
+    Assert.assertEquals(2.5F, props.get("testFloat").getAsFloat(), 0F);
+    Assert.assertEquals("true", props.get("testBoolean").getAsString());
+    Assert.assertEquals("", props.get(GeoObject.LOCALIZED_DISPLAY_LABEL).getAsString());
+    
+    Assert.assertEquals(state.toJSON().toString(), JsonStreams.toString(state::writeTo));
+    
+    HierarchyType geoPolitical = registry.getMetadataCache().getHierachyType(TestFixture.GEOPOLITICAL).get();
+    Assert.assertEquals(geoPolitical.toJSON().toString(), JsonStreams.toString(geoPolitical::writeTo));
+    
+    GeoObject pOne = TestFixture.createGeoObject(registry, "pOne", TestFixture.PROVINCE);
+    GeoObject dOne = TestFixture.createGeoObject(registry, "dOne", TestFixture.DISTRICT);
+    
+    ChildTreeNode ptnOne = new ChildTreeNode(pOne, null);
+    ptnOne.addChild(new ChildTreeNode(dOne, geoPolitical));
+    Assert.assertEquals(ptnOne.toJSON().toString(), JsonStreams.toString(ptnOne::writeTo));
+    
+    ParentTreeNode dtnOne = new ParentTreeNode(dOne, null);
+    dtnOne.addParent(new ParentTreeNode(pOne, geoPolitical));
+    Assert.assertEquals(dtnOne.toJSON().toString(), JsonStreams.toString(dtnOne::writeTo));
+    
+    CreateAction create = new CreateAction(geoObject);
+    Assert.assertEquals(create.toJSON().toString(), JsonStreams.toString(create::writeTo));
+    Assert.assertEquals(geoObject.toJSON(), create.getObjJson());
+  }
+  
+  /**
+   * Tests that every kind of geometry survives a round trip through the GeoJSON codec and that the codec agrees with
+   * jts2geojson in both directions.
+   */
+  @Test
+  public void testGeometryCodec() throws Exception
+  {
+    String[] wkts = new String[] {
+        "POINT (30 10)",
+        "POINT (30 10 5)",
+        "LINESTRING (30 10, 10 30, 40 40)",
+        "POLYGON ((35 10, 45 45, 15 40, 10 20, 35 10), (20 30, 35 35, 30 20, 20 30))",
+        "MULTIPOINT ((10 40), (40 30), (20 20), (30 10))",
+        "MULTILINESTRING ((10 10, 20 20, 10 40), (40 40, 30 30, 40 20, 30 10))",
+        "MULTIPOLYGON (((40 40, 20 45, 45 30, 40 40)), ((20 35, 10 30, 10 10, 30 5, 45 20, 20 35), (30 20, 20 15, 20 25, 30 20)))"
+    };
+    
+    WKTReader wktReader = new WKTReader();
+    
+    for (String wkt : wkts)
+    {
+      Geometry geometry = wktReader.read(wkt);
+      
+      String sJson = JsonStreams.toString(writer -> GeoJSONCodec.write(geometry, writer));
+      Geometry geometry2 = JsonStreams.read(sJson, GeoJSONCodec::read);
+      
+      Assert.assertTrue(wkt, geometry.equalsExact(geometry2));
+      Assert.assertTrue(wkt, geometry.equals(new GeoJSONReader().read(sJson)));
+      Assert.assertTrue(wkt, geometry.equals(JsonStreams.read(new GeoJSONWriter().write(geometry).toString(), GeoJSONCodec::read)));
+    }
+    
+    Geometry point = wktReader.read("POINT (30 10 5)");
+    Assert.assertEquals("{\"type\":\"Point\",\"coordinates\":[30.0,10.0,5.0]}", JsonStreams.toString(writer -> GeoJSONCodec.write(point, writer)));
+    
+    // The coordinates may arrive before the type
+    Geometry line = JsonStreams.read("{\"coordinates\":[[30,10],[10,30]],\"bbox\":[10,10,30,30],\"type\":\"LineString\"}", GeoJSONCodec::read);
+    Assert.assertTrue(line.equalsExact(wktReader.read("LINESTRING (30 10, 10 30)")));
+    
+    Geometry collection = wktReader.read("GEOMETRYCOLLECTION (POINT (40 10), LINESTRING (10 10, 20 20, 10 40))");
+    Assert.assertTrue(collection.equalsExact(JsonStreams.read(JsonStreams.toString(writer -> GeoJSONCodec.write(collection, writer)), GeoJSONCodec::read)));
+    
+    RegistryAdapterServer registry = new RegistryAdapterServer(new MockIdService());
+    TestFixture.defineExampleHierarchies(registry);
+    
+    GeoObject geoObject = TestFixture.createGeoObject(registry, "PROV_ONE", TestFixture.PROVINCE);
+    JsonObject joGeoObject = geoObject.toJSON();
+    joGeoObject.add(GeoObject.JSON_GEOMETRY, JsonNull.INSTANCE);
+    
+    Assert.assertNull(GeoObject.fromJSON(registry, joGeoObject.toString()).getGeometry());
+  }
+  
+  /**
+   * Tests that the encode and decode plans are cached per type, rebuilt when the type changes and that properties
+   * written in any order can still be decoded.
+   */
+  @Test
+  public void testGeoObjectCodec()
+  {
+    RegistryAdapterServer registry = new RegistryAdapterServer(new MockIdService());
+    
+    GeoObjectType state = MetadataFactory.newGeoObjectType("State", GeometryType.POLYGON, "State", "", false, registry);
+    
+    GeoObjectCodec codec = registry.getMetadataCache().getGeoObjectCodec(state);
+    Assert.assertSame(codec, registry.getMetadataCache().getGeoObjectCodec(state));
+    Assert.assertEquals(DefaultAttribute.TYPE.getName(), codec.getAttributeTypes()[0].getName());
+    
+    state.addAttribute(AttributeType.factory("testInteger",  "testIntegerLocalName", "testIntegerLocalDescrip", AttributeIntegerType.TYPE));
+    Assert.assertFalse(codec.isValid(state));
+    
+    GeoObjectCodec codec2 = registry.getMetadataCache().getGeoObjectCodec(state);
+    Assert.assertNotSame(codec, codec2);
+    Assert.assertEquals(state.getAttributeMap().size(), codec2.getAttributeTypes().length);
+    
+    registry.getMetadataCache().addGeoObjectType(state);
+    Assert.assertNotSame(codec2, registry.getMetadataCache().getGeoObjectCodec(state));
+    
+    GeoObject geoObject = registry.newGeoObjectInstance("State");
+    geoObject.setCode("Colorado");
+    geoObject.setValue("testInteger", 3);
+    
+    JsonObject json = geoObject.toJSON();
+    JsonObject props = json.getAsJsonObject(GeoObject.JSON_PROPERTIES);
+    Assert.assertEquals(DefaultAttribute.TYPE.getName(), props.entrySet().iterator().next().getKey());
+    
+    // Move the type to the end of the properties
+    JsonObject reordered = new JsonObject();
+    props.entrySet().stream().filter(e -> !e.getKey().equals(GeoObject.JSON_TYPE)).forEach(e -> reordered.add(e.getKey(), e.getValue()));
+    reordered.add(GeoObject.JSON_TYPE, props.get(GeoObject.JSON_TYPE));
+    reordered.addProperty("unknownProperty", "ignored");
+    json.add(GeoObject.JSON_PROPERTIES, reordered);
+    
+    GeoObject geoObject2 = GeoObject.fromJSON(registry, json.toString());
+    Assert.assertEquals(geoObject.toJSON().toString(), geoObject2.toJSON().toString());
+    Assert.assertEquals(3, geoObject2.getValue("testInteger"));
+    
+    registry.getMetadataCache().rebuild();
+    TestFixture.defineExampleHierarchies(registry);
+    GeoObjectType province = registry.getMetadataCache().getGeoObjectType(TestFixture.PROVINCE).get();
+    Assert.assertTrue(registry.getMetadataCache().getGeoObjectCodec(province).isValid(province));
+  }
+  
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testAttributeSlots()
+  {
+    RegistryAdapterServer registry = new RegistryAdapterServer(new MockIdService());
+    
+    GeoObjectType state = MetadataFactory.newGeoObjectType("State", GeometryType.POLYGON, "State", "", false, registry);
+    
+    Assert.assertEquals(state.getAttributeMap().size(), state.getSlotCount());
+    Assert.assertEquals(-1, state.getSlot("unknown"));
+    
+    GeoObject geoObject = registry.newGeoObjectInstance("State");
+    
+    // Attribute views read and write the value stored by the GeoObject
+    Attribute code = geoObject.getAttribute(GeoObject.CODE);
+    code.setValue("Colorado");
+    Assert.assertEquals("Colorado", geoObject.getCode());
+    
+    geoObject.setCode("Utah");
+    Assert.assertEquals("Utah", code.getValue());
+    Assert.assertNull(geoObject.getAttribute("unknown"));
+    
+    // Attributes added after the GeoObject was created get a new slot
+    int slot = state.getSlot(GeoObject.CODE);
+    state.addAttribute(AttributeType.factory("testInteger",  "testIntegerLocalName", "testIntegerLocalDescrip", AttributeIntegerType.TYPE));
+    Assert.assertEquals(slot, state.getSlot(GeoObject.CODE));
+    Assert.assertEquals(state.getSlotCount() - 1, state.getSlot("testInteger"));
+    
+    Assert.assertNull(geoObject.getValue("testInteger"));
+    geoObject.setValue("testInteger", 7);
+    Assert.assertEquals(7, geoObject.getValue("testInteger"));
+    Assert.assertEquals(7, GeoObject.fromJSON(registry, geoObject.toJSON().toString()).getValue("testInteger"));
+    
+    // Term values are normalized when written, reading the terms leaves the stored value as it is
+    Term pending = registry.getMetadataCache().getTerm(DefaultTerms.GeoObjectStatusTerm.PENDING.code).get();
+    Term active = registry.getMetadataCache().getTerm(DefaultTerms.GeoObjectStatusTerm.ACTIVE.code).get();
+    
+    geoObject.setStatus(pending);
+    Assert.assertEquals(pending, geoObject.getStatus());
+    Assert.assertEquals(Collections.singletonList(pending), geoObject.getValue(DefaultAttribute.STATUS.getName()));
+    
+    AttributeTerm status = (AttributeTerm) geoObject.getAttribute(DefaultAttribute.STATUS.getName());
+    status.addTerm(active);
+    Assert.assertEquals(2, status.getTerms().size());
+    Assert.assertEquals(pending, geoObject.getStatus());
+    
+    // The list of terms writes through to the attribute
+    status.getTerms().add(pending);
+    Assert.assertEquals(3, status.getTerms().size());
+    Assert.assertEquals(3, ((List<?>) geoObject.getValue(DefaultAttribute.STATUS.getName())).size());
+    
+    status.getTerms().remove(0);
+    Assert.assertEquals(active, geoObject.getStatus());
+    
+    ((List<?>) geoObject.getValue(DefaultAttribute.STATUS.getName())).remove(0);
+    Assert.assertEquals(pending, geoObject.getStatus());
+    Assert.assertEquals(1, status.getTerms().size());
+    
+    geoObject.setValue(DefaultAttribute.STATUS.getName(), Arrays.asList(active));
+    Assert.assertEquals(active, geoObject.getStatus());
+    Assert.assertEquals(1, status.getTerms().size());
+    
+    status.clearTerms();
+    Assert.assertNull(geoObject.getStatus());
+    Assert.assertEquals(0, status.getTerms().size());
+    
+    try
+    {
+      geoObject.setValue("testInteger", "7");
+      
+      Assert.fail("Expected the value to be rejected");
+    }
+    catch (ClassCastException e)
+    {
+      Assert.assertEquals(7, geoObject.getValue("testInteger"));
+    }
+    
+    // Attributes passed to the legacy constructor are bound to the GeoObject
+    Map<String, Attribute> attributeMap = GeoObject.buildAttributeMap(state);
+    attributeMap.get(GeoObject.CODE).setValue("Nevada");
+    
+    GeoObject legacy = new GeoObject(state, GeometryType.POLYGON, attributeMap);
+    Assert.assertEquals("Nevada", legacy.getCode());
+    Assert.assertEquals("State", legacy.getType().getCode());
+    
+    attributeMap.get(GeoObject.CODE).setValue("Idaho");
+    Assert.assertEquals("Idaho", legacy.getCode());
+    
+    // The deprecated toJSON adds the same property as writeTo
+    JsonObject props = new JsonObject();
+    attributeMap.get(GeoObject.CODE).toJSON(props);
+    Assert.assertEquals("Idaho", props.get(GeoObject.CODE).getAsString());
+  }
+  
+  @Test
+  public void testGeoObjectPrototype()
+  {
+    MockIdService idService = new MockIdService();
+    RegistryAdapterServer registry = new RegistryAdapterServer(idService);
+    TestFixture.defineExampleHierarchies(registry);
+    
+    Term newStatus = registry.getMetadataCache().getTerm(DefaultTerms.GeoObjectStatusTerm.NEW.code).get();
+    Term pending = registry.getMetadataCache().getTerm(DefaultTerms.GeoObjectStatusTerm.PENDING.code).get();
+    
+    GeoObject geoObj1 = registry.newGeoObjectInstance(TestFixture.PROVINCE);
+    GeoObject geoObj2 = registry.newGeoObjectInstance(TestFixture.PROVINCE);
+    Assert.assertEquals(TestFixture.PROVINCE, geoObj1.getType().getCode());
+    Assert.assertEquals(newStatus, geoObj1.getStatus());
+    Assert.assertNotNull(geoObj1.getUid());
+    Assert.assertNotEquals(geoObj1.getUid(), geoObj2.getUid());
+    
+    // Instances do not share their values with the prototype
+    geoObj1.setStatus(pending);
+    ( (AttributeTerm) geoObj2.getAttribute(DefaultAttribute.STATUS.getName()) ).addTerm(pending);
+    Assert.assertEquals(newStatus, registry.newGeoObjectInstance(TestFixture.PROVINCE).getStatus());
+    
+    geoObj1.setCode("PROV_ONE");
+    String json = geoObj1.toJSON().toString();
+    
+    // Decoding does not take ids from the id service
+    try
+    {
+      while (true)
+      {
+        idService.next();
+      }
+    }
+    catch (EmptyIdCacheException e)
+    {
+      // Expected
+    }
+    
+    GeoObject geoObj3 = GeoObject.fromJSON(registry, json);
+    Assert.assertEquals(geoObj1.getUid(), geoObj3.getUid());
+    Assert.assertEquals(pending, geoObj3.getStatus());
+  }
+  
   @Test
   public void testActions()
   {
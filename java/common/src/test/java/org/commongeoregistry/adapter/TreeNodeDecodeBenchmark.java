@@ -0,0 +1,121 @@
+package org.commongeoregistry.adapter;
+
+import org.commongeoregistry.adapter.dataaccess.ChildTreeNode;
+import org.commongeoregistry.adapter.dataaccess.GeoObject;
+import org.commongeoregistry.adapter.metadata.HierarchyType;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Compares the streaming {@link ChildTreeNode} decoder against the previous decoder which parsed the response into a
+ * DOM and re-parsed the string form of every nested object. Not run as part of the unit tests, launch the main method
+ * directly. The optional arguments are the fan out at each level below the province and the number of iterations.
+ */
+public class TreeNodeDecodeBenchmark
+{
+  public static void main(String[] args)
+  {
+    int fanOut = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+    int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+    MockIdService idService = new MockIdService();
+    RegistryAdapterServer registry = new RegistryAdapterServer(idService);
+    TestFixture.defineExampleHierarchies(registry);
+
+    HierarchyType geoPolitical = registry.getMetadataCache().getHierachyType(TestFixture.GEOPOLITICAL).get();
+    String[] levels = new String[] { TestFixture.PROVINCE, TestFixture.DISTRICT, TestFixture.COMMUNE, TestFixture.VILLAGE, TestFixture.HOUSEHOLD };
+
+    int nodes = 0;
+    for (int i = 0, level = 1; i < levels.length; i++, level *= fanOut)
+    {
+      nodes += level;
+    }
+
+    idService.populate(nodes);
+    ChildTreeNode root = buildTree(registry, geoPolitical, levels, 0, fanOut, "0");
+    String json = root.toJSON().toString();
+
+    System.out.println("Nodes: " + nodes + ", response size: " + ( json.length() / 1024 ) + " KB");
+
+    for (int i = 0; i < 3; i++)
+    {
+      idService.populate(nodes);
+      legacyFromJSON(json, registry);
+
+      idService.populate(nodes);
+      ChildTreeNode.fromJSON(json, registry);
+    }
+
+    long legacy = 0;
+    long streaming = 0;
+
+    for (int i = 0; i < iterations; i++)
+    {
+      idService.populate(nodes);
+
+      long start = System.nanoTime();
+      legacyFromJSON(json, registry);
+      legacy += System.nanoTime() - start;
+
+      idService.populate(nodes);
+
+      start = System.nanoTime();
+      ChildTreeNode.fromJSON(json, registry);
+      streaming += System.nanoTime() - start;
+    }
+
+    System.out.println("DOM + re-parse: " + ( legacy / iterations / 1000000 ) + " ms/op");
+    System.out.println("Streaming:      " + ( streaming / iterations / 1000000 ) + " ms/op");
+  }
+
+  private static ChildTreeNode buildTree(RegistryAdapter registry, HierarchyType hierarchyType, String[] levels, int depth, int fanOut, String key)
+  {
+    GeoObject geoObject = TestFixture.createGeoObject(registry, levels[depth] + "_" + key, levels[depth]);
+    ChildTreeNode node = new ChildTreeNode(geoObject, depth == 0 ? null : hierarchyType);
+
+    if (depth + 1 < levels.length)
+    {
+      for (int i = 0; i < fanOut; i++)
+      {
+        node.addChild(buildTree(registry, hierarchyType, levels, depth + 1, fanOut, key + "_" + i));
+      }
+    }
+
+    return node;
+  }
+
+  /**
+   * The decoder as it was implemented before the streaming decoder.
+   */
+  private static ChildTreeNode legacyFromJSON(String sJson, RegistryAdapter registry)
+  {
+    JsonParser parser = new JsonParser();
+
+    JsonObject oJson = parser.parse(sJson).getAsJsonObject();
+
+    GeoObject geoObj = GeoObject.fromJSON(registry, oJson.get(ChildTreeNode.JSON_GEO_OBJECT).getAsJsonObject().toString());
+
+    HierarchyType hierarchyType = null;
+    if (oJson.has(ChildTreeNode.JSON_HIERARCHY_TYPE))
+    {
+      hierarchyType = registry.getMetadataCache().getHierachyType(oJson.get(ChildTreeNode.JSON_HIERARCHY_TYPE).getAsString()).get();
+    }
+
+    ChildTreeNode tn = new ChildTreeNode(geoObj, hierarchyType);
+
+    if (oJson.has(ChildTreeNode.JSON_CHILDREN))
+    {
+      JsonArray jaChildren = oJson.get(ChildTreeNode.JSON_CHILDREN).getAsJsonArray();
+      for (int i = 0; i < jaChildren.size(); ++i)
+      {
+        ChildTreeNode tnChild = legacyFromJSON(jaChildren.get(i).getAsJsonObject().toString(), registry);
+
+        tn.addChild(tnChild);
+      }
+    }
+
+    return tn;
+  }
+}